@@ -0,0 +1,232 @@
+package com.speedment.avromocker;
+
+import com.speedment.avromocker.commandline.Arguments;
+import com.speedment.avromocker.mocker.Answers;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import org.apache.avro.Schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static com.speedment.avromocker.mocker.MockerBuilderUtil.parseField;
+import static java.lang.String.format;
+
+/**
+ * Generates several unrelated files concurrently in one run. Every line in
+ * the manifest contains the paths to an Avro schema and a settings file, the
+ * number of records to generate and the path to the resulting data file,
+ * separated by whitespace. The number of records in the settings file is
+ * ignored. Paths are relative to the manifest. Empty lines and lines
+ * starting with {@code #} are ignored.
+ * <p>
+ * Entries are generated by a fixed number of threads. The schema and
+ * settings of every distinct pair are only parsed once, and the generators
+ * are shared by all entries that use them. Entry {@code i} is generated with
+ * the seed plus {@code i}, so the result does not depend on the number of
+ * threads. A summary of the overall progress is printed every second.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class Batch {
+
+    private final static Pattern WHITESPACE = Pattern.compile("\\s+");
+    private final static long REPORT_INTERVAL = 1_000;
+
+    static void run(File manifest, Arguments args) {
+        if (args.getAsBoolean("resume").orElse(false)) {
+            throw new IllegalArgumentException("Batches can't be resumed.");
+        } else if (args.getAsInt("verifySample").isPresent()) {
+            throw new IllegalArgumentException(
+                "Batches can't be verified while generating. Use -verify on the results.");
+        }
+
+        final File dir = manifest.getAbsoluteFile().getParentFile();
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(manifest.toPath());
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading manifest '%s'.", manifest
+            ), ex);
+        }
+
+        // Parse every distinct schema and settings pair once
+        final Map<List<File>, Plan> plans = new HashMap<>();
+        final List<Entry> entries = new ArrayList<>();
+        for (final String line : lines) {
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            final String[] columns = WHITESPACE.split(trimmed);
+            if (columns.length != 4) {
+                throw new IllegalArgumentException(format(
+                    "Expected '<schema> <settings> <count> <result>' in manifest, but found '%s'.",
+                    trimmed
+                ));
+            }
+
+            final long count;
+            try {
+                count = Long.parseLong(columns[2]);
+            } catch (final NumberFormatException ex) {
+                throw new IllegalArgumentException(format(
+                    "Invalid number of records '%s' in manifest.", columns[2]
+                ), ex);
+            }
+
+            final File schemaFile   = new File(dir, columns[0]);
+            final File settingsFile = new File(dir, columns[1]);
+            final Plan plan = plans.computeIfAbsent(
+                Arrays.asList(schemaFile.getAbsoluteFile(), settingsFile.getAbsoluteFile()),
+                key -> new Plan(schemaFile, settingsFile));
+
+            entries.add(new Entry(plan, count, new File(dir, columns[3])));
+        }
+
+        final long seed = args.getAsLong("seed").orElse(System.currentTimeMillis());
+        final double repeat = Main.repeat(args);
+        final int threads = args.getAsInt("threads")
+            .orElse(Runtime.getRuntime().availableProcessors());
+        final long total = entries.stream().mapToLong(e -> e.count).sum();
+
+        System.out.format("Using seed %d.%n", seed);
+        System.out.format("Generating %,d records to %d files using %d threads...%n",
+            total, entries.size(), threads);
+
+        final LongAdder generated = new LongAdder();
+        final AtomicInteger completed = new AtomicInteger();
+        final long timeStarted = System.currentTimeMillis();
+
+        final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "batch-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        reporter.scheduleAtFixedRate(() -> {
+            final long sum = generated.sum();
+            final double delta = (System.currentTimeMillis() - timeStarted) / 1000d;
+            System.out.format(
+                "...%d of %d files done. %,d of %,d rows created (%.2f rows/s).%n",
+                completed.get(), entries.size(), sum, total, sum / delta
+            );
+        }, REPORT_INTERVAL, REPORT_INTERVAL, TimeUnit.MILLISECONDS);
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry entry = entries.get(i);
+            final long entrySeed = seed + i;
+            futures.add(pool.submit(() -> {
+                final long started = System.currentTimeMillis();
+                final MockerBuilder builder = new MockerBuilder().withSeed(entrySeed).withSchema(entry.plan.schema)
+                    .withRepeat(repeat);
+                entry.plan.generators.forEach(builder::withAction);
+                Main.generate(entry.plan.schema, builder.build(), entrySeed,
+                    entry.count, entry.result, false, args, generated::add);
+                entry.millis = System.currentTimeMillis() - started;
+                completed.incrementAndGet();
+            }));
+        }
+
+        // Wait for every entry, even if some of them fail
+        int failed = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (final ExecutionException ex) {
+                failed++;
+                System.err.format("Error generating '%s': %s%n",
+                    entries.get(i).result, ex.getCause().getMessage());
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while generating batch.", ex);
+            }
+        }
+
+        pool.shutdown();
+        reporter.shutdownNow();
+
+        final double delta = (System.currentTimeMillis() - timeStarted) / 1000d;
+        System.out.println();
+        System.out.println("Summary:");
+        for (final Entry entry : entries) {
+            if (entry.millis >= 0) {
+                System.out.format("  %-40s %,15d rows %8.2f s%n",
+                    entry.result.getName(), entry.count, entry.millis / 1000d);
+            } else {
+                System.out.format("  %-40s %15s%n", entry.result.getName(), "failed");
+            }
+        }
+
+        System.out.format("Done! %,d records generated to %d files in %.2f s (%.2f rows/s).%n",
+            generated.sum(), entries.size() - failed, delta, generated.sum() / delta);
+
+        if (failed > 0) {
+            System.err.format("%d of %d files failed!%n", failed, entries.size());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The schema of an entry and the generators parsed from its settings.
+     */
+    private final static class Plan {
+
+        private final Schema schema;
+        private final Map<String, Function<Random, Object>> generators;
+
+        Plan(File schemaFile, File settingsFile) {
+            try {
+                this.schema = new Schema.Parser().parse(schemaFile);
+            } catch (final IOException ex) {
+                throw new IllegalArgumentException(format(
+                    "Error reading specified Avro Schema file '%s'.",
+                    schemaFile
+                ), ex);
+            }
+
+            this.generators = new LinkedHashMap<>();
+
+            try {
+                final Answers answers = new Answers(Files.readAllLines(settingsFile.toPath()));
+                answers.next("How many records should be generated: ");
+                for (final Schema.Field field : schema.getFields()) {
+                    final String key = field.name();
+                    generators.put(key, parseField(answers, key, field.schema()));
+                }
+            } catch (final IOException ex) {
+                throw new IllegalArgumentException(format(
+                    "Error reading settings file '%s'.", settingsFile
+                ), ex);
+            }
+        }
+    }
+
+    private final static class Entry {
+
+        private final Plan plan;
+        private final long count;
+        private final File result;
+        private volatile long millis = -1;
+
+        Entry(Plan plan, long count, File result) {
+            this.plan   = plan;
+            this.count  = count;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Should not be instantiated.
+     */
+    private Batch() {}
+}
@@ -0,0 +1,194 @@
+package com.speedment.avromocker;
+
+import com.speedment.avromocker.commandline.Arguments;
+import com.speedment.avromocker.mocker.Answers;
+import com.speedment.avromocker.mocker.Changes;
+import com.speedment.avromocker.mocker.KeySequence;
+import com.speedment.avromocker.mocker.KeySource;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import com.speedment.avromocker.output.Sink;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static com.speedment.avromocker.mocker.MockerBuilderUtil.parseField;
+import static java.lang.String.format;
+
+/**
+ * Generates a batch of changes against a base table generated earlier, for
+ * testing jobs that merge changes into a table. The base table is described
+ * by the same schema, settings and seed as when it was generated, but it is
+ * never read. Every change has an operation field that is set to the symbol
+ * of an insert, update or delete. The field is not part of the base table,
+ * so the settings file does not contain a strategy for it.
+ * <p>
+ * Inserts continue the key strategy of the base table, so keys generated
+ * with {@code incr} never collide with existing keys. Batch {@code n}
+ * inserts the records after those that could have been inserted by the
+ * batches before it, so batches can be generated in any order.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ * @see    Changes
+ */
+final class Delta {
+
+    private final static Pattern COMMA = Pattern.compile(",\\s*");
+    private final static String DEFAULT_OPERATION_FIELD = "op";
+    private final static String DEFAULT_OPERATIONS = "I,U,D";
+    private final static String DEFAULT_MIX = "1,8,1";
+
+    static void run(long batch, Arguments args) {
+        if (args.getAsBoolean("resume").orElse(false)) {
+            throw new IllegalArgumentException("Deltas can't be resumed.");
+        } else if (args.getAsString("sort").isPresent() || args.getAsInt("entities").isPresent()) {
+            throw new IllegalArgumentException("Deltas can't be sorted or generated for entities.");
+        } else if (args.getAsInt("verifySample").isPresent()) {
+            throw new IllegalArgumentException(
+                "Deltas can't be verified while generating since updates change the distributions.");
+        }
+
+        final String input = args.getAsStringOrThrow("schema");
+        final File settingsFile = new File(args.getAsString("settings").orElseThrow(() ->
+            new IllegalArgumentException("A delta requires the settings file of the base table.")));
+        final long seed = args.getAsLong("seed").orElseThrow(() ->
+            new IllegalArgumentException("A delta requires the seed of the base table."));
+        final long size = args.getAsLongOrThrow("changes");
+        final String key = args.getAsStringOrThrow("key");
+        final String operationField = args.getAsString("opField").orElse(DEFAULT_OPERATION_FIELD);
+        final String[] operations = COMMA.split(args.getAsString("ops").orElse(DEFAULT_OPERATIONS));
+        final double[] weights = weights(args.getAsString("mix").orElse(DEFAULT_MIX));
+        final double skew = args.getAsString("skew").map(Double::parseDouble).orElse(0d);
+        final File outputFile = new File(args.getAsString("result").orElseGet(() ->
+            (input.endsWith(".avsc") ? input.substring(0, input.length() - 5) : input)
+                + "-delta-" + batch + ".avro"));
+
+        if (operations.length != 3) {
+            throw new IllegalArgumentException(
+                "Expected the symbols of inserts, updates and deletes, like 'I,U,D'.");
+        }
+
+        final Schema schema;
+        try {
+            schema = new Schema.Parser().parse(new File(input));
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading specified Avro Schema file '%s'.", input
+            ), ex);
+        }
+
+        final Schema.Field operation = schema.getField(operationField);
+        if (operation == null) {
+            throw new IllegalArgumentException(format(
+                "The schema has no operation field '%s'.", operationField));
+        }
+        final Object[] symbols = symbols(operation, operations);
+
+        // Parse the strategies of the base table
+        final long total;
+        final Map<String, Function<Random, Object>> generators = new LinkedHashMap<>();
+        try {
+            final Answers answers = new Answers(Files.readAllLines(settingsFile.toPath()));
+            total = Long.parseLong(answers.next("How many records should be generated: "));
+            for (final Schema.Field field : schema.getFields()) {
+                if (field != operation) {
+                    generators.put(field.name(), parseField(answers, field.name(), field.schema()));
+                }
+            }
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading settings file '%s'.", settingsFile
+            ), ex);
+        }
+
+        final Function<Random, Object> keyGenerator = generators.get(key);
+        if (keyGenerator == null) {
+            throw new IllegalArgumentException(format(
+                "The key field '%s' does not exist in the base table.", key));
+        }
+        final KeySource keys = keyGenerator instanceof KeySequence
+            ? ((KeySequence) keyGenerator).keys(total) : null;
+
+        final MockerBuilder builder = new MockerBuilder().withSeed(seed).withSchema(schema)
+            .withRepeat(Main.repeat(args));
+        generators.forEach(builder::withAction);
+        final Changes changes = new Changes(builder.build(), total, key, keys,
+            seed, batch, size, weights, skew);
+
+        System.out.format("Using seed %d.%n", seed);
+        System.out.format("Generating batch %d of %,d changes against %,d records...%n",
+            batch, size, total);
+
+        final long[] counts = new long[3];
+        final GenericRecord record = new GenericData.Record(schema);
+        final long timeStarted = System.currentTimeMillis();
+        try (final Sink sink = Main.newSink(schema, outputFile, false, args, Optional.empty())) {
+            for (long i = 0; i < size; i++) {
+                final int op = changes.next(record, i);
+                record.put(operation.pos(), symbols[op]);
+                counts[op]++;
+                sink.append(record);
+
+                if (i % 1_000 == 999) {
+                    sink.flush();
+                }
+            }
+        } catch (final IOException ex) {
+            throw new RuntimeException(format(
+                "Error writing data to '%s'.", outputFile
+            ), ex);
+        }
+
+        final double delta = (System.currentTimeMillis() - timeStarted) / 1000d;
+        System.out.format("Done! %,d inserts, %,d updates and %,d deletes generated in %.2f s (%.2f rows/s).%n",
+            counts[Changes.INSERT], counts[Changes.UPDATE], counts[Changes.DELETE], delta, size / delta);
+    }
+
+    /**
+     * Returns the values to set the operation field to for inserts, updates
+     * and deletes. The field must be a string or an enum with the symbols.
+     */
+    private static Object[] symbols(Schema.Field field, String[] operations) {
+        switch (field.schema().getType()) {
+            case STRING : return operations;
+            case ENUM : {
+                final Object[] symbols = new Object[operations.length];
+                for (int i = 0; i < operations.length; i++) {
+                    if (!field.schema().hasEnumSymbol(operations[i])) {
+                        throw new IllegalArgumentException(format(
+                            "The operation field '%s' has no symbol '%s'.", field.name(), operations[i]));
+                    }
+                    symbols[i] = new GenericData.EnumSymbol(field.schema(), operations[i]);
+                }
+                return symbols;
+            }
+            default : throw new IllegalArgumentException(format(
+                "The operation field '%s' must be a string or an enum.", field.name()));
+        }
+    }
+
+    private static double[] weights(String mix) {
+        try {
+            return COMMA.splitAsStream(mix).mapToDouble(Double::parseDouble).toArray();
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException(format(
+                "Could not parse mix '%s'. Expected the weights of inserts, updates and deletes, like '1,8,1'.",
+                mix), ex);
+        }
+    }
+
+    /**
+     * Should not be instantiated.
+     */
+    private Delta() {}
+}
@@ -0,0 +1,172 @@
+package com.speedment.avromocker;
+
+import com.speedment.avromocker.commandline.Arguments;
+import com.speedment.avromocker.mocker.Answers;
+import com.speedment.avromocker.mocker.Mocker;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import com.speedment.avromocker.mocker.SchemaVersions;
+import com.speedment.avromocker.output.Sink;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaCompatibility.SchemaCompatibilityType;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+
+import static com.speedment.avromocker.mocker.MockerBuilderUtil.parseField;
+import static java.lang.String.format;
+
+/**
+ * Generates one logical dataset under several versions of its schema, for
+ * testing how readers resolve data written with other versions. The values
+ * are generated once per record for every field that is in any version and
+ * written to one file per version in the same pass. Strategies are given for
+ * all those fields, in the order they first appear in the versions.
+ * <p>
+ * Before generating, the result of {@code SchemaCompatibility} for every
+ * pair of versions is printed, so that the expected outcome of reading one
+ * file with another version is known.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ * @see    SchemaVersions
+ */
+final class Evolution {
+
+    private final static Pattern COMMA = Pattern.compile(",\\s*");
+
+    static void run(String versions, Arguments args, InputStream in) {
+        if (args.getAsBoolean("resume").orElse(false) || args.getAsString("shard").isPresent()) {
+            throw new IllegalArgumentException("Schema versions can't be resumed or sharded.");
+        } else if (args.getAsString("sort").isPresent() || args.getAsInt("entities").isPresent()) {
+            throw new IllegalArgumentException("Schema versions can't be sorted or generated for entities.");
+        } else if (args.getAsInt("verifySample").isPresent()) {
+            throw new IllegalArgumentException(
+                "Schema versions can't be verified while generating since the settings describe all versions.");
+        }
+
+        final List<String> inputs = new ArrayList<>();
+        final List<Schema> schemas = new ArrayList<>();
+        for (final String input : COMMA.split(versions)) {
+            try {
+                schemas.add(new Schema.Parser().parse(new File(input)));
+                inputs.add(input);
+            } catch (final IOException ex) {
+                throw new IllegalArgumentException(format(
+                    "Error reading specified Avro Schema file '%s'.", input
+                ), ex);
+            }
+        }
+
+        final SchemaVersions plan = new SchemaVersions(schemas);
+        printCompatibility(plan, inputs);
+
+        final Optional<String> directory = args.getAsString("result");
+        final File[] outputFiles = new File[inputs.size()];
+        for (int v = 0; v < inputs.size(); v++) {
+            final String input = inputs.get(v);
+            final File output = new File(input.endsWith(".avsc")
+                ? (input.substring(0, input.length() - 2) + "ro")
+                : (input + ".avro"));
+            outputFiles[v] = directory.map(d -> new File(d, output.getName())).orElse(output);
+        }
+
+        final long total;
+        final Mocker mocker;
+        final long seed = args.getAsLong("seed").orElse(System.currentTimeMillis());
+        try (final Scanner scn = new Scanner(in)) {
+            final Answers answers = Main.newAnswers(args, scn);
+            total = Long.parseLong(answers.next("How many records should be generated: "));
+
+            final MockerBuilder builder = new MockerBuilder().withSeed(seed).withSchema(plan.getPlan())
+                .withRepeat(Main.repeat(args));
+            for (final Schema.Field field : plan.getPlan().getFields()) {
+                builder.withAction(field.name(), parseField(answers, field.name(), field.schema()));
+            }
+            mocker = builder.build();
+        }
+
+        System.out.format("Using seed %d.%n", seed);
+        System.out.format("Generating %,d records in %d schema versions...%n", total, schemas.size());
+
+        final GenericRecord record = new GenericData.Record(plan.getPlan());
+        final GenericRecord[] targets = new GenericRecord[schemas.size()];
+        final Sink[] sinks = new Sink[schemas.size()];
+        final long timeStarted = System.currentTimeMillis();
+        try {
+            for (int v = 0; v < sinks.length; v++) {
+                targets[v] = new GenericData.Record(schemas.get(v));
+                sinks[v] = Main.newSink(schemas.get(v), outputFiles[v], false, args, Optional.empty());
+            }
+
+            mocker.seek(0);
+            for (long i = 0; i < total; i++) {
+                mocker.mock(record);
+                for (int v = 0; v < sinks.length; v++) {
+                    sinks[v].append(plan.project(record, v, targets[v]));
+                }
+
+                if (i % 1_000 == 999) {
+                    for (final Sink sink : sinks) {
+                        sink.flush();
+                    }
+                }
+            }
+        } catch (final IOException ex) {
+            throw new RuntimeException("Error writing schema versions.", ex);
+        } finally {
+            for (int v = 0; v < sinks.length; v++) {
+                if (sinks[v] != null) {
+                    try {
+                        sinks[v].close();
+                    } catch (final IOException ex) {
+                        System.err.format("Error closing '%s'.%n", outputFiles[v]);
+                    }
+                }
+            }
+        }
+
+        final double delta = (System.currentTimeMillis() - timeStarted) / 1000d;
+        long bytes = 0;
+        for (final File outputFile : outputFiles) {
+            System.out.format("%,15d bytes  %s%n", outputFile.length(), outputFile);
+            bytes += outputFile.length();
+        }
+        System.out.format("Done! %,d records in %d versions generated in %.2f s (%.2f rows/s, %.1f MB/s).%n",
+            total, schemas.size(), delta, total / delta, bytes / delta / 1_000_000);
+    }
+
+    /**
+     * Prints whether the data of every version can be read with every other
+     * version, with the readers as rows and the writers as columns.
+     */
+    private static void printCompatibility(SchemaVersions plan, List<String> inputs) {
+        System.out.println("Reader \\ writer compatibility:");
+        final StringBuilder header = new StringBuilder(format("%-4s", ""));
+        for (int w = 0; w < inputs.size(); w++) {
+            header.append(format(" %-12s", "v" + (w + 1)));
+        }
+        System.out.println(header);
+
+        for (int r = 0; r < inputs.size(); r++) {
+            final StringBuilder row = new StringBuilder(format("%-4s", "v" + (r + 1)));
+            for (int w = 0; w < inputs.size(); w++) {
+                final SchemaCompatibilityType type = plan.compatibility(r, w);
+                row.append(format(" %-12s", type));
+            }
+            System.out.format("%s %s%n", row, inputs.get(r));
+        }
+    }
+
+    /**
+     * Should not be instantiated.
+     */
+    private Evolution() {}
+}
@@ -0,0 +1,190 @@
+package com.speedment.avromocker;
+
+import com.speedment.avromocker.commandline.Arguments;
+import com.speedment.avromocker.mocker.Answers;
+import com.speedment.avromocker.mocker.KeySequence;
+import com.speedment.avromocker.mocker.KeySource;
+import com.speedment.avromocker.mocker.LongKeyIndex;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import com.speedment.avromocker.mocker.Nullable;
+import com.speedment.avromocker.mocker.Reference;
+import com.speedment.avromocker.mocker.Repeat;
+import org.apache.avro.Schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static com.speedment.avromocker.mocker.MockerBuilderUtil.parseField;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generates several related files in one run. Every line in the job file
+ * contains the paths to an Avro schema, a settings file and the resulting
+ * data file, separated by whitespace. Paths are relative to the job file.
+ * Empty lines and lines starting with {@code #} are ignored.
+ * <p>
+ * Fields of a later entry may use the {@code ref <record>.<field>} strategy
+ * to reference keys generated by an earlier entry. If the referenced field
+ * uses the {@code incr} or {@code perm} strategy, keys are computed from
+ * their index. Otherwise, the generated keys are recorded in a
+ * {@link LongKeyIndex} while the referenced file is generated.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class Job {
+
+    private final static Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    static void run(File jobFile, Arguments args) {
+        if (args.getAsBoolean("resume").orElse(false)) {
+            // Referenced keys are only known after generating the parent file
+            throw new IllegalArgumentException("Jobs can't be resumed.");
+        } else if (args.getAsInt("verifySample").isPresent()) {
+            throw new IllegalArgumentException(
+                "Jobs can't be verified while generating. Use -verify on the results.");
+        }
+
+        final File dir = jobFile.getAbsoluteFile().getParentFile();
+        final List<Entry> entries = new ArrayList<>();
+
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(jobFile.toPath());
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading job file '%s'.", jobFile
+            ), ex);
+        }
+
+        // Parse the schema and settings of every entry
+        for (final String line : lines) {
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            final String[] columns = WHITESPACE.split(trimmed);
+            if (columns.length != 3) {
+                throw new IllegalArgumentException(format(
+                    "Expected '<schema> <settings> <result>' in job file, but found '%s'.",
+                    trimmed
+                ));
+            }
+
+            entries.add(new Entry(
+                new File(dir, columns[0]),
+                new File(dir, columns[1]),
+                new File(dir, columns[2])
+            ));
+        }
+
+        // Bind references to the keys of previous entries
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry entry = entries.get(i);
+            for (final Function<Random, Object> nullable : entry.generators.values()) {
+                final Function<Random, Object> generator = Repeat.unwrap(Nullable.unwrap(nullable));
+                if (generator instanceof Reference) {
+                    final Reference ref = (Reference) generator;
+                    final Entry parent = entries.subList(0, i).stream()
+                        .filter(e -> e.schema.getName().equals(ref.getEntity()))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException(format(
+                            "Referenced record '%s' must be listed before '%s' in the job file.",
+                            ref.getEntity(), entry.schema.getName()
+                        )));
+
+                    ref.bind(parent.keys(ref.getField()));
+                }
+            }
+        }
+
+        final long seed = args.getAsLong("seed").orElse(System.currentTimeMillis());
+        System.out.format("Using seed %d.%n", seed);
+        final double repeat = Main.repeat(args);
+
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry entry = entries.get(i);
+            final MockerBuilder builder = new MockerBuilder().withSeed(seed + i).withSchema(entry.schema)
+                .withRepeat(repeat);
+            entry.generators.forEach(builder::withAction);
+            Main.generate(entry.schema, builder.build(), seed + i, entry.total, entry.result, false, args);
+        }
+    }
+
+    private final static class Entry {
+
+        private final Schema schema;
+        private final File result;
+        private final long total;
+        private final Map<String, Function<Random, Object>> generators;
+        private final Map<String, LongKeyIndex> indexes;
+
+        Entry(File schemaFile, File settingsFile, File result) {
+            try {
+                this.schema = new Schema.Parser().parse(schemaFile);
+            } catch (final IOException ex) {
+                throw new IllegalArgumentException(format(
+                    "Error reading specified Avro Schema file '%s'.",
+                    schemaFile
+                ), ex);
+            }
+
+            this.result     = requireNonNull(result);
+            this.generators = new LinkedHashMap<>();
+            this.indexes    = new HashMap<>();
+
+            System.out.format("Reading settings for '%s' from '%s'.%n",
+                schema.getName(), settingsFile);
+
+            try {
+                final Answers answers = new Answers(Files.readAllLines(settingsFile.toPath()));
+                this.total = Long.parseLong(answers.next("How many records should be generated: "));
+                for (final Schema.Field field : schema.getFields()) {
+                    final String key = field.name();
+                    generators.put(key, parseField(answers, key, field.schema()));
+                }
+            } catch (final IOException ex) {
+                throw new IllegalArgumentException(format(
+                    "Error reading settings file '%s'.", settingsFile
+                ), ex);
+            }
+        }
+
+        KeySource keys(String field) {
+            final Function<Random, Object> generator = generators.get(field);
+            if (generator == null) {
+                throw new IllegalArgumentException(format(
+                    "Referenced field '%s.%s' does not exist.",
+                    schema.getName(), field
+                ));
+            }
+
+            switch (schema.getField(field).schema().getType()) {
+                case INT : case LONG : case UNION : break;
+                default : throw new IllegalArgumentException(format(
+                    "Referenced field '%s.%s' must be an integer.",
+                    schema.getName(), field
+                ));
+            }
+
+            if (generator instanceof KeySequence) {
+                return ((KeySequence) generator).keys(total);
+            } else {
+                return indexes.computeIfAbsent(field, f -> {
+                    final LongKeyIndex index = new LongKeyIndex();
+                    generators.put(f, index.recording(generator));
+                    return index;
+                });
+            }
+        }
+    }
+
+    /**
+     * Should not be instantiated.
+     */
+    private Job() {}
+}
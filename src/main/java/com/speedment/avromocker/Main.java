@@ -1,29 +1,60 @@
 package com.speedment.avromocker;
 
 import com.speedment.avromocker.commandline.Arguments;
+import com.speedment.avromocker.mocker.Answers;
+import com.speedment.avromocker.mocker.Entities;
 import com.speedment.avromocker.mocker.Mocker;
 import com.speedment.avromocker.mocker.MockerBuilder;
+import com.speedment.avromocker.mocker.SortedBlocks;
+import com.speedment.avromocker.output.AvroFileSink;
+import com.speedment.avromocker.output.Checkpoint;
+import com.speedment.avromocker.output.ColumnarSink;
+import com.speedment.avromocker.output.EncoderSink;
+import com.speedment.avromocker.output.FramedSink;
+import com.speedment.avromocker.output.Manifest;
+import com.speedment.avromocker.output.ParallelAvroSink;
+import com.speedment.avromocker.output.PartitionedSink;
+import com.speedment.avromocker.output.Sink;
+import com.speedment.avromocker.output.VerifyingSink;
+import com.speedment.avromocker.profile.CompressionReport;
+import com.speedment.avromocker.profile.Profile;
+import com.speedment.avromocker.profile.Profiler;
+import com.speedment.avromocker.profile.Spec;
+import com.speedment.avromocker.profile.Verification;
+import com.speedment.avromocker.util.AvroFileUtil;
+import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
-import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
 import org.apache.avro.generic.GenericData;
-import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
-import org.apache.avro.io.DatumWriter;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.OptionalInt;
 import java.util.Scanner;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import static com.speedment.avromocker.commandline.CommandLineUtil.parseArgs;
 import static com.speedment.avromocker.mocker.MockerBuilderUtil.*;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -32,10 +63,50 @@ import static java.util.Objects.requireNonNull;
  */
 public final class Main {
 
+    private final static Pattern COMMA = Pattern.compile(",\\s*");
+    private final static int DEFAULT_SORT_BLOCK = 1 << 16;
+    private final static long DEFAULT_CHECKPOINT = 10_000_000;
+    private final static int DEFAULT_MAX_OPEN_WRITERS = 64;
+    private final static int DEFAULT_PARTITION_BUFFER = 1 << 20;
+    private final static long DEFAULT_PARTITION_MEMORY = 256L << 20;
+    private final static int DEFAULT_OUTPUT_BUFFER = 4 << 20;
+    private final static double DEFAULT_SESSION_EVENTS = 10;
+    private final static double DEFAULT_EVENT_GAP = 30_000;
+    private final static double DEFAULT_SESSION_GAP = 86_400_000;
+    private final static long DEFAULT_ENTITY_START = 1_577_836_800_000L; // 2020-01-01
+    private final static int DEFAULT_RATIO_SAMPLE = 100_000;
+    private final static String DEFAULT_RATIO_CODECS = "deflate:1,deflate:6,snappy,bzip2,xz";
+
     public static void main(String... arguments) {
         final Arguments args = parseArgs(arguments);
-        try (final Scanner scn = newScanner(args)) {
-            final Random random = new Random(System.currentTimeMillis());
+        if (args.getAsString("profile").isPresent()) {
+            profile(args);
+            return;
+        } else if (args.getAsString("verify").isPresent()) {
+            verify(args);
+            return;
+        } else if (args.getAsString("job").isPresent()) {
+            Job.run(new File(args.getAsStringOrThrow("job")), args);
+            return;
+        } else if (args.getAsString("batch").isPresent()) {
+            Batch.run(new File(args.getAsStringOrThrow("batch")), args);
+            return;
+        } else if (args.getAsLong("delta").isPresent()) {
+            Delta.run(args.getAsLongOrThrow("delta"), args);
+            return;
+        } else if (args.getAsString("manifest").isPresent()) {
+            manifest(args);
+            return;
+        } else if (args.getAsString("ratios").isPresent()) {
+            ratios(args);
+            return;
+        } else if (args.getAsString("versions").isPresent()) {
+            Evolution.run(args.getAsStringOrThrow("versions"), args, new NonCloseableInputStream(System.in));
+            return;
+        }
+
+        try (final Scanner scn = new Scanner(new NonCloseableInputStream(System.in))) {
+            final Answers answers = newAnswers(args, scn);
 
             final String input = args.getAsStringOrThrow("schema");
             final String output = args.getAsString("result").orElseGet(
@@ -44,13 +115,15 @@ public final class Main {
                     : (input + ".avro"));
 
             final File inputFile = new File(input);
-            final File outputFile = new File(output);
+            final Optional<Shard> shard = args.getAsString("shard").map(Shard::parse);
+            final File outputFile = shard.map(s -> s.fileFor(new File(output)))
+                .orElseGet(() -> new File(output));
 
+            final boolean resume = args.getAsBoolean("resume").orElse(false);
             final boolean clearExisting;
-            if (outputFile.exists()) {
+            if (outputFile.exists() && !resume) {
                 while (true) {
-                    System.out.print("Clear existing data? Y/N: ");
-                    switch (scn.nextLine()) {
+                    switch (answers.next("Clear existing data? Y/N: ")) {
                         case "Y":
                         case "y": {
                             clearExisting = true;
@@ -81,76 +154,661 @@ public final class Main {
                 ));
             }
 
-            System.out.print("How many records should be generated: ");
-            final int total = Integer.parseInt(scn.nextLine());
+            final long total = Long.parseLong(answers.next("How many records should be generated: "));
+
+            final long seed = resume
+                ? readCheckpoint(Checkpoint.fileFor(outputFile)).getSeed()
+                : args.getAsLong("seed").orElse(System.currentTimeMillis());
+            System.out.format("Using seed %d.%n", seed);
 
             final MockerBuilder builder = new MockerBuilder()
-                .withRandom(random);
+                .withSeed(seed)
+                .withSchema(schema)
+                .withRepeat(repeat(args));
 
             for (final Schema.Field field : schema.getFields()) {
                 final String key = field.name();
-                builder.withAction(key, parseField(scn, key, field.schema()));
+                builder.withAction(key, parseField(answers, key, field.schema()));
+            }
+
+            final boolean entities = args.getAsInt("entities").isPresent();
+            if (entities) {
+                if (resume || args.getAsString("sort").isPresent()) {
+                    throw new IllegalArgumentException("Entities can't be sorted or resumed.");
+                }
+                builder.withEntities(entities(args, seed));
             }
 
             final Mocker mocker = builder.build();
 
             if (clearExisting) {
                 System.out.println("Deleting existing data file.");
-                if (!outputFile.delete()) {
+                if (!delete(outputFile, args.getAsString("partition").isPresent()
+                        || "columnar".equals(outputFormat(args)))) {
                     System.err.println("Could not delete data file.");
                     System.exit(-1);
                     return;
                 }
             }
 
-            final DatumWriter<GenericRecord> datumWriter = new GenericDatumWriter<>(schema);
-            try (final DataFileWriter<GenericRecord> writer = new DataFileWriter<>(datumWriter)) {
+            if (entities && outputFile.exists()) {
+                throw new IllegalArgumentException("Entities can't be appended to existing data.");
+            }
+
+            if (shard.isPresent()) {
+                generateShard(schema, mocker, seed, total, shard.get(), outputFile, args);
+            } else {
+                generate(schema, mocker, seed, total, outputFile, outputFile.exists(), args);
+            }
+        }
+    }
+
+    /**
+     * Returns the probability given by {@code repeat} that every field repeats
+     * the value of the record before it, or {@code 0} if it is not specified.
+     * Every command that generates records must apply it, since a run can
+     * only be reproduced with the same probability.
+     */
+    static double repeat(Arguments args) {
+        final double repeat = decimal(args, "repeat", 0);
+        if (!(repeat >= 0 && repeat < 1)) {
+            throw new IllegalArgumentException(
+                "The probability of repeating a value must be at least 0.0 and less than 1.0.");
+        }
+        return repeat;
+    }
+
+    /**
+     * Returns the population of entities to generate events for, as given by
+     * the {@code entities}, {@code sessionEvents}, {@code eventGap},
+     * {@code sessionGap} and {@code entityStart} arguments. Times are in
+     * milliseconds.
+     */
+    private static Entities entities(Arguments args, long seed) {
+        final int count = args.getAsIntOrThrow("entities");
+        final double sessionEvents = decimal(args, "sessionEvents", DEFAULT_SESSION_EVENTS);
+        final double eventGap = decimal(args, "eventGap", DEFAULT_EVENT_GAP);
+        final double sessionGap = decimal(args, "sessionGap", DEFAULT_SESSION_GAP);
+        final long start = args.getAsString("entityStart").map(Main::epochMillis)
+            .orElse(DEFAULT_ENTITY_START);
+
+        System.out.format("Generating events of %,d entities using %,d MB off-heap.%n",
+            count, (long) count * Entities.BYTES_PER_ENTITY >> 20);
+        return new Entities(seed, count, start, sessionEvents, eventGap, sessionGap);
+    }
+
+    private static double decimal(Arguments args, String key, double defaultValue) {
+        final Optional<String> value = args.getAsString(key);
+        try {
+            return value.isPresent() ? Double.parseDouble(value.get()) : defaultValue;
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException(format(
+                "Could not parse argument '%s'.", key), ex);
+        }
+    }
+
+    /**
+     * Parses a time given in milliseconds since the epoch, as a date or as
+     * an ISO-8601 instant.
+     */
+    private static long epochMillis(String time) {
+        try {
+            if (time.matches("-?\\d+")) {
+                return Long.parseLong(time);
+            } else if (time.length() == 10) {
+                return LocalDate.parse(time).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+            } else {
+                return Instant.parse(time).toEpochMilli();
+            }
+        } catch (final DateTimeParseException ex) {
+            throw new IllegalArgumentException(format(
+                "Could not parse time '%s'.", time), ex);
+        }
+    }
+
+    static void generate(Schema schema, Mocker mocker, long seed, long total,
+                         File outputFile, boolean append, Arguments args) {
+        generate(schema, mocker, seed, total, outputFile, append, args, null);
+    }
 
-                System.out.format("Creating avro-file '%s'%n", outputFile);
-                writer.create(schema, outputFile);
+    static void generate(Schema schema, Mocker mocker, long seed, long total,
+                         File outputFile, boolean append, Arguments args,
+                         LongConsumer progress) {
+        generate(schema, mocker, seed, 0, total, outputFile, append, args, progress);
+    }
 
-                System.out.format("Generating %,d records...%n", total);
-                final GenericRecord record = new GenericData.Record(schema);
-                final long timeStarted = System.currentTimeMillis();
-                int i;
-                for (i = 0; i < total; i++) {
-                    writer.append(mocker.mock(record));
+    /**
+     * Generates the records of one shard of a dataset of {@code total}
+     * records to the file of the shard, and then writes the manifest of the
+     * shard next to it. Sorted shards are divided in whole sort blocks.
+     */
+    private static void generateShard(Schema schema, Mocker mocker, long seed, long total,
+                                      Shard shard, File outputFile, Arguments args) {
+        if (outputFile.exists() && !args.getAsBoolean("resume").orElse(false)) {
+            throw new IllegalArgumentException("Shards can't be appended to.");
+        } else if (args.getAsInt("entities").isPresent()) {
+            throw new IllegalArgumentException(
+                "Entities can't be sharded since every event depends on the events before it.");
+        } else if (args.getAsString("partition").isPresent() || "columnar".equals(outputFormat(args))) {
+            throw new IllegalArgumentException("Shards must be written to a single file.");
+        }
+
+        final long unit = args.getAsString("sort").isPresent()
+            ? args.getAsInt("sortBlock").orElse(DEFAULT_SORT_BLOCK) : 1;
+        final long first = shard.first(total, unit);
+        final long end = shard.end(total, unit);
 
+        // A manifest left by an earlier run must not describe the new file
+        final File manifestFile = Manifest.fileFor(outputFile);
+        if (manifestFile.exists() && !manifestFile.delete()) {
+            System.err.format("Could not delete old manifest '%s'.%n", manifestFile);
+        }
+
+        System.out.format("Generating shard %d of %d, records %,d to %,d of %,d.%n",
+            shard.getShard(), shard.getShards(), first, end, total);
+        generate(schema, mocker, seed, first, end - first, outputFile, false, args, null);
+
+        try {
+            Manifest.of(outputFile, seed, SchemaNormalization.parsingFingerprint64(schema),
+                shard.getShard(), shard.getShards(), first, end).write(manifestFile);
+        } catch (final IOException ex) {
+            throw new RuntimeException(format(
+                "Error writing manifest '%s'.", manifestFile
+            ), ex);
+        }
+        System.out.format("Wrote manifest '%s'.%n", manifestFile);
+    }
+
+    /**
+     * Generates records to the specified file, starting at the record with
+     * index {@code offset} unless appending. If {@code progress} is not
+     * {@code null}, it is given the number of records generated since it was
+     * last called every 1,000 records and once the run completes, instead of
+     * the progress of the run being printed.
+     */
+    static void generate(Schema schema, Mocker mocker, long seed, long offset, long total,
+                         File outputFile, boolean append, Arguments args,
+                         LongConsumer progress) {
+        final boolean partitioned = args.getAsString("partition").isPresent();
+        final String outputFormat = outputFormat(args);
+        final boolean container = "avro".equals(outputFormat);
+        if (!container) {
+            if (partitioned) {
+                throw new IllegalArgumentException("Partitioned output must use the avro format.");
+            } else if (append || args.getAsBoolean("resume").orElse(false)) {
+                throw new IllegalArgumentException(format(
+                    "The %s format can't be appended to or resumed.", outputFormat));
+            }
+        }
+        if ((partitioned || !container) && (args.getAsString("codec").isPresent()
+                || args.getAsInt("compressThreads").isPresent())) {
+            throw new IllegalArgumentException("Compression is only supported for a single avro file.");
+        }
+        final long fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+        final File checkpointFile = Checkpoint.fileFor(outputFile);
+        final Optional<String> sort = args.getAsString("sort");
+        final int blockSize = args.getAsInt("sortBlock").orElse(DEFAULT_SORT_BLOCK);
+
+        final long start, first;
+        final Optional<Checkpoint> resumeFrom;
+        if (args.getAsBoolean("resume").orElse(false)) {
+            if (partitioned) {
+                throw new IllegalArgumentException("Partitioned output can't be resumed.");
+            }
+
+            final Checkpoint checkpoint = readCheckpoint(checkpointFile);
+            checkpoint.validate(seed, fingerprint, total);
+            start = checkpoint.getStart();
+            first = checkpoint.getIndex();
+
+            if (sort.isPresent() && (first - start) % blockSize != 0) {
+                throw new IllegalArgumentException(
+                    "The checkpoint was created using a different sort block size.");
+            }
+
+            System.out.format("Resuming from record %,d.%n", first);
+            resumeFrom = Optional.of(checkpoint);
+        } else {
+            if (checkpointFile.exists() && !checkpointFile.delete()) {
+                System.err.format("Could not delete old checkpoint '%s'.%n", checkpointFile);
+            }
+
+            start = append ? existingRecords(schema, outputFile, partitioned) : offset;
+            first = start;
+            resumeFrom = Optional.empty();
+        }
+
+        final long end = start + total;
+        long interval = partitioned || !container ? 0
+            : args.getAsLong("checkpoint").orElse(DEFAULT_CHECKPOINT);
+
+        final Supplier<GenericRecord> source;
+        if (sort.isPresent()) {
+            System.out.format("Sorting every %,d records by %s.%n", blockSize, sort.get());
+            final SortedBlocks blocks = new SortedBlocks(mocker, schema,
+                asList(COMMA.split(sort.get())), blockSize, first, end);
+            source = blocks::next;
+
+            // A resumed run has to start at the beginning of a block
+            interval = (interval + blockSize - 1) / blockSize * blockSize;
+        } else {
+            final GenericRecord record = new GenericData.Record(schema);
+            mocker.seek(first);
+            source = () -> mocker.mock(record);
+        }
+
+        try (final Sink sink = withVerification(schema, args,
+                newSink(schema, outputFile, append, args, resumeFrom))) {
+
+            System.out.format("Generating %,d records...%n", end - first);
+            final long timeStarted = System.currentTimeMillis();
+            long i, reported = first - start;
+            for (i = first - start; i < total; i++) {
+                sink.append(source.get());
+
+                if (interval > 0 && (i + 1) % interval == 0 && i + 1 < total) {
+                    new Checkpoint(seed, fingerprint, start, total, start + i + 1, sink.sync())
+                        .write(checkpointFile);
+                } else if (i % 1_000 == 999) {
+                    sink.flush();
+                }
+
+                if (progress != null) {
                     if (i % 1_000 == 999) {
-                        writer.flush();
+                        progress.accept(i + 1 - reported);
+                        reported = i + 1;
+                    }
+                } else if (total >= 100) {
+                    if (i % (total / 100) == total / 100 - 1) {
+                        final double delta = (System.currentTimeMillis() - timeStarted) / 1000d;
+                        System.out.format(
+                            "...%2d%% complete. %,d rows created (%.2f rows/s).%n",
+                            (i / (total / 100)), i, ((i - first + start) / delta)
+                        );
                     }
+                }
+            }
 
-                    if (total >= 100) {
-                        if (i % (total / 100) == total / 100 - 1) {
-                            final double delta = (System.currentTimeMillis() - timeStarted) / 1000d;
-                            System.out.format(
-                                "...%2d%% complete. %,d rows created (%.2f rows/s).%n",
-                                (i / (total / 100)), i, (i / delta)
-                            );
-                        }
+            if (progress != null) {
+                progress.accept(i - reported);
+            }
+
+            System.out.format("Done! %,d records generated.%n", i);
+
+        } catch (final IOException ex) {
+            throw new RuntimeException(format(
+                "Error writing data to avro-file '%s'.", outputFile
+            ));
+        }
+
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            System.err.format("Could not delete checkpoint '%s'.%n", checkpointFile);
+        }
+    }
+
+    static Sink newSink(Schema schema, File outputFile, boolean append, Arguments args,
+                        Optional<Checkpoint> resumeFrom) throws IOException {
+        final Optional<String> partition = args.getAsString("partition");
+        if (partition.isPresent()) {
+            final int maxOpenWriters = args.getAsInt("maxOpenWriters").orElse(DEFAULT_MAX_OPEN_WRITERS);
+            final int bufferSize = args.getAsInt("partitionBuffer").orElse(DEFAULT_PARTITION_BUFFER);
+            System.out.format("Creating partitioned output in '%s' by %s.%n", outputFile, partition.get());
+            return new PartitionedSink(schema, outputFile, asList(COMMA.split(partition.get())),
+                maxOpenWriters, bufferSize, DEFAULT_PARTITION_MEMORY);
+        }
+
+        final int bufferSize = outputBuffer(args);
+        switch (outputFormat(args)) {
+            case "json" : {
+                System.out.format("Creating json-file '%s'%n", outputFile);
+                return EncoderSink.json(schema, outputFile, bufferSize);
+            }
+            case "binary" : {
+                System.out.format("Creating binary file '%s'%n", outputFile);
+                return EncoderSink.binary(schema, outputFile, bufferSize);
+            }
+            case "framed" : {
+                final int schemaId = args.getAsIntOrThrow("schemaId");
+                final Optional<String> socket = args.getAsString("socket");
+                if (socket.isPresent()) {
+                    final int colon = socket.get().lastIndexOf(':');
+                    if (colon < 0) {
+                        throw new IllegalArgumentException(format(
+                            "Expected '<host>:<port>' but got '%s'.", socket.get()));
                     }
+                    System.out.format("Sending framed messages to '%s'%n", socket.get());
+                    return FramedSink.socket(schema, schemaId, socket.get().substring(0, colon),
+                        Integer.parseInt(socket.get().substring(colon + 1)));
                 }
+                System.out.format("Creating framed file '%s'%n", outputFile);
+                return FramedSink.file(schema, schemaId, outputFile, bufferSize);
+            }
+            case "columnar" : {
+                System.out.format("Creating columnar output in '%s'%n", outputFile);
+                return new ColumnarSink(schema, outputFile);
+            }
+            default : break;
+        }
 
-                System.out.format("Done! %,d records generated.%n", i);
+        if (resumeFrom.isPresent()) {
+            System.out.format("Reopening avro-file '%s'%n", outputFile);
+            return AvroFileSink.resume(schema, outputFile, resumeFrom.get().getPosition(), bufferSize);
+        } else if (append) {
+            System.out.format("Appending to avro-file '%s'%n", outputFile);
+            return AvroFileSink.append(schema, outputFile, bufferSize);
+        } else {
+            System.out.format("Creating avro-file '%s'%n", outputFile);
+            final long preallocate = args.getAsLong("preallocate").orElse(0) << 20;
+            if (preallocate > 0 && bufferSize == 0) {
+                throw new IllegalArgumentException("Preallocation requires '-output channel'.");
+            }
 
-            } catch (final IOException ex) {
-                throw new RuntimeException(format(
-                    "Error writing data to avro-file '%s'.", outputFile
-                ));
+            final CodecFactory codec = codec(args);
+            final int blockSize = args.getAsInt("blockSize").orElse(DataFileConstants.DEFAULT_SYNC_INTERVAL);
+            final int compressThreads = args.getAsInt("compressThreads").orElse(0);
+            if (compressThreads > 0) {
+                System.out.format("Compressing blocks using %d threads.%n", compressThreads);
+                return ParallelAvroSink.create(schema, outputFile, codec,
+                    compressThreads, blockSize, bufferSize, preallocate);
+            } else {
+                return AvroFileSink.create(schema, outputFile, bufferSize, preallocate, codec, blockSize);
+            }
+        }
+    }
+
+    /**
+     * Returns the size of the direct buffer to write output through, or
+     * {@code 0} if a regular output stream should be used.
+     */
+    private static int outputBuffer(Arguments args) {
+        final String output = args.getAsString("output").orElse("stream");
+        switch (output) {
+            case "stream"  : return 0;
+            case "channel" : return args.getAsInt("outputBuffer").orElse(DEFAULT_OUTPUT_BUFFER);
+            default : throw new IllegalArgumentException(format(
+                "Unknown output '%s'. Expected 'stream' or 'channel'.", output));
+        }
+    }
+
+    /**
+     * Returns the codec to compress new avro files with, given as the name of
+     * the codec optionally followed by a colon and the compression level.
+     */
+    private static CodecFactory codec(Arguments args) {
+        return codec(args.getAsString("codec").orElse("null"));
+    }
+
+    private static CodecFactory codec(String codec) {
+        final int colon = codec.indexOf(':');
+        final String name = colon < 0 ? codec : codec.substring(0, colon);
+
+        try {
+            if (colon < 0) {
+                return CodecFactory.fromString(name);
+            }
+
+            final int level = Integer.parseInt(codec.substring(colon + 1));
+            switch (name) {
+                case "deflate" : return CodecFactory.deflateCodec(level);
+                case "xz"      : return CodecFactory.xzCodec(level);
+                default : throw new IllegalArgumentException(format(
+                    "The codec '%s' does not have a compression level.", name));
+            }
+        } catch (final AvroRuntimeException | NumberFormatException ex) {
+            throw new IllegalArgumentException(format(
+                "Unknown codec '%s'. Expected 'null', 'deflate', 'snappy', 'bzip2' or 'xz', " +
+                "optionally followed by ':<level>' for 'deflate' and 'xz'.", codec), ex);
+        }
+    }
+
+    /**
+     * Returns the format to write records in.
+     */
+    private static String outputFormat(Arguments args) {
+        final String outputFormat = args.getAsString("format").orElse("avro");
+        switch (outputFormat) {
+            case "avro" : case "json" : case "binary" : case "framed" : case "columnar" :
+                return outputFormat;
+            default : throw new IllegalArgumentException(format(
+                "Unknown format '%s'. Expected 'avro', 'json', 'binary', 'framed' or 'columnar'.",
+                outputFormat));
+        }
+    }
+
+    private static Sink withVerification(Schema schema, Arguments args, Sink sink) throws IOException {
+        final OptionalInt sample = args.getAsInt("verifySample");
+        if (sample.isPresent()) {
+            final String settings = args.getAsString("settings").orElseThrow(() ->
+                new IllegalArgumentException("Verifying requires a settings file."));
+            final Spec spec = Spec.parse(schema, Files.readAllLines(Paths.get(settings)));
+            System.out.format("Verifying every %,d records.%n", sample.getAsInt());
+            return new VerifyingSink(sink, new Verification(spec), sample.getAsInt());
+        } else {
+            return sink;
+        }
+    }
+
+    /**
+     * Returns the number of records that are already in the output, so that
+     * appended records continue where the existing ones ended.
+     */
+    private static long existingRecords(Schema schema, File outputFile, boolean partitioned) {
+        try {
+            if (partitioned) {
+                return countPartitioned(outputFile);
+            }
+
+            final Schema existing = AvroFileUtil.schemaOf(outputFile);
+            if (SchemaNormalization.parsingFingerprint64(existing)
+            !=  SchemaNormalization.parsingFingerprint64(schema)) {
+                throw new IllegalArgumentException(format(
+                    "The schema of the existing avro-file '%s' is different " +
+                    "from the specified schema.", outputFile));
+            }
+
+            final long count = AvroFileUtil.count(outputFile);
+            System.out.format("Found %,d existing records.%n", count);
+            return count;
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading existing avro-file '%s'.", outputFile
+            ), ex);
+        }
+    }
+
+    private static long countPartitioned(File file) throws IOException {
+        final File[] children = file.listFiles();
+        if (children == null) {
+            return file.getName().endsWith(".avro") ? AvroFileUtil.count(file) : 0;
+        }
+
+        long count = 0;
+        for (final File child : children) {
+            count += countPartitioned(child);
+        }
+        return count;
+    }
+
+    private static Checkpoint readCheckpoint(File file) {
+        if (!file.exists()) {
+            throw new IllegalArgumentException(format(
+                "No checkpoint '%s' to resume from.", file));
+        }
+
+        try {
+            return Checkpoint.read(file);
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading checkpoint '%s'.", file
+            ), ex);
+        }
+    }
+
+    private static void profile(Arguments args) {
+        final String input = args.getAsStringOrThrow("profile");
+        final String output = args.getAsString("result").orElseGet(
+            () -> input.endsWith(".avro")
+                ? (input.substring(0, input.length() - 5) + ".settings")
+                : (input + ".settings"));
+
+        final int threads = args.getAsInt("threads")
+            .orElse(Runtime.getRuntime().availableProcessors());
+
+        System.out.format("Profiling avro-file '%s' using %d threads...%n", input, threads);
+        final Profile profile;
+        try {
+            profile = Profiler.profile(new File(input), threads);
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading avro-file '%s'.", input
+            ), ex);
+        }
+
+        profile.print(System.out);
+
+        final long total = args.getAsLong("count").orElse(profile.getCount());
+        try {
+            Files.write(Paths.get(output), profile.toSettings(total));
+            System.out.format("Settings written to '%s'.%n", output);
+
+            final Optional<String> schemaFile = args.getAsString("schema");
+            if (schemaFile.isPresent()) {
+                Files.write(Paths.get(schemaFile.get()),
+                    profile.getSchema().toString(true).getBytes(StandardCharsets.UTF_8));
+                System.out.format("Schema written to '%s'.%n", schemaFile.get());
             }
+        } catch (final IOException ex) {
+            throw new RuntimeException(format(
+                "Error writing settings file '%s'.", output
+            ), ex);
+        }
+    }
+
+    /**
+     * Deletes the result of an earlier run. Only partitioned and columnar
+     * output are directories, so a directory is otherwise left alone rather
+     * than wiping it because the result pointed at it by mistake.
+     */
+    private static boolean delete(File file, boolean directory) {
+        final File[] children = directory ? file.listFiles() : null;
+        if (children != null) {
+            for (final File child : children) {
+                if (!delete(child, true)) return false;
+            }
+        }
+        return file.delete();
+    }
+
+    private static void verify(Arguments args) {
+        final File input = new File(args.getAsStringOrThrow("verify"));
+        final String settings = args.getAsString("settings").orElseGet(() -> {
+            final String name = input.getPath();
+            return name.endsWith(".avro")
+                ? (name.substring(0, name.length() - 5) + ".settings")
+                : (name + ".settings");
+        });
+
+        final int threads = args.getAsInt("threads")
+            .orElse(Runtime.getRuntime().availableProcessors());
+
+        final Verification verification;
+        try {
+            final Spec spec = Spec.parse(AvroFileUtil.schemaOf(input),
+                Files.readAllLines(Paths.get(settings)));
+
+            System.out.format("Verifying avro-file '%s' against '%s' using %d threads...%n",
+                input, settings, threads);
+
+            final long timeStarted = System.currentTimeMillis();
+            verification = Profiler.verify(input, spec, threads);
+            final double delta = (System.currentTimeMillis() - timeStarted) / 1000d;
+
+            verification.print(System.out);
+            System.out.println();
+            System.out.println("Distributions:");
+            verification.getProfile().print(System.out);
+            System.out.format("Read %,d bytes in %.2f s (%.1f MB/s).%n",
+                input.length(), delta, input.length() / delta / 1_000_000);
+
+            if (verification.getCount() != spec.getTotal()) {
+                System.out.format("Note: the settings specify %,d records.%n", spec.getTotal());
+            }
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading avro-file '%s'.", input
+            ), ex);
+        }
+
+        if (verification.passed()) {
+            System.out.println("Verification passed.");
+        } else {
+            System.err.println("Verification failed!");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints the compression ratio that every codec achieves on a sample of
+     * an avro-file.
+     */
+    private static void ratios(Arguments args) {
+        final File input = new File(args.getAsStringOrThrow("ratios"));
+        final int sample = args.getAsInt("sample").orElse(DEFAULT_RATIO_SAMPLE);
+        final int blockSize = args.getAsInt("blockSize").orElse(DataFileConstants.DEFAULT_SYNC_INTERVAL);
+        final Map<String, CodecFactory> codecs = new LinkedHashMap<>();
+        for (final String codec : COMMA.split(args.getAsString("codecs").orElse(DEFAULT_RATIO_CODECS))) {
+            codecs.put(codec, codec(codec));
+        }
+
+        try {
+            CompressionReport.measure(input, sample, codecs, blockSize).print(System.out);
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading avro-file '%s'.", input
+            ), ex);
+        }
+    }
+
+    /**
+     * Checks the shards of a dataset generated with {@code shard} and
+     * combines their manifests into one.
+     */
+    private static void manifest(Arguments args) {
+        final File output = new File(args.getAsStringOrThrow("manifest"));
+        final List<Manifest> shards;
+        try {
+            shards = Shard.merge(output);
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading the shards of '%s'.", output
+            ), ex);
+        } catch (final IllegalStateException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println("Shards are incomplete!");
+            System.exit(1);
+            return;
+        }
+
+        System.out.format("%-5s %15s %15s %15s %10s  %s%n", "shard", "first", "records", "bytes", "crc32", "file");
+        for (final Manifest shard : shards) {
+            System.out.format("%5d %,15d %,15d %,15d %08x  %s%n", shard.getShard(), shard.getFirst(),
+                shard.getCount(), shard.getBytes(), shard.getCrc32(), shard.getFile());
         }
+        System.out.format("All %d shards are complete with %,d records. Wrote manifest '%s'.%n",
+            shards.size(), shards.stream().mapToLong(Manifest::getCount).sum(), Manifest.fileFor(output));
     }
 
-    private static Scanner newScanner(Arguments args) {
+    /**
+     * Returns the answers to the prompts, taken from the settings file if
+     * one is specified and then read from the specified scanner.
+     */
+    static Answers newAnswers(Arguments args, Scanner scn) {
         final Optional<String> settingsFile = args.getAsString("settings");
         if (settingsFile.isPresent()) {
             try {
                 final Path path = Paths.get(settingsFile.get());
                 if (Files.exists(path)) {
-                    return new Scanner(new SequenceInputStream(
-                        Files.newInputStream(path),
-                        new NonCloseableInputStream(System.in)
-                    ));
+                    return new Answers(Files.readAllLines(path), scn);
                 } else {
                     System.err.format("Error! Specified settings file '%s' does not exist.%n", path);
                     System.exit(-1);
@@ -158,11 +816,11 @@ public final class Main {
                 }
             } catch (final IOException e) {
                 throw new RuntimeException(
-                    "Error constructing input stream to settings file.", e
+                    "Error reading settings file.", e
                 );
             }
         } else {
-            return new Scanner(new NonCloseableInputStream(System.in));
+            return new Answers(scn);
         }
     }
 
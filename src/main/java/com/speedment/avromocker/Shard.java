@@ -0,0 +1,214 @@
+package com.speedment.avromocker;
+
+import com.speedment.avromocker.output.Manifest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * One of several processes that generate a dataset together. Every shard
+ * generates a disjoint range of the records that a single process would
+ * have generated with the same seed and settings, into a file of its own
+ * named after the shard. Since every record only depends on the seed and
+ * its index, the shards together contain exactly the same records as a
+ * single run, including keys generated with {@code incr} and {@code perm}.
+ * <p>
+ * Every shard writes a {@link Manifest} next to its file. Once all shards
+ * are done, {@link #merge(File)} checks that they cover the whole dataset
+ * exactly once and that the files are complete, and combines their
+ * manifests into one.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class Shard {
+
+    private final static Pattern PATTERN = Pattern.compile("(\\d+)/(\\d+)");
+
+    private final int shard;
+    private final int shards;
+
+    /**
+     * Parses a shard given as {@code k/N}, where {@code k} is the shard,
+     * from 0, and {@code N} is the number of shards.
+     *
+     * @param spec  the shard
+     * @return      the parsed shard
+     * @throws IllegalArgumentException  if the shard is malformed
+     */
+    static Shard parse(String spec) {
+        final Matcher matcher = PATTERN.matcher(spec);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(format(
+                "Could not parse shard '%s'. Expected the shard and the number of shards, like '0/4'.",
+                spec));
+        }
+
+        try {
+            return new Shard(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException(format("Too many shards in '%s'.", spec), ex);
+        }
+    }
+
+    Shard(int shard, int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("There must be at least one shard.");
+        } else if (shard < 0 || shard >= shards) {
+            throw new IllegalArgumentException(format(
+                "The shard must be between 0 and %d.", shards - 1));
+        }
+
+        this.shard  = shard;
+        this.shards = shards;
+    }
+
+    int getShard() {
+        return shard;
+    }
+
+    int getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns the index of the first record of this shard. The records are
+     * divided as evenly as possible in whole multiples of {@code unit}, so
+     * that a shard of a sorted run starts at the beginning of a sort block
+     * like it would in a single run.
+     *
+     * @param total  the number of records in the whole dataset
+     * @param unit   the number of records that must not be split, usually 1
+     * @return       the index of the first record
+     */
+    long first(long total, long unit) {
+        return boundary(shard, total, unit);
+    }
+
+    /**
+     * Returns the index after the last record of this shard.
+     *
+     * @param total  the number of records in the whole dataset
+     * @param unit   the number of records that must not be split, usually 1
+     * @return       the index after the last record
+     */
+    long end(long total, long unit) {
+        return boundary(shard + 1, total, unit);
+    }
+
+    private long boundary(int k, long total, long unit) {
+        final long units = total / unit + (total % unit == 0 ? 0 : 1);
+        // Avoids overflow since the remainder times k is less than shards squared
+        final long floor = units / shards * k + units % shards * k / shards;
+        return floor == units ? total : floor * unit;
+    }
+
+    /**
+     * Returns the file that this shard writes its records to, which is the
+     * output file of a single run with the shard inserted before the
+     * extension, like {@code events-00003-of-00016.avro}.
+     *
+     * @param output  the output file of a single run
+     * @return        the output file of this shard
+     */
+    File fileFor(File output) {
+        final String name = output.getName();
+        final int dot = name.lastIndexOf('.');
+        final String base = dot > 0 ? name.substring(0, dot) : name;
+        final String extension = dot > 0 ? name.substring(dot) : "";
+        return new File(output.getParentFile(),
+            format("%s-%05d-of-%05d%s", base, shard, shards, extension));
+    }
+
+    /**
+     * Checks the shards of the specified output file and combines their
+     * manifests into the manifest of the whole dataset, stored next to the
+     * output file. The shards are found by the names of their manifests.
+     * Every shard must be present once, the shards must be generated with
+     * the same seed and schema and cover consecutive ranges of records from
+     * the first record, and every file must have the size and checksum given
+     * by its manifest. The combined manifest is only written if there are no
+     * problems.
+     *
+     * @param output  the output file of a single run
+     * @return        the manifests of all shards, in order
+     * @throws IllegalStateException  with every problem found, if any
+     */
+    static List<Manifest> merge(File output) throws IOException {
+        final File directory = output.getAbsoluteFile().getParentFile();
+        final String name = output.getName();
+        final int dot = name.lastIndexOf('.');
+        final Pattern pattern = Pattern.compile(
+            Pattern.quote(dot > 0 ? name.substring(0, dot) : name)
+            + "-\\d+-of-\\d+" + Pattern.quote(dot > 0 ? name.substring(dot) : "")
+            + "\\.manifest");
+
+        final File[] files = directory.listFiles((dir, file) -> pattern.matcher(file).matches());
+        if (files == null || files.length == 0) {
+            throw new IllegalArgumentException(format(
+                "Found no manifests of shards of '%s'.", output));
+        }
+
+        final SortedMap<Integer, Manifest> manifests = new TreeMap<>();
+        final List<String> problems = new ArrayList<>();
+        for (final File file : files) {
+            final Manifest manifest = Manifest.read(file);
+            if (manifests.put(manifest.getShard(), manifest) != null) {
+                problems.add(format("Shard %d has several manifests.", manifest.getShard()));
+            }
+        }
+
+        final Manifest head = manifests.values().iterator().next();
+        long expected = 0;
+        for (int k = 0; k < head.getShards(); k++) {
+            final Manifest manifest = manifests.get(k);
+            if (manifest == null) {
+                problems.add(format("Shard %d is missing.", k));
+                continue;
+            }
+
+            if (manifest.getShards() != head.getShards()) {
+                problems.add(format("Shard %d is one of %d shards instead of %d.",
+                    k, manifest.getShards(), head.getShards()));
+            }
+            if (manifest.getSeed() != head.getSeed()) {
+                problems.add(format("Shard %d was generated with seed %d instead of %d.",
+                    k, manifest.getSeed(), head.getSeed()));
+            }
+            if (manifest.getFingerprint() != head.getFingerprint()) {
+                problems.add(format("Shard %d was generated with a different schema.", k));
+            }
+            if (manifest.getFirst() != expected) {
+                problems.add(format("Shard %d starts at record %,d instead of %,d.",
+                    k, manifest.getFirst(), expected));
+            }
+            expected = manifest.getEnd();
+
+            final File file = new File(directory, manifest.getFile());
+            if (!file.isFile()) {
+                problems.add(format("The file '%s' of shard %d is missing.", file, k));
+            } else if (file.length() != manifest.getBytes()) {
+                problems.add(format("The file '%s' of shard %d is %,d bytes instead of %,d.",
+                    file, k, file.length(), manifest.getBytes()));
+            } else if (Manifest.checksum(file) != manifest.getCrc32()) {
+                problems.add(format("The checksum of the file '%s' of shard %d does not match.", file, k));
+            }
+        }
+
+        manifests.tailMap(head.getShards()).keySet().forEach(k ->
+            problems.add(format("Shard %d is out of range.", k)));
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException(String.join(System.lineSeparator(), problems));
+        }
+
+        final List<Manifest> shards = new ArrayList<>(manifests.values());
+        Manifest.writeAll(shards, Manifest.fileFor(output));
+        return shards;
+    }
+}
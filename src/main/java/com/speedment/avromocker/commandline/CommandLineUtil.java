@@ -25,12 +25,23 @@ public final class CommandLineUtil {
                 ));
             }
 
-            value = args[i++];
+            // Flags like '-resume' may be specified without a value
+            if (i == args.length || isKey(args[i])) {
+                value = Boolean.TRUE.toString();
+            } else {
+                value = args[i++];
+            }
+
             result.put(key, value);
         }
 
         return new Arguments(result);
     }
 
+    private static boolean isKey(String arg) {
+        return arg.length() > 1 && arg.charAt(0) == '-'
+            && !Character.isDigit(arg.charAt(1));
+    }
+
     private CommandLineUtil() {}
 }
@@ -0,0 +1,94 @@
+package com.speedment.avromocker.mocker;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.function.UnaryOperator;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The answers to the prompts asked by {@link MockerBuilderUtil}. Answers are
+ * first taken from a list of lines, typically the contents of a settings
+ * file, and then from a scanner, typically over standard input. Prompts are
+ * only printed for answers read from the scanner, so compiling a settings
+ * file doesn't format and print a prompt for every field.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Answers {
+
+    private final List<String> lines;
+    private final Scanner scanner;
+    private UnaryOperator<String> filter;
+    private int next;
+
+    /**
+     * Creates answers that are read from the specified scanner.
+     *
+     * @param scanner  the scanner to read answers from
+     */
+    public Answers(Scanner scanner) {
+        this(emptyList(), requireNonNull(scanner));
+    }
+
+    /**
+     * Creates answers that are taken from the specified lines. Asking for
+     * more answers than there are lines throws an exception.
+     *
+     * @param lines  the answers, in the order they are asked for
+     */
+    public Answers(List<String> lines) {
+        this(lines, null);
+    }
+
+    /**
+     * Creates answers that are taken from the specified lines and then read
+     * from the specified scanner.
+     *
+     * @param lines    the first answers, in the order they are asked for
+     * @param scanner  the scanner to read the remaining answers from, or
+     *                 {@code null} if there are no more answers
+     */
+    public Answers(List<String> lines, Scanner scanner) {
+        this.lines   = requireNonNull(lines);
+        this.scanner = scanner;
+    }
+
+    /**
+     * Returns the next answer, trimmed. If it has to be read from the
+     * scanner, the prompt is printed first.
+     *
+     * @param prompt  the format string of the prompt
+     * @param args    the arguments of the prompt
+     * @return        the answer
+     * @throws NoSuchElementException  if there are no more answers
+     */
+    public String next(String prompt, Object... args) {
+        final String answer;
+        if (next < lines.size()) {
+            answer = lines.get(next++).trim();
+        } else if (scanner != null) {
+            System.out.format(prompt, args);
+            answer = scanner.nextLine().trim();
+        } else {
+            throw new NoSuchElementException("No line found");
+        }
+        return filter == null ? answer : filter.apply(answer);
+    }
+
+    /**
+     * Sets a function that every answer is passed through before it is
+     * returned, used to strip options that apply to any strategy.
+     *
+     * @param filter  the filter, or {@code null} to return answers as is
+     * @return        the previous filter
+     */
+    UnaryOperator<String> filter(UnaryOperator<String> filter) {
+        final UnaryOperator<String> previous = this.filter;
+        this.filter = filter;
+        return previous;
+    }
+}
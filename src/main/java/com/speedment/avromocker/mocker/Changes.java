@@ -0,0 +1,153 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.HashUtil;
+import com.speedment.avromocker.util.ZipfSampler;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generates a batch of inserts, updates and deletes against a base table
+ * that was generated by a seeded mocker. The keys of the base table are
+ * reproduced from the mocker on demand rather than read from the base file,
+ * so the memory used does not depend on the size of the base table.
+ * <p>
+ * Inserts are new records of the base mocker, at indexes after the base
+ * table and after the inserts of all earlier batches. Updates get the key of
+ * a record in the base table and new values for all other fields. Deletes
+ * are the record in the base table as it was generated. The records that are
+ * updated or deleted are selected uniformly or, with a positive skew, using
+ * a zipf distribution where the first records of the base table are the
+ * most frequent. No state is kept between batches, so a record may be
+ * updated or deleted again after it was deleted in an earlier batch.
+ * <p>
+ * Every change only depends on the seed, the batch and its index within the
+ * batch, so changes can be generated in any order.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Changes {
+
+    public final static int INSERT = 0, UPDATE = 1, DELETE = 2;
+
+    private final Mocker base;
+    private final long total;
+    private final String key;
+    private final KeySource keys;
+    private final long firstInsert;
+    private final double insertThreshold, updateThreshold;
+    private final ZipfSampler zipf;
+    private final RecordRandom random;
+
+    private GenericRecord scratch;
+
+    /**
+     * Creates the changes of a batch.
+     *
+     * @param base     the seeded mocker of the base table
+     * @param total    the number of records in the base table
+     * @param key      the name of the key field
+     * @param keys     the keys of the base table if they can be computed
+     *                 from their index, or {@code null} to generate the
+     *                 records of the base table to get them
+     * @param seed     the seed of the base table
+     * @param batch    the batch to generate, from 1
+     * @param size     the number of changes in every batch
+     * @param weights  the weight of inserts, updates and deletes
+     * @param skew     the zipf exponent used when selecting records to update
+     *                 and delete, or {@code 0} to select them uniformly
+     * @throws IllegalArgumentException  if a parameter is out of range
+     */
+    public Changes(Mocker base, long total, String key, KeySource keys, long seed,
+                   long batch, long size, double[] weights, double skew) {
+        if (!base.isSeeded()) {
+            throw new IllegalArgumentException("The base table must be generated with a seed.");
+        } else if (total < 1) {
+            throw new IllegalArgumentException("The base table must not be empty.");
+        } else if (batch < 1) {
+            throw new IllegalArgumentException("The first batch is number 1.");
+        } else if (weights.length != 3) {
+            throw new IllegalArgumentException("Expected a weight for inserts, updates and deletes.");
+        } else if (skew < 0) {
+            throw new IllegalArgumentException("The skew must not be negative.");
+        }
+
+        double sum = 0;
+        for (final double weight : weights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException(format(
+                    "Invalid weight %s. Weights must not be negative.", weight));
+            }
+            sum += weight;
+        }
+
+        if (!(sum > 0)) {
+            throw new IllegalArgumentException("At least one weight must be positive.");
+        }
+
+        this.base            = base;
+        this.total           = total;
+        this.key             = requireNonNull(key);
+        this.keys            = keys;
+        this.firstInsert     = Math.addExact(total, Math.multiplyExact(batch - 1, size));
+        this.insertThreshold = weights[INSERT] / sum;
+        this.updateThreshold = (weights[INSERT] + weights[UPDATE]) / sum;
+        this.zipf            = skew > 0 ? new ZipfSampler(total, skew) : null;
+        this.random          = new RecordRandom(seed ^ HashUtil.mix64(batch));
+    }
+
+    /**
+     * Generates the change with the specified index within the batch.
+     *
+     * @param record  the record to set the values of the base table in,
+     *                except for fields that are not in the base table
+     * @param index   the index of the change
+     * @return        the operation, {@link #INSERT}, {@link #UPDATE} or
+     *                {@link #DELETE}
+     */
+    public int next(GenericRecord record, long index) {
+        random.seek(index);
+        final double operation = random.nextDouble();
+
+        if (operation < insertThreshold) {
+            base.mock(record, firstInsert + index);
+            return INSERT;
+        } else if (operation < updateThreshold) {
+            final long target = target();
+            base.mock(record, firstInsert + index);
+            record.put(key, keyOf(record.getSchema(), target));
+            return UPDATE;
+        } else {
+            base.mock(record, target());
+            return DELETE;
+        }
+    }
+
+    private long target() {
+        return zipf != null
+            ? zipf.next(random) - 1
+            : (random.nextLong() >>> 1) % total;
+    }
+
+    /**
+     * Returns the key of the record with the specified index in the base
+     * table.
+     */
+    private Object keyOf(Schema schema, long index) {
+        if (keys != null) {
+            final long value = keys.key(index);
+            return schema.getField(key).schema().getType() == Schema.Type.INT
+                ? Math.toIntExact(value) : value;
+        }
+
+        if (scratch == null || scratch.getSchema() != schema) {
+            scratch = new GenericData.Record(schema);
+        }
+
+        return base.mock(scratch, index).get(key);
+    }
+}
@@ -0,0 +1,178 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.StringUtil;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.util.Utf8;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The set of values that a strategy can produce, used to check that generated
+ * data actually follows the settings it was generated with.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Constraint {
+
+    private final static Constraint ANY = new Constraint("any value", v -> true);
+
+    private final String description;
+    private final Predicate<Object> predicate;
+
+    private Constraint(String description, Predicate<Object> predicate) {
+        this.description = requireNonNull(description);
+        this.predicate   = requireNonNull(predicate);
+    }
+
+    /**
+     * Returns {@code true} if the specified non-null value could have been
+     * produced by the strategy.
+     *
+     * @param value  the value to test
+     * @return       if the value is allowed
+     */
+    public boolean test(Object value) {
+        return predicate.test(value);
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    static Constraint any() {
+        return ANY;
+    }
+
+    /**
+     * Integers between {@code min} and {@code max} (both inclusive) that are
+     * a multiple of {@code step}.
+     */
+    static Constraint integers(long min, long max, long step) {
+        final long mod = Math.abs(step);
+        if (mod <= 1) {
+            return new Constraint(format("integer in [%d, %d]", min, max), v -> {
+                final long l = ((Number) v).longValue();
+                return l >= min && l <= max;
+            });
+        } else {
+            return new Constraint(format("multiple of %d in [%d, %d]", mod, min, max), v -> {
+                final long l = ((Number) v).longValue();
+                return l >= min && l <= max && l % mod == 0;
+            });
+        }
+    }
+
+    static Constraint integersIn(long[] values) {
+        final long[] sorted = LongStream.of(values).distinct().sorted().toArray();
+        return new Constraint("one of " + Arrays.toString(sorted),
+            v -> Arrays.binarySearch(sorted, ((Number) v).longValue()) >= 0);
+    }
+
+    /**
+     * Decimals between {@code min} (inclusive) and {@code max} (inclusive,
+     * since rounding to a float may reach it).
+     */
+    static Constraint decimals(double min, double max) {
+        return new Constraint(format("decimal in [%s, %s]", min, max), v -> {
+            final double d = ((Number) v).doubleValue();
+            return d >= min && d <= max;
+        });
+    }
+
+    static Constraint finite() {
+        return new Constraint("finite decimal",
+            v -> !Double.isInfinite(((Number) v).doubleValue())
+              && !Double.isNaN(((Number) v).doubleValue()));
+    }
+
+    /**
+     * Strings with a length between {@code min} (inclusive) and {@code max}
+     * (exclusive).
+     */
+    static Constraint length(int min, int max) {
+        return new Constraint(format("string of length [%d, %d)", min, max), v -> {
+            final int length = StringUtil.length((CharSequence) v);
+            return length >= min && length < max;
+        });
+    }
+
+    /**
+     * Strings that match the specified regular expression.
+     */
+    static Constraint matching(String regex) {
+        final Pattern pattern = Pattern.compile(regex);
+        return new Constraint("string matching " + regex,
+            v -> pattern.matcher((CharSequence) v).matches());
+    }
+
+    /**
+     * Decimals encoded as bytes or fixed with an unscaled value between
+     * {@code min} and {@code max} (both inclusive).
+     */
+    static Constraint unscaled(long min, long max, int scale) {
+        final BigInteger lower = BigInteger.valueOf(min);
+        final BigInteger upper = BigInteger.valueOf(max);
+        return new Constraint(format("decimal in [%s, %s]",
+                BigDecimal.valueOf(min, scale), BigDecimal.valueOf(max, scale)), v -> {
+            final byte[] bytes;
+            if (v instanceof ByteBuffer) {
+                final ByteBuffer buffer = ((ByteBuffer) v).duplicate();
+                bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+            } else if (v instanceof GenericFixed) {
+                bytes = ((GenericFixed) v).bytes();
+            } else return false;
+
+            if (bytes.length == 0) return false;
+            final BigInteger unscaled = new BigInteger(bytes);
+            return unscaled.compareTo(lower) >= 0 && unscaled.compareTo(upper) <= 0;
+        });
+    }
+
+    /**
+     * Strings in the canonical form of a version 4 UUID.
+     */
+    static Constraint uuid() {
+        return new Constraint("random uuid", v -> {
+            final String str = v.toString();
+            if (str.length() != 36 || str.charAt(14) != '4') return false;
+            for (int i = 0; i < 36; i++) {
+                final char c = str.charAt(i);
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (c != '-') return false;
+                } else if (Character.digit(c, 16) < 0 || Character.isUpperCase(c)) {
+                    return false;
+                }
+            }
+            return "89ab".indexOf(str.charAt(19)) >= 0;
+        });
+    }
+
+    /**
+     * Strings or enum symbols in the specified set.
+     */
+    static Constraint symbols(String... symbols) {
+        final Set<String> set = new HashSet<>(Arrays.asList(symbols));
+
+        // Strings read from files are Utf8 and can be compared without decoding
+        final Set<Utf8> utf8 = new HashSet<>();
+        for (final String symbol : symbols) utf8.add(new Utf8(symbol));
+
+        return new Constraint("one of " + set, v -> v instanceof Utf8
+            ? utf8.contains(v)
+            : set.contains(v.toString()));
+    }
+}
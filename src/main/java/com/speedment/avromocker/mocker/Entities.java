@@ -0,0 +1,283 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.HashUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import static java.lang.String.format;
+
+/**
+ * Population of entities, like users, that each emit sessions of events.
+ * Every call to {@link #next()} moves to the next event of any entity in
+ * global time order, after which the state of the entity of that event can
+ * be read by the {@code entity} strategy.
+ * <p>
+ * The number of events in a session is geometrically distributed with the
+ * mean {@code sessionEvents}. The time between events within a session and
+ * between sessions are exponentially distributed with the means
+ * {@code eventGap} and {@code sessionGap}. All times are in milliseconds.
+ * The random numbers of an event only depend on the seed, the entity and
+ * the number of events the entity has had before, so the same settings
+ * always give the same events.
+ * <p>
+ * The state is stored as one off-heap column per attribute, so that a
+ * population of hundreds of millions of entities neither has to fit in the
+ * heap nor creates any per-entity objects. The next event of every entity
+ * is kept in a 4-ary min-heap where the time and the entity of every slot
+ * are stored next to the times of its siblings. An event therefore costs a
+ * single walk down the heap. Entities are not thread safe.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Entities {
+
+    /**
+     * The number of off-heap bytes used per entity.
+     */
+    public final static int BYTES_PER_ENTITY = 44;
+
+    /**
+     * The maximum number of entities, limited by the size of a buffer.
+     */
+    public final static int MAX_ENTITIES = Integer.MAX_VALUE / Long.BYTES;
+
+    private final static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+    private final int size;
+    private final double endProbability;
+    private final double eventGap, sessionGap;
+
+    // The heap of upcoming events
+    private final LongBuffer heapTimes;
+    private final IntBuffer heapEntities;
+
+    // The state of every entity
+    private final LongBuffer lastTimes;
+    private final LongBuffer sessionStarts;
+    private final LongBuffer counts;
+    private final IntBuffer sessions;
+    private final IntBuffer sequences;
+
+    private boolean started;
+    private int entity;
+    private long time;
+
+    /**
+     * Creates a population of entities with their first sessions starting
+     * after {@code start}.
+     *
+     * @param seed           the seed
+     * @param size           the number of entities
+     * @param start          the earliest time of an event
+     * @param sessionEvents  the mean number of events in a session
+     * @param eventGap       the mean time between events in a session
+     * @param sessionGap     the mean time between sessions
+     * @throws IllegalArgumentException  if a parameter is out of range
+     */
+    public Entities(long seed, int size, long start, double sessionEvents,
+                    double eventGap, double sessionGap) {
+        if (size < 1 || size > MAX_ENTITIES) {
+            throw new IllegalArgumentException(format(
+                "The number of entities must be between 1 and %,d.", MAX_ENTITIES));
+        } else if (!(sessionEvents >= 1)) {
+            throw new IllegalArgumentException("There must be at least one event per session.");
+        } else if (!(eventGap >= 0) || !(sessionGap >= 0)) {
+            throw new IllegalArgumentException("The time between events must not be negative.");
+        }
+
+        this.seed           = seed;
+        this.size           = size;
+        this.endProbability = 1 / sessionEvents;
+        this.eventGap       = eventGap;
+        this.sessionGap     = sessionGap;
+
+        this.heapTimes      = allocate(size, Long.BYTES).asLongBuffer();
+        this.heapEntities   = allocate(size, Integer.BYTES).asIntBuffer();
+        this.lastTimes      = allocate(size, Long.BYTES).asLongBuffer();
+        this.sessionStarts  = allocate(size, Long.BYTES).asLongBuffer();
+        this.counts         = allocate(size, Long.BYTES).asLongBuffer();
+        this.sessions       = allocate(size, Integer.BYTES).asIntBuffer();
+        this.sequences      = allocate(size, Integer.BYTES).asIntBuffer();
+
+        for (int e = 0; e < size; e++) {
+            heapTimes.put(e, start + (long) exponential(sessionGap, hash(e, -1) & 0xff_ffff_ffffL));
+            heapEntities.put(e, e);
+            lastTimes.put(e, Long.MIN_VALUE);
+            sessions.put(e, -1);
+        }
+
+        // Floyd's construction, starting at the parent of the last slot
+        for (int slot = (size - 2) >> 2; slot >= 0; slot--) {
+            siftDown(slot);
+        }
+    }
+
+    /**
+     * Returns the number of entities.
+     *
+     * @return  the size of the population
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves to the next event, which is the earliest upcoming event of any
+     * entity.
+     */
+    public void next() {
+        if (started) {
+            schedule();
+        } else {
+            started = true;
+        }
+
+        entity = heapEntities.get(0);
+        time   = heapTimes.get(0);
+
+        // The first event of a session
+        if (sequences.get(entity) == 0) {
+            sessions.put(entity, sessions.get(entity) + 1);
+            sessionStarts.put(entity, time);
+        }
+    }
+
+    /**
+     * Returns the entity of the current event, from 0.
+     *
+     * @return  the entity
+     */
+    public int entity() {
+        return entity;
+    }
+
+    /**
+     * Returns the time of the current event.
+     *
+     * @return  the time in milliseconds
+     */
+    public long time() {
+        return time;
+    }
+
+    /**
+     * Returns the time of the previous event of the current entity, or the
+     * time of the current event if it is the first one.
+     *
+     * @return  the time in milliseconds
+     */
+    public long last() {
+        final long last = lastTimes.get(entity);
+        return last == Long.MIN_VALUE ? time : last;
+    }
+
+    /**
+     * Returns the session of the current event, counted from 0 for every
+     * entity.
+     *
+     * @return  the session
+     */
+    public int session() {
+        return sessions.get(entity);
+    }
+
+    /**
+     * Returns the time of the first event in the current session.
+     *
+     * @return  the time in milliseconds
+     */
+    public long sessionStart() {
+        return sessionStarts.get(entity);
+    }
+
+    /**
+     * Returns the number of the current event within its session, from 0.
+     *
+     * @return  the sequence number
+     */
+    public int sequence() {
+        return sequences.get(entity);
+    }
+
+    /**
+     * Returns the number of events the current entity has had before the
+     * current one.
+     *
+     * @return  the count
+     */
+    public long count() {
+        return counts.get(entity);
+    }
+
+    /**
+     * Updates the state of the current entity and schedules its next event.
+     */
+    private void schedule() {
+        final long count = counts.get(entity);
+        final long h     = hash(entity, count);
+
+        // 24 bits decide if the session ends and 40 bits the time until
+        // the next event
+        final boolean end = (h >>> 40) * 0x1.0p-24 < endProbability;
+        final double gap = exponential(end ? sessionGap : eventGap, h & 0xff_ffff_ffffL);
+
+        lastTimes.put(entity, time);
+        counts.put(entity, count + 1);
+        sequences.put(entity, end ? 0 : sequences.get(entity) + 1);
+
+        heapTimes.put(0, time + (long) gap);
+        siftDown(0);
+    }
+
+    private void siftDown(int slot) {
+        final long time   = heapTimes.get(slot);
+        final int  entity = heapEntities.get(slot);
+
+        while (true) {
+            final int first = (slot << 2) + 1;
+            if (first >= size || first < 0) break;
+
+            // Find the earliest of the up to four children
+            final int last = Math.min(first + 4, size);
+            int  min     = first;
+            long minTime = heapTimes.get(first);
+            for (int child = first + 1; child < last; child++) {
+                final long childTime = heapTimes.get(child);
+                if (childTime < minTime) {
+                    min     = child;
+                    minTime = childTime;
+                }
+            }
+
+            if (minTime >= time) break;
+
+            heapTimes.put(slot, minTime);
+            heapEntities.put(slot, heapEntities.get(min));
+            slot = min;
+        }
+
+        heapTimes.put(slot, time);
+        heapEntities.put(slot, entity);
+    }
+
+    private long hash(long entity, long count) {
+        return HashUtil.mix64(seed ^ HashUtil.mix64(entity * GOLDEN_GAMMA + count));
+    }
+
+    /**
+     * Returns an exponentially distributed value with the specified mean,
+     * given 40 random bits.
+     */
+    private static double exponential(double mean, long bits) {
+        return -mean * Math.log(1 - bits * 0x1.0p-40);
+    }
+
+    private static ByteBuffer allocate(int size, int bytes) {
+        return ByteBuffer.allocateDirect(size * bytes).order(ByteOrder.nativeOrder());
+    }
+}
@@ -0,0 +1,106 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.Schema;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generator that reads an attribute of the entity of the current event.
+ * Created by the {@code entity} strategy and must be
+ * {@link #bind(Entities) bound} to the entities before any values are
+ * generated.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class EntityField implements Function<Random, Object> {
+
+    /**
+     * The attributes that can be read, in the order of the constants below.
+     */
+    final static String[] ATTRIBUTES = {"id", "time", "last", "session", "start", "seq", "count"};
+
+    private final static int ID = 0, TIME = 1, LAST = 2, SESSION = 3, START = 4, SEQ = 5, COUNT = 6;
+
+    private final Schema.Type type;
+    private final String attribute;
+    private final int index;
+    private final long scale;
+
+    private Entities entities;
+
+    /**
+     * Creates a generator for the specified attribute.
+     *
+     * @param type       the type of the field
+     * @param attribute  the name of the attribute
+     * @param scale      factor to multiply times with, to convert them from
+     *                   milliseconds into the unit of the field
+     * @throws IllegalArgumentException  if the attribute is unknown
+     */
+    EntityField(Schema.Type type, String attribute, long scale) {
+        this.type      = requireNonNull(type);
+        this.attribute = requireNonNull(attribute);
+        this.scale     = scale;
+
+        int index = -1;
+        for (int i = 0; i < ATTRIBUTES.length; i++) {
+            if (ATTRIBUTES[i].equals(attribute)) index = i;
+        }
+
+        if (index < 0) {
+            throw new IllegalArgumentException(format(
+                "Unknown entity attribute '%s'. Expected one of %s.",
+                attribute, String.join(", ", ATTRIBUTES)));
+        }
+
+        this.index = index;
+    }
+
+    /**
+     * Returns the name of the attribute that is read.
+     *
+     * @return  the attribute
+     */
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public void bind(Entities entities) {
+        this.entities = requireNonNull(entities);
+    }
+
+    public boolean isBound() {
+        return entities != null;
+    }
+
+    @Override
+    public Object apply(Random random) {
+        if (entities == null) {
+            throw new IllegalStateException(format(
+                "Entity attribute '%s' has not been bound.", attribute));
+        }
+
+        final long value;
+        switch (index) {
+            case ID      : value = entities.entity(); break;
+            case TIME    : value = entities.time() * scale; break;
+            case LAST    : value = entities.last() * scale; break;
+            case SESSION : value = entities.session(); break;
+            case START   : value = entities.sessionStart() * scale; break;
+            case SEQ     : value = entities.sequence(); break;
+            case COUNT   : value = entities.count(); break;
+            default : throw new IllegalStateException();
+        }
+
+        switch (type) {
+            case INT  : return Math.toIntExact(value);
+            case LONG : return value;
+            default : throw new IllegalStateException();
+        }
+    }
+}
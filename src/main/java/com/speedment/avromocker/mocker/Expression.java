@@ -0,0 +1,132 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.mocker.ExpressionParser.DoubleExpr;
+import com.speedment.avromocker.mocker.ExpressionParser.LongExpr;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generator for a derived field, computed from other fields of the same
+ * record. The expression is compiled once into primitive operations for the
+ * type of the field. If any of the fields it depends on is {@code null}, the
+ * derived value is also {@code null}.
+ * <p>
+ * Since the value depends on the record, this generator can not be invoked
+ * using {@link #apply(Random)}. Instead, the {@link MockerBuilder} detects it
+ * and evaluates it after the fields it depends on.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Expression implements Function<Random, Object> {
+
+    private final String source;
+    private final Set<String> dependencies;
+    private final BiFunction<Random, GenericRecord, Object> evaluator;
+    private int[] positions;
+
+    /**
+     * Parses and compiles the specified expression.
+     *
+     * @param source  the expression, for an example {@code qty * price}
+     * @param type    the type of the field to generate values for
+     * @return        the compiled expression
+     *
+     * @throws IllegalArgumentException  if the expression could not be parsed
+     */
+    public static Expression compile(String source, Schema.Type type) {
+        final Set<String> dependencies = new LinkedHashSet<>();
+        final ExpressionParser.Node node = new ExpressionParser(source, dependencies).parse();
+
+        final BiFunction<Random, GenericRecord, Object> evaluator;
+        switch (type) {
+            case INT : {
+                final LongExpr expr = node.toLong();
+                evaluator = (r, rec) -> Math.toIntExact(expr.eval(r, rec));
+                break;
+            }
+            case LONG : {
+                final LongExpr expr = node.toLong();
+                evaluator = expr::eval;
+                break;
+            }
+            case FLOAT : {
+                final DoubleExpr expr = node.toDouble();
+                evaluator = (r, rec) -> (float) expr.eval(r, rec);
+                break;
+            }
+            case DOUBLE : {
+                final DoubleExpr expr = node.toDouble();
+                evaluator = expr::eval;
+                break;
+            }
+            default : throw new IllegalArgumentException(format(
+                "Expressions are not supported for avro type '%s'.", type.getName()
+            ));
+        }
+
+        return new Expression(source, dependencies, evaluator);
+    }
+
+    private Expression(String source, Set<String> dependencies,
+                       BiFunction<Random, GenericRecord, Object> evaluator) {
+        this.source       = requireNonNull(source);
+        this.dependencies = unmodifiableSet(dependencies);
+        this.evaluator    = requireNonNull(evaluator);
+    }
+
+    /**
+     * Returns the names of the fields that this expression depends on.
+     *
+     * @return  the dependencies
+     */
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Computes the value of this expression for the specified record. The
+     * fields that it depends on must already have been generated.
+     *
+     * @param random  the random generator
+     * @param record  the record being generated
+     * @return        the value
+     */
+    public Object apply(Random random, GenericRecord record) {
+        int[] positions = this.positions;
+        if (positions == null) {
+            this.positions = positions = dependencies.stream()
+                .mapToInt(name -> record.getSchema().getField(name).pos())
+                .toArray();
+        }
+
+        for (final int position : positions) {
+            if (record.get(position) == null) return null;
+        }
+
+        return evaluator.apply(random, record);
+    }
+
+    @Override
+    public Object apply(Random random) {
+        throw new UnsupportedOperationException(format(
+            "Expression '%s' depends on other fields and must be evaluated by a %s.",
+            source, MockerBuilder.class.getSimpleName()
+        ));
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
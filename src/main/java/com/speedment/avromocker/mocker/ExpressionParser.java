@@ -0,0 +1,353 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Recursive descent parser for the expressions used by derived fields. The
+ * expression is parsed into a tree of nodes once, which is then compiled into
+ * a tree of primitive lambdas for either the {@code long} or the
+ * {@code double} domain so that no parsing or boxing happens per record.
+ * <p>
+ * Grammar:
+ * <pre>
+ *   expr    = term (('+' | '-') term)*
+ *   term    = unary (('*' | '/' | '%') unary)*
+ *   unary   = '-' unary | primary
+ *   primary = number | field | function '(' expr (',' expr)* ')' | '(' expr ')'
+ * </pre>
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class ExpressionParser {
+
+    @FunctionalInterface
+    interface LongExpr {
+        long eval(Random random, GenericRecord record);
+    }
+
+    @FunctionalInterface
+    interface DoubleExpr {
+        double eval(Random random, GenericRecord record);
+    }
+
+    interface Node {
+        LongExpr toLong();
+        DoubleExpr toDouble();
+    }
+
+    private final String source;
+    private final Set<String> dependencies;
+    private int pos;
+
+    ExpressionParser(String source, Set<String> dependencies) {
+        this.source       = source;
+        this.dependencies = dependencies;
+    }
+
+    Node parse() {
+        final Node node = parseExpression();
+        skipWhitespace();
+        if (pos < source.length()) {
+            throw error("Unexpected character '%s'", source.charAt(pos));
+        }
+        return node;
+    }
+
+    private Node parseExpression() {
+        Node node = parseTerm();
+        while (true) {
+            if (consume('+')) {
+                final Node a = node, b = parseTerm();
+                node = node(
+                    () -> { final LongExpr x = a.toLong(), y = b.toLong(); return (r, rec) -> x.eval(r, rec) + y.eval(r, rec); },
+                    () -> { final DoubleExpr x = a.toDouble(), y = b.toDouble(); return (r, rec) -> x.eval(r, rec) + y.eval(r, rec); }
+                );
+            } else if (consume('-')) {
+                final Node a = node, b = parseTerm();
+                node = node(
+                    () -> { final LongExpr x = a.toLong(), y = b.toLong(); return (r, rec) -> x.eval(r, rec) - y.eval(r, rec); },
+                    () -> { final DoubleExpr x = a.toDouble(), y = b.toDouble(); return (r, rec) -> x.eval(r, rec) - y.eval(r, rec); }
+                );
+            } else return node;
+        }
+    }
+
+    private Node parseTerm() {
+        Node node = parseUnary();
+        while (true) {
+            if (consume('*')) {
+                final Node a = node, b = parseUnary();
+                node = node(
+                    () -> { final LongExpr x = a.toLong(), y = b.toLong(); return (r, rec) -> x.eval(r, rec) * y.eval(r, rec); },
+                    () -> { final DoubleExpr x = a.toDouble(), y = b.toDouble(); return (r, rec) -> x.eval(r, rec) * y.eval(r, rec); }
+                );
+            } else if (consume('/')) {
+                final Node a = node, b = parseUnary();
+                node = node(
+                    () -> { final LongExpr x = a.toLong(), y = b.toLong(); return (r, rec) -> x.eval(r, rec) / y.eval(r, rec); },
+                    () -> { final DoubleExpr x = a.toDouble(), y = b.toDouble(); return (r, rec) -> x.eval(r, rec) / y.eval(r, rec); }
+                );
+            } else if (consume('%')) {
+                final Node a = node, b = parseUnary();
+                node = node(
+                    () -> { final LongExpr x = a.toLong(), y = b.toLong(); return (r, rec) -> x.eval(r, rec) % y.eval(r, rec); },
+                    () -> { final DoubleExpr x = a.toDouble(), y = b.toDouble(); return (r, rec) -> x.eval(r, rec) % y.eval(r, rec); }
+                );
+            } else return node;
+        }
+    }
+
+    private Node parseUnary() {
+        if (consume('-')) {
+            final Node a = parseUnary();
+            return node(
+                () -> { final LongExpr x = a.toLong(); return (r, rec) -> -x.eval(r, rec); },
+                () -> { final DoubleExpr x = a.toDouble(); return (r, rec) -> -x.eval(r, rec); }
+            );
+        } else {
+            return parsePrimary();
+        }
+    }
+
+    private Node parsePrimary() {
+        skipWhitespace();
+        if (consume('(')) {
+            final Node node = parseExpression();
+            expect(')');
+            return node;
+        }
+
+        final int start = pos;
+        if (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) pos++;
+            final String literal = source.substring(start, pos);
+            final double value;
+            try {
+                value = Double.parseDouble(literal);
+            } catch (final NumberFormatException ex) {
+                throw error("Invalid number '%s'", literal);
+            }
+            final long longValue = (long) value;
+            return node(() -> (r, rec) -> longValue, () -> (r, rec) -> value);
+        }
+
+        if (pos < source.length() && Character.isJavaIdentifierStart(source.charAt(pos))) {
+            while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) pos++;
+            final String name = source.substring(start, pos);
+            if (consume('(')) {
+                final List<Node> args = new ArrayList<>();
+                if (!consume(')')) {
+                    do {
+                        args.add(parseExpression());
+                    } while (consume(','));
+                    expect(')');
+                }
+                return function(name, args);
+            } else {
+                dependencies.add(name);
+                return field(name);
+            }
+        }
+
+        throw error("Expected a number, field or function");
+    }
+
+    private Node field(String name) {
+        return node(
+            () -> {
+                final int[] index = {-1};
+                return (r, rec) -> ((Number) rec.get(position(index, rec, name))).longValue();
+            },
+            () -> {
+                final int[] index = {-1};
+                return (r, rec) -> ((Number) rec.get(position(index, rec, name))).doubleValue();
+            }
+        );
+    }
+
+    private Node function(String name, List<Node> args) {
+        switch (name) {
+            case "rand" : {
+                requireArgs(name, args, 2);
+                final Node lower = args.get(0), upper = args.get(1);
+                return node(
+                    () -> {
+                        final LongExpr a = lower.toLong(), b = upper.toLong();
+                        return (r, rec) -> {
+                            final long from  = a.eval(r, rec);
+                            final long width = b.eval(r, rec) - from;
+                            return width <= Integer.MAX_VALUE
+                                ? r.nextInt((int) width) + from
+                                : (r.nextLong() >>> 1) % width + from;
+                        };
+                    },
+                    () -> {
+                        final DoubleExpr a = lower.toDouble(), b = upper.toDouble();
+                        return (r, rec) -> {
+                            final double from = a.eval(r, rec);
+                            return r.nextDouble() * (b.eval(r, rec) - from) + from;
+                        };
+                    }
+                );
+            }
+            case "min" : {
+                requireArgs(name, args, 2);
+                final Node a = args.get(0), b = args.get(1);
+                return node(
+                    () -> { final LongExpr x = a.toLong(), y = b.toLong(); return (r, rec) -> Math.min(x.eval(r, rec), y.eval(r, rec)); },
+                    () -> { final DoubleExpr x = a.toDouble(), y = b.toDouble(); return (r, rec) -> Math.min(x.eval(r, rec), y.eval(r, rec)); }
+                );
+            }
+            case "max" : {
+                requireArgs(name, args, 2);
+                final Node a = args.get(0), b = args.get(1);
+                return node(
+                    () -> { final LongExpr x = a.toLong(), y = b.toLong(); return (r, rec) -> Math.max(x.eval(r, rec), y.eval(r, rec)); },
+                    () -> { final DoubleExpr x = a.toDouble(), y = b.toDouble(); return (r, rec) -> Math.max(x.eval(r, rec), y.eval(r, rec)); }
+                );
+            }
+            case "abs" : {
+                requireArgs(name, args, 1);
+                final Node a = args.get(0);
+                return node(
+                    () -> { final LongExpr x = a.toLong(); return (r, rec) -> Math.abs(x.eval(r, rec)); },
+                    () -> { final DoubleExpr x = a.toDouble(); return (r, rec) -> Math.abs(x.eval(r, rec)); }
+                );
+            }
+            case "round" : {
+                requireArgs(name, args, 2);
+                final Node a = args.get(0), b = args.get(1);
+                return node(
+                    a::toLong,
+                    () -> {
+                        final DoubleExpr x = a.toDouble(), y = b.toDouble();
+                        return (r, rec) -> {
+                            final double power = Math.pow(10, y.eval(r, rec));
+                            return Math.round(x.eval(r, rec) * power) / power;
+                        };
+                    }
+                );
+            }
+            case "plusDays" : {
+                requireArgs(name, args, 2);
+                final Node a = args.get(0), b = args.get(1);
+                return node(
+                    () -> {
+                        final LongExpr x = a.toLong(), y = b.toLong();
+                        return (r, rec) -> plusDays(x.eval(r, rec), y.eval(r, rec));
+                    },
+                    () -> {
+                        final LongExpr x = a.toLong(), y = b.toLong();
+                        return (r, rec) -> plusDays(x.eval(r, rec), y.eval(r, rec));
+                    }
+                );
+            }
+            default : throw error("Unknown function '%s'", name);
+        }
+    }
+
+    private static int position(int[] index, GenericRecord record, String name) {
+        if (index[0] < 0) {
+            index[0] = record.getSchema().getField(name).pos();
+        }
+        return index[0];
+    }
+
+    static long plusDays(long yyyyMMdd, long days) {
+        // Every month has at least 28 days
+        final long day = yyyyMMdd % 100 + days;
+        if (day >= 1 && day <= 28) {
+            return yyyyMMdd + days;
+        } else {
+            return fromEpochDay(toEpochDay(yyyyMMdd) + days);
+        }
+    }
+
+    /**
+     * Converts a date on the form {@code yyyyMMdd} to the number of days
+     * since 1970-01-01 without creating any objects.
+     */
+    static long toEpochDay(long yyyyMMdd) {
+        long y = yyyyMMdd / 10_000;
+        final long m = yyyyMMdd / 100 % 100;
+        final long d = yyyyMMdd % 100;
+        y -= m <= 2 ? 1 : 0;
+        final long era = Math.floorDiv(y, 400);
+        final long yoe = y - era * 400;
+        final long doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        final long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097 + doe - 719_468;
+    }
+
+    /**
+     * Converts a number of days since 1970-01-01 to a date on the form
+     * {@code yyyyMMdd} without creating any objects.
+     */
+    static long fromEpochDay(long epochDay) {
+        final long z = epochDay + 719_468;
+        final long era = Math.floorDiv(z, 146_097);
+        final long doe = z - era * 146_097;
+        final long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        final long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        final long mp = (5 * doy + 2) / 153;
+        final long d = doy - (153 * mp + 2) / 5 + 1;
+        final long m = mp + (mp < 10 ? 3 : -9);
+        final long y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+        return y * 10_000 + m * 100 + d;
+    }
+
+    private static Node node(Supplier<LongExpr> toLong, Supplier<DoubleExpr> toDouble) {
+        return new Node() {
+            @Override
+            public LongExpr toLong() {
+                return toLong.get();
+            }
+
+            @Override
+            public DoubleExpr toDouble() {
+                return toDouble.get();
+            }
+        };
+    }
+
+    private void requireArgs(String function, List<Node> args, int count) {
+        if (args.size() != count) {
+            throw error("Function '%s' expects %d arguments", function, count);
+        }
+    }
+
+    private boolean consume(char c) {
+        skipWhitespace();
+        if (pos < source.length() && source.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!consume(c)) {
+            throw error("Expected '%s'", c);
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) pos++;
+    }
+
+    private IllegalArgumentException error(String message, Object... args) {
+        return new IllegalArgumentException(format(
+            "%s at position %d in expression '%s'.",
+            format(message, args), pos, source
+        ));
+    }
+}
@@ -0,0 +1,118 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.HashUtil;
+import com.speedment.avromocker.util.Permutation;
+import org.apache.avro.Schema;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generator for integer keys where the value of the n:th record is a
+ * bijective function of n. This is used by the {@code incr}, {@code asc} and
+ * {@code perm} strategies and means that other files can reference the
+ * generated keys without having to store them, and that any range of records
+ * can be generated independently of the others.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class KeySequence implements Function<Random, Object> {
+
+    private final Schema.Type type;
+    private final long lower, scale;
+    private final Permutation permutation;
+    private final boolean jitter;
+    private final long seed;
+    private final AtomicLong counter;
+
+    /**
+     * Creates a sequence where the n:th key is {@code (lower + n) * scale}.
+     */
+    static KeySequence increment(Schema.Type type, long lower, long scale) {
+        return new KeySequence(type, lower, scale, null, false, 0);
+    }
+
+    /**
+     * Creates a strictly increasing sequence where the n:th key is
+     * {@code lower + n * scale} plus a pseudo-random offset less than
+     * {@code scale}. The gap between consecutive keys is thereby random, but
+     * the keys are still sorted and any key can be computed from its index.
+     */
+    static KeySequence ascending(Schema.Type type, long lower, long scale, long seed) {
+        return new KeySequence(type, lower, scale, null, true, seed);
+    }
+
+    /**
+     * Creates a sequence where the n:th key is {@code (lower + p(n)) * scale}
+     * for a pseudo-random permutation {@code p}.
+     */
+    static KeySequence permutation(Schema.Type type, long lower, long scale, Permutation permutation) {
+        return new KeySequence(type, lower, scale, requireNonNull(permutation), false, 0);
+    }
+
+    private KeySequence(Schema.Type type, long lower, long scale,
+                        Permutation permutation, boolean jitter, long seed) {
+        this.type        = requireNonNull(type);
+        this.lower       = lower;
+        this.scale       = scale;
+        this.permutation = permutation; // Nullable
+        this.jitter      = jitter;
+        this.seed        = seed;
+        this.counter     = new AtomicLong();
+    }
+
+    @Override
+    public Object apply(Random random) {
+        final long key = key(MockerBuilderUtil.nextIndex(random, counter));
+        switch (type) {
+            case INT  : return Math.toIntExact(key);
+            case LONG : return key;
+            default : throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Returns the key generated for the record with the specified index.
+     *
+     * @param index  the record index
+     * @return       the key
+     */
+    public long key(long index) {
+        if (jitter) {
+            return lower + index * scale
+                + Math.floorMod(HashUtil.mix64(seed + index), scale);
+        } else if (permutation == null) {
+            return (lower + index) * scale;
+        } else {
+            return (lower + permutation.apply(index % permutation.size())) * scale;
+        }
+    }
+
+    /**
+     * Returns the distinct keys produced when generating the specified
+     * number of records.
+     *
+     * @param total  the number of records generated
+     * @return       the keys
+     */
+    public KeySource keys(long total) {
+        final long size = permutation == null
+            ? total : Math.min(total, permutation.size());
+
+        return new KeySource() {
+            @Override
+            public long size() {
+                return size;
+            }
+
+            @Override
+            public long key(long index) {
+                return KeySequence.this.key(index);
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package com.speedment.avromocker.mocker;
+
+/**
+ * A finite, indexable set of keys generated for a field. Used to let a field
+ * in one generated file reference the keys of a field in another file.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public interface KeySource {
+
+    /**
+     * Returns the number of keys available.
+     *
+     * @return  the number of keys
+     */
+    long size();
+
+    /**
+     * Returns the key with the specified index.
+     *
+     * @param index  the index, between 0 (inclusive) and {@link #size()}
+     *               (exclusive)
+     * @return       the key
+     */
+    long key(long index);
+}
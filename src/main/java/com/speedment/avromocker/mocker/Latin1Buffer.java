@@ -0,0 +1,56 @@
+package com.speedment.avromocker.mocker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The characters of a string being generated, encoded as ISO-8859-1. Starts
+ * small and grows on demand up to the longest string that can be generated,
+ * so that a strategy can reuse one buffer per thread and only allocate the
+ * string itself.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class Latin1Buffer {
+
+    private final static int INITIAL_SIZE = 1 << 8;
+
+    private final int maxLength;
+    private byte[] bytes;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param maxLength  the length of the longest string that is generated
+     */
+    Latin1Buffer(int maxLength) {
+        this.maxLength = maxLength;
+        this.bytes     = new byte[Math.min(maxLength, INITIAL_SIZE)];
+    }
+
+    /**
+     * Makes room for the specified number of characters at the position.
+     *
+     * @param position  the position to write at
+     * @param length    the number of characters to write
+     * @return          the bytes to write the characters to
+     */
+    byte[] ensure(int position, int length) {
+        if (position + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(maxLength,
+                Math.max(bytes.length * 2, position + length)));
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the first characters of the buffer as a string.
+     *
+     * @param length  the number of characters
+     * @return        the string
+     */
+    String toString(int length) {
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
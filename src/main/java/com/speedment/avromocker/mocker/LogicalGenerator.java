@@ -0,0 +1,151 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.util.Utf8;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generator for logical types that are represented by bytes, like
+ * {@code decimal} and {@code uuid}. The value is encoded directly into the
+ * representation that is written to the file, without going through
+ * {@code BigDecimal} or {@code java.util.UUID}. The {@link MockerBuilder}
+ * passes the value that the field had in the previous record so that its
+ * buffer can be reused.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class LogicalGenerator implements Function<Random, Object> {
+
+    private final static byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final BiFunction<Random, Object, Object> generator;
+
+    /**
+     * Creates a generator for a {@code decimal} of type {@code bytes} where
+     * the unscaled value is uniformly distributed between {@code lower}
+     * (inclusive) and {@code upper} (exclusive). The value is written as the
+     * shortest big-endian two's-complement representation.
+     */
+    static LogicalGenerator decimalBytes(long lower, long upper) {
+        final long width = upper - lower;
+        return new LogicalGenerator((r, reuse) -> {
+            final long unscaled = nextLong(r, width) + lower;
+            final int length = minimalLength(unscaled);
+
+            final ByteBuffer buffer = reuse instanceof ByteBuffer
+                && ((ByteBuffer) reuse).hasArray()
+                && ((ByteBuffer) reuse).capacity() >= Long.BYTES
+                ? (ByteBuffer) reuse : ByteBuffer.allocate(Long.BYTES);
+
+            writeBigEndian(buffer.array(), buffer.arrayOffset(), length, unscaled);
+            buffer.clear();
+            buffer.limit(length);
+            return buffer;
+        });
+    }
+
+    /**
+     * Creates a generator for a {@code decimal} of type {@code fixed} where
+     * the unscaled value is uniformly distributed between {@code lower}
+     * (inclusive) and {@code upper} (exclusive). The value is sign-extended
+     * to the size of the fixed type.
+     */
+    static LogicalGenerator decimalFixed(Schema schema, long lower, long upper) {
+        final long width = upper - lower;
+        final int size = schema.getFixedSize();
+        return new LogicalGenerator((r, reuse) -> {
+            final long unscaled = nextLong(r, width) + lower;
+            final GenericData.Fixed fixed = reuse instanceof GenericData.Fixed
+                && ((GenericData.Fixed) reuse).bytes().length == size
+                ? (GenericData.Fixed) reuse : new GenericData.Fixed(schema);
+
+            writeBigEndian(fixed.bytes(), 0, size, unscaled);
+            return fixed;
+        });
+    }
+
+    /**
+     * Creates a generator for random (version 4) UUIDs, formatted as the 36
+     * characters of the canonical form.
+     */
+    static LogicalGenerator uuid() {
+        return new LogicalGenerator((r, reuse) -> {
+            final long msb = (r.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+            final long lsb = (r.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+
+            final Utf8 utf8 = reuse instanceof Utf8 ? (Utf8) reuse : new Utf8();
+            utf8.setByteLength(36);
+            final byte[] bytes = utf8.getBytes();
+
+            writeHex(bytes, 0, msb >>> 32, 8);
+            bytes[8] = '-';
+            writeHex(bytes, 9, msb >>> 16, 4);
+            bytes[13] = '-';
+            writeHex(bytes, 14, msb, 4);
+            bytes[18] = '-';
+            writeHex(bytes, 19, lsb >>> 48, 4);
+            bytes[23] = '-';
+            writeHex(bytes, 24, lsb, 12);
+            return utf8;
+        });
+    }
+
+    private LogicalGenerator(BiFunction<Random, Object, Object> generator) {
+        this.generator = requireNonNull(generator);
+    }
+
+    /**
+     * Generates a value, reusing the buffer of the specified previous value
+     * if possible.
+     *
+     * @param random  the random generator
+     * @param reuse   the previous value, or {@code null}
+     * @return        the generated value
+     */
+    public Object apply(Random random, Object reuse) {
+        return generator.apply(random, reuse);
+    }
+
+    @Override
+    public Object apply(Random random) {
+        return generator.apply(random, null);
+    }
+
+    /**
+     * Returns the number of bytes needed to represent the specified value in
+     * two's-complement, including the sign bit.
+     *
+     * @param value  the value
+     * @return       the number of bytes (1 to 8)
+     */
+    static int minimalLength(long value) {
+        return (64 - Long.numberOfLeadingZeros(value ^ (value >> 63))) / 8 + 1;
+    }
+
+    private static void writeBigEndian(byte[] bytes, int offset, int length, long value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            bytes[i] = (byte) value;
+            value >>= 8; // Sign-extends past the 8th byte
+        }
+    }
+
+    private static void writeHex(byte[] bytes, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            bytes[i] = HEX[(int) value & 0xf];
+            value >>>= 4;
+        }
+    }
+
+    private static long nextLong(Random random, long width) {
+        return (random.nextLong() & Long.MAX_VALUE) % width;
+    }
+}
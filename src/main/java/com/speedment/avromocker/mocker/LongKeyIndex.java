@@ -0,0 +1,68 @@
+package com.speedment.avromocker.mocker;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Compact, append-only index of {@code long} keys. Keys are stored unboxed in
+ * fixed-size chunks so that hundreds of millions of keys can be held without
+ * requiring a single contiguous array or any per-key objects.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class LongKeyIndex implements KeySource {
+
+    private final static int CHUNK_BITS = 20;
+    private final static int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private final static int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private long[][] chunks;
+    private long size;
+
+    public LongKeyIndex() {
+        this.chunks = new long[8][];
+    }
+
+    public void add(long key) {
+        final int chunk = (int) (size >>> CHUNK_BITS);
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new long[CHUNK_SIZE];
+        }
+
+        chunks[chunk][(int) (size & CHUNK_MASK)] = key;
+        size++;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long key(long index) {
+        return chunks[(int) (index >>> CHUNK_BITS)][(int) (index & CHUNK_MASK)];
+    }
+
+    /**
+     * Wraps the specified generator so that every non-null value it produces
+     * is added to this index.
+     *
+     * @param generator  the generator to wrap
+     * @return           the wrapped generator
+     */
+    public Function<Random, Object> recording(Function<Random, Object> generator) {
+        return r -> {
+            final Object value = generator.apply(r);
+            if (value != null) {
+                add(((Number) value).longValue());
+            }
+            return value;
+        };
+    }
+}
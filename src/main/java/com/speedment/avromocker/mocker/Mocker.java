@@ -1,10 +1,14 @@
 package com.speedment.avromocker.mocker;
 
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 
-import java.util.List;
-import java.util.function.Consumer;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -13,17 +17,208 @@ import static java.util.Objects.requireNonNull;
  */
 public final class Mocker {
 
-    private final List<Consumer<GenericRecord>> actions;
-
-    Mocker(final List<Consumer<GenericRecord>> actions) {
+    private final Action[] actions;
+    private final String[] keys;
+    private final int[] lanes;
+    private final NullMask nulls;
+    private final long[] mask;
+    private final Random random;
+    private final Entities entities;
+    private Schema schema;
+    private int[] positions;
+    private long next;
 
+    /**
+     * Creates a mocker that sets the field of each key to the value of the
+     * action with the same index, in order. If the lane of a field is not
+     * {@code -1}, the field is instead set to {@code null} when that lane of
+     * the null mask is set. If {@code entities} is not {@code null}, it is
+     * moved to the next event before every record.
+     */
+    Mocker(Action[] actions, String[] keys, int[] lanes, NullMask nulls,
+           Random random, Entities entities) {
         this.actions  = requireNonNull(actions);
+        this.keys     = requireNonNull(keys);
+        this.lanes    = requireNonNull(lanes);
+        this.nulls    = requireNonNull(nulls);
+        this.mask     = new long[nulls.words()];
+        this.random   = requireNonNull(random);
+        this.entities = entities;
     }
 
+    /**
+     * Generates the next record in sequence.
+     *
+     * @param record  the record to set the generated values in
+     * @return        the same record
+     */
     public GenericRecord mock(GenericRecord record) {
-        for (final Consumer<GenericRecord> action : actions) {
-            action.accept(record);
+        return mock(record, next);
+    }
+
+    /**
+     * Generates the record with the specified index. If this mocker was
+     * built {@link MockerBuilder#withSeed(long) with a seed}, the values only
+     * depend on the seed and the index, so records can be generated in any
+     * order. Subsequent calls to {@link #mock(GenericRecord)} continue from
+     * the specified index. A mocker that generates entities can only
+     * generate the records in order.
+     *
+     * @param record  the record to set the generated values in
+     * @param index   the index of the record
+     * @return        the same record
+     * @throws IllegalStateException  if this mocker generates entities and
+     *                                the index is not the next one
+     */
+    public GenericRecord mock(GenericRecord record, long index) {
+        if (entities != null) {
+            if (index != next) {
+                throw new IllegalStateException(format(
+                    "Entities can only be generated in order, but record %d was requested after %d.",
+                    index, next - 1));
+            }
+            entities.next();
+        }
+
+        if (random instanceof RecordRandom) {
+            ((RecordRandom) random).seek(index);
+        }
+
+        final int[] positions = positionsOf(record.getSchema());
+        nulls.next(random, mask);
+        for (int i = 0; i < lanes.length; i++) {
+            final int pos  = positions[i];
+            final int lane = lanes[i];
+            if (lane >= 0 && NullMask.isNull(mask, lane)) {
+                record.put(pos, null);
+            } else {
+                record.put(pos, actions[i].next(random, record, record.get(pos)));
+            }
         }
+
+        next = index + 1;
         return record;
     }
+
+    /**
+     * Sets the index of the record that the next call to
+     * {@link #mock(GenericRecord)} generates.
+     *
+     * @param index  the index of the next record
+     * @throws IllegalStateException  if this mocker generates entities and
+     *                                the index is not the next one
+     */
+    public void seek(long index) {
+        if (entities != null && index != next) {
+            throw new IllegalStateException("Entities can only be generated in order.");
+        }
+        next = index;
+    }
+
+    /**
+     * Returns a stream of the records with the indexes {@code from}
+     * (inclusive) to {@code to} (exclusive). Every record is a new instance,
+     * so records can be kept and shared between threads.
+     * <p>
+     * If this mocker was built {@link MockerBuilder#withSeed(long) with a
+     * seed}, the stream is generated by copies of it, so it can be consumed
+     * in parallel and gives the same records as sequential consumption.
+     * Otherwise, or if this mocker generates entities, the stream is
+     * sequential only and continues the random sequence of this mocker.
+     *
+     * @param schema  the schema of the records
+     * @param from    the index of the first record
+     * @param to      the index after the last record
+     * @return        stream of records
+     */
+    public Stream<GenericRecord> stream(Schema schema, long from, long to) {
+        return StreamSupport.stream(new RecordSpliterator(
+            isCopyable() ? copy() : this, schema, from, to, false), false);
+    }
+
+    /**
+     * Returns a stream like {@link #stream(Schema, long, long)}, except that
+     * the same record instance is used for every record generated by a
+     * thread. A record is only valid until the next one is generated, so
+     * consumers must not keep it. Values that can be reused, like decimals
+     * and uuids, are overwritten as well. In return, no records are
+     * allocated.
+     *
+     * @param schema  the schema of the records
+     * @param from    the index of the first record
+     * @param to      the index after the last record
+     * @return        stream of reused records
+     */
+    public Stream<GenericRecord> reusingStream(Schema schema, long from, long to) {
+        return StreamSupport.stream(new RecordSpliterator(
+            isCopyable() ? copy() : this, schema, from, to, true), false);
+    }
+
+    /**
+     * Returns a mocker that generates the same records as this one but that
+     * can be used concurrently with it. Only mockers built with a seed and
+     * without entities can be copied.
+     *
+     * @return  the new mocker
+     */
+    public Mocker copy() {
+        if (entities != null) {
+            throw new UnsupportedOperationException(
+                "Mockers that generate entities can't be copied.");
+        } else if (isSeeded()) {
+            return new Mocker(actions, keys, lanes, nulls,
+                new RecordRandom(((RecordRandom) random).getSeed()), null);
+        } else {
+            throw new UnsupportedOperationException(
+                "Only mockers built with a seed can be copied.");
+        }
+    }
+
+    boolean isSeeded() {
+        return random instanceof RecordRandom;
+    }
+
+    boolean isCopyable() {
+        return isSeeded() && entities == null;
+    }
+
+    /**
+     * Returns the position of the field of each key in the specified schema.
+     * The positions are cached since every record in a file usually has the
+     * same schema instance.
+     */
+    private int[] positionsOf(Schema schema) {
+        if (schema != this.schema) {
+            final int[] positions = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                final Schema.Field field = schema.getField(keys[i]);
+                if (field == null) {
+                    throw new AvroRuntimeException("Not a valid schema field: " + keys[i]);
+                }
+                positions[i] = field.pos();
+            }
+            this.positions = positions;
+            this.schema    = schema;
+        }
+        return positions;
+    }
+
+    /**
+     * Generates the value of a single field.
+     */
+    @FunctionalInterface
+    interface Action {
+
+        /**
+         * Returns the next value of the field.
+         *
+         * @param random    the random generator to use
+         * @param record    the record being generated, with the fields that
+         *                  come before this one already set
+         * @param previous  the value of the field in the previous record,
+         *                  which may be reused
+         * @return          the value
+         */
+        Object next(Random random, GenericRecord record, Object previous);
+    }
 }
@@ -1,16 +1,14 @@
 package com.speedment.avromocker.mocker;
 
-import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.Schema;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Random;
-import java.util.function.Consumer;
+import java.util.*;
 import java.util.function.Function;
 
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.joining;
 
 /**
  * @author Emil Forslund
@@ -19,6 +17,9 @@ import static java.util.stream.Collectors.toList;
 public final class MockerBuilder {
 
     private Random random;
+    private Schema schema;
+    private Entities entities;
+    private double repeat;
     private final Map<String, Function<Random, Object>> actions;
 
     public MockerBuilder() {
@@ -30,6 +31,63 @@ public final class MockerBuilder {
         return this;
     }
 
+    /**
+     * Makes the built mocker reseed its random generator for every record,
+     * so that every record only depends on the seed and its index.
+     *
+     * @param seed  the seed
+     * @return      this builder
+     */
+    public MockerBuilder withSeed(long seed) {
+        this.random = new RecordRandom(seed);
+        return this;
+    }
+
+    /**
+     * Makes the builder check the fields of the schema that derived values
+     * depend on. Expressions can only compute with numbers, so depending on
+     * any other type is an error.
+     *
+     * @param schema  the schema of the generated records
+     * @return        this builder
+     */
+    public MockerBuilder withSchema(Schema schema) {
+        this.schema = requireNonNull(schema);
+        return this;
+    }
+
+    /**
+     * Makes the built mocker move to the next event of the specified
+     * entities before every record, and binds the fields that read the
+     * state of the entity of the event. Records can then only be generated
+     * in order.
+     *
+     * @param entities  the entities
+     * @return          this builder
+     */
+    public MockerBuilder withEntities(Entities entities) {
+        this.entities = requireNonNull(entities);
+        return this;
+    }
+
+    /**
+     * Makes every field repeat the value of the record before it with the
+     * specified probability, unless its strategy already repeats values.
+     * Keys generated with {@code incr}, {@code asc} or {@code perm}, derived
+     * values and the fields of entities are never repeated.
+     *
+     * @param probability  the probability of repeating a value
+     * @return             this builder
+     */
+    public MockerBuilder withRepeat(double probability) {
+        if (!(probability >= 0 && probability < 1)) {
+            throw new IllegalArgumentException(
+                "The probability of repeating a value must be at least 0.0 and less than 1.0.");
+        }
+        this.repeat = probability;
+        return this;
+    }
+
     public MockerBuilder withAction(String key, Function<Random, Object> generator) {
         actions.put(key, generator);
         return this;
@@ -37,16 +95,134 @@ public final class MockerBuilder {
 
     public Mocker build() {
         final Random random = ofNullable(this.random).orElseGet(Random::new);
-        return new Mocker(
-            actions.entrySet().stream()
-                .map(entry -> {
-                    final String key = entry.getKey();
-                    final Function<Random, Object> generator = entry.getValue();
-                    return (Consumer<GenericRecord>) record -> {
-                        final Object value = generator.apply(random);
-                        record.put(key, value);
-                    };
-                }).collect(toList())
-        );
+        actions.forEach((key, nullable) -> {
+            final Function<Random, Object> generator = Repeat.unwrap(Nullable.unwrap(nullable));
+            if (generator instanceof Reference && !((Reference) generator).isBound()) {
+                final Reference ref = (Reference) generator;
+                throw new IllegalStateException(format(
+                    "Field '%s' references '%s.%s', which is only possible when running a job.",
+                    key, ref.getEntity(), ref.getField()
+                ));
+            } else if (generator instanceof EntityField) {
+                final EntityField field = (EntityField) generator;
+                if (entities != null) {
+                    field.bind(entities);
+                } else if (!field.isBound()) {
+                    throw new IllegalStateException(format(
+                        "Field '%s' reads the %s of an entity, which is only possible when generating entities.",
+                        key, field.getAttribute()
+                    ));
+                }
+            }
+        });
+
+        final List<String> keys = sortedKeys();
+        final Mocker.Action[] result = new Mocker.Action[keys.size()];
+        final int[] lanes = new int[keys.size()];
+        final double[] nullProbabilities = new double[keys.size()];
+        int nullable = 0;
+
+        for (int i = 0; i < keys.size(); i++) {
+            final String key = keys.get(i);
+            Function<Random, Object> generator = actions.get(key);
+
+            // Nulls are decided for all nullable fields at once
+            if (generator instanceof Nullable) {
+                nullProbabilities[nullable] = ((Nullable) generator).getNullProbability();
+                lanes[i] = nullable++;
+                generator = ((Nullable) generator).getInner();
+            } else {
+                lanes[i] = -1;
+            }
+
+            if (repeat > 0 && !(generator instanceof Repeat || generator instanceof KeySequence
+                    || generator instanceof Expression || generator instanceof EntityField)) {
+                generator = new Repeat(generator, repeat, 0, key.hashCode());
+            }
+
+            if (generator instanceof Expression) {
+                final Expression expression = (Expression) generator;
+                result[i] = (r, record, previous) -> expression.apply(r, record);
+            } else if (generator instanceof LogicalGenerator) {
+                final LogicalGenerator logical = (LogicalGenerator) generator;
+                result[i] = (r, record, previous) -> logical.apply(r, previous);
+            } else {
+                final Function<Random, Object> plain = generator;
+                result[i] = (r, record, previous) -> plain.apply(r);
+            }
+        }
+
+        return new Mocker(result, keys.toArray(new String[0]), lanes,
+            new NullMask(Arrays.copyOf(nullProbabilities, nullable)), random, entities);
+    }
+
+    /**
+     * Orders the keys so that every derived field comes after the fields it
+     * depends on. Fields that are not derived keep their original order.
+     *
+     * @return  the sorted keys
+     */
+    private List<String> sortedKeys() {
+        final List<String> sorted = new ArrayList<>(actions.size());
+        final Set<String> pending = new LinkedHashSet<>(actions.keySet());
+
+        while (!pending.isEmpty()) {
+            boolean progress = false;
+            for (final Iterator<String> it = pending.iterator(); it.hasNext();) {
+                final String key = it.next();
+                final Function<Random, Object> generator = Repeat.unwrap(Nullable.unwrap(actions.get(key)));
+
+                if (generator instanceof Expression) {
+                    final Set<String> dependencies = ((Expression) generator).getDependencies();
+                    for (final String dependency : dependencies) {
+                        if (!actions.containsKey(dependency)) {
+                            throw new IllegalArgumentException(format(
+                                "Field '%s' depends on unknown field '%s'.",
+                                key, dependency
+                            ));
+                        } else if (schema != null && !isNumber(schema.getField(dependency))) {
+                            throw new IllegalArgumentException(format(
+                                "Field '%s' depends on field '%s', which is not a number.",
+                                key, dependency
+                            ));
+                        }
+                    }
+
+                    if (!sorted.containsAll(dependencies)) continue;
+                }
+
+                sorted.add(key);
+                it.remove();
+                progress = true;
+            }
+
+            if (!progress) {
+                throw new IllegalArgumentException(format(
+                    "Cyclic dependency between fields %s.",
+                    pending.stream().collect(joining("', '", "'", "'"))
+                ));
+            }
+        }
+
+        return sorted;
+    }
+
+    private static boolean isNumber(Schema.Field field) {
+        if (field == null) return true; // Only known once records are generated
+        final Schema fieldSchema = field.schema();
+        if (fieldSchema.getType() == Schema.Type.UNION) {
+            return fieldSchema.getTypes().stream()
+                .filter(s -> s.getType() != Schema.Type.NULL)
+                .allMatch(MockerBuilder::isNumber);
+        } else {
+            return isNumber(fieldSchema);
+        }
+    }
+
+    private static boolean isNumber(Schema schema) {
+        switch (schema.getType()) {
+            case INT : case LONG : case FLOAT : case DOUBLE : return true;
+            default : return false;
+        }
     }
 }
@@ -1,17 +1,30 @@
 package com.speedment.avromocker.mocker;
 
+import com.speedment.avromocker.util.AliasTable;
+import com.speedment.avromocker.util.Permutation;
+import org.apache.avro.LogicalType;
+import org.apache.avro.LogicalTypes;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
 import java.time.format.SignStyle;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -20,6 +33,7 @@ import java.util.stream.Stream;
 import static java.lang.String.format;
 import static java.time.temporal.ChronoField.*;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.joining;
 
@@ -35,7 +49,10 @@ public final class MockerBuilderUtil {
         "^(rand|incr)?(?:\\s*in\\s*([^,]+(?:,\\s*[^,]+)*))?$");
 
     private final static Pattern INTEGER_PATTERN = Pattern.compile(
-        "^(rand|incr|date)?(?:\\s*from\\s*-?(\\d+))?(?:\\s*to\\s*-?(\\d+))?(?:\\s*scale\\s*(\\d+))?(?:\\s*in\\s*(-?\\d+(?:,\\s*-?\\d+)*))?$");
+        "^(rand|incr|date|perm|asc)?(?:\\s*from\\s*(-?\\d+))?(?:\\s*to\\s*(-?\\d+))?(?:\\s*scale\\s*(\\d+))?(?:\\s*in\\s*(-?\\d+(?:,\\s*-?\\d+)*))?$");
+
+    private final static Pattern REFERENCE_PATTERN = Pattern.compile(
+        "^ref\\s+(\\w+)\\.(\\w+)(?:\\s*skew\\s*(\\d+(?:\\.\\d*)?))?$");
 
     private final static Pattern DECIMAL_PATTERN = Pattern.compile(
         "^(rand|gauss)?(?:\\s*from\\s*(-?\\d+(?:\\.\\d*)?))?(?:\\s*to\\s*(-?\\d+(?:\\.\\d*)?))?(?:\\s*prec\\s*(\\d+))?$");
@@ -43,6 +60,31 @@ public final class MockerBuilderUtil {
     private final static Pattern STRING_PATTERN = Pattern.compile(
         "^(rand|dict)?(?:\\s*from\\s*(\\d+))?(?:\\s*to\\s*(\\d+))?(?:\\s*in\\s*([^,]+(?:,\\s*[^,]+)*))?$");
 
+    private final static Pattern TEXT_PATTERN = Pattern.compile(
+        "^text\\s+(\\S+)(?:\\s*from\\s*(\\d+))?(?:\\s*to\\s*(\\d+))?$");
+
+    private final static Pattern BIG_DECIMAL_PATTERN = Pattern.compile(
+        "^(rand)?(?:\\s*from\\s*(-?\\d+(?:\\.\\d*)?))?(?:\\s*to\\s*(-?\\d+(?:\\.\\d*)?))?$");
+
+    private final static Pattern BRANCH_PATTERN = Pattern.compile(
+        "^([\\w.]+)(?:\\s+(\\d+(?:\\.\\d*)?(?:[eE]-?\\d+)?))?$");
+
+    private final static Pattern UUID_PATTERN = Pattern.compile("^(rand)?$");
+
+    private final static Pattern TEMPORAL_PATTERN = Pattern.compile(
+        "^(rand|incr)?(?:\\s*from\\s*(\\S+))?(?:\\s*to\\s*(\\S+))?(?:\\s*step\\s*(\\d+))?$");
+
+    private final static Pattern ENTITY_PATTERN = Pattern.compile("^entity\\s+(\\w+)$");
+
+    private final static Pattern REPEAT_PATTERN = Pattern.compile(
+        "^(?:(.*?)\\s+)?repeat\\s+(\\d*\\.?\\d+)(?:\\s+prefix\\s+(\\d+))?$");
+
+    private final static Pattern SERIES_PATTERN = Pattern.compile(
+        "^(walk|seasonal|events)(?:\\s*from\\s*(\\S+))?(?:\\s*to\\s*(\\S+))?(?:\\s*step\\s*(\\d+(?:\\.\\d*)?))?" +
+        "(?:\\s*period\\s*(\\d+))?(?:\\s*noise\\s*(\\d+(?:\\.\\d*)?))?(?:\\s*gap\\s*(\\d+(?:\\.\\d*)?))?" +
+        "(?:\\s*(exp|fixed|uniform))?(?:\\s*late\\s*(\\d+(?:\\.\\d*)?))?(?:\\s*lag\\s*(\\d+(?:\\.\\d*)?))?" +
+        "(?:\\s*segment\\s*(\\d+))?$");
+
     private final static String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZáéíóúàèìòù0123456789_&%";
 
     private final static class EnumPattern {
@@ -60,6 +102,13 @@ public final class MockerBuilderUtil {
             SYMBOLS       = 5;
     }
 
+    private final static class ReferencePattern {
+        final static int
+            ENTITY = 1,
+            FIELD  = 2,
+            SKEW   = 3;
+    }
+
     private final static class DecimalPattern {
         final static int
             STRATEGY_TYPE = 1,
@@ -76,20 +125,118 @@ public final class MockerBuilderUtil {
             SYMBOLS       = 4;
     }
 
+    private final static class TextPattern {
+        final static int
+            MODEL       = 1,
+            LOWER_BOUND = 2,
+            UPPER_BOUND = 3;
+    }
+
+    private final static class BigDecimalPattern {
+        final static int
+            STRATEGY_TYPE = 1,
+            LOWER_BOUND   = 2,
+            UPPER_BOUND   = 3;
+    }
+
+    private final static class TemporalPattern {
+        final static int
+            STRATEGY_TYPE = 1,
+            LOWER_BOUND   = 2,
+            UPPER_BOUND   = 3,
+            STEP          = 4;
+    }
+
+    private final static class RepeatPattern {
+        final static int
+            STRATEGY    = 1,
+            PROBABILITY = 2,
+            PREFIX      = 3;
+    }
+
+    private final static class SeriesPattern {
+        final static int
+            STRATEGY_TYPE = 1,
+            LOWER_BOUND   = 2,
+            UPPER_BOUND   = 3,
+            STEP          = 4,
+            PERIOD        = 5,
+            NOISE         = 6,
+            GAP           = 7,
+            DISTRIBUTION  = 8,
+            LATE          = 9,
+            LAG           = 10,
+            SEGMENT       = 11;
+    }
+
     public static Function<Random, Object> parseField(Scanner scn, String key, Schema fieldSchema) {
+        return parseField(new Answers(scn), key, fieldSchema);
+    }
+
+    public static Function<Random, Object> parseField(Answers in, String key, Schema fieldSchema) {
+        if (fieldSchema.getType() == Schema.Type.UNION) {
+            return parseUnionField(in, key, fieldSchema);
+        }
+
+        // Any strategy can be followed by 'repeat <probability> (prefix <length>)'
+        final String[] repeat = new String[2];
+        final UnaryOperator<String> previous = in.filter(line -> {
+            final Matcher matcher = REPEAT_PATTERN.matcher(line);
+            if (matcher.matches()) {
+                repeat[0] = matcher.group(RepeatPattern.PROBABILITY);
+                repeat[1] = matcher.group(RepeatPattern.PREFIX);
+                return ofNullable(matcher.group(RepeatPattern.STRATEGY)).orElse("");
+            } else {
+                repeat[0] = repeat[1] = null;
+                return line;
+            }
+        });
+
+        final Function<Random, Object> generator;
+        try {
+            generator = parseValueField(in, key, fieldSchema);
+        } finally {
+            in.filter(previous);
+        }
+
+        if (repeat[0] == null) {
+            return generator;
+        } else if (repeat[1] != null && fieldSchema.getType() != Schema.Type.STRING) {
+            throw new IllegalArgumentException(format(
+                "Only strings can repeat a prefix, but '%s' is a %s.", key, fieldSchema.getType().getName()));
+        }
+
+        return new Repeat(generator, Double.parseDouble(repeat[0]),
+            repeat[1] == null ? 0 : Integer.parseInt(repeat[1]), key.hashCode());
+    }
+
+    private static Function<Random, Object> parseValueField(Answers in, String key, Schema fieldSchema) {
+        final LogicalType logicalType = fieldSchema.getLogicalType();
+        if (logicalType != null) {
+            switch (logicalType.getName()) {
+                case "decimal"          : return parseBigDecimalField(in, key, fieldSchema);
+                case "uuid"             : return parseUuidField(in, key, fieldSchema);
+                case "time-millis"      :
+                case "time-micros"      :
+                case "timestamp-millis" :
+                case "timestamp-micros" : return parseTemporalField(in, key, fieldSchema);
+                default : // Generated like the underlying type
+            }
+        }
+
         switch (fieldSchema.getType()) {
             case INT:
             case LONG:
-                return parseIntegerField(scn, key, fieldSchema);
+                return parseIntegerField(in, key, fieldSchema);
             case FLOAT:
             case DOUBLE:
-                return parseDecimalField(scn, key, fieldSchema);
+                return parseDecimalField(in, key, fieldSchema);
             case STRING:
-                return parseStringField(scn, key, fieldSchema);
+                return parseStringField(in, key, fieldSchema);
             case ENUM:
-                return parseEnumField(scn, key, fieldSchema);
+                return parseEnumField(in, key, fieldSchema);
             case UNION:
-                return parseUnionField(scn, key, fieldSchema);
+                return parseUnionField(in, key, fieldSchema);
             default:
                 throw new IllegalArgumentException(format(
                     "The avro type '%s' is currently not supported.",
@@ -98,12 +245,11 @@ public final class MockerBuilderUtil {
         }
     }
 
-    static Function<Random, Object> parseEnumField(Scanner scn, String name, Schema fieldSchema) {
+    static Function<Random, Object> parseEnumField(Answers in, String name, Schema fieldSchema) {
         final String typeName = fieldSchema.getType().getName();
 
         while (true) {
-            System.out.format("Strategy for %s '%s':", typeName, name);
-            final String line = scn.nextLine().trim();
+            final String line = in.next("Strategy for %s '%s':", typeName, name);
             if ("help".equals(line)) {
                 System.out.format(
                     "Enter a strategy to use when generating symbols for %s '%s'.%n" +
@@ -126,8 +272,8 @@ public final class MockerBuilderUtil {
                                 return r -> new GenericData.EnumSymbol(fieldSchema, symbols[r.nextInt(symbols.length)]);
                             }
                             case "incr" : {
-                                final AtomicInteger incr = new AtomicInteger(0);
-                                return r -> new GenericData.EnumSymbol(fieldSchema, symbols[incr.getAndUpdate(i -> ++i == symbols.length ? 0 : i)]);
+                                final AtomicLong incr = new AtomicLong();
+                                return r -> new GenericData.EnumSymbol(fieldSchema, symbols[(int) (nextIndex(r, incr) % symbols.length)]);
                             }
                             default: {
                                 System.err.println("Could not parse input. Enter 'help' for more info.");
@@ -163,8 +309,8 @@ public final class MockerBuilderUtil {
                                 return r -> new GenericData.EnumSymbol(fieldSchema, subset[r.nextInt(subset.length)]);
                             }
                             case "incr" : {
-                                final AtomicInteger incr = new AtomicInteger(0);
-                                return r -> new GenericData.EnumSymbol(fieldSchema, subset[incr.getAndUpdate(i -> ++i == subset.length ? 0 : i)]);
+                                final AtomicLong incr = new AtomicLong();
+                                return r -> new GenericData.EnumSymbol(fieldSchema, subset[(int) (nextIndex(r, incr) % subset.length)]);
                             }
                             default: {
                                 System.err.println("Could not parse input. Enter 'help' for more info.");
@@ -176,12 +322,11 @@ public final class MockerBuilderUtil {
         }
     }
 
-    static Function<Random, Object> parseIntegerField(Scanner scn, String name, Schema fieldSchema) {
+    static Function<Random, Object> parseIntegerField(Answers in, String name, Schema fieldSchema) {
         final String typeName = fieldSchema.getType().getName();
 
         while (true) {
-            System.out.format("Strategy for %s '%s':", typeName, name);
-            final String line = scn.nextLine().trim();
+            final String line = in.next("Strategy for %s '%s':", typeName, name);
             if ("help".equals(line)) {
                 System.out.format(
                     "Enter a strategy to use when generating integers for %s '%s'.%n" +
@@ -189,11 +334,75 @@ public final class MockerBuilderUtil {
                     "    rand     : integers are randomly distributed.%n" +
                     "    incr     : increments by one for each record.%n" +
                     "    date     : increments by one for each record.%n" +
+                    "    perm     : unique values in span in random order.%n" +
+                    "    asc      : increasing values with random gaps of on average 'scale'.%n" +
                     "    from     : the lower bound (inclusive) in span.%n" +
                     "    to       : the upper bound (exclusive) in span.%n" +
                     "    scale    : factor to multiply each value in span with.%n" +
                     "    in       : set of integers to select from.%n" +
-                    "  Example: [incr|rand|date] (from <integer>) (to <integer>) (scale <integer>) (in <integer, integer...>)%n", typeName, name);
+                    "    ref      : key of another record in the same job.%n" +
+                    "    skew     : zipf exponent used when selecting references.%n" +
+                    "    walk     : random walk between 'from' and 'to' moving at most 'step' per record.%n" +
+                    "    seasonal : sine wave between 'from' and 'to' repeating every 'period' records.%n" +
+                    "    noise    : standard deviation of gaussian noise added to 'seasonal'.%n" +
+                    "    events   : increasing values from 'from' with on average 'gap' between records.%n" +
+                    "    exp      : gaps between events are exponentially distributed (default).%n" +
+                    "    fixed    : gaps between events are exactly 'gap'.%n" +
+                    "    uniform  : events are uniformly distributed within every 'gap'.%n" +
+                    "    late     : fraction of events that arrive up to 'lag' (default 10 gaps) late.%n" +
+                    "    segment  : records in every independently seeded segment (default 65536).%n" +
+                    "    entity   : attribute of the entity of the event, when generating entities.%n" +
+                    "    repeat   : probability that a record repeats the value of the record before it.%n" +
+                    "  Example: [incr|rand|date|perm|asc] (from <integer>) (to <integer>) (scale <integer>) (in <integer, integer...>)%n" +
+                    "  Example: ref <record>.<field> (skew <decimal>)%n" +
+                    "  Example: entity [id|time|last|session|start|seq|count]%n" +
+                    "  Example: walk from <decimal> to <decimal> step <decimal> (segment <integer>)%n" +
+                    "  Example: seasonal from <decimal> to <decimal> period <integer> (noise <decimal>)%n" +
+                    "  Example: events (from <integer>) gap <decimal> ([exp|fixed|uniform]) (late <decimal>) (lag <decimal>) (segment <integer>)%n" +
+                    "  Example: <strategy> repeat <decimal>%n" +
+                    "  Example: = <expression>%n", typeName, name);
+            } else if (line.startsWith("=")) {
+                try {
+                    return Expression.compile(line.substring(1), fieldSchema.getType());
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                }
+            } else if (isSeries(line)) {
+                try {
+                    return parseSeries(line, name, fieldSchema);
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                }
+            } else if (line.startsWith("entity")) {
+                try {
+                    return parseEntity(line, fieldSchema);
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                }
+            } else if (line.startsWith("ref")) {
+                final Matcher matcher = REFERENCE_PATTERN.matcher(line);
+                if (matcher.find()) {
+                    final String skewInput = ofNullable(matcher.group(ReferencePattern.SKEW)).orElse("");
+                    final double skew;
+                    if ("".equals(skewInput)) {
+                        skew = 0;
+                    } else {
+                        try { skew = Double.parseDouble(skewInput); }
+                        catch (final NumberFormatException ex) {
+                            System.err.println("Could not parse parameter 'skew'. Enter 'help' for more info.");
+                            continue;
+                        }
+                    }
+
+                    return new Reference(
+                        fieldSchema.getType(),
+                        matcher.group(ReferencePattern.ENTITY),
+                        matcher.group(ReferencePattern.FIELD),
+                        skew
+                    );
+                } else {
+                    System.err.println("Could not parse reference. Enter 'help' for more info.");
+                }
             } else {
                 final Matcher matcher = INTEGER_PATTERN.matcher(line);
                 if (matcher.find()) {
@@ -250,6 +459,12 @@ public final class MockerBuilderUtil {
                             continue; // tryAgain
                         }
 
+                        // The number of values must fit in a long when they are drawn from the range
+                        if (upper - lower <= 0 && asList("", "rand", "perm").contains(strategy)) {
+                            System.err.format("Invalid input! The range from '%d' to '%d' is too wide. Enter 'help' for more info.%n", lower, upper);
+                            continue; // tryAgain
+                        }
+
                         if (scale == 0) {
                             System.err.println("Invalid input! Scale can't be zero. Enter 'help' for more info.");
                             continue; // tryAgain
@@ -264,12 +479,18 @@ public final class MockerBuilderUtil {
                                 }
                             }
                             case "incr" : {
-                                final AtomicLong incr = new AtomicLong(lower);
-                                switch (fieldSchema.getType()) {
-                                    case INT  : return r -> Math.toIntExact(incr.getAndIncrement() * scale);
-                                    case LONG : return r -> incr.getAndIncrement() * scale;
-                                    default : throw new IllegalStateException();
+                                return KeySequence.increment(fieldSchema.getType(), lower, scale);
+                            }
+                            case "asc" : {
+                                if (scale < 0) {
+                                    System.err.println("Invalid input! Scale must be positive for 'asc'. Enter 'help' for more info.");
+                                    continue;
                                 }
+                                return KeySequence.ascending(fieldSchema.getType(), lower, scale, name.hashCode());
+                            }
+                            case "perm" : {
+                                final Permutation permutation = new Permutation(upper - lower, name.hashCode());
+                                return KeySequence.permutation(fieldSchema.getType(), lower, scale, permutation);
                             }
                             case "date" : {
                                 final DateTimeFormatter format = new DateTimeFormatterBuilder()
@@ -334,10 +555,10 @@ public final class MockerBuilderUtil {
                                 }
                             }
                             case "incr" : {
-                                final AtomicInteger incr = new AtomicInteger(0);
+                                final AtomicLong incr = new AtomicLong();
                                 switch (fieldSchema.getType()) {
-                                    case INT  : return r -> Math.toIntExact(symbols[incr.getAndUpdate(i -> ++i == symbols.length ? 0 : i)]);
-                                    case LONG : return r -> symbols[incr.getAndUpdate(i -> ++i == symbols.length ? 0 : i)];
+                                    case INT  : return r -> Math.toIntExact(symbols[(int) (nextIndex(r, incr) % symbols.length)]);
+                                    case LONG : return r -> symbols[(int) (nextIndex(r, incr) % symbols.length)];
                                     default : throw new IllegalStateException();
                                 }
                             }
@@ -358,12 +579,11 @@ public final class MockerBuilderUtil {
         }
     }
 
-    static Function<Random, Object> parseDecimalField(Scanner scn, String name, Schema fieldSchema) {
+    static Function<Random, Object> parseDecimalField(Answers in, String name, Schema fieldSchema) {
         final String typeName = fieldSchema.getType().getName();
 
         while (true) {
-            System.out.format("Strategy for %s '%s':", typeName, name);
-            final String line = scn.nextLine().trim();
+            final String line = in.next("Strategy for %s '%s':", typeName, name);
             if ("help".equals(line)) {
                 System.out.format(
                     "Enter a strategy to use when generating decimal numbers for %s '%s'.%n" +
@@ -373,7 +593,34 @@ public final class MockerBuilderUtil {
                         "    from     : the lower bound (inclusive) in span.%n" +
                         "    to       : the upper bound (exclusive) in span.%n" +
                         "    prec     : the decimal precision.%n" +
-                        "  Example: [rand|gauss] (from <decimal>) (to <decimal>) (prec <integer>)%n", typeName, name);
+                        "    walk     : random walk between 'from' and 'to' moving at most 'step' per record.%n" +
+                        "    seasonal : sine wave between 'from' and 'to' repeating every 'period' records.%n" +
+                        "    noise    : standard deviation of gaussian noise added to 'seasonal'.%n" +
+                        "    events   : increasing values from 'from' with on average 'gap' between records.%n" +
+                        "    exp      : gaps between events are exponentially distributed (default).%n" +
+                        "    fixed    : gaps between events are exactly 'gap'.%n" +
+                        "    uniform  : events are uniformly distributed within every 'gap'.%n" +
+                        "    late     : fraction of events that arrive up to 'lag' (default 10 gaps) late.%n" +
+                        "    segment  : records in every independently seeded segment (default 65536).%n" +
+                        "    repeat   : probability that a record repeats the value of the record before it.%n" +
+                        "  Example: [rand|gauss] (from <decimal>) (to <decimal>) (prec <integer>)%n" +
+                        "  Example: walk from <decimal> to <decimal> step <decimal> (segment <integer>)%n" +
+                        "  Example: seasonal from <decimal> to <decimal> period <integer> (noise <decimal>)%n" +
+                        "  Example: events (from <integer>) gap <decimal> ([exp|fixed|uniform]) (late <decimal>) (lag <decimal>) (segment <integer>)%n" +
+                        "  Example: <strategy> repeat <decimal>%n" +
+                        "  Example: = <expression>%n", typeName, name);
+            } else if (line.startsWith("=")) {
+                try {
+                    return Expression.compile(line.substring(1), fieldSchema.getType());
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                }
+            } else if (isSeries(line)) {
+                try {
+                    return parseSeries(line, name, fieldSchema);
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                }
             } else {
                 final Matcher matcher = DECIMAL_PATTERN.matcher(line);
                 if (matcher.find()) {
@@ -455,12 +702,11 @@ public final class MockerBuilderUtil {
         }
     }
 
-    static Function<Random, Object> parseStringField(Scanner scn, String name, Schema fieldSchema) {
+    static Function<Random, Object> parseStringField(Answers in, String name, Schema fieldSchema) {
         final String typeName = fieldSchema.getType().getName();
 
         while (true) {
-            System.out.format("Strategy for %s '%s':", typeName, name);
-            final String line = scn.nextLine().trim();
+            final String line = in.next("Strategy for %s '%s':", typeName, name);
             if ("help".equals(line)) {
                 System.out.format(
                     "Enter a strategy to use when generating strings for %s '%s'.%n" +
@@ -470,7 +716,66 @@ public final class MockerBuilderUtil {
                         "    from     : minimum (inclusive) length of string.%n" +
                         "    to       : maximum (exclusive) length string.%n" +
                         "    in       : set of strings to select from.%n" +
-                        "  Example: [incr|rand] (from <string>) (to <string>) (in <string, string...>)%n", typeName, name);
+                        "    pattern  : strings matching a regular expression.%n" +
+                        "    text     : realistic text from a model (names, cities, lorem or a file).%n" +
+                        "    repeat   : probability that a record repeats the value of the record before it.%n" +
+                        "    prefix   : only repeat the first characters of the value.%n" +
+                        "  Example: [incr|rand] (from <string>) (to <string>) (in <string, string...>)%n" +
+                        "  Example: pattern [A-Z]{3}-\\d{6}%n" +
+                        "  Example: pattern (gmail|yahoo|outlook)<5,3,2>\\.com%n" +
+                        "  Example: text <names|cities|lorem|file> (from <integer>) (to <integer>)%n" +
+                        "  Example: <strategy> repeat <decimal> (prefix <integer>)%n", typeName, name);
+            } else if (line.startsWith("pattern")) {
+                try {
+                    return PatternGenerator.compile(line.substring("pattern".length()).trim());
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                }
+            } else if (line.startsWith("text")) {
+                final Matcher matcher = TEXT_PATTERN.matcher(line);
+                if (!matcher.find()) {
+                    System.err.println("Could not parse text model. Enter 'help' for more info.");
+                    continue;
+                }
+
+                final TextModel model;
+                final int lower, upper;
+                try {
+                    model = TextModel.load(matcher.group(TextPattern.MODEL));
+                    lower = ofNullable(matcher.group(TextPattern.LOWER_BOUND)).map(Integer::parseInt).orElse(1);
+                    upper = ofNullable(matcher.group(TextPattern.UPPER_BOUND)).map(Integer::parseInt).orElse(lower + 1);
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                    continue;
+                }
+
+                if (upper <= lower) {
+                    System.err.format("Invalid input! Illegal range from '%d' to '%d'. Enter 'help' for more info.%n", lower, upper);
+                    continue;
+                }
+
+                // Several samples are separated by a space
+                final int sampleLength = model.maxLength() + 1;
+                if ((long) (upper - 1) * sampleLength > Integer.MAX_VALUE - 8) {
+                    System.err.format("Invalid input! %d samples of '%s' don't fit in a string. Enter 'help' for more info.%n",
+                        upper - 1, matcher.group(TextPattern.MODEL));
+                    continue;
+                }
+
+                final int width = upper - lower;
+                final ThreadLocal<Latin1Buffer> buffers = ThreadLocal.withInitial(
+                    () -> new Latin1Buffer((upper - 1) * sampleLength));
+                return r -> {
+                    final int count = width == 1 ? lower : lower + r.nextInt(width);
+                    final Latin1Buffer buffer = buffers.get();
+                    int position = 0;
+                    for (int i = 0; i < count; i++) {
+                        final byte[] bytes = buffer.ensure(position, sampleLength);
+                        if (i > 0) bytes[position++] = ' ';
+                        position = model.generate(r, bytes, position);
+                    }
+                    return buffer.toString(position);
+                };
             } else {
                 final Matcher matcher = STRING_PATTERN.matcher(line);
                 if (matcher.find()) {
@@ -534,8 +839,8 @@ public final class MockerBuilderUtil {
                                 return r -> symbols[r.nextInt(symbols.length)];
                             }
                             case "incr" : {
-                                final AtomicInteger incr = new AtomicInteger(0);
-                                return r -> symbols[incr.getAndIncrement() % symbols.length];
+                                final AtomicLong incr = new AtomicLong();
+                                return r -> symbols[(int) (nextIndex(r, incr) % symbols.length)];
                             }
                             default: {
                                 System.err.println("Could not parse input. Enter 'help' for more info.");
@@ -547,7 +852,147 @@ public final class MockerBuilderUtil {
         }
     }
 
-    static Function<Random, Object> parseUnionField(Scanner scn, String name, Schema fieldSchema) {
+    static Function<Random, Object> parseBigDecimalField(Answers in, String name, Schema fieldSchema) {
+        final LogicalTypes.Decimal decimal = (LogicalTypes.Decimal) fieldSchema.getLogicalType();
+        final String typeName = format("decimal(%d, %d)", decimal.getPrecision(), decimal.getScale());
+
+        while (true) {
+            final String line = in.next("Strategy for %s '%s':", typeName, name);
+            if ("help".equals(line)) {
+                System.out.format(
+                    "Enter a strategy to use when generating decimals for %s '%s'.%n" +
+                        "  Options: %n" +
+                        "    rand     : decimals are randomly distributed.%n" +
+                        "    from     : the lower bound (inclusive) in span.%n" +
+                        "    to       : the upper bound (exclusive) in span.%n" +
+                        "  Example: [rand] (from <decimal>) (to <decimal>)%n", typeName, name);
+            } else {
+                final Matcher matcher = BIG_DECIMAL_PATTERN.matcher(line);
+                if (matcher.find()) {
+                    final long[] bounds;
+                    try {
+                        bounds = unscaledBounds(fieldSchema,
+                            matcher.group(BigDecimalPattern.LOWER_BOUND),
+                            matcher.group(BigDecimalPattern.UPPER_BOUND));
+                    } catch (final IllegalArgumentException ex) {
+                        System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                        continue;
+                    }
+
+                    return fieldSchema.getType() == Schema.Type.FIXED
+                        ? LogicalGenerator.decimalFixed(fieldSchema, bounds[0], bounds[1])
+                        : LogicalGenerator.decimalBytes(bounds[0], bounds[1]);
+                } else {
+                    System.err.println("Could not parse input. Enter 'help' for more info.");
+                }
+            }
+        }
+    }
+
+    static Function<Random, Object> parseUuidField(Answers in, String name, Schema fieldSchema) {
+        while (true) {
+            final String line = in.next("Strategy for uuid '%s':", name);
+            if ("help".equals(line)) {
+                System.out.format(
+                    "Enter a strategy to use when generating uuids for '%s'.%n" +
+                        "  Options: %n" +
+                        "    rand     : random (version 4) uuids.%n" +
+                        "  Example: [rand]%n", name);
+            } else if (UUID_PATTERN.matcher(line).find()) {
+                return LogicalGenerator.uuid();
+            } else {
+                System.err.println("Could not parse input. Enter 'help' for more info.");
+            }
+        }
+    }
+
+    static Function<Random, Object> parseTemporalField(Answers in, String name, Schema fieldSchema) {
+        final String typeName = fieldSchema.getLogicalType().getName();
+
+        while (true) {
+            final String line = in.next("Strategy for %s '%s':", typeName, name);
+            if ("help".equals(line)) {
+                System.out.format(
+                    "Enter a strategy to use when generating values for %s '%s'.%n" +
+                        "  Options: %n" +
+                        "    rand     : values are randomly distributed.%n" +
+                        "    incr     : increments by 'step' for each record, wrapping around at 'to'.%n" +
+                        "    from     : the lower bound (inclusive) as ISO-8601 or in %s.%n" +
+                        "    to       : the upper bound (exclusive) as ISO-8601 or in %s.%n" +
+                        "    step     : the increment in %s (default 1).%n" +
+                        "    events   : increasing values from 'from' with on average 'gap' %s between records.%n" +
+                        "    exp      : gaps between events are exponentially distributed (default).%n" +
+                        "    fixed    : gaps between events are exactly 'gap'.%n" +
+                        "    uniform  : events are uniformly distributed within every 'gap'.%n" +
+                        "    late     : fraction of events that arrive up to 'lag' (default 10 gaps) late.%n" +
+                        "    segment  : records in every independently seeded segment (default 65536).%n" +
+                        "    entity   : time of the event, of the previous event or of the session start.%n" +
+                        "  Example: [rand|incr] (from <time>) (to <time>) (step <integer>)%n" +
+                        "  Example: events (from <time>) gap <decimal> ([exp|fixed|uniform]) (late <decimal>) (lag <decimal>) (segment <integer>)%n" +
+                        "  Example: entity [time|last|start]%n" +
+                        "  Example: = <expression>%n",
+                    typeName, name, unitOf(fieldSchema), unitOf(fieldSchema), unitOf(fieldSchema), unitOf(fieldSchema));
+            } else if (line.startsWith("=")) {
+                try {
+                    return Expression.compile(line.substring(1), fieldSchema.getType());
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                }
+            } else if (line.startsWith("entity")) {
+                try {
+                    return parseEntity(line, fieldSchema);
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                }
+            } else if (isSeries(line)) {
+                try {
+                    return parseSeries(line, name, fieldSchema);
+                } catch (final IllegalArgumentException ex) {
+                    System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                }
+            } else {
+                final Matcher matcher = TEMPORAL_PATTERN.matcher(line);
+                if (matcher.find()) {
+                    final String strategy  = ofNullable(matcher.group(TemporalPattern.STRATEGY_TYPE)).orElse("");
+                    final String stepInput = ofNullable(matcher.group(TemporalPattern.STEP)).orElse("1");
+                    final long[] bounds;
+                    final long step;
+                    try {
+                        bounds = temporalBounds(fieldSchema,
+                            matcher.group(TemporalPattern.LOWER_BOUND),
+                            matcher.group(TemporalPattern.UPPER_BOUND));
+                        step = Long.parseLong(stepInput);
+                    } catch (final IllegalArgumentException ex) {
+                        System.err.println(ex.getMessage() + " Enter 'help' for more info.");
+                        continue;
+                    }
+
+                    final long lower = bounds[0], width = bounds[1] - bounds[0];
+                    final boolean isInt = fieldSchema.getType() == Schema.Type.INT;
+                    switch (strategy) {
+                        case "" : case "rand" : {
+                            return isInt
+                                ? r -> (int) (nextLongBetween(r, 0, width) + lower)
+                                : r -> nextLongBetween(r, 0, width) + lower;
+                        }
+                        case "incr" : {
+                            final AtomicLong incr = new AtomicLong();
+                            return isInt
+                                ? r -> (int) (Math.floorMod(nextIndex(r, incr) * step, width) + lower)
+                                : r -> Math.floorMod(nextIndex(r, incr) * step, width) + lower;
+                        }
+                        default: {
+                            System.err.println("Could not parse input. Enter 'help' for more info.");
+                        }
+                    }
+                } else {
+                    System.err.println("Could not parse input. Enter 'help' for more info.");
+                }
+            }
+        }
+    }
+
+    static Function<Random, Object> parseUnionField(Answers in, String name, Schema fieldSchema) {
         final String typeName = fieldSchema.getType().getName();
 
         final boolean nullable = fieldSchema.getTypes().stream()
@@ -556,8 +1001,7 @@ public final class MockerBuilderUtil {
         final double nullProb;
         if (nullable) {
             while (true) {
-                System.out.format("Enter probability (0.0 - 1.0) that %s '%s' is null: ", typeName, name);
-                final String line = scn.nextLine().trim();
+                final String line = in.next("Enter probability (0.0 - 1.0) that %s '%s' is null: ", typeName, name);
                 final double probability;
                 try {
                     probability = Double.parseDouble(line);
@@ -574,35 +1018,33 @@ public final class MockerBuilderUtil {
             }
         } else nullProb = 0;
 
-        final Set<Schema> types = fieldSchema.getTypes().stream()
+        final List<Schema> types = fieldSchema.getTypes().stream()
             .filter(s -> !Schema.Type.NULL.equals(s.getType()))
-            .collect(Collectors.toSet());
+            .collect(Collectors.toList());
 
-        final Schema typeSelected;
+        Map<Schema, Double> selected = null;
         if (types.size() > 1) {
-            while (true) {
-                System.out.format("Select type to generate for %s '%s': ", typeName, name);
-                final String line = scn.nextLine().trim();
+            while (selected == null) {
+                final String line = in.next("Select type to generate for %s '%s': ", typeName, name);
                 if ("help".equals(line)) {
                     System.out.format(
-                        "Enter one of the following: [%s].%n",
+                        "Enter one of the following: [%s].%n" +
+                        "  Several types can be generated by listing them with a weight each.%n" +
+                        "  Example: <type> (<weight>)(, <type> (<weight>)...)%n",
                         types.stream()
                             .map(Schema::getType)
                             .map(Schema.Type::getName)
                             .collect(joining(", ")));
                 } else {
-                    final Optional<Schema> selected = types.stream()
-                        .filter(t -> t.getType().getName().equalsIgnoreCase(line))
-                        .findAny();
-
-                    if (selected.isPresent()) {
-                        typeSelected = selected.get();
-                        break;
+                    try {
+                        selected = parseBranches(line, types);
+                    } catch (final IllegalArgumentException ex) {
+                        System.err.println(ex.getMessage() + " Enter 'help' for more info.");
                     }
                 }
             }
         } else if (types.size() == 1) {
-            typeSelected = types.iterator().next();
+            selected = singletonMap(types.get(0), 1d);
         } else {
             throw new IllegalArgumentException(format(
                 "Avro %s field '%s' does not have at least 1 non-null type.",
@@ -611,17 +1053,493 @@ public final class MockerBuilderUtil {
             ));
         }
 
-        final Function<Random, Object> inner = parseField(scn, name, typeSelected);
-        if (nullable && nullProb > 0) {
-            return rand -> {
-                if (rand.nextDouble() <= nullProb) return null;
-                else return inner.apply(rand);
-            };
+        // The strategy of each selected type is entered in the listed order
+        final List<Function<Random, Object>> generators = new ArrayList<>(selected.size());
+        for (final Schema type : selected.keySet()) {
+            generators.add(parseField(in, name, type));
+        }
+
+        final Function<Random, Object> inner;
+        if (generators.size() == 1) {
+            inner = generators.get(0);
+        } else if (generators.stream().anyMatch(Expression.class::isInstance)) {
+            throw new IllegalArgumentException(format(
+                "Derived values can't be combined with other types in %s '%s'.", typeName, name));
+        } else {
+            final AliasTable table = new AliasTable(selected.values().stream()
+                .mapToDouble(Double::doubleValue).toArray());
+            inner = r -> generators.get(table.next(r)).apply(r);
+        }
+
+        return nullable && nullProb > 0 ? new Nullable(inner, nullProb) : inner;
+    }
+
+    /**
+     * Parses the non-null types selected for a union and their weights, for
+     * an example {@code "int 3, string 1"}. A single type does not need a
+     * weight. Types are identified by the name of their Avro type or by their
+     * full name.
+     *
+     * @param line   the selected types
+     * @param types  the non-null types of the union
+     * @return       the selected types mapped to their weights, in the
+     *               listed order
+     * @throws IllegalArgumentException  if the line could not be parsed
+     */
+    public static Map<Schema, Double> parseBranches(String line, List<Schema> types) {
+        final Map<Schema, Double> selected = new LinkedHashMap<>();
+        for (final String part : COMMA.split(line.trim())) {
+            final Matcher matcher = BRANCH_PATTERN.matcher(part);
+            if (!matcher.find()) {
+                throw new IllegalArgumentException(format("Could not parse type '%s'.", part));
+            }
+
+            final String typeName = matcher.group(1);
+            final Schema type = types.stream()
+                .filter(t -> t.getType().getName().equalsIgnoreCase(typeName)
+                          || (isNamed(t) && t.getFullName().equals(typeName)))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(format(
+                    "Unknown type '%s'.", typeName)));
+
+            final double weight = ofNullable(matcher.group(2)).map(Double::parseDouble).orElse(1d);
+            if (selected.put(type, weight) != null) {
+                throw new IllegalArgumentException(format(
+                    "Type '%s' is listed more than once.", typeName));
+            }
+        }
+
+        if (selected.values().stream().mapToDouble(Double::doubleValue).sum() <= 0) {
+            throw new IllegalArgumentException("At least one weight must be positive.");
+        }
+
+        return selected;
+    }
+
+    private static boolean isNamed(Schema schema) {
+        switch (schema.getType()) {
+            case RECORD : case ENUM : case FIXED : return true;
+            default : return false;
+        }
+    }
+
+    /**
+     * Returns the set of values that the strategy on the specified line can
+     * produce for a field of the specified (non-union) type. This is used to
+     * verify generated data against the settings it was generated with.
+     *
+     * @param line         the strategy, as entered for the field
+     * @param fieldSchema  the type of the field
+     * @return             the values the strategy can produce
+     * @throws IllegalArgumentException  if the strategy could not be parsed
+     */
+    public static Constraint parseConstraint(String line, Schema fieldSchema) {
+        final Matcher repeat = REPEAT_PATTERN.matcher(line.trim());
+        if (repeat.matches()) {
+            // Repeated values are values of the strategy, but not if only a prefix is
+            return repeat.group(RepeatPattern.PREFIX) != null ? Constraint.any()
+                : parseConstraint(ofNullable(repeat.group(RepeatPattern.STRATEGY)).orElse(""), fieldSchema);
+        }
+
+        final String strategyLine = line.trim();
+        if (strategyLine.startsWith("=") || strategyLine.startsWith("ref")) {
+            return Constraint.any();
+        }
+
+        if (strategyLine.startsWith("entity")) {
+            parseEntity(strategyLine, fieldSchema);
+            return Constraint.any();
+        }
+
+        if (isSeries(strategyLine)) {
+            return parseSeries(strategyLine, "", fieldSchema).constraint();
+        }
+
+        final LogicalType logicalType = fieldSchema.getLogicalType();
+        if (logicalType != null) {
+            switch (logicalType.getName()) {
+                case "decimal" : {
+                    final Matcher matcher = matchOrThrow(BIG_DECIMAL_PATTERN, strategyLine);
+                    final long[] bounds = unscaledBounds(fieldSchema,
+                        matcher.group(BigDecimalPattern.LOWER_BOUND),
+                        matcher.group(BigDecimalPattern.UPPER_BOUND));
+                    return Constraint.unscaled(bounds[0], bounds[1] - 1,
+                        ((LogicalTypes.Decimal) logicalType).getScale());
+                }
+                case "uuid" : {
+                    matchOrThrow(UUID_PATTERN, strategyLine);
+                    return Constraint.uuid();
+                }
+                case "time-millis" : case "time-micros" :
+                case "timestamp-millis" : case "timestamp-micros" : {
+                    final Matcher matcher = matchOrThrow(TEMPORAL_PATTERN, strategyLine);
+                    final long[] bounds = temporalBounds(fieldSchema,
+                        matcher.group(TemporalPattern.LOWER_BOUND),
+                        matcher.group(TemporalPattern.UPPER_BOUND));
+                    return Constraint.integers(bounds[0], bounds[1] - 1, 1);
+                }
+                default : // Generated like the underlying type
+            }
+        }
+
+        switch (fieldSchema.getType()) {
+            case INT : case LONG : {
+                final Matcher matcher = matchOrThrow(INTEGER_PATTERN, strategyLine);
+                final String strategy     = ofNullable(matcher.group(IntegerPattern.STRATEGY_TYPE)).orElse("");
+                final String symbolsInput = matcher.group(IntegerPattern.SYMBOLS);
+                if (symbolsInput != null) {
+                    return Constraint.integersIn(Stream.of(COMMA.split(symbolsInput))
+                        .mapToLong(Long::parseLong)
+                        .toArray());
+                }
+
+                final long max = fieldSchema.getType() == Schema.Type.INT ? Integer.MAX_VALUE : Long.MAX_VALUE;
+                final long min = fieldSchema.getType() == Schema.Type.INT ? Integer.MIN_VALUE : Long.MIN_VALUE;
+                final long lower = ofNullable(matcher.group(IntegerPattern.LOWER_BOUND)).map(Long::parseLong).orElse(0L);
+                final long upper = ofNullable(matcher.group(IntegerPattern.UPPER_BOUND)).map(Long::parseLong).orElse(max);
+                final long scale = ofNullable(matcher.group(IntegerPattern.SCALE)).map(Long::parseLong).orElse(1L);
+
+                try {
+                    switch (strategy) {
+                        case "" : case "rand" : case "perm" : {
+                            final long a = Math.multiplyExact(lower, scale);
+                            final long b = Math.multiplyExact(upper - 1, scale);
+                            return Constraint.integers(Math.min(a, b), Math.max(a, b), scale);
+                        }
+                        case "incr" : {
+                            final long a = Math.multiplyExact(lower, scale);
+                            return scale >= 0
+                                ? Constraint.integers(a, max, scale)
+                                : Constraint.integers(min, a, scale);
+                        }
+                        case "asc"  : return Constraint.integers(lower, max, 1);
+                        case "date" : return Constraint.integers(lower, upper, 1);
+                        default : throw new IllegalArgumentException(format(
+                            "Unknown strategy '%s'.", strategy));
+                    }
+                } catch (final ArithmeticException ex) {
+                    // The range is as wide as the type itself
+                    return Constraint.any();
+                }
+            }
+            case FLOAT : case DOUBLE : {
+                final Matcher matcher = matchOrThrow(DECIMAL_PATTERN, strategyLine);
+                final String strategy = ofNullable(matcher.group(DecimalPattern.STRATEGY_TYPE)).orElse("");
+                if ("gauss".equals(strategy)) {
+                    return Constraint.finite();
+                }
+
+                final double lower = ofNullable(matcher.group(DecimalPattern.LOWER_BOUND)).map(Double::parseDouble).orElse(0d);
+                final double upper = ofNullable(matcher.group(DecimalPattern.UPPER_BOUND)).map(Double::parseDouble)
+                    .orElse(fieldSchema.getType() == Schema.Type.FLOAT ? Float.MAX_VALUE : Double.MAX_VALUE);
+                return Constraint.decimals(lower, upper);
+            }
+            case STRING : {
+                if (strategyLine.startsWith("text")) {
+                    matchOrThrow(TEXT_PATTERN, strategyLine);
+                    return Constraint.any();
+                } else if (strategyLine.startsWith("pattern")) {
+                    return Constraint.matching(PatternGenerator.compile(
+                        strategyLine.substring("pattern".length()).trim()).regex());
+                }
+
+                final Matcher matcher = matchOrThrow(STRING_PATTERN, strategyLine);
+                final String symbolsInput = matcher.group(StringPattern.SYMBOLS);
+                if (symbolsInput != null) {
+                    return Constraint.symbols(COMMA.split(symbolsInput));
+                }
+
+                return Constraint.length(
+                    ofNullable(matcher.group(StringPattern.LOWER_BOUND)).map(Integer::parseInt).orElse(0),
+                    ofNullable(matcher.group(StringPattern.UPPER_BOUND)).map(Integer::parseInt).orElse(32));
+            }
+            case ENUM : {
+                final Matcher matcher = matchOrThrow(ENUM_PATTERN, strategyLine);
+                final String symbolsInput = matcher.group(EnumPattern.SYMBOLS);
+                return symbolsInput == null
+                    ? Constraint.symbols(fieldSchema.getEnumSymbols().toArray(new String[0]))
+                    : Constraint.symbols(COMMA.split(symbolsInput));
+            }
+            default : throw new IllegalArgumentException(format(
+                "The avro type '%s' is currently not supported.",
+                fieldSchema.getType().getName()
+            ));
+        }
+    }
+
+    /**
+     * Returns the unscaled lower (inclusive) and upper (exclusive) bounds of
+     * a {@code decimal} field. If a bound is not specified, the largest value
+     * allowed by the precision (at most 18 digits) is used.
+     *
+     * @param fieldSchema  the schema of the field
+     * @param lowerInput   the lower bound, or {@code null}
+     * @param upperInput   the upper bound, or {@code null}
+     * @return             the lower and upper unscaled bounds
+     * @throws IllegalArgumentException  if the bounds are invalid
+     */
+    private static long[] unscaledBounds(Schema fieldSchema, String lowerInput, String upperInput) {
+        final LogicalTypes.Decimal decimal = (LogicalTypes.Decimal) fieldSchema.getLogicalType();
+        final BigInteger limit = BigInteger.TEN.pow(decimal.getPrecision());
+        final long max = BigInteger.TEN.pow(Math.min(decimal.getPrecision(), 18)).longValue() - 1;
+
+        final long lower, upper;
+        try {
+            lower = lowerInput == null ? -max : unscaled(lowerInput, decimal.getScale(), limit);
+            upper = upperInput == null ? max + 1 : unscaled(upperInput, decimal.getScale(), limit.add(BigInteger.ONE));
+            Math.subtractExact(upper, lower);
+        } catch (final ArithmeticException ex) {
+            throw new IllegalArgumentException(format(
+                "Bounds must be within the precision of decimal(%d, %d) and have at most 18 digits.",
+                decimal.getPrecision(), decimal.getScale()));
+        }
+
+        if (upper <= lower) {
+            throw new IllegalArgumentException(format(
+                "Invalid input! Illegal range from '%s' to '%s'.", lowerInput, upperInput));
+        }
+
+        return new long[] {lower, upper};
+    }
+
+    private static long unscaled(String input, int scale, BigInteger limit) {
+        final BigInteger unscaled = new BigDecimal(input)
+            .setScale(scale, RoundingMode.CEILING)
+            .unscaledValue();
+
+        if (unscaled.abs().compareTo(limit) >= 0) {
+            throw new ArithmeticException();
+        }
+
+        return unscaled.longValueExact();
+    }
+
+    /**
+     * Returns the lower (inclusive) and upper (exclusive) bounds of a
+     * {@code time} or {@code timestamp} field, in the unit of the type.
+     * Times default to the whole day and timestamps to the years 2000 to
+     * 2029.
+     *
+     * @param fieldSchema  the schema of the field
+     * @param lowerInput   the lower bound, or {@code null}
+     * @param upperInput   the upper bound, or {@code null}
+     * @return             the lower and upper bounds
+     * @throws IllegalArgumentException  if the bounds are invalid
+     */
+    private static long[] temporalBounds(Schema fieldSchema, String lowerInput, String upperInput) {
+        final String type = fieldSchema.getLogicalType().getName();
+        final boolean time = type.startsWith("time-");
+        final long lower, upper;
+        try {
+            lower = lowerInput == null
+                ? (time ? 0 : toUnit(type, LocalDate.of(2000, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC)))
+                : parseTemporal(type, lowerInput);
+            upper = upperInput == null
+                ? (time ? toUnit(type, 86_400L, 0) : toUnit(type, LocalDate.of(2030, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC)))
+                : parseTemporal(type, upperInput);
+        } catch (final DateTimeParseException | ArithmeticException ex) {
+            throw new IllegalArgumentException(format(
+                "Could not parse parameters 'from' and 'to' for %s.", type));
+        }
+
+        if (upper <= lower) {
+            throw new IllegalArgumentException(format(
+                "Invalid input! Illegal range from '%d' to '%d'.", lower, upper));
+        }
+
+        if (fieldSchema.getType() == Schema.Type.INT
+        &&  (lower < Integer.MIN_VALUE || upper - 1 > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException(format(
+                "Invalid input! Range from '%d' to '%d' does not fit in an int.", lower, upper));
+        }
+
+        return new long[] {lower, upper};
+    }
+
+    private static long parseTemporal(String type, String input) {
+        if (input.matches("-?\\d+")) {
+            return Long.parseLong(input);
+        } else if (type.startsWith("time-")) {
+            final long nanos = LocalTime.parse(input).toNanoOfDay();
+            return toUnit(type, nanos / 1_000_000_000, nanos % 1_000_000_000);
+        } else if (input.length() == 10) {
+            return toUnit(type, LocalDate.parse(input).atStartOfDay().toInstant(ZoneOffset.UTC));
+        } else if (input.endsWith("Z") || input.matches(".*[+-]\\d\\d:\\d\\d$")) {
+            return toUnit(type, OffsetDateTime.parse(input).toInstant());
         } else {
-            return inner;
+            return toUnit(type, LocalDateTime.parse(input).toInstant(ZoneOffset.UTC));
+        }
+    }
+
+    private static long toUnit(String type, Instant instant) {
+        return toUnit(type, instant.getEpochSecond(), instant.getNano());
+    }
+
+    private static long toUnit(String type, long seconds, long nanos) {
+        final boolean millis = type.endsWith("-millis");
+        return Math.addExact(
+            Math.multiplyExact(seconds, millis ? 1_000 : 1_000_000),
+            nanos / (millis ? 1_000_000 : 1_000));
+    }
+
+    private static String unitOf(Schema fieldSchema) {
+        return fieldSchema.getLogicalType().getName().endsWith("-millis")
+            ? "milliseconds" : "microseconds";
+    }
+
+    /**
+     * Parses the {@code entity} strategy. Times and timestamps can only read
+     * the times of the entity, which are converted into the unit of the
+     * field.
+     *
+     * @param line         the strategy
+     * @param fieldSchema  the schema of the field
+     * @return             the entity field
+     * @throws IllegalArgumentException  if the strategy could not be parsed
+     */
+    private static EntityField parseEntity(String line, Schema fieldSchema) {
+        final String attribute = matchOrThrow(ENTITY_PATTERN, line).group(1);
+        final LogicalType logicalType = fieldSchema.getLogicalType();
+        if (logicalType == null) {
+            if (fieldSchema.getType() == Schema.Type.INT && asList("time", "last", "start").contains(attribute)) {
+                throw new IllegalArgumentException(
+                    "Only the attributes id, session, seq and count can be used for int, since times don't fit.");
+            }
+            return new EntityField(fieldSchema.getType(), attribute, 1);
+        }
+
+        final String type = logicalType.getName();
+        if (!type.startsWith("timestamp-")) {
+            throw new IllegalArgumentException(format(
+                "The entity strategy is not supported for %s.", type));
+        } else if (!asList("time", "last", "start").contains(attribute)) {
+            throw new IllegalArgumentException(format(
+                "Only the attributes time, last and start can be used for %s.", type));
+        }
+
+        return new EntityField(fieldSchema.getType(), attribute, type.endsWith("-micros") ? 1_000 : 1);
+    }
+
+    private static boolean isSeries(String line) {
+        return line.startsWith("walk") || line.startsWith("seasonal") || line.startsWith("events");
+    }
+
+    /**
+     * Parses one of the {@code walk}, {@code seasonal} and {@code events}
+     * strategies. Times and timestamps only support {@code events}, with
+     * the bound given like for the other temporal strategies.
+     *
+     * @param line         the strategy
+     * @param name         the name of the field, used to seed the series
+     * @param fieldSchema  the schema of the field
+     * @return             the series
+     * @throws IllegalArgumentException  if the strategy could not be parsed
+     */
+    private static Series parseSeries(String line, String name, Schema fieldSchema) {
+        final Matcher matcher  = matchOrThrow(SERIES_PATTERN, line);
+        final String strategy  = matcher.group(SeriesPattern.STRATEGY_TYPE);
+        final Schema.Type type = fieldSchema.getType();
+        final boolean temporal = fieldSchema.getLogicalType() != null;
+        final long salt        = name.hashCode();
+        final long segment     = (long) seriesParameter(matcher, SeriesPattern.SEGMENT, "segment", 1 << 16);
+
+        if (temporal && !"events".equals(strategy)) {
+            throw new IllegalArgumentException(format(
+                "Strategy '%s' is not supported for %s.", strategy, fieldSchema.getLogicalType().getName()));
+        }
+
+        switch (strategy) {
+            case "walk" : return Series.walk(type,
+                seriesParameter(matcher, SeriesPattern.LOWER_BOUND, "from", Double.NaN),
+                seriesParameter(matcher, SeriesPattern.UPPER_BOUND, "to", Double.NaN),
+                seriesParameter(matcher, SeriesPattern.STEP, "step", Double.NaN),
+                segment, salt);
+            case "seasonal" : return Series.seasonal(type,
+                seriesParameter(matcher, SeriesPattern.LOWER_BOUND, "from", Double.NaN),
+                seriesParameter(matcher, SeriesPattern.UPPER_BOUND, "to", Double.NaN),
+                (long) seriesParameter(matcher, SeriesPattern.PERIOD, "period", Double.NaN),
+                seriesParameter(matcher, SeriesPattern.NOISE, "noise", 0),
+                salt);
+            case "events" : {
+                final String startInput = matcher.group(SeriesPattern.LOWER_BOUND);
+                final double start;
+                if (!temporal) {
+                    start = seriesParameter(matcher, SeriesPattern.LOWER_BOUND, "from", 0);
+                } else if (startInput == null) {
+                    start = temporalBounds(fieldSchema, null, null)[0];
+                } else {
+                    try {
+                        start = parseTemporal(fieldSchema.getLogicalType().getName(), startInput);
+                    } catch (final DateTimeParseException | ArithmeticException ex) {
+                        throw new IllegalArgumentException(format(
+                            "Could not parse parameter 'from' for %s.", fieldSchema.getLogicalType().getName()));
+                    }
+                }
+
+                final double gap = seriesParameter(matcher, SeriesPattern.GAP, "gap", Double.NaN);
+                final int distribution;
+                switch (ofNullable(matcher.group(SeriesPattern.DISTRIBUTION)).orElse("exp")) {
+                    case "fixed"   : distribution = Series.FIXED; break;
+                    case "uniform" : distribution = Series.UNIFORM; break;
+                    default        : distribution = Series.EXPONENTIAL;
+                }
+
+                return Series.events(type, start, gap, distribution,
+                    seriesParameter(matcher, SeriesPattern.LATE, "late", 0),
+                    seriesParameter(matcher, SeriesPattern.LAG, "lag", 10 * gap),
+                    segment, salt);
+            }
+            default : throw new IllegalStateException();
         }
     }
 
+    /**
+     * Returns the value of a parameter of a series strategy, or the default
+     * value if it was not specified. A default of {@code NaN} means that the
+     * parameter is required.
+     */
+    private static double seriesParameter(Matcher matcher, int group, String parameter, double defaultValue) {
+        final String input = matcher.group(group);
+        if (input == null) {
+            if (Double.isNaN(defaultValue)) {
+                throw new IllegalArgumentException(format(
+                    "Parameter '%s' is required for '%s'.", parameter, matcher.group(SeriesPattern.STRATEGY_TYPE)));
+            }
+            return defaultValue;
+        }
+
+        try {
+            return Double.parseDouble(input);
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException(format(
+                "Could not parse parameter '%s'.", parameter));
+        }
+    }
+
+    private static Matcher matchOrThrow(Pattern pattern, String line) {
+        final Matcher matcher = pattern.matcher(line);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException(format(
+                "Could not parse strategy '%s'.", line));
+        }
+        return matcher;
+    }
+
+    /**
+     * Returns the index of the record being generated if the specified random
+     * generator is a {@link RecordRandom}, or else the next value of the
+     * specified counter.
+     *
+     * @param random   the random generator
+     * @param counter  counter to use if the record index is not known
+     * @return         the index
+     */
+    static long nextIndex(Random random, AtomicLong counter) {
+        return random instanceof RecordRandom
+            ? ((RecordRandom) random).index()
+            : counter.getAndIncrement();
+    }
+
     private static long nextLongBetween(Random r, long lower, long upper) {
         return Math.abs(r.nextLong()) % (upper - lower) + lower;
     }
@@ -0,0 +1,96 @@
+package com.speedment.avromocker.mocker;
+
+import java.util.Random;
+
+/**
+ * Decides which of the nullable fields of a record are {@code null}, for all
+ * of them at once. Each field is a lane in a 64-bit word, and its probability
+ * is stored as a 32-bit fixed-point threshold that is sliced into one word per
+ * bit. A lane is null if its random number is less than its threshold. The
+ * random numbers are compared bit by bit from the most significant, taking
+ * one random word per bit for 64 lanes in parallel. The comparison stops
+ * once every lane is decided, which on average takes a few more words than
+ * the base-2 logarithm of the number of lanes.
+ * <p>
+ * Compared to calling {@code nextDouble()} for every field, this uses about
+ * 8 random words for 64 fields instead of 64 and has no branches per field.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class NullMask {
+
+    private final static int BITS = 32;
+
+    private final int lanes;
+    private final long[] active, always;
+    private final long[][] thresholds;
+
+    /**
+     * Creates a mask where lane {@code i} is null with
+     * {@code probabilities[i]}.
+     *
+     * @param probabilities  the probability of null for each lane
+     */
+    NullMask(double[] probabilities) {
+        final int groups = (probabilities.length + 63) >>> 6;
+        this.lanes      = probabilities.length;
+        this.active     = new long[groups];
+        this.always     = new long[groups];
+        this.thresholds = new long[groups][BITS];
+
+        for (int lane = 0; lane < lanes; lane++) {
+            final double p = probabilities[lane];
+            if (p < 0 || p > 1 || Double.isNaN(p)) {
+                throw new IllegalArgumentException(
+                    "Probability must be in span 0.0 and 1.0 (inclusive).");
+            }
+
+            final long threshold = Math.round(p * (1L << BITS));
+            final int group = lane >>> 6;
+            final long bit = 1L << lane;
+            if (threshold >= 1L << BITS) {
+                always[group] |= bit;
+            } else if (threshold > 0) {
+                active[group] |= bit;
+                for (int j = 0; j < BITS; j++) {
+                    if ((threshold & (1L << (BITS - 1 - j))) != 0) {
+                        thresholds[group][j] |= bit;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of words needed to hold the mask.
+     *
+     * @return  the number of words
+     */
+    int words() {
+        return active.length;
+    }
+
+    /**
+     * Decides the null lanes for the next record.
+     *
+     * @param random  the random generator to use
+     * @param mask    the words to set the null lanes in
+     */
+    void next(Random random, long[] mask) {
+        for (int group = 0; group < active.length; group++) {
+            final long[] threshold = thresholds[group];
+            long less = 0, equal = active[group];
+            for (int j = 0; j < BITS && equal != 0; j++) {
+                final long r = random.nextLong();
+                less  |= equal & ~r & threshold[j];
+                equal &= ~(r ^ threshold[j]);
+            }
+            mask[group] = less | always[group];
+        }
+    }
+
+    static boolean isNull(long[] mask, int lane) {
+        return (mask[lane >>> 6] & (1L << lane)) != 0;
+    }
+}
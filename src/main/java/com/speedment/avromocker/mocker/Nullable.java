@@ -0,0 +1,55 @@
+package com.speedment.avromocker.mocker;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generator for a nullable field that produces {@code null} with a fixed
+ * probability and otherwise delegates to another generator. The
+ * {@link MockerBuilder} detects it and decides the nulls of all nullable
+ * fields of a record at once using a {@link NullMask}.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Nullable implements Function<Random, Object> {
+
+    private final Function<Random, Object> inner;
+    private final double nullProbability;
+
+    Nullable(Function<Random, Object> inner, double nullProbability) {
+        this.inner           = requireNonNull(inner);
+        this.nullProbability = nullProbability;
+    }
+
+    /**
+     * Returns the generator used for values that are not {@code null}.
+     *
+     * @return  the inner generator
+     */
+    public Function<Random, Object> getInner() {
+        return inner;
+    }
+
+    public double getNullProbability() {
+        return nullProbability;
+    }
+
+    @Override
+    public Object apply(Random random) {
+        return random.nextDouble() < nullProbability ? null : inner.apply(random);
+    }
+
+    /**
+     * Returns the inner generator if the specified generator is nullable, or
+     * else the generator itself.
+     *
+     * @param generator  the generator
+     * @return           the generator of non-null values
+     */
+    public static Function<Random, Object> unwrap(Function<Random, Object> generator) {
+        return generator instanceof Nullable ? ((Nullable) generator).inner : generator;
+    }
+}
@@ -0,0 +1,718 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.AliasTable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * Generator for strings that match a regular expression. Created by the
+ * {@code pattern} strategy. Only a subset of the regular expression syntax
+ * is supported:
+ * <ul>
+ *     <li>literal characters, and escaped special characters like {@code \.}
+ *     <li>{@code .}, {@code \d}, {@code \w}, {@code \s} and character classes
+ *         like {@code [a-f0-9_]} or {@code [^,]}
+ *     <li>groups {@code (...)} or {@code (?:...)} with alternatives separated
+ *         by {@code |}
+ *     <li>the quantifiers {@code ?}, {@code *}, {@code +}, {@code {n}} and
+ *         {@code {n,m}}, where {@code *} and {@code +} repeat at most
+ *         {@value #MAX_REPEAT} times
+ * </ul>
+ * The number of repetitions and the alternative of a group are selected
+ * uniformly. The alternatives of a group can be given weights by following
+ * the group with a list of weights, for an example {@code (a|b|c)<5,3,2>}.
+ * Negated classes and {@code .} select among the printable ASCII characters.
+ * Characters outside of ISO-8859-1 are not supported.
+ * <p>
+ * The expression is compiled once into a program of integers, so that
+ * generating a string is a single pass over the program that writes the
+ * characters directly into a buffer. Every thread reuses its own buffer,
+ * which only grows when a string doesn't fit, so only the string itself is
+ * allocated.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class PatternGenerator implements Function<Random, Object> {
+
+    private final static int MAX_REPEAT = 8;
+
+    private final static int
+        LITERAL = 0, // offset, length
+        SET     = 1, // set, min, max
+        REPEAT  = 2, // min, max, end of body
+        ALTER   = 3; // table (or -1), n, start of every alternative, end
+
+    private final String expression;
+    private final String regex;
+    private final int[] code;
+    private final byte[] literals;
+    private final byte[][] sets;
+    private final AliasTable[] tables;
+    private final int maxLength;
+    private final ThreadLocal<Latin1Buffer> buffers;
+
+    private PatternGenerator(String expression, String regex, int[] code, byte[] literals,
+                             byte[][] sets, AliasTable[] tables, int maxLength) {
+        this.expression = expression;
+        this.regex      = regex;
+        this.code       = code;
+        this.literals   = literals;
+        this.sets       = sets;
+        this.tables     = tables;
+        this.maxLength  = maxLength;
+        this.buffers    = ThreadLocal.withInitial(() -> new Latin1Buffer(maxLength));
+    }
+
+    /**
+     * Compiles the specified expression.
+     *
+     * @param expression  the expression
+     * @return            generator for strings matching the expression
+     * @throws IllegalArgumentException  if the expression is not supported
+     */
+    static PatternGenerator compile(String expression) {
+        final Node root = new Parser(expression).parse();
+        final Program program = new Program();
+        root.emit(program);
+
+        final StringBuilder regex = new StringBuilder();
+        root.regex(regex);
+
+        return new PatternGenerator(expression, regex.toString(),
+            Arrays.copyOf(program.code, program.length),
+            Arrays.copyOf(program.literals, program.literalLength),
+            program.sets.toArray(new byte[0][]),
+            program.tables.toArray(new AliasTable[0]),
+            root.maxLength());
+    }
+
+    /**
+     * Returns a regular expression for {@link java.util.regex.Pattern} that
+     * matches every string this can generate.
+     *
+     * @return  the equivalent regular expression
+     */
+    String regex() {
+        return regex;
+    }
+
+    @Override
+    public Object apply(Random random) {
+        final Latin1Buffer buffer = buffers.get();
+        return buffer.toString(run(0, code.length, random, buffer, 0));
+    }
+
+    private int run(int pc, int end, Random random, Latin1Buffer buffer, int position) {
+        while (pc < end) {
+            switch (code[pc]) {
+                case LITERAL : {
+                    final int length = code[pc + 2];
+                    System.arraycopy(literals, code[pc + 1], buffer.ensure(position, length), position, length);
+                    position += length;
+                    pc += 3;
+                    break;
+                }
+                case SET : {
+                    final byte[] set = sets[code[pc + 1]];
+                    final int min = code[pc + 2], max = code[pc + 3];
+                    final int count = min == max ? min : min + bounded(random, max - min + 1);
+
+                    // Every random word gives two characters
+                    final byte[] bytes = buffer.ensure(position, count);
+                    final long n = set.length;
+                    for (int i = 0; i < count; i += 2) {
+                        final long bits = random.nextLong();
+                        bytes[position++] = set[(int) (((bits >>> 32) * n) >>> 32)];
+                        if (i + 1 < count) {
+                            bytes[position++] = set[(int) (((bits & 0xffffffffL) * n) >>> 32)];
+                        }
+                    }
+
+                    pc += 4;
+                    break;
+                }
+                case REPEAT : {
+                    final int min = code[pc + 1], max = code[pc + 2], bodyEnd = code[pc + 3];
+                    final int count = min == max ? min : min + bounded(random, max - min + 1);
+                    for (int i = 0; i < count; i++) {
+                        position = run(pc + 4, bodyEnd, random, buffer, position);
+                    }
+                    pc = bodyEnd;
+                    break;
+                }
+                case ALTER : {
+                    final int table = code[pc + 1], n = code[pc + 2];
+                    final int selected = table < 0 ? bounded(random, n) : tables[table].next(random);
+                    position = run(code[pc + 3 + selected], code[pc + 4 + selected], random, buffer, position);
+                    pc = code[pc + 3 + n];
+                    break;
+                }
+                default : throw new IllegalStateException(format(
+                    "Unknown instruction %d.", code[pc]));
+            }
+        }
+
+        return position;
+    }
+
+    private static int bounded(Random random, int n) {
+        return (int) (((random.nextLong() >>> 32) * n) >>> 32);
+    }
+
+    @Override
+    public String toString() {
+        return "pattern " + expression;
+    }
+
+    /**
+     * The program that is being emitted.
+     */
+    private final static class Program {
+
+        private int[] code = new int[64];
+        private int length;
+        private byte[] literals = new byte[64];
+        private int literalLength;
+        private final List<byte[]> sets = new ArrayList<>();
+        private final List<AliasTable> tables = new ArrayList<>();
+
+        int add(int value) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length] = value;
+            return length++;
+        }
+
+        void set(int index, int value) {
+            code[index] = value;
+        }
+
+        int addLiteral(byte[] bytes) {
+            if (literalLength + bytes.length > literals.length) {
+                literals = Arrays.copyOf(literals, Math.max(literals.length * 2, literalLength + bytes.length));
+            }
+            System.arraycopy(bytes, 0, literals, literalLength, bytes.length);
+            final int offset = literalLength;
+            literalLength += bytes.length;
+            return offset;
+        }
+    }
+
+    private interface Node {
+        void emit(Program program);
+        void regex(StringBuilder str);
+        int maxLength();
+    }
+
+    private final static class Literal implements Node {
+
+        private final StringBuilder chars = new StringBuilder();
+
+        @Override
+        public void emit(Program program) {
+            program.add(LITERAL);
+            program.add(program.addLiteral(chars.toString().getBytes(StandardCharsets.ISO_8859_1)));
+            program.add(chars.length());
+        }
+
+        @Override
+        public void regex(StringBuilder str) {
+            for (int i = 0; i < chars.length(); i++) {
+                escape(str, chars.charAt(i));
+            }
+        }
+
+        @Override
+        public int maxLength() {
+            return chars.length();
+        }
+    }
+
+    private final static class CharSet implements Node {
+
+        private final byte[] chars;
+        private final int min, max;
+
+        CharSet(byte[] chars, int min, int max) {
+            this.chars = chars;
+            this.min   = min;
+            this.max   = max;
+        }
+
+        @Override
+        public void emit(Program program) {
+            program.add(SET);
+            program.add(program.sets.size());
+            program.add(min);
+            program.add(max);
+            program.sets.add(chars);
+        }
+
+        @Override
+        public void regex(StringBuilder str) {
+            str.append('[');
+            for (final byte c : chars) {
+                escape(str, (char) (c & 0xff));
+            }
+            str.append(']');
+            quantifier(str, min, max);
+        }
+
+        @Override
+        public int maxLength() {
+            return max;
+        }
+    }
+
+    private final static class Repeat implements Node {
+
+        private final Node body;
+        private final int min, max;
+
+        Repeat(Node body, int min, int max) {
+            this.body = body;
+            this.min  = min;
+            this.max  = max;
+        }
+
+        @Override
+        public void emit(Program program) {
+            program.add(REPEAT);
+            program.add(min);
+            program.add(max);
+            final int end = program.add(0);
+            body.emit(program);
+            program.set(end, program.length);
+        }
+
+        @Override
+        public void regex(StringBuilder str) {
+            str.append("(?:");
+            body.regex(str);
+            str.append(')');
+            quantifier(str, min, max);
+        }
+
+        @Override
+        public int maxLength() {
+            return Math.multiplyExact(body.maxLength(), max);
+        }
+    }
+
+    private final static class Sequence implements Node {
+
+        private final List<Node> nodes = new ArrayList<>();
+
+        @Override
+        public void emit(Program program) {
+            nodes.forEach(n -> n.emit(program));
+        }
+
+        @Override
+        public void regex(StringBuilder str) {
+            nodes.forEach(n -> n.regex(str));
+        }
+
+        @Override
+        public int maxLength() {
+            int length = 0;
+            for (final Node node : nodes) {
+                length = Math.addExact(length, node.maxLength());
+            }
+            return length;
+        }
+    }
+
+    private final static class Alternation implements Node {
+
+        private final List<Node> alternatives;
+        private double[] weights;
+
+        Alternation(List<Node> alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        public void emit(Program program) {
+            final int n = alternatives.size();
+            program.add(ALTER);
+            if (weights == null) {
+                program.add(-1);
+            } else {
+                program.add(program.tables.size());
+                program.tables.add(new AliasTable(weights));
+            }
+
+            program.add(n);
+            final int starts = program.length;
+            for (int i = 0; i <= n; i++) {
+                program.add(0);
+            }
+
+            for (int i = 0; i < n; i++) {
+                program.set(starts + i, program.length);
+                alternatives.get(i).emit(program);
+            }
+            program.set(starts + n, program.length);
+        }
+
+        @Override
+        public void regex(StringBuilder str) {
+            str.append("(?:");
+            for (int i = 0; i < alternatives.size(); i++) {
+                if (i > 0) str.append('|');
+                alternatives.get(i).regex(str);
+            }
+            str.append(')');
+        }
+
+        @Override
+        public int maxLength() {
+            int length = 0;
+            for (final Node node : alternatives) {
+                length = Math.max(length, node.maxLength());
+            }
+            return length;
+        }
+    }
+
+    private static void escape(StringBuilder str, char c) {
+        if (Character.isLetterOrDigit(c) || c == ' ') {
+            str.append(c);
+        } else {
+            str.append('\\').append(c);
+        }
+    }
+
+    private static void quantifier(StringBuilder str, int min, int max) {
+        if (min != 1 || max != 1) {
+            str.append('{').append(min).append(',').append(max).append('}');
+        }
+    }
+
+    /**
+     * Recursive descent parser for the supported subset.
+     */
+    private final static class Parser {
+
+        private final static byte[] DIGITS = range('0', '9');
+        private final static byte[] WORD;
+        private final static byte[] PRINTABLE = range(' ', '~');
+
+        static {
+            final BitSet word = new BitSet();
+            word.set('a', 'z' + 1);
+            word.set('A', 'Z' + 1);
+            word.set('0', '9' + 1);
+            word.set('_');
+            WORD = toBytes(word);
+        }
+
+        private final String expression;
+        private int pos;
+
+        Parser(String expression) {
+            this.expression = expression;
+        }
+
+        Node parse() {
+            if (expression.isEmpty()) {
+                throw error("Pattern must not be empty");
+            }
+
+            // Anchors are implied, since the whole string is generated
+            if (peek() == '^') pos++;
+            final Node root = alternation();
+            if (peek() == '$' && pos == expression.length() - 1) pos++;
+
+            if (pos < expression.length()) {
+                throw error(format("Unexpected '%c'", expression.charAt(pos)));
+            }
+
+            return root;
+        }
+
+        private Node alternation() {
+            final List<Node> alternatives = new ArrayList<>();
+            alternatives.add(sequence());
+            while (peek() == '|') {
+                pos++;
+                alternatives.add(sequence());
+            }
+            return alternatives.size() == 1 ? alternatives.get(0) : new Alternation(alternatives);
+        }
+
+        private Node sequence() {
+            final Sequence sequence = new Sequence();
+            Literal literal = null;
+
+            while (pos < expression.length()) {
+                final char c = expression.charAt(pos);
+                if (c == '|' || c == ')' || (c == '$' && pos == expression.length() - 1)) {
+                    break;
+                }
+
+                final Node atom = atom();
+                final int[] bounds = quantifier();
+
+                if (atom instanceof Literal && bounds == null) {
+                    // Consecutive characters are copied as a single literal
+                    if (literal == null) {
+                        literal = (Literal) atom;
+                        sequence.nodes.add(literal);
+                    } else {
+                        literal.chars.append(((Literal) atom).chars);
+                    }
+                    continue;
+                }
+
+                literal = null;
+                if (bounds == null) {
+                    sequence.nodes.add(atom);
+                } else if (atom instanceof CharSet && ((CharSet) atom).max == 1) {
+                    sequence.nodes.add(new CharSet(((CharSet) atom).chars, bounds[0], bounds[1]));
+                } else {
+                    sequence.nodes.add(new Repeat(atom, bounds[0], bounds[1]));
+                }
+            }
+
+            return sequence.nodes.size() == 1 ? sequence.nodes.get(0) : sequence;
+        }
+
+        private Node atom() {
+            final char c = expression.charAt(pos++);
+            switch (c) {
+                case '(' : {
+                    if (expression.startsWith("?:", pos)) pos += 2;
+                    final Node inner = alternation();
+                    expect(')');
+                    if (peek() == '<') {
+                        if (!(inner instanceof Alternation)) {
+                            throw error("Weights require a group with alternatives");
+                        }
+                        ((Alternation) inner).weights = weights(((Alternation) inner).alternatives.size());
+                    }
+                    return inner;
+                }
+                case '[' : return charClass();
+                case '.' : return new CharSet(PRINTABLE, 1, 1);
+                case '\\' : return escaped();
+                case '*' : case '+' : case '?' : case '{' :
+                    throw error(format("Nothing to repeat before '%c'", c));
+                case ')' : case ']' :
+                    throw error(format("Unbalanced '%c'", c));
+                default : return literal(c);
+            }
+        }
+
+        private Node escaped() {
+            if (pos >= expression.length()) {
+                throw error("Pattern must not end with '\\'");
+            }
+
+            final char c = expression.charAt(pos++);
+            switch (c) {
+                case 'd' : return new CharSet(DIGITS, 1, 1);
+                case 'w' : return new CharSet(WORD, 1, 1);
+                case 's' : return literal(' ');
+                case 't' : return literal('\t');
+                case 'n' : return literal('\n');
+                default :
+                    if (Character.isLetterOrDigit(c)) {
+                        throw error(format("Unsupported escape '\\%c'", c));
+                    }
+                    return literal(c);
+            }
+        }
+
+        private Node charClass() {
+            final boolean negated = peek() == '^';
+            if (negated) pos++;
+
+            final BitSet chars = new BitSet(256);
+            boolean first = true;
+            while (first || peek() != ']') {
+                if (pos >= expression.length()) {
+                    throw error("Unclosed character class");
+                }
+                first = false;
+
+                final int from = classChar(chars);
+                if (from < 0) continue;
+
+                if (peek() == '-' && pos + 1 < expression.length() && expression.charAt(pos + 1) != ']') {
+                    pos++;
+                    final int to = classChar(null);
+                    if (to < from) {
+                        throw error(format("Invalid range '%c-%c'", (char) from, (char) to));
+                    }
+                    chars.set(from, to + 1);
+                } else {
+                    chars.set(from);
+                }
+            }
+            pos++;
+
+            if (negated) {
+                final BitSet printable = new BitSet(256);
+                printable.set(' ', '~' + 1);
+                printable.andNot(chars);
+                chars.clear();
+                chars.or(printable);
+            }
+
+            if (chars.isEmpty()) {
+                throw error("Character class must not be empty");
+            }
+
+            return new CharSet(toBytes(chars), 1, 1);
+        }
+
+        /**
+         * Parses a single character in a class. Escaped sets like {@code \d}
+         * are added to {@code chars} directly, in which case {@code -1} is
+         * returned.
+         */
+        private int classChar(BitSet chars) {
+            final char c = expression.charAt(pos++);
+            if (c != '\\') return checked(c);
+
+            final Node escaped = escaped();
+            if (escaped instanceof Literal) {
+                return ((Literal) escaped).chars.charAt(0);
+            } else if (chars == null) {
+                throw error("Sets can't be used in ranges");
+            }
+
+            for (final byte b : ((CharSet) escaped).chars) {
+                chars.set(b & 0xff);
+            }
+            return -1;
+        }
+
+        private int[] quantifier() {
+            final int[] bounds;
+            switch (peek()) {
+                case '?' : pos++; bounds = new int[] {0, 1}; break;
+                case '*' : pos++; bounds = new int[] {0, MAX_REPEAT}; break;
+                case '+' : pos++; bounds = new int[] {1, MAX_REPEAT}; break;
+                case '{' : {
+                    pos++;
+                    final int min = number();
+                    final int max;
+                    if (peek() == ',') {
+                        pos++;
+                        max = peek() == '}' ? Math.max(min, MAX_REPEAT) : number();
+                    } else {
+                        max = min;
+                    }
+                    expect('}');
+                    if (max < min) {
+                        throw error(format("Invalid quantifier {%d,%d}", min, max));
+                    }
+                    bounds = new int[] {min, max};
+                    break;
+                }
+                default : return null;
+            }
+
+            switch (peek()) {
+                case '?' : case '*' : case '+' : case '{' :
+                    throw error("Lazy, possessive and nested quantifiers are not supported");
+                default : return bounds;
+            }
+        }
+
+        private double[] weights(int count) {
+            expect('<');
+            final int end = expression.indexOf('>', pos);
+            if (end < 0) {
+                throw error("Unclosed weights");
+            }
+
+            final String[] parts = expression.substring(pos, end).split(",");
+            if (parts.length != count) {
+                throw error(format("Expected %d weights but found %d", count, parts.length));
+            }
+
+            final double[] weights = new double[count];
+            try {
+                for (int i = 0; i < count; i++) {
+                    weights[i] = Double.parseDouble(parts[i].trim());
+                }
+                new AliasTable(weights);
+            } catch (final IllegalArgumentException ex) {
+                throw error("Invalid weights");
+            }
+
+            pos = end + 1;
+            return weights;
+        }
+
+        private int number() {
+            final int start = pos;
+            while (pos < expression.length() && Character.isDigit(expression.charAt(pos))) pos++;
+            if (start == pos) {
+                throw error("Expected a number");
+            }
+            try {
+                return Integer.parseInt(expression.substring(start, pos));
+            } catch (final NumberFormatException ex) {
+                throw error("Number is too large");
+            }
+        }
+
+        private Literal literal(char c) {
+            final Literal literal = new Literal();
+            literal.chars.append((char) checked(c));
+            return literal;
+        }
+
+        private int checked(char c) {
+            if (c > 0xff) {
+                throw error(format("Character '%c' is not in ISO-8859-1", c));
+            }
+            return c;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error(format("Expected '%c'", c));
+            }
+            pos++;
+        }
+
+        private char peek() {
+            return pos < expression.length() ? expression.charAt(pos) : '\0';
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(format(
+                "%s at position %d in pattern '%s'.", message, pos, expression));
+        }
+
+        private static byte[] range(char from, char to) {
+            final BitSet set = new BitSet();
+            set.set(from, to + 1);
+            return toBytes(set);
+        }
+
+        private static byte[] toBytes(BitSet set) {
+            final byte[] bytes = new byte[set.cardinality()];
+            for (int i = set.nextSetBit(0), j = 0; i >= 0; i = set.nextSetBit(i + 1)) {
+                bytes[j++] = (byte) i;
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.HashUtil;
+
+import java.util.Random;
+
+/**
+ * Random generator that is reseeded for every record, so that the values of
+ * a record only depend on the seed and the index of the record. This makes it
+ * possible to generate any range of records independently (for an example in
+ * parallel or after a restart) and still produce exactly the same data as a
+ * single sequential run.
+ * <p>
+ * Generators that would otherwise keep a counter (like {@code incr}) use
+ * {@link #index()} instead when given an instance of this class.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class RecordRandom extends Random {
+
+    private final static long serialVersionUID = 1L;
+    private final static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private long index;
+    private long state;
+
+    public RecordRandom(long seed) {
+        super(seed);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the index of the record currently being generated.
+     *
+     * @return  the record index
+     */
+    public long index() {
+        return index;
+    }
+
+    /**
+     * Prepares this generator for the record with the specified index.
+     *
+     * @param index  the record index
+     */
+    public void seek(long index) {
+        this.index = index;
+        this.state = HashUtil.mix64(seed ^ HashUtil.mix64(index));
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        this.seed = seed;
+        seek(0);
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        return HashUtil.mix64(state += GOLDEN_GAMMA);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public double nextGaussian() {
+        // Unlike Random, no second value is cached between records
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        return v1 * StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+    }
+}
@@ -0,0 +1,87 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spliterator over the records with the indexes in a range. Splitting it
+ * gives the first half of the range to a {@link Mocker#copy() copy} of the
+ * mocker, so only seeded mockers can be split. Since seeded records only
+ * depend on their index, the records are the same regardless of how the
+ * range is split.
+ * <p>
+ * If {@code reuse} is set, every record of a spliterator is the same
+ * instance, which is only valid until the next record is generated.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class RecordSpliterator implements Spliterator<GenericRecord> {
+
+    private final Mocker mocker;
+    private final Schema schema;
+    private final GenericRecord reused;
+    private long index;
+    private final long end;
+
+    RecordSpliterator(Mocker mocker, Schema schema, long from, long to, boolean reuse) {
+        if (from > to) {
+            throw new IllegalArgumentException(
+                "The first index must not be greater than the last.");
+        }
+
+        this.mocker = requireNonNull(mocker);
+        this.schema = requireNonNull(schema);
+        this.reused = reuse ? new GenericData.Record(schema) : null;
+        this.index  = from;
+        this.end    = to;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super GenericRecord> action) {
+        if (index < end) {
+            action.accept(next());
+            return true;
+        } else return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super GenericRecord> action) {
+        while (index < end) {
+            action.accept(next());
+        }
+    }
+
+    @Override
+    public Spliterator<GenericRecord> trySplit() {
+        if (!mocker.isCopyable() || end - index < 2) return null;
+
+        final long middle = index + (end - index) / 2;
+        final Spliterator<GenericRecord> prefix = new RecordSpliterator(
+            mocker.copy(), schema, index, middle, reused != null);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    private GenericRecord next() {
+        final GenericRecord record = reused != null
+            ? reused : new GenericData.Record(schema);
+        return mocker.mock(record, index++);
+    }
+}
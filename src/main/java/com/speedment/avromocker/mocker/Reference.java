@@ -0,0 +1,92 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.ZipfSampler;
+import org.apache.avro.Schema;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generator for foreign keys that selects among the keys generated for a
+ * field in another file. Created by the {@code ref} strategy and must be
+ * {@link #bind(KeySource) bound} to the referenced keys before any values
+ * are generated.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Reference implements Function<Random, Object> {
+
+    private final Schema.Type type;
+    private final String entity, field;
+    private final double skew;
+
+    private KeySource keys;
+    private ZipfSampler zipf;
+
+    Reference(Schema.Type type, String entity, String field, double skew) {
+        this.type   = requireNonNull(type);
+        this.entity = requireNonNull(entity);
+        this.field  = requireNonNull(field);
+        this.skew   = skew;
+    }
+
+    /**
+     * Returns the name of the record that is referenced.
+     *
+     * @return  the referenced record name
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    /**
+     * Returns the name of the referenced key field.
+     *
+     * @return  the referenced field name
+     */
+    public String getField() {
+        return field;
+    }
+
+    public void bind(KeySource keys) {
+        this.keys = requireNonNull(keys);
+        this.zipf = null;
+    }
+
+    public boolean isBound() {
+        return keys != null;
+    }
+
+    @Override
+    public Object apply(Random random) {
+        if (keys == null) {
+            throw new IllegalStateException(format(
+                "Reference to '%s.%s' has not been bound.", entity, field));
+        }
+
+        final long size = keys.size();
+        if (size == 0) {
+            throw new IllegalStateException(format(
+                "Referenced field '%s.%s' has no keys.", entity, field));
+        }
+
+        final long index;
+        if (skew > 0) {
+            if (zipf == null) zipf = new ZipfSampler(size, skew);
+            index = zipf.next(random) - 1;
+        } else {
+            index = (random.nextLong() >>> 1) % size;
+        }
+
+        final long key = keys.key(index);
+        switch (type) {
+            case INT  : return Math.toIntExact(key);
+            case LONG : return key;
+            default : throw new IllegalStateException();
+        }
+    }
+}
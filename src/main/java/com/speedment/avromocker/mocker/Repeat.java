@@ -0,0 +1,163 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.HashUtil;
+
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Makes a strategy repeat its values in runs of consecutive records, to
+ * control how well the generated data compresses. Every record continues
+ * the run of the record before it with a fixed probability, so runs have a
+ * geometric length with the mean {@code 1 / (1 - probability)}. The value of
+ * a run is generated once, for the first record in it. With a prefix, only
+ * the first characters of a string are repeated and the rest is generated
+ * for every record, like keys that share a prefix.
+ * <p>
+ * When seeded, whether a record starts a new run only depends on the seed
+ * and the index of the record, so runs are the same regardless of which
+ * records are generated. Runs never cross a multiple of {@link #MAX_RUN}
+ * records, which bounds the records that have to be examined to find the
+ * start of a run when records are not generated in order.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Repeat implements Function<Random, Object> {
+
+    final static int MAX_RUN = 1 << 12;
+
+    private final static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final Function<Random, Object> inner;
+    private final double probability;
+    private final int prefix;
+    private final long salt;
+    private final ThreadLocal<State> states;
+
+    /**
+     * Creates a repeating strategy.
+     *
+     * @param inner        the strategy to repeat the values of
+     * @param probability  the probability that a record repeats the value of
+     *                     the record before it
+     * @param prefix       the number of characters of strings to repeat, or
+     *                     {@code 0} to repeat the whole value
+     * @param salt         makes fields with the same seed have different runs
+     */
+    Repeat(Function<Random, Object> inner, double probability, int prefix, long salt) {
+        if (!(probability >= 0 && probability < 1)) {
+            throw new IllegalArgumentException(
+                "The probability of repeating a value must be at least 0.0 and less than 1.0.");
+        } else if (prefix < 0) {
+            throw new IllegalArgumentException("The prefix must not be negative.");
+        } else if (inner instanceof Expression || inner instanceof EntityField) {
+            throw new IllegalArgumentException("Derived values and entities can't be repeated.");
+        }
+
+        this.inner       = inner;
+        this.probability = probability;
+        this.prefix      = prefix;
+        this.salt        = salt;
+        this.states      = ThreadLocal.withInitial(State::new);
+    }
+
+    /**
+     * Returns the generator of the values that are repeated.
+     *
+     * @return  the inner generator
+     */
+    public Function<Random, Object> getInner() {
+        return inner;
+    }
+
+    @Override
+    public Object apply(Random random) {
+        final State state = states.get();
+
+        if (!(random instanceof RecordRandom)) {
+            if (state.value == null || random.nextDouble() >= probability) {
+                state.value = inner.apply(random);
+                return state.value;
+            }
+            return prefix > 0 ? withPrefix(state.value, inner.apply(random)) : state.value;
+        }
+
+        final RecordRandom record = (RecordRandom) random;
+        final long seed  = record.getSeed() ^ salt;
+        final long index = record.index();
+
+        final long start;
+        if (state.value != null && state.seed == seed && state.index == index - 1) {
+            start = continues(seed, index) ? state.start : index;
+        } else {
+            start = start(seed, index);
+        }
+
+        if (state.value == null || state.seed != seed || state.start != start) {
+            if (state.random.getSeed() != seed) {
+                state.random.setSeed(seed);
+            }
+            state.random.seek(start);
+            state.value = inner.apply(state.random);
+            state.seed  = seed;
+            state.start = start;
+        }
+        state.index = index;
+
+        if (prefix > 0 && start != index) {
+            state.random.seek(index);
+            return withPrefix(state.value, inner.apply(state.random));
+        }
+
+        return state.value;
+    }
+
+    /**
+     * Returns the inner generator if the specified generator repeats values,
+     * or else the generator itself.
+     *
+     * @param generator  the generator
+     * @return           the generator of the repeated values
+     */
+    public static Function<Random, Object> unwrap(Function<Random, Object> generator) {
+        return generator instanceof Repeat ? ((Repeat) generator).inner : generator;
+    }
+
+    /**
+     * Returns the index of the first record in the run of the specified
+     * record.
+     */
+    private long start(long seed, long index) {
+        long start = index;
+        while (continues(seed, start)) {
+            start--;
+        }
+        return start;
+    }
+
+    private boolean continues(long seed, long index) {
+        return index % MAX_RUN != 0
+            && (HashUtil.mix64(seed + index * GOLDEN_GAMMA) >>> 11) * 0x1.0p-53 < probability;
+    }
+
+    /**
+     * Replaces the first characters of a generated string with those of the
+     * value of the run, keeping the length of the generated string.
+     */
+    private String withPrefix(Object repeated, Object generated) {
+        final String head = repeated.toString();
+        final String tail = generated.toString();
+        final int shared = Math.min(prefix, Math.min(head.length(), tail.length()));
+        return new StringBuilder(tail.length())
+            .append(head, 0, shared)
+            .append(tail, shared, tail.length())
+            .toString();
+    }
+
+    private final static class State {
+        final RecordRandom random = new RecordRandom(0);
+        long seed, index, start;
+        Object value;
+    }
+}
@@ -0,0 +1,239 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaCompatibility;
+import org.apache.avro.SchemaCompatibility.SchemaCompatibilityType;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.*;
+
+import static java.lang.String.format;
+import static org.apache.avro.SchemaCompatibility.SchemaCompatibilityType.COMPATIBLE;
+
+/**
+ * Several versions of the schema of one logical dataset, and a plan that
+ * generates the records of all versions at once. The plan is a record with
+ * every field that is in any version, in the order they first appear. A
+ * field that changes type between versions is generated with the type that
+ * every other version can read, usually the narrowest one, and then promoted
+ * to the type of each version the same way Avro promotes values when reading
+ * data written with an older schema. The records of every version are
+ * therefore the same logical rows, as if they had been written with one
+ * version and read with another.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class SchemaVersions {
+
+    private final List<Schema> versions;
+    private final Schema plan;
+    private final int[][] positions;
+    private final boolean[][] promoted;
+
+    /**
+     * Creates the plan of the specified versions.
+     *
+     * @param versions  the versions, oldest first
+     * @throws IllegalArgumentException  if a field changes type in a way that
+     *                                   no version can be read as all others
+     */
+    public SchemaVersions(List<Schema> versions) {
+        if (versions.isEmpty()) {
+            throw new IllegalArgumentException("Expected at least one schema version.");
+        }
+
+        for (final Schema version : versions) {
+            if (version.getType() != Schema.Type.RECORD) {
+                throw new IllegalArgumentException(format(
+                    "Schema version '%s' is not a record.", version.getFullName()));
+            }
+        }
+
+        // Every field, in the order it first appears
+        final Map<String, List<Schema.Field>> fields = new LinkedHashMap<>();
+        for (final Schema version : versions) {
+            for (final Schema.Field field : version.getFields()) {
+                fields.computeIfAbsent(field.name(), name -> new ArrayList<>()).add(field);
+            }
+        }
+
+        final List<Schema.Field> planFields = new ArrayList<>(fields.size());
+        fields.forEach((name, candidates) -> {
+            final Schema.Field source = source(name, candidates);
+            planFields.add(new Schema.Field(name, source.schema(), source.doc(),
+                source.defaultVal(), source.order()));
+        });
+
+        final Schema latest = versions.get(versions.size() - 1);
+        this.versions  = Collections.unmodifiableList(new ArrayList<>(versions));
+        this.plan      = Schema.createRecord(latest.getName(), latest.getDoc(),
+            latest.getNamespace(), latest.isError(), planFields);
+        this.positions = new int[versions.size()][];
+        this.promoted  = new boolean[versions.size()][];
+
+        for (int v = 0; v < versions.size(); v++) {
+            final List<Schema.Field> versionFields = versions.get(v).getFields();
+            positions[v] = new int[versionFields.size()];
+            promoted[v]  = new boolean[versionFields.size()];
+            for (final Schema.Field field : versionFields) {
+                final Schema.Field planField = plan.getField(field.name());
+                positions[v][field.pos()] = planField.pos();
+                promoted[v][field.pos()]  = !planField.schema().equals(field.schema());
+            }
+        }
+    }
+
+    /**
+     * Returns the record with every field of every version, that the values
+     * are generated for.
+     *
+     * @return  the plan
+     */
+    public Schema getPlan() {
+        return plan;
+    }
+
+    public List<Schema> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Sets the fields of a record of the specified version to the values of
+     * a generated record of the plan, promoting values where the type of the
+     * field differs.
+     *
+     * @param record   a record of the plan
+     * @param version  the index of the version
+     * @param target   a record of the version to set the fields of
+     * @return         the target
+     */
+    public GenericRecord project(GenericRecord record, int version, GenericRecord target) {
+        final int[] positions = this.positions[version];
+        final boolean[] promoted = this.promoted[version];
+        final List<Schema.Field> fields = target.getSchema().getFields();
+        for (int i = 0; i < positions.length; i++) {
+            final Object value = record.get(positions[i]);
+            target.put(i, promoted[i]
+                ? promote(value, plan.getFields().get(positions[i]).schema(), fields.get(i).schema())
+                : value);
+        }
+        return target;
+    }
+
+    /**
+     * Returns whether data written with one version can be read with
+     * another, as decided by {@link SchemaCompatibility}.
+     *
+     * @param reader  the index of the version used to read
+     * @param writer  the index of the version used to write
+     * @return        the compatibility
+     */
+    public SchemaCompatibilityType compatibility(int reader, int writer) {
+        return SchemaCompatibility.checkReaderWriterCompatibility(
+            versions.get(reader), versions.get(writer)).getType();
+    }
+
+    /**
+     * Returns the version of a field that every other version of it can
+     * read, preferring the oldest one.
+     */
+    private static Schema.Field source(String name, List<Schema.Field> candidates) {
+        for (final Schema.Field candidate : candidates) {
+            if (candidates.stream().allMatch(other ->
+                    SchemaCompatibility.checkReaderWriterCompatibility(
+                        other.schema(), candidate.schema()).getType() == COMPATIBLE)) {
+                return candidate;
+            }
+        }
+
+        throw new IllegalArgumentException(format(
+            "Field '%s' changes from %s to %s, which no version can be read as.", name,
+            candidates.get(0).schema(), candidates.get(candidates.size() - 1).schema()));
+    }
+
+    /**
+     * Converts a value of one schema to another schema that can read it,
+     * following the Avro rules for schema resolution.
+     *
+     * @param value  the value
+     * @param from   the schema of the value
+     * @param to     the schema to convert to
+     * @return       the converted value
+     */
+    static Object promote(Object value, Schema from, Schema to) {
+        if (value == null || from == to) {
+            return value;
+        } else if (from.getType() == Schema.Type.UNION) {
+            return promote(value, from.getTypes().get(GenericData.get().resolveUnion(from, value)), to);
+        } else if (to.getType() == Schema.Type.UNION) {
+            return promote(value, from, branch(from, to));
+        }
+
+        switch (to.getType()) {
+            case LONG   : return ((Number) value).longValue();
+            case FLOAT  : return ((Number) value).floatValue();
+            case DOUBLE : return ((Number) value).doubleValue();
+            case ENUM   : return new GenericData.EnumSymbol(to, value.toString());
+            case FIXED  : return new GenericData.Fixed(to, ((GenericFixed) value).bytes());
+            case ARRAY  : {
+                final Collection<?> elements = (Collection<?>) value;
+                final List<Object> result = new GenericData.Array<>(elements.size(), to);
+                for (final Object element : elements) {
+                    result.add(promote(element, from.getElementType(), to.getElementType()));
+                }
+                return result;
+            }
+            case MAP : {
+                final Map<?, ?> entries = (Map<?, ?>) value;
+                final Map<Object, Object> result = new HashMap<>(entries.size() * 2);
+                entries.forEach((key, entry) -> result.put(key,
+                    promote(entry, from.getValueType(), to.getValueType())));
+                return result;
+            }
+            case RECORD : {
+                final GenericRecord record = (GenericRecord) value;
+                final GenericRecord result = new GenericData.Record(to);
+                for (final Schema.Field field : to.getFields()) {
+                    final Schema.Field source = from.getField(field.name());
+                    result.put(field.pos(), source == null
+                        ? GenericData.get().getDefaultValue(field)
+                        : promote(record.get(source.pos()), source.schema(), field.schema()));
+                }
+                return result;
+            }
+            default : return value;
+        }
+    }
+
+    /**
+     * Returns the branch of a union that a value of the specified schema is
+     * read as, which is the first branch of the same type or else the first
+     * one that it can be promoted to.
+     */
+    private static Schema branch(Schema from, Schema union) {
+        for (final Schema branch : union.getTypes()) {
+            if (branch.getType() == from.getType()
+                    && (!isNamed(branch) || branch.getFullName().equals(from.getFullName()))) {
+                return branch;
+            }
+        }
+
+        for (final Schema branch : union.getTypes()) {
+            if (SchemaCompatibility.checkReaderWriterCompatibility(branch, from).getType() == COMPATIBLE) {
+                return branch;
+            }
+        }
+
+        throw new IllegalArgumentException(format("No branch of %s can read %s.", union, from));
+    }
+
+    private static boolean isNamed(Schema schema) {
+        switch (schema.getType()) {
+            case RECORD : case ENUM : case FIXED : return true;
+            default : return false;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.HashUtil;
+import org.apache.avro.Schema;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generator for numeric series where every value depends on the previous
+ * ones. Created by the {@code walk}, {@code seasonal} and {@code events}
+ * strategies.
+ * <p>
+ * To still be able to generate any range of records independently, the
+ * records are divided into segments of a fixed number of records. The state
+ * at the start of every segment only depends on the seed and the index of
+ * the segment, and the state within a segment is computed by stepping
+ * forward from the start of it. The random numbers used for stepping are
+ * derived from the index of the record rather than taken from the generator
+ * of the record, so that skipped records can be stepped over without being
+ * generated. Generating records in order is thereby a single step per
+ * record, while seeking to another record steps at most one segment.
+ * <p>
+ * Since mockers share their generators with their copies, the state is kept
+ * per thread.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class Series implements Function<Random, Object> {
+
+    private final static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final static int WALK = 0, SEASONAL = 1, EVENTS = 2;
+
+    /**
+     * The distributions of the time between events.
+     */
+    final static int FIXED = 0, UNIFORM = 1, EXPONENTIAL = 2;
+
+    private final Schema.Type type;
+    private final int kind;
+    private final double lower, upper, step;
+    private final long period;
+    private final double noise;
+    private final int distribution;
+    private final double late, lag;
+    private final long segment;
+    private final long salt;
+    private final AtomicLong counter;
+    private final ThreadLocal<State> states;
+
+    private Series(Schema.Type type, int kind, double lower, double upper, double step,
+                   long period, double noise, int distribution, double late, double lag,
+                   long segment, long salt) {
+        if (segment < 1) {
+            throw new IllegalArgumentException("The segment must be at least one record.");
+        }
+
+        this.type         = requireNonNull(type);
+        this.kind         = kind;
+        this.lower        = lower;
+        this.upper        = upper;
+        this.step         = step;
+        this.period       = period;
+        this.noise        = noise;
+        this.distribution = distribution;
+        this.late         = late;
+        this.lag          = lag;
+        this.segment      = segment;
+        this.salt         = salt;
+        this.counter      = new AtomicLong();
+        this.states       = ThreadLocal.withInitial(State::new);
+    }
+
+    /**
+     * Creates a random walk that starts at a random value between
+     * {@code lower} and {@code upper} and moves at most {@code step} up or
+     * down for every record, bouncing back at the bounds.
+     */
+    static Series walk(Schema.Type type, double lower, double upper, double step,
+                       long segment, long salt) {
+        if (upper <= lower) {
+            throw new IllegalArgumentException("The upper bound must be greater than the lower.");
+        } else if (!(step > 0)) {
+            throw new IllegalArgumentException("The step must be positive.");
+        }
+
+        return new Series(type, WALK, lower, upper, step, 0, 0, 0, 0, 0, segment, salt);
+    }
+
+    /**
+     * Creates a sine wave between {@code lower} and {@code upper} that
+     * repeats every {@code period} records, with normally distributed noise
+     * with the standard deviation {@code noise} added to it.
+     */
+    static Series seasonal(Schema.Type type, double lower, double upper, long period,
+                           double noise, long salt) {
+        if (upper < lower) {
+            throw new IllegalArgumentException("The upper bound must not be less than the lower.");
+        } else if (period < 1) {
+            throw new IllegalArgumentException("The period must be at least one record.");
+        } else if (noise < 0) {
+            throw new IllegalArgumentException("The noise must not be negative.");
+        }
+
+        return new Series(type, SEASONAL, lower, upper, 0, period, noise, 0, 0, 0, 1, salt);
+    }
+
+    /**
+     * Creates increasing timestamps starting at {@code start} with on
+     * average {@code gap} between consecutive events. A fraction
+     * {@code late} of the events arrive late, which means that their
+     * timestamp is moved back by a random amount less than {@code lag}.
+     * Apart from the late events, the timestamps never decrease.
+     */
+    static Series events(Schema.Type type, double start, double gap, int distribution,
+                         double late, double lag, long segment, long salt) {
+        if (!(gap > 0)) {
+            throw new IllegalArgumentException("The gap must be positive.");
+        } else if (!(late >= 0 && late <= 1)) {
+            throw new IllegalArgumentException("The late fraction must be between 0 and 1.");
+        } else if (lag < 0) {
+            throw new IllegalArgumentException("The lag must not be negative.");
+        }
+
+        return new Series(type, EVENTS, start, 0, gap, 0, 0, distribution, late, lag, segment, salt);
+    }
+
+    /**
+     * Returns the values this series can produce.
+     *
+     * @return  the constraint
+     */
+    Constraint constraint() {
+        final boolean integer = type == Schema.Type.INT || type == Schema.Type.LONG;
+        final boolean bounded;
+        final double min, max;
+        switch (kind) {
+            case WALK     : bounded = true; min = lower; max = upper; break;
+            case SEASONAL : bounded = noise == 0; min = lower; max = upper; break;
+            case EVENTS   : bounded = late == 0; min = lower; max = Double.MAX_VALUE; break;
+            default : throw new IllegalStateException();
+        }
+
+        if (!bounded) {
+            return integer ? Constraint.any() : Constraint.finite();
+        } else if (integer) {
+            return Constraint.integers(
+                kind == EVENTS ? (long) Math.floor(min) : Math.round(min),
+                max == Double.MAX_VALUE
+                    ? (type == Schema.Type.INT ? Integer.MAX_VALUE : Long.MAX_VALUE)
+                    : Math.round(max),
+                1);
+        } else {
+            return Constraint.decimals(min, max);
+        }
+    }
+
+    @Override
+    public Object apply(Random random) {
+        final long index = MockerBuilderUtil.nextIndex(random, counter);
+        final long seed  = random instanceof RecordRandom
+            ? ((RecordRandom) random).getSeed() ^ salt : salt;
+
+        final double value;
+        switch (kind) {
+            case WALK     : value = walk(seed, index); break;
+            case SEASONAL : value = seasonal(random, index); break;
+            case EVENTS   : value = event(random, seed, index); break;
+            default : throw new IllegalStateException();
+        }
+
+        switch (type) {
+            case INT    : return Math.toIntExact(kind == EVENTS ? (long) Math.floor(value) : Math.round(value));
+            case LONG   : return kind == EVENTS ? (long) Math.floor(value) : Math.round(value);
+            case FLOAT  : return (float) value;
+            case DOUBLE : return value;
+            default : throw new IllegalStateException();
+        }
+    }
+
+    private double walk(long seed, long index) {
+        final State state = seek(seed, index);
+        if (state.index < 0) {
+            state.index = state.base;
+            state.value = lower + unit(seed, -1 - state.base / segment) * (upper - lower);
+        }
+
+        while (state.index < index) {
+            state.index++;
+            double next = state.value + (2 * unit(seed, state.index) - 1) * step;
+            if (next < lower) next = 2 * lower - next;
+            if (next > upper) next = 2 * upper - next;
+            state.value = Math.max(lower, Math.min(upper, next));
+        }
+
+        return state.value;
+    }
+
+    private double seasonal(Random random, long index) {
+        final double phase = (double) Math.floorMod(index, period) / period;
+        final double value = (lower + upper) / 2 + (upper - lower) / 2 * Math.sin(2 * Math.PI * phase);
+        return noise > 0 ? value + noise * random.nextGaussian() : value;
+    }
+
+    private double event(Random random, long seed, long index) {
+        final double time;
+        switch (distribution) {
+            case FIXED   : time = lower + index * step; break;
+            case UNIFORM : time = lower + (index + unit(seed, index)) * step; break;
+            case EXPONENTIAL : {
+                // The events of a segment are spread over a window of fixed
+                // length, like a Poisson process with a known number of
+                // events. Their times are then sorted uniform values, which
+                // are generated in order one by one.
+                final State state = seek(seed, index);
+                if (state.index < 0) {
+                    state.index = state.base - 1;
+                    state.value = 0;
+                }
+
+                while (state.index < index) {
+                    state.index++;
+                    final long remaining = state.base + segment - state.index;
+                    final double v = 1 - unit(seed, state.index);
+                    state.value = 1 - (1 - state.value) * Math.pow(v, 1d / remaining);
+                }
+
+                time = lower + (state.base + state.value * segment) * step;
+                break;
+            }
+            default : throw new IllegalStateException();
+        }
+
+        if (late > 0 && random.nextDouble() < late) {
+            return time - random.nextDouble() * lag;
+        } else {
+            return time;
+        }
+    }
+
+    /**
+     * Returns the state of this thread, reset to the start of the segment
+     * of the specified index unless it can step forward to it.
+     */
+    private State seek(long seed, long index) {
+        final State state = states.get();
+        final long base = index - Math.floorMod(index, segment);
+        if (state.seed != seed || state.base != base || state.index > index) {
+            state.seed  = seed;
+            state.base  = base;
+            state.index = -1;
+        }
+        return state;
+    }
+
+    /**
+     * Returns a uniform value in [0, 1) that only depends on the seed and
+     * the specified index.
+     */
+    private static double unit(long seed, long index) {
+        return (HashUtil.mix64(seed + index * GOLDEN_GAMMA) >>> 11) * 0x1.0p-53;
+    }
+
+    private final static class State {
+        private long seed;
+        private long base = -1;
+        private long index = -1;
+        private double value;
+    }
+}
@@ -0,0 +1,115 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generates records in blocks of a fixed size and sorts every block by one or
+ * more fields before returning them. Records with equal values for the first
+ * field are thereby clustered by the second field, and so on. If the first
+ * field is generated in increasing order (like the {@code incr} and
+ * {@code asc} strategies), the output is sorted as a whole.
+ * <p>
+ * The records of a block are allocated once and reused for every block.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class SortedBlocks {
+
+    private final Mocker mocker;
+    private final GenericRecord[] block;
+    private final Comparator<GenericRecord> comparator;
+    private final long total;
+    private long generated;
+    private int position, size;
+
+    public SortedBlocks(Mocker mocker, Schema schema, List<String> fields, int blockSize, long total) {
+        this(mocker, schema, fields, blockSize, 0, total);
+    }
+
+    /**
+     * Creates blocks that start at the specified record index. The result is
+     * only the same as the end of a run that started at zero if the index is
+     * a multiple of the block size.
+     *
+     * @param mocker     the mocker to generate records with
+     * @param schema     the schema of the records
+     * @param fields     the fields to sort by
+     * @param blockSize  the number of records to sort at a time
+     * @param first      the index of the first record to generate
+     * @param end        the index after the last record to generate
+     */
+    public SortedBlocks(Mocker mocker, Schema schema, List<String> fields, int blockSize, long first, long end) {
+        this.mocker     = requireNonNull(mocker);
+        this.generated  = first;
+        this.comparator = comparator(schema, fields);
+        this.total      = end;
+        this.block      = new GenericRecord[(int) Math.max(1, Math.min(blockSize, end - first))];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = new GenericData.Record(schema);
+        }
+    }
+
+    /**
+     * Returns the next record in sorted order. The returned record is reused
+     * once the block has been consumed.
+     *
+     * @return  the next record
+     */
+    public GenericRecord next() {
+        if (position == size) {
+            fill();
+        }
+        return block[position++];
+    }
+
+    private void fill() {
+        size = (int) Math.min(block.length, total - generated);
+        if (size <= 0) {
+            throw new NoSuchElementException(format(
+                "All %,d records have already been generated.", total));
+        }
+
+        for (int i = 0; i < size; i++) {
+            mocker.mock(block[i], generated + i);
+        }
+
+        Arrays.sort(block, 0, size, comparator);
+        generated += size;
+        position = 0;
+    }
+
+    private static Comparator<GenericRecord> comparator(Schema schema, List<String> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one field to sort by must be specified.");
+        }
+
+        Comparator<GenericRecord> result = null;
+        for (final String name : fields) {
+            final Schema.Field field = schema.getField(name);
+            if (field == null) {
+                throw new IllegalArgumentException(format(
+                    "Can't sort by unknown field '%s'.", name));
+            }
+
+            final int pos = field.pos();
+            final Schema fieldSchema = field.schema();
+            final Comparator<GenericRecord> byField = (a, b) ->
+                GenericData.get().compare(a.get(pos), b.get(pos), fieldSchema);
+
+            result = result == null ? byField : result.thenComparing(byField);
+        }
+
+        return result;
+    }
+}
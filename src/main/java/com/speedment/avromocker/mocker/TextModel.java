@@ -0,0 +1,282 @@
+package com.speedment.avromocker.mocker;
+
+import com.speedment.avromocker.util.AliasTable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * Markov chain that generates realistic looking text, trained on a small
+ * model file. Every line in the file is a sample. The chain either works on
+ * characters, in which case every sample is a single token like a name, or
+ * on words, in which case every sample is a sentence. The next character or
+ * word only depends on the previous {@code order} ones.
+ * <p>
+ * The file may start with comment lines beginning with {@code #}. A line
+ * {@code #!chars <order>} or {@code #!words <order>} selects the kind of
+ * chain. The default is {@code #!chars 3}.
+ * <p>
+ * The chain is compiled into primitive arrays once. Every state has an
+ * {@link AliasTable} over its transitions and the state that each transition
+ * leads to, so generating text only writes bytes into a buffer. The built-in
+ * models {@code names}, {@code cities} and {@code lorem} are included as
+ * resources. Characters outside of ISO-8859-1 are not supported.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class TextModel {
+
+    private final static String RESOURCES = "/com/speedment/avromocker/text/";
+    private final static Pattern WHITESPACE = Pattern.compile("\\s+");
+    private final static Map<String, TextModel> BUILT_IN = new ConcurrentHashMap<>();
+    private final static int END = -1;
+
+    private final boolean words;
+    private final byte[] tokens;
+    private final int[] tokenOffsets;
+    private final int[] stateOffsets;
+    private final int[] transitionTokens;
+    private final int[] transitionStates;
+    private final AliasTable[] tables;
+    private final int maxTokens;
+    private final int maxLength;
+
+    private TextModel(boolean words, byte[] tokens, int[] tokenOffsets, int[] stateOffsets,
+                      int[] transitionTokens, int[] transitionStates, AliasTable[] tables,
+                      int maxTokens, int maxLength) {
+        this.words            = words;
+        this.tokens           = tokens;
+        this.tokenOffsets     = tokenOffsets;
+        this.stateOffsets     = stateOffsets;
+        this.transitionTokens = transitionTokens;
+        this.transitionStates = transitionStates;
+        this.tables           = tables;
+        this.maxTokens        = maxTokens;
+        this.maxLength        = maxLength;
+    }
+
+    /**
+     * Returns the built-in model with the specified name, or loads the model
+     * file at the specified path.
+     *
+     * @param name  the name of a built-in model or the path to a model file
+     * @return      the model
+     * @throws IllegalArgumentException  if the model could not be loaded
+     */
+    static TextModel load(String name) {
+        final TextModel builtIn = BUILT_IN.computeIfAbsent(name, key -> {
+            try (final InputStream in = TextModel.class.getResourceAsStream(RESOURCES + key + ".txt")) {
+                if (in == null) return null;
+                final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(in, StandardCharsets.UTF_8));
+                final List<String> lines = new ArrayList<>();
+                for (String line; (line = reader.readLine()) != null;) {
+                    lines.add(line);
+                }
+                return compile(lines);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        if (builtIn != null) return builtIn;
+
+        final File file = new File(name);
+        if (!file.isFile()) {
+            throw new IllegalArgumentException(format(
+                "Unknown text model '%s'. Expected 'names', 'cities', 'lorem' or the path to a model file.",
+                name));
+        }
+
+        try {
+            return compile(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        } catch (final IOException ex) {
+            throw new IllegalArgumentException(format(
+                "Error reading text model '%s'.", name), ex);
+        }
+    }
+
+    /**
+     * Trains a model on the lines of a model file.
+     *
+     * @param lines  the lines of the file
+     * @return       the compiled model
+     * @throws IllegalArgumentException  if the file is invalid
+     */
+    static TextModel compile(List<String> lines) {
+        boolean words = false;
+        int order = 3;
+
+        final List<String> samples = new ArrayList<>();
+        for (final String line : lines) {
+            if (line.startsWith("#!")) {
+                final String[] header = WHITESPACE.split(line.substring(2).trim());
+                if (header.length != 2 || !("chars".equals(header[0]) || "words".equals(header[0]))) {
+                    throw new IllegalArgumentException(format(
+                        "Expected '#!chars <order>' or '#!words <order>' but found '%s'.", line));
+                }
+
+                words = "words".equals(header[0]);
+                try {
+                    order = Integer.parseInt(header[1]);
+                } catch (final NumberFormatException ex) {
+                    throw new IllegalArgumentException(format(
+                        "Invalid order '%s' in text model.", header[1]));
+                }
+
+                if (order < 1) {
+                    throw new IllegalArgumentException("The order of a text model must be at least 1.");
+                }
+            } else if (!line.startsWith("#") && !line.trim().isEmpty()) {
+                samples.add(line.trim());
+            }
+        }
+
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException("A text model must contain at least one sample.");
+        }
+
+        // Assign an id to every distinct token
+        final Map<String, Integer> tokenIds = new HashMap<>();
+        final List<String> tokenList = new ArrayList<>();
+        final List<int[]> sequences = new ArrayList<>(samples.size());
+        int maxTokens = 0;
+        for (final String sample : samples) {
+            final String[] parts = words
+                ? WHITESPACE.split(sample)
+                : sample.codePoints().mapToObj(c -> new String(Character.toChars(c))).toArray(String[]::new);
+
+            final int[] sequence = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                final String part = parts[i];
+                sequence[i] = tokenIds.computeIfAbsent(part, p -> {
+                    if (p.chars().anyMatch(c -> c > 0xff)) {
+                        throw new IllegalArgumentException(format(
+                            "Text models only support ISO-8859-1, but found '%s'.", p));
+                    }
+                    tokenList.add(p);
+                    return tokenList.size() - 1;
+                });
+            }
+
+            sequences.add(sequence);
+            maxTokens = Math.max(maxTokens, sequence.length);
+        }
+
+        // Count the transitions from every context of 'order' tokens
+        final Map<List<Integer>, Integer> stateIds = new LinkedHashMap<>();
+        final List<TreeMap<Integer, Integer>> counts = new ArrayList<>();
+        for (final int[] sequence : sequences) {
+            final Deque<Integer> context = new ArrayDeque<>(order);
+            for (int i = 0; i < order; i++) context.add(END);
+
+            for (int i = 0; i <= sequence.length; i++) {
+                final int token = i < sequence.length ? sequence[i] : END;
+                final int state = stateIds.computeIfAbsent(new ArrayList<>(context), key -> {
+                    counts.add(new TreeMap<>());
+                    return counts.size() - 1;
+                });
+                counts.get(state).merge(token, 1, Integer::sum);
+
+                context.removeFirst();
+                context.addLast(token);
+            }
+        }
+
+        // Flatten the transitions of every state into arrays
+        final int[] stateOffsets = new int[counts.size() + 1];
+        for (int s = 0; s < counts.size(); s++) {
+            stateOffsets[s + 1] = stateOffsets[s] + counts.get(s).size();
+        }
+
+        final int[] transitionTokens = new int[stateOffsets[counts.size()]];
+        final int[] transitionStates = new int[transitionTokens.length];
+        final AliasTable[] tables = new AliasTable[counts.size()];
+        for (final Map.Entry<List<Integer>, Integer> state : stateIds.entrySet()) {
+            final int s = state.getValue();
+            final double[] weights = new double[counts.get(s).size()];
+            int t = stateOffsets[s], i = 0;
+            for (final Map.Entry<Integer, Integer> transition : counts.get(s).entrySet()) {
+                final int token = transition.getKey();
+                transitionTokens[t] = token;
+                if (token == END) {
+                    transitionStates[t] = END;
+                } else {
+                    final List<Integer> next = new ArrayList<>(state.getKey().subList(1, order));
+                    next.add(token);
+                    transitionStates[t] = stateIds.get(next);
+                }
+                weights[i++] = transition.getValue();
+                t++;
+            }
+            tables[s] = new AliasTable(weights);
+        }
+
+        // Store the bytes of every token in a single array
+        final int[] tokenOffsets = new int[tokenList.size() + 1];
+        final byte[][] encoded = new byte[tokenList.size()][];
+        int maxTokenLength = 0;
+        for (int i = 0; i < tokenList.size(); i++) {
+            encoded[i] = tokenList.get(i).getBytes(StandardCharsets.ISO_8859_1);
+            tokenOffsets[i + 1] = tokenOffsets[i] + encoded[i].length;
+            maxTokenLength = Math.max(maxTokenLength, encoded[i].length);
+        }
+
+        final byte[] tokens = new byte[tokenOffsets[tokenList.size()]];
+        for (int i = 0; i < encoded.length; i++) {
+            System.arraycopy(encoded[i], 0, tokens, tokenOffsets[i], encoded[i].length);
+        }
+
+        final int maxLength = maxTokens * (maxTokenLength + (words ? 1 : 0));
+        return new TextModel(words, tokens, tokenOffsets, stateOffsets,
+            transitionTokens, transitionStates, tables, maxTokens, maxLength);
+    }
+
+    /**
+     * Returns the maximum number of bytes written by
+     * {@link #generate(Random, byte[], int)}.
+     *
+     * @return  the maximum length of a sample
+     */
+    int maxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Generates a sample into the specified buffer. Samples never have more
+     * tokens than the longest sample the model was trained on.
+     *
+     * @param random    the random generator to use
+     * @param buffer    the buffer to write to
+     * @param position  the position in the buffer to start writing at
+     * @return          the position after the sample
+     */
+    int generate(Random random, byte[] buffer, int position) {
+        int state = 0;
+        for (int i = 0; i < maxTokens; i++) {
+            final int t = stateOffsets[state] + tables[state].next(random);
+            final int token = transitionTokens[t];
+            if (token == END) break;
+
+            if (words && i > 0) buffer[position++] = ' ';
+            final int offset = tokenOffsets[token];
+            final int length = tokenOffsets[token + 1] - offset;
+            System.arraycopy(tokens, offset, buffer, position, length);
+            position += length;
+            state = transitionStates[t];
+        }
+        return position;
+    }
+}
@@ -0,0 +1,204 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.file.SeekableFileInput;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static java.lang.String.format;
+
+/**
+ * Writes records to a single Avro container file. The file is either written
+ * through a regular {@code FileOutputStream}, or through a
+ * {@link ChannelOutputStream} if a buffer size is specified.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class AvroFileSink implements Sink {
+
+    private final DataFileWriter<GenericRecord> writer;
+    private final long offset;
+
+    public AvroFileSink(Schema schema, File file) throws IOException {
+        this.writer = new DataFileWriter<>(new GenericDatumWriter<>(schema));
+        this.offset = 0;
+        writer.create(schema, file);
+    }
+
+    /**
+     * Wraps a writer that counts its position from the specified offset in
+     * the file, which is where appending began.
+     */
+    private AvroFileSink(DataFileWriter<GenericRecord> writer, long offset) {
+        this.writer = writer;
+        this.offset = offset;
+    }
+
+    /**
+     * Creates a new file that is written through a direct buffer of the
+     * specified size.
+     *
+     * @param schema       the schema of the records
+     * @param file         the file to create
+     * @param bufferSize   the size of the direct buffer in bytes, or {@code 0}
+     *                     to use a regular output stream
+     * @param preallocate  the expected size of the file in bytes, or
+     *                     {@code 0} to not preallocate it
+     * @return             the new sink
+     */
+    public static AvroFileSink create(Schema schema, File file, int bufferSize, long preallocate) throws IOException {
+        return create(schema, file, bufferSize, preallocate,
+            CodecFactory.nullCodec(), DataFileConstants.DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Creates a new file like {@link #create(Schema, File, int, long)}, but
+     * compresses the blocks using the specified codec.
+     *
+     * @param schema       the schema of the records
+     * @param file         the file to create
+     * @param bufferSize   the size of the direct buffer in bytes, or {@code 0}
+     *                     to use a regular output stream
+     * @param preallocate  the expected size of the file in bytes, or
+     *                     {@code 0} to not preallocate it
+     * @param codec        the codec to compress blocks with
+     * @param blockSize    the approximate uncompressed size of every block in
+     *                     bytes
+     * @return             the new sink
+     */
+    public static AvroFileSink create(Schema schema, File file, int bufferSize, long preallocate,
+                                      CodecFactory codec, int blockSize) throws IOException {
+        final DataFileWriter<GenericRecord> writer =
+            new DataFileWriter<>(new GenericDatumWriter<>(schema));
+        writer.setCodec(codec);
+        writer.setSyncInterval(blockSize);
+
+        if (bufferSize <= 0) {
+            return new AvroFileSink(writer.create(schema, file), 0);
+        }
+
+        final ChannelOutputStream out = ChannelOutputStream.create(file, bufferSize, preallocate);
+        try {
+            return new AvroFileSink(writer.create(schema, out), 0);
+        } catch (final IOException ex) {
+            out.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens an existing file for appending. The schema of the file is assumed
+     * to be the same as the specified one.
+     *
+     * @param schema  the schema of the records
+     * @param file    the existing file
+     * @return        the new sink
+     */
+    public static AvroFileSink append(Schema schema, File file) throws IOException {
+        return append(schema, file, 0);
+    }
+
+    /**
+     * Opens an existing file for appending through a direct buffer of the
+     * specified size.
+     *
+     * @param schema      the schema of the records
+     * @param file        the existing file
+     * @param bufferSize  the size of the direct buffer in bytes, or {@code 0}
+     *                    to use a regular output stream
+     * @return            the new sink
+     */
+    public static AvroFileSink append(Schema schema, File file, int bufferSize) throws IOException {
+        return appendAt(schema, file, file.length(), bufferSize);
+    }
+
+    /**
+     * Reopens an existing file for appending after discarding everything
+     * after the specified position, which must be the end of a block as
+     * returned by {@link #sync()}.
+     *
+     * @param schema    the schema of the records
+     * @param file      the existing file
+     * @param position  the position to continue writing at
+     * @return          the new sink
+     */
+    public static AvroFileSink resume(Schema schema, File file, long position) throws IOException {
+        return resume(schema, file, position, 0);
+    }
+
+    /**
+     * Reopens an existing file like {@link #resume(Schema, File, long)}, but
+     * writes it through a direct buffer of the specified size.
+     *
+     * @param schema      the schema of the records
+     * @param file        the existing file
+     * @param position    the position to continue writing at
+     * @param bufferSize  the size of the direct buffer in bytes, or {@code 0}
+     *                    to use a regular output stream
+     * @return            the new sink
+     */
+    public static AvroFileSink resume(Schema schema, File file, long position, int bufferSize) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            if (channel.size() < position) {
+                throw new IOException(format(
+                    "File '%s' is shorter than the checkpoint position %,d.", file, position));
+            }
+            channel.truncate(position);
+        }
+
+        return appendAt(schema, file, position, bufferSize);
+    }
+
+    private static AvroFileSink appendAt(Schema schema, File file, long position, int bufferSize) throws IOException {
+        final DataFileWriter<GenericRecord> writer =
+            new DataFileWriter<>(new GenericDatumWriter<>(schema));
+
+        if (bufferSize <= 0) {
+            return new AvroFileSink(writer.appendTo(file), position);
+        }
+
+        // The header is read from the input, which is not needed afterwards
+        try (final SeekableFileInput in = new SeekableFileInput(file)) {
+            final ChannelOutputStream out = ChannelOutputStream.open(file, bufferSize, position);
+            try {
+                return new AvroFileSink(writer.appendTo(in, out), position);
+            } catch (final IOException ex) {
+                out.close();
+                throw ex;
+            }
+        }
+    }
+
+    @Override
+    public long sync() throws IOException {
+        // After appending, the writer only counts the bytes it has written
+        final long position = offset + writer.sync();
+        writer.fSync();
+        return position;
+    }
+
+    @Override
+    public void append(GenericRecord record) throws IOException {
+        writer.append(record);
+    }
+
+    @Override
+    public void flush() {
+        // Flushing the writer would end the current block, so blocks are
+        // only ended once they reach the block size or by sync() and close()
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,133 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.file.Syncable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Output stream that collects bytes in a large direct buffer and writes it to
+ * a {@link FileChannel} once full. A {@code FileOutputStream} has to copy
+ * every write from the heap to native memory, and issues one system call per
+ * Avro block. Here, the copy into the direct buffer is the only one, and a
+ * system call is made per buffer instead.
+ * <p>
+ * The file can optionally be preallocated to the expected size, so that it
+ * does not have to grow on every write. The file is truncated to the number
+ * of bytes actually written when the stream is closed.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class ChannelOutputStream extends OutputStream implements Syncable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean preallocated;
+    private boolean closed;
+
+    private ChannelOutputStream(FileChannel channel, int bufferSize, boolean preallocated) {
+        this.channel      = requireNonNull(channel);
+        this.buffer       = ByteBuffer.allocateDirect(bufferSize);
+        this.preallocated = preallocated;
+    }
+
+    /**
+     * Creates a new file, or truncates an existing one, and opens it for
+     * writing.
+     *
+     * @param file         the file to write to
+     * @param bufferSize   the size of the direct buffer in bytes
+     * @param preallocate  the expected size of the file, or {@code 0} to not
+     *                     preallocate it
+     * @return             the new stream
+     */
+    public static ChannelOutputStream create(File file, int bufferSize, long preallocate) throws IOException {
+        final FileChannel channel = FileChannel.open(file.toPath(), CREATE, WRITE, TRUNCATE_EXISTING);
+        if (preallocate > 0) {
+            try {
+                // Writing the last byte makes the file system reserve the size
+                channel.write(ByteBuffer.allocate(1), preallocate - 1);
+            } catch (final IOException ex) {
+                channel.close();
+                throw ex;
+            }
+        }
+        return new ChannelOutputStream(channel, bufferSize, preallocate > 0);
+    }
+
+    /**
+     * Opens an existing file for writing at the specified position.
+     * Everything after the position is discarded.
+     *
+     * @param file        the file to write to
+     * @param bufferSize  the size of the direct buffer in bytes
+     * @param position    the position to start writing at
+     * @return            the new stream
+     */
+    public static ChannelOutputStream open(File file, int bufferSize, long position) throws IOException {
+        final FileChannel channel = FileChannel.open(file.toPath(), WRITE);
+        channel.truncate(position);
+        channel.position(position);
+        return new ChannelOutputStream(channel, bufferSize, false);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) drain();
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) drain();
+            final int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void sync() throws IOException {
+        drain();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        try {
+            drain();
+            if (preallocated) {
+                channel.truncate(channel.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,140 @@
+package com.speedment.avromocker.output;
+
+import com.speedment.avromocker.util.PropertiesUtil;
+
+import java.io.*;
+import java.util.Properties;
+
+import static java.lang.String.format;
+
+/**
+ * The progress of a generation run that can be resumed later. Since every
+ * generator is seeded by the index of the record, the seed and the number of
+ * records written is all the generator state that needs to be stored. The
+ * position is the end of the last complete block in the Avro file, so that
+ * anything written after it can be discarded when resuming.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Checkpoint {
+
+    private final static String SEED        = "seed";
+    private final static String FINGERPRINT = "fingerprint";
+    private final static String START       = "start";
+    private final static String TOTAL       = "total";
+    private final static String INDEX       = "index";
+    private final static String POSITION    = "position";
+
+    private final long seed;
+    private final long fingerprint;
+    private final long start;
+    private final long total;
+    private final long index;
+    private final long position;
+
+    public Checkpoint(long seed, long fingerprint, long start, long total, long index, long position) {
+        this.seed        = seed;
+        this.fingerprint = fingerprint;
+        this.start       = start;
+        this.total       = total;
+        this.index       = index;
+        this.position    = position;
+    }
+
+    /**
+     * Returns the file that checkpoints for the specified output file are
+     * stored in.
+     *
+     * @param output  the generated avro-file
+     * @return        the checkpoint file
+     */
+    public static File fileFor(File output) {
+        return new File(output.getPath() + ".checkpoint");
+    }
+
+    public static Checkpoint read(File file) throws IOException {
+        final Properties props = PropertiesUtil.load(file);
+        try {
+            return new Checkpoint(
+                Long.parseLong(props.getProperty(SEED)),
+                Long.parseLong(props.getProperty(FINGERPRINT)),
+                Long.parseLong(props.getProperty(START)),
+                Long.parseLong(props.getProperty(TOTAL)),
+                Long.parseLong(props.getProperty(INDEX)),
+                Long.parseLong(props.getProperty(POSITION))
+            );
+        } catch (final NumberFormatException ex) {
+            throw new IOException(format("Invalid checkpoint file '%s'.", file), ex);
+        }
+    }
+
+    /**
+     * Writes this checkpoint to the specified file. The file is replaced
+     * atomically so that a crash never leaves a partial checkpoint behind.
+     *
+     * @param file  the file to write to
+     */
+    public void write(File file) throws IOException {
+        final Properties props = new Properties();
+        props.setProperty(SEED, Long.toString(seed));
+        props.setProperty(FINGERPRINT, Long.toString(fingerprint));
+        props.setProperty(START, Long.toString(start));
+        props.setProperty(TOTAL, Long.toString(total));
+        props.setProperty(INDEX, Long.toString(index));
+        props.setProperty(POSITION, Long.toString(position));
+        PropertiesUtil.store(props, file);
+    }
+
+    /**
+     * Throws an exception if this checkpoint was not created by a run with
+     * the same seed, schema and number of records, since resuming it would
+     * then produce different data than an uninterrupted run.
+     *
+     * @param seed         the seed of the current run
+     * @param fingerprint  the parsing fingerprint of the current schema
+     * @param total        the total number of records of the current run
+     */
+    public void validate(long seed, long fingerprint, long total) {
+        if (this.seed != seed) {
+            throw new IllegalArgumentException(format(
+                "The checkpoint was created using seed %d, not %d.", this.seed, seed));
+        } else if (this.fingerprint != fingerprint) {
+            throw new IllegalArgumentException(
+                "The checkpoint was created using a different schema.");
+        } else if (this.total != total) {
+            throw new IllegalArgumentException(format(
+                "The checkpoint was created generating %,d records, not %,d.", this.total, total));
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the index of the first record generated by the run, which is
+     * not zero if the run appended records to an existing file.
+     *
+     * @return  the index of the first record
+     */
+    public long getStart() {
+        return start;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+}
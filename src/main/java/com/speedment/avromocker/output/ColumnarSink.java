@@ -0,0 +1,87 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Writes every field of the records to a separate Avro container file in a
+ * directory, named after the field. The files hold the values of the field
+ * directly rather than records, so a reader that only needs some of the
+ * fields only has to read their files. Value {@code i} of every file belongs
+ * to record {@code i}.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class ColumnarSink implements Sink {
+
+    private final List<DataFileWriter<Object>> writers;
+
+    /**
+     * Creates a directory with one file per field of the specified schema.
+     *
+     * @param schema     the schema of the records
+     * @param directory  the directory to create the files in
+     */
+    public ColumnarSink(Schema schema, File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException(format("Could not create directory '%s'.", directory));
+        }
+
+        final List<Schema.Field> fields = schema.getFields();
+        this.writers = new ArrayList<>(fields.size());
+
+        try {
+            for (final Schema.Field field : fields) {
+                final DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>(field.schema()));
+                writers.add(writer);
+                writer.create(field.schema(), new File(directory, field.name() + ".avro"));
+            }
+        } catch (final IOException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void append(GenericRecord record) throws IOException {
+        for (int i = 0; i < writers.size(); i++) {
+            writers.get(i).append(record.get(i));
+        }
+    }
+
+    @Override
+    public long sync() {
+        throw new UnsupportedOperationException("Only avro output can be resumed.");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (final DataFileWriter<Object> writer : writers) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (final DataFileWriter<Object> writer : writers) {
+            try {
+                writer.close();
+            } catch (final IOException ex) {
+                if (error == null) error = ex;
+            }
+        }
+
+        if (error != null) throw error;
+    }
+}
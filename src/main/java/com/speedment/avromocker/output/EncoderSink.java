@@ -0,0 +1,104 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes records to a single file without the Avro container around them,
+ * either as newline-delimited Avro JSON or as consecutive binary datums.
+ * Neither format has a header, so the schema has to be known by whoever
+ * reads the file.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class EncoderSink implements Sink {
+
+    private final static int STREAM_BUFFER = 1 << 16;
+
+    private final GenericDatumWriter<GenericRecord> writer;
+    private final Encoder encoder;
+    private final OutputStream out;
+
+    private EncoderSink(Schema schema, Encoder encoder, OutputStream out) {
+        this.writer  = new GenericDatumWriter<>(schema);
+        this.encoder = requireNonNull(encoder);
+        this.out     = requireNonNull(out);
+    }
+
+    /**
+     * Creates a new file with one record per line in the Avro JSON encoding.
+     *
+     * @param schema      the schema of the records
+     * @param file        the file to create
+     * @param bufferSize  the size of the direct buffer in bytes, or {@code 0}
+     *                    to use a regular output stream
+     * @return            the new sink
+     */
+    public static EncoderSink json(Schema schema, File file, int bufferSize) throws IOException {
+        final OutputStream out = open(file, bufferSize);
+        try {
+            return new EncoderSink(schema, EncoderFactory.get().jsonEncoder(schema, out), out);
+        } catch (final IOException ex) {
+            out.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Creates a new file with the binary encoding of every record, one after
+     * the other.
+     *
+     * @param schema      the schema of the records
+     * @param file        the file to create
+     * @param bufferSize  the size of the direct buffer in bytes, or {@code 0}
+     *                    to use a regular output stream
+     * @return            the new sink
+     */
+    public static EncoderSink binary(Schema schema, File file, int bufferSize) throws IOException {
+        final OutputStream out = open(file, bufferSize);
+        return new EncoderSink(schema, EncoderFactory.get().binaryEncoder(out, null), out);
+    }
+
+    private static OutputStream open(File file, int bufferSize) throws IOException {
+        return bufferSize > 0
+            ? ChannelOutputStream.create(file, bufferSize, 0)
+            : new BufferedOutputStream(new FileOutputStream(file), STREAM_BUFFER);
+    }
+
+    @Override
+    public void append(GenericRecord record) throws IOException {
+        writer.write(record, encoder);
+    }
+
+    @Override
+    public long sync() {
+        throw new UnsupportedOperationException("Only avro output can be resumed.");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encoder.flush();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            encoder.flush();
+        } finally {
+            out.close();
+        }
+    }
+}
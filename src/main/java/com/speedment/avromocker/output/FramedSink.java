@@ -0,0 +1,182 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes every record as a message in the schema registry wire format used
+ * by Kafka serializers: a zero magic byte, the id of the schema as a 4-byte
+ * big-endian integer and the binary encoding of the record. Every message is
+ * preceded by its length as a 4-byte big-endian integer, so a consumer can
+ * read the messages from a file or a socket one at a time.
+ * <p>
+ * Messages are encoded into a single buffer that is reused for every record
+ * and only grows if a record doesn't fit, so framing does not allocate.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class FramedSink implements Sink {
+
+    /**
+     * The first byte of every message in the wire format.
+     */
+    public final static byte MAGIC_BYTE = 0;
+
+    /**
+     * The number of bytes before the datum in every message, not counting
+     * the length.
+     */
+    public final static int HEADER_SIZE = 5;
+
+    private final static int LENGTH_SIZE = 4;
+    private final static int STREAM_BUFFER = 1 << 16;
+    private final static int INITIAL_FRAME = 1 << 10;
+
+    private final GenericDatumWriter<GenericRecord> writer;
+    private final OutputStream out;
+    private final Closeable resource;
+    private final FrameBuffer frame;
+    private final BinaryEncoder encoder;
+    private final int schemaId;
+    private long messages;
+
+    private FramedSink(Schema schema, int schemaId, OutputStream out, Closeable resource) {
+        this.writer   = new GenericDatumWriter<>(schema);
+        this.out      = requireNonNull(out);
+        this.resource = requireNonNull(resource);
+        this.frame    = new FrameBuffer();
+        this.encoder  = EncoderFactory.get().directBinaryEncoder(frame, null);
+        this.schemaId = schemaId;
+    }
+
+    /**
+     * Creates a new file with the length-prefixed messages.
+     *
+     * @param schema      the schema of the records
+     * @param schemaId    the id of the schema in the registry
+     * @param file        the file to create
+     * @param bufferSize  the size of the direct buffer in bytes, or {@code 0}
+     *                    to use a regular output stream
+     * @return            the new sink
+     */
+    public static FramedSink file(Schema schema, int schemaId, File file, int bufferSize) throws IOException {
+        final OutputStream out = bufferSize > 0
+            ? ChannelOutputStream.create(file, bufferSize, 0)
+            : new BufferedOutputStream(new FileOutputStream(file), STREAM_BUFFER);
+        return new FramedSink(schema, schemaId, out, out);
+    }
+
+    /**
+     * Connects to the specified address and sends the length-prefixed
+     * messages over the connection.
+     *
+     * @param schema    the schema of the records
+     * @param schemaId  the id of the schema in the registry
+     * @param host      the host to connect to
+     * @param port      the port to connect to
+     * @return          the new sink
+     */
+    public static FramedSink socket(Schema schema, int schemaId, String host, int port) throws IOException {
+        final Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(false);
+            socket.setSendBufferSize(STREAM_BUFFER * 4);
+            socket.connect(new InetSocketAddress(host, port));
+            return new FramedSink(schema, schemaId,
+                new BufferedOutputStream(socket.getOutputStream(), STREAM_BUFFER), socket);
+        } catch (final IOException ex) {
+            socket.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void append(GenericRecord record) throws IOException {
+        frame.reset();
+        writer.write(record, encoder);
+        frame.finish(schemaId);
+        out.write(frame.bytes, 0, frame.size);
+        messages++;
+    }
+
+    /**
+     * Returns the number of messages written so far.
+     *
+     * @return  the number of messages
+     */
+    public long getMessages() {
+        return messages;
+    }
+
+    @Override
+    public long sync() {
+        throw new UnsupportedOperationException("Only avro output can be resumed.");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } finally {
+            resource.close();
+        }
+    }
+
+    /**
+     * The message being encoded, starting with room for its length and
+     * header so that the whole frame is written at once.
+     */
+    private final static class FrameBuffer extends OutputStream {
+
+        private byte[] bytes = new byte[INITIAL_FRAME];
+        private ByteBuffer view = ByteBuffer.wrap(bytes);
+        private int size;
+
+        void reset() {
+            size = LENGTH_SIZE + HEADER_SIZE;
+        }
+
+        void finish(int schemaId) {
+            view.putInt(0, size - LENGTH_SIZE);
+            view.put(LENGTH_SIZE, MAGIC_BYTE);
+            view.putInt(LENGTH_SIZE + 1, schemaId);
+        }
+
+        @Override
+        public void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, bytes, size, len);
+            size += len;
+        }
+
+        private void ensure(int len) {
+            if (size + len > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + len));
+                view = ByteBuffer.wrap(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.speedment.avromocker.output;
+
+import com.speedment.avromocker.util.PropertiesUtil;
+
+import java.io.*;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import static java.lang.String.format;
+
+/**
+ * Summary of a shard of a dataset that is generated by several processes.
+ * Every process generates the records with the indexes {@code first}
+ * (inclusive) to {@code end} (exclusive) into its own file and writes a
+ * manifest next to it. The manifests of all shards are then combined into
+ * the manifest of the whole dataset before the files are merged. The size
+ * and CRC-32 of the file let the merge step detect incomplete or corrupted
+ * transfers.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Manifest {
+
+    private final static String FILE        = "file";
+    private final static String SEED        = "seed";
+    private final static String FINGERPRINT = "fingerprint";
+    private final static String SHARD       = "shard";
+    private final static String SHARDS      = "shards";
+    private final static String FIRST       = "first";
+    private final static String END         = "end";
+    private final static String BYTES       = "bytes";
+    private final static String CRC32       = "crc32";
+
+    private final String file;
+    private final long seed;
+    private final long fingerprint;
+    private final int shard;
+    private final int shards;
+    private final long first;
+    private final long end;
+    private final long bytes;
+    private final long crc32;
+
+    public Manifest(String file, long seed, long fingerprint, int shard, int shards,
+                    long first, long end, long bytes, long crc32) {
+        this.file        = file;
+        this.seed        = seed;
+        this.fingerprint = fingerprint;
+        this.shard       = shard;
+        this.shards      = shards;
+        this.first       = first;
+        this.end         = end;
+        this.bytes       = bytes;
+        this.crc32       = crc32;
+    }
+
+    /**
+     * Creates the manifest of a generated shard, reading the file to
+     * compute its checksum.
+     *
+     * @param output       the generated file
+     * @param seed         the seed of the run
+     * @param fingerprint  the parsing fingerprint of the schema
+     * @param shard        the shard, from 0
+     * @param shards       the number of shards
+     * @param first        the index of the first record in the shard
+     * @param end          the index after the last record in the shard
+     * @return             the manifest
+     */
+    public static Manifest of(File output, long seed, long fingerprint, int shard, int shards,
+                              long first, long end) throws IOException {
+        return new Manifest(output.getName(), seed, fingerprint, shard, shards,
+            first, end, output.length(), checksum(output));
+    }
+
+    /**
+     * Returns the file that the manifest of the specified output file is
+     * stored in.
+     *
+     * @param output  the generated file
+     * @return        the manifest file
+     */
+    public static File fileFor(File output) {
+        return new File(output.getPath() + ".manifest");
+    }
+
+    /**
+     * Returns the CRC-32 of the content of the specified file.
+     *
+     * @param file  the file
+     * @return      the checksum
+     */
+    public static long checksum(File file) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] buffer = new byte[1 << 16];
+        try (final InputStream in = new FileInputStream(file)) {
+            for (int read; (read = in.read(buffer)) >= 0;) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    public static Manifest read(File file) throws IOException {
+        final Properties props = PropertiesUtil.load(file);
+        try {
+            return fromProperties(props, "");
+        } catch (final NumberFormatException | NullPointerException ex) {
+            throw new IOException(format("Invalid manifest file '%s'.", file), ex);
+        }
+    }
+
+    /**
+     * Writes this manifest to the specified file. The file is replaced
+     * atomically so that a crash never leaves a partial manifest behind.
+     *
+     * @param file  the file to write to
+     */
+    public void write(File file) throws IOException {
+        final Properties props = new Properties();
+        toProperties(props, "");
+        PropertiesUtil.store(props, file);
+    }
+
+    /**
+     * Writes the manifest of a whole dataset, containing the manifest of
+     * every shard prefixed by the number of the shard, together with the
+     * total number of records and bytes.
+     *
+     * @param shards  the manifests of all shards, in order
+     * @param file    the file to write to
+     */
+    public static void writeAll(List<Manifest> shards, File file) throws IOException {
+        final Properties props = new Properties();
+        props.setProperty(SHARDS, Integer.toString(shards.size()));
+        props.setProperty("records", Long.toString(shards.stream().mapToLong(Manifest::getCount).sum()));
+        props.setProperty(BYTES, Long.toString(shards.stream().mapToLong(Manifest::getBytes).sum()));
+        for (final Manifest shard : shards) {
+            shard.toProperties(props, shard.shard + ".");
+        }
+        PropertiesUtil.store(props, file);
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getCount() {
+        return end - first;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getCrc32() {
+        return crc32;
+    }
+
+    private void toProperties(Properties props, String prefix) {
+        props.setProperty(prefix + FILE, file);
+        props.setProperty(prefix + SEED, Long.toString(seed));
+        props.setProperty(prefix + FINGERPRINT, Long.toString(fingerprint));
+        props.setProperty(prefix + SHARD, Integer.toString(shard));
+        props.setProperty(prefix + SHARDS, Integer.toString(shards));
+        props.setProperty(prefix + FIRST, Long.toString(first));
+        props.setProperty(prefix + END, Long.toString(end));
+        props.setProperty(prefix + BYTES, Long.toString(bytes));
+        props.setProperty(prefix + CRC32, Long.toString(crc32));
+    }
+
+    private static Manifest fromProperties(Properties props, String prefix) {
+        return new Manifest(
+            props.getProperty(prefix + FILE),
+            Long.parseLong(props.getProperty(prefix + SEED)),
+            Long.parseLong(props.getProperty(prefix + FINGERPRINT)),
+            Integer.parseInt(props.getProperty(prefix + SHARD)),
+            Integer.parseInt(props.getProperty(prefix + SHARDS)),
+            Long.parseLong(props.getProperty(prefix + FIRST)),
+            Long.parseLong(props.getProperty(prefix + END)),
+            Long.parseLong(props.getProperty(prefix + BYTES)),
+            Long.parseLong(props.getProperty(prefix + CRC32))
+        );
+    }
+}
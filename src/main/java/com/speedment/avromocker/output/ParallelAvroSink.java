@@ -0,0 +1,307 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.file.Syncable;
+import org.apache.avro.file.SyncableFileOutputStream;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes records to a single Avro container file, compressing the data blocks
+ * on several threads. Records are encoded into a block on the calling thread
+ * since the caller may reuse them. Full blocks are compressed by a pool of
+ * workers, and the finished blocks are written to the file in the order they
+ * were created. Every block ends with the sync marker of the file, so the
+ * result is a regular Avro file.
+ * <p>
+ * At most two blocks per thread are in flight at the same time. Once that
+ * many have been handed to the workers, the calling thread waits for the
+ * oldest one to be written before continuing.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class ParallelAvroSink implements Sink {
+
+    private final static int STREAM_BUFFER = 1 << 16;
+    private final static int MAX_BLOCK_SIZE = 1 << 29;
+
+    private final Schema schema;
+    private final CodecFactory codec;
+    private final byte[] sync;
+    private final int blockSize;
+    private final int maxInFlight;
+
+    private final OutputStream out;
+    private final Syncable syncable;
+    private final ExecutorService pool;
+    private final ThreadLocal<Compressor> compressors;
+    private final Deque<Future<byte[]>> inFlight;
+    private final GenericDatumWriter<GenericRecord> writer;
+    private BinaryEncoder encoder;
+    private Block block;
+    private long position;
+
+    private ParallelAvroSink(Schema schema, CodecFactory codec, int threads, int blockSize,
+                             OutputStream out, Syncable syncable) {
+        this.schema      = requireNonNull(schema);
+        this.codec       = requireNonNull(codec);
+        this.blockSize   = blockSize;
+        this.maxInFlight = 2 * threads;
+        this.out         = requireNonNull(out);
+        this.syncable    = requireNonNull(syncable);
+        this.sync        = new byte[16];
+        this.inFlight    = new ArrayDeque<>(maxInFlight);
+        this.writer      = new GenericDatumWriter<>(schema);
+        this.block       = new Block(blockSize);
+        this.compressors = ThreadLocal.withInitial(this::newCompressor);
+
+        final AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            final Thread thread = new Thread(r, "block-compressor-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        ThreadLocalRandom.current().nextBytes(sync);
+    }
+
+    /**
+     * Creates a new file that is compressed using the specified number of
+     * threads.
+     *
+     * @param schema       the schema of the records
+     * @param file         the file to create
+     * @param codec        the codec to compress blocks with
+     * @param threads      the number of threads to compress blocks on
+     * @param blockSize    the approximate uncompressed size of every block in
+     *                     bytes
+     * @param bufferSize   the size of the direct buffer in bytes, or {@code 0}
+     *                     to use a regular output stream
+     * @param preallocate  the expected size of the file in bytes, or
+     *                     {@code 0} to not preallocate it
+     * @return             the new sink
+     */
+    public static ParallelAvroSink create(Schema schema, File file, CodecFactory codec, int threads,
+                                          int blockSize, int bufferSize, long preallocate) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one compression thread is required.");
+        } else if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(
+                "The block size must be positive and at most 512 MiB.");
+        }
+
+        final OutputStream out;
+        final Syncable syncable;
+        if (bufferSize > 0) {
+            final ChannelOutputStream channel = ChannelOutputStream.create(file, bufferSize, preallocate);
+            out = channel;
+            syncable = channel;
+        } else {
+            final SyncableFileOutputStream stream = new SyncableFileOutputStream(file);
+            out = new BufferedOutputStream(stream, STREAM_BUFFER);
+            syncable = stream;
+        }
+
+        final ParallelAvroSink sink = new ParallelAvroSink(schema, codec, threads, blockSize, out, syncable);
+        try {
+            // The header is the only part that is not written by a worker
+            final ByteArrayOutputStream header = new ByteArrayOutputStream();
+            try (final DataFileWriter<GenericRecord> headerWriter =
+                     new DataFileWriter<>(new GenericDatumWriter<>(schema))) {
+                headerWriter.setCodec(codec).create(schema, header, sink.sync);
+            }
+
+            out.write(header.toByteArray());
+            sink.position = header.size();
+            return sink;
+        } catch (final IOException ex) {
+            sink.pool.shutdownNow();
+            out.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void append(GenericRecord record) throws IOException {
+        encoder = EncoderFactory.get().directBinaryEncoder(block, encoder);
+        writer.write(record, encoder);
+        block.endRecord();
+
+        if (block.size() >= blockSize) {
+            submit();
+        }
+    }
+
+    @Override
+    public long sync() throws IOException {
+        drain();
+        out.flush();
+        syncable.sync();
+        return position;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Blocks are written as soon as they are compressed, so flushing
+        // does not end the current block like it does for a regular writer
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            pool.shutdownNow();
+            out.close();
+        }
+    }
+
+    /**
+     * Hands the current block to the workers, first writing the oldest block
+     * in flight if there are too many of them.
+     */
+    private void submit() throws IOException {
+        if (inFlight.size() >= maxInFlight) {
+            writeOldest();
+        }
+
+        final Block full = block;
+        inFlight.addLast(pool.submit(() -> compressors.get().compress(full)));
+        block = new Block(blockSize);
+    }
+
+    /**
+     * Submits the current block, if not empty, and writes every block in
+     * flight to the file.
+     */
+    private void drain() throws IOException {
+        if (block.records() > 0) {
+            submit();
+        }
+
+        while (!inFlight.isEmpty()) {
+            writeOldest();
+        }
+    }
+
+    private void writeOldest() throws IOException {
+        final byte[] compressed;
+        try {
+            compressed = inFlight.removeFirst().get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing block.");
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            } else {
+                throw new IOException("Error compressing block.", ex.getCause());
+            }
+        }
+
+        out.write(compressed);
+        position += compressed.length;
+    }
+
+    private Compressor newCompressor() {
+        try {
+            return new Compressor(schema, codec, sync, blockSize);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Error creating block compressor.", ex);
+        }
+    }
+
+    /**
+     * The binary encoding of a number of records, one after the other, and
+     * the offset where every record ends.
+     */
+    private final static class Block extends ByteArrayOutputStream {
+
+        private int[] ends;
+        private int records;
+
+        Block(int capacity) {
+            super(capacity + capacity / 8);
+            this.ends = new int[64];
+        }
+
+        void endRecord() {
+            if (records == ends.length) {
+                ends = Arrays.copyOf(ends, records * 2);
+            }
+            ends[records++] = count;
+        }
+
+        int records() {
+            return records;
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+
+    /**
+     * Compresses blocks on a single worker thread. The codecs of Avro can only
+     * be used through a {@code DataFileWriter}, so every worker has one that
+     * writes to memory with the same codec and sync marker as the file. Only
+     * the blocks it writes are used, not the header.
+     */
+    private final static class Compressor {
+
+        private final DataFileWriter<GenericRecord> writer;
+        private final ByteArrayOutputStream buffer;
+
+        Compressor(Schema schema, CodecFactory codec, byte[] sync, int blockSize) throws IOException {
+            this.buffer = new ByteArrayOutputStream();
+            this.writer = new DataFileWriter<>(new GenericDatumWriter<>(schema));
+            writer.setCodec(codec);
+            // Blocks only end up larger than this if a single record is larger
+            // than the block size, in which case the writer splits the block
+            writer.setSyncInterval(2 * blockSize);
+            writer.setFlushOnEveryBlock(true);
+            writer.create(schema, buffer, sync);
+            buffer.reset();
+        }
+
+        byte[] compress(Block block) throws IOException {
+            final byte[] bytes = block.bytes();
+            int start = 0;
+            for (int i = 0; i < block.records; i++) {
+                final int end = block.ends[i];
+                writer.appendEncoded(ByteBuffer.wrap(bytes, start, end - start));
+                start = end;
+            }
+
+            writer.flush();
+            final byte[] compressed = buffer.toByteArray();
+            buffer.reset();
+            return compressed;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Writes records into a Hive-style directory structure, for an example
+ * {@code dt=20170101/region=EU/part-00000.avro}, based on the values of one
+ * or more partition fields. As is customary, the partition fields are not
+ * included in the written files since their values are given by the path.
+ * <p>
+ * Records are encoded into a buffer per partition and only written once the
+ * buffer is full, so that every partition gets reasonably large blocks. A
+ * buffer is released once it has been written and the capacity of all
+ * buffers is kept below {@code maxBuffered} bytes, so that a large number of
+ * partitions doesn't keep memory that is no longer used. At most
+ * {@code maxOpenWriters} files are kept open at the same time. When another
+ * file needs to be opened, the least recently used one is closed and later
+ * reopened for appending if needed.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class PartitionedSink implements Sink {
+
+    private final static String DEFAULT_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+    private final static String FILE_NAME = "part-00000.avro";
+    private final static int INITIAL_BUFFER = 1 << 10;
+
+    private final File directory;
+    private final Schema schema;
+    private final List<String> fields;
+    private final int[] positions;
+    private final int bufferSize;
+    private final long maxBuffered;
+
+    private final DatumWriter<IndexedRecord> datumWriter;
+    private final ProjectedRecord projected;
+    private final Map<String, Partition> partitions;
+    private final LinkedHashMap<String, DataFileWriter<IndexedRecord>> openWriters;
+    private final StringBuilder path;
+    private BinaryEncoder encoder;
+    private long buffered;
+    private int files;
+
+    public PartitionedSink(Schema schema, File directory, List<String> fields,
+                           int maxOpenWriters, int bufferSize, long maxBuffered) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one partition field must be specified.");
+        }
+
+        this.directory   = directory;
+        this.fields      = fields;
+        this.bufferSize  = bufferSize;
+        this.maxBuffered = maxBuffered;
+        this.positions   = new int[fields.size()];
+
+        for (int i = 0; i < fields.size(); i++) {
+            final Schema.Field field = schema.getField(fields.get(i));
+            if (field == null) {
+                throw new IllegalArgumentException(format(
+                    "Can't partition by unknown field '%s'.", fields.get(i)));
+            }
+            positions[i] = field.pos();
+        }
+
+        // Files only contain the fields that are not part of the path
+        final List<Schema.Field> remaining = schema.getFields().stream()
+            .filter(f -> !fields.contains(f.name()))
+            .map(f -> new Schema.Field(f.name(), f.schema(), f.doc(), f.defaultVal(), f.order()))
+            .collect(toList());
+
+        this.schema = Schema.createRecord(schema.getName(), schema.getDoc(),
+            schema.getNamespace(), schema.isError(), remaining);
+
+        this.datumWriter = new GenericDatumWriter<>(this.schema);
+        this.projected   = new ProjectedRecord(this.schema, schema.getFields().stream()
+            .filter(f -> !fields.contains(f.name()))
+            .mapToInt(Schema.Field::pos)
+            .toArray());
+
+        this.partitions  = new HashMap<>();
+        this.path        = new StringBuilder();
+        this.openWriters = new LinkedHashMap<String, DataFileWriter<IndexedRecord>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DataFileWriter<IndexedRecord>> eldest) {
+                if (size() > maxOpenWriters) {
+                    try {
+                        eldest.getValue().close();
+                    } catch (final IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void append(GenericRecord record) throws IOException {
+        path.setLength(0);
+        for (int i = 0; i < positions.length; i++) {
+            if (i > 0) path.append(File.separatorChar);
+            path.append(fields.get(i)).append('=');
+            final Object value = record.get(positions[i]);
+            if (value == null) {
+                path.append(DEFAULT_PARTITION);
+            } else {
+                escape(path, value.toString());
+            }
+        }
+
+        final String key = path.toString();
+        Partition partition = partitions.get(key);
+        if (partition == null) {
+            partition = new Partition(key, Math.min(bufferSize, INITIAL_BUFFER));
+            partitions.put(key, partition);
+            buffered += partition.buffer.capacity();
+        }
+
+        final int before = partition.buffer.capacity();
+        projected.inner = record;
+        encoder = EncoderFactory.get().directBinaryEncoder(partition.buffer, encoder);
+        datumWriter.write(projected, encoder);
+        partition.addEnd();
+        buffered += partition.buffer.capacity() - before;
+
+        if (partition.buffer.size() >= bufferSize) {
+            write(partitions.remove(key));
+        }
+
+        if (buffered > maxBuffered) {
+            partitions.values().stream()
+                .max(Comparator.comparingInt(p -> p.buffer.size()))
+                .ifPresent(p -> writeUnchecked(partitions.remove(p.key)));
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Buffers are only written once they are full to avoid small blocks.
+    }
+
+    @Override
+    public long sync() {
+        throw new UnsupportedOperationException("Partitioned output can't be resumed.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (final Partition partition : partitions.values()) {
+                write(partition);
+            }
+            partitions.clear();
+        } finally {
+            for (final DataFileWriter<IndexedRecord> writer : openWriters.values()) {
+                writer.close();
+            }
+            openWriters.clear();
+        }
+
+        System.out.format("Created %,d partitions in '%s'.%n", files, directory);
+    }
+
+    /**
+     * Writes the buffered records of a partition that has been removed from
+     * {@link #partitions}, leaving its buffer to be garbage collected.
+     */
+    private void write(Partition partition) throws IOException {
+        buffered -= partition.buffer.capacity();
+
+        DataFileWriter<IndexedRecord> writer = openWriters.get(partition.key);
+        if (writer == null) {
+            final File file = new File(new File(directory, partition.key), FILE_NAME);
+            writer = new DataFileWriter<>(datumWriter);
+            if (file.exists()) {
+                writer.appendTo(file);
+            } else {
+                if (!file.getParentFile().mkdirs() && !file.getParentFile().isDirectory()) {
+                    throw new IOException(format(
+                        "Could not create directory '%s'.", file.getParentFile()));
+                }
+                writer.create(schema, file);
+                files++;
+            }
+
+            try {
+                openWriters.put(partition.key, writer);
+            } catch (final UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        final byte[] bytes = partition.buffer.array();
+        int start = 0;
+        for (int i = 0; i < partition.count; i++) {
+            final int end = partition.ends[i];
+            writer.appendEncoded(ByteBuffer.wrap(bytes, start, end - start));
+            start = end;
+        }
+    }
+
+    private void writeUnchecked(Partition partition) {
+        try {
+            write(partition);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void escape(StringBuilder str, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < ' ' || "\"#%'*/:=?\\{[]^".indexOf(c) >= 0) {
+                str.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4 & 0xf, 16)))
+                    .append(Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
+            } else {
+                str.append(c);
+            }
+        }
+    }
+
+    /**
+     * The records of a partition that have not been written yet.
+     */
+    private final static class Partition {
+
+        private final String key;
+        private final Buffer buffer;
+        private int[] ends;
+        private int count;
+
+        Partition(String key, int size) {
+            this.key    = key;
+            this.buffer = new Buffer(size);
+            this.ends   = new int[64];
+        }
+
+        void addEnd() {
+            if (count == ends.length) {
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            ends[count++] = buffer.size();
+        }
+    }
+
+    private final static class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
+    /**
+     * View of a record that only exposes some of its fields, without copying
+     * any values.
+     */
+    private final static class ProjectedRecord implements IndexedRecord {
+
+        private final Schema schema;
+        private final int[] positions;
+        private IndexedRecord inner;
+
+        ProjectedRecord(Schema schema, int[] positions) {
+            this.schema    = schema;
+            this.positions = positions;
+        }
+
+        @Override
+        public void put(int i, Object v) {
+            inner.put(positions[i], v);
+        }
+
+        @Override
+        public Object get(int i) {
+            return inner.get(positions[i]);
+        }
+
+        @Override
+        public Schema getSchema() {
+            return schema;
+        }
+    }
+}
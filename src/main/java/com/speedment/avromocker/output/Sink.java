@@ -0,0 +1,30 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Destination for generated records. The record passed to
+ * {@link #append(GenericRecord)} may be reused by the caller as soon as the
+ * method returns.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public interface Sink extends Closeable, Flushable {
+
+    void append(GenericRecord record) throws IOException;
+
+    /**
+     * Makes sure everything appended so far has been written to disk, so
+     * that generation can be resumed from this point.
+     *
+     * @return  the position to resume writing at
+     * @throws UnsupportedOperationException  if this sink can't be resumed
+     */
+    long sync() throws IOException;
+
+}
@@ -0,0 +1,62 @@
+package com.speedment.avromocker.output;
+
+import com.speedment.avromocker.profile.Verification;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Sink that checks every n:th record against the settings before passing it
+ * on to another sink. The result is printed when the sink is closed. Since
+ * only a sample is checked, the overhead can be kept small on large runs.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class VerifyingSink implements Sink {
+
+    private final Sink inner;
+    private final Verification verification;
+    private final int interval;
+    private int skipped;
+
+    public VerifyingSink(Sink inner, Verification verification, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("The sample interval must be at least 1.");
+        }
+
+        this.inner        = requireNonNull(inner);
+        this.verification = requireNonNull(verification);
+        this.interval     = interval;
+    }
+
+    @Override
+    public void append(GenericRecord record) throws IOException {
+        if (++skipped == interval) {
+            verification.add(record);
+            skipped = 0;
+        }
+        inner.append(record);
+    }
+
+    @Override
+    public long sync() throws IOException {
+        return inner.sync();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        inner.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inner.close();
+        verification.print(System.out);
+        if (!verification.passed()) {
+            System.err.println("Verification of sampled records failed!");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.speedment.avromocker.profile;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * The compression ratio that different codecs achieve on a sample of the
+ * records in an Avro file. The sample is written to memory once without
+ * compression and once with every codec, using the same block size, so the
+ * ratios are those of an Avro file written with the codec. Comparing the
+ * report of generated data with that of production data shows how well the
+ * generated data mimics its compressibility.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class CompressionReport {
+
+    private final long count;
+    private final long uncompressed;
+    private final List<Entry> entries;
+
+    /**
+     * Measures the size of the first records of the specified file when
+     * written with each codec.
+     *
+     * @param input      the avro-file to read the sample from
+     * @param sample     the maximum number of records in the sample
+     * @param codecs     the codecs to measure, by name
+     * @param blockSize  the uncompressed size of every block
+     * @return           the report
+     */
+    public static CompressionReport measure(File input, int sample, Map<String, CodecFactory> codecs,
+                                            int blockSize) throws IOException {
+        final Schema schema;
+        final List<GenericRecord> records = new ArrayList<>();
+        try (final DataFileReader<GenericRecord> reader =
+                 new DataFileReader<>(input, new GenericDatumReader<>())) {
+            schema = reader.getSchema();
+            while (records.size() < sample && reader.hasNext()) {
+                records.add(reader.next(null));
+            }
+        }
+
+        final long uncompressed = write(schema, records, CodecFactory.nullCodec(), blockSize);
+        final List<Entry> entries = new ArrayList<>(codecs.size());
+        for (final Map.Entry<String, CodecFactory> codec : codecs.entrySet()) {
+            final long started = System.nanoTime();
+            final long bytes = write(schema, records, codec.getValue(), blockSize);
+            entries.add(new Entry(codec.getKey(), bytes, (System.nanoTime() - started) / 1e9));
+        }
+
+        return new CompressionReport(records.size(), uncompressed, entries);
+    }
+
+    private CompressionReport(long count, long uncompressed, List<Entry> entries) {
+        this.count        = count;
+        this.uncompressed = uncompressed;
+        this.entries      = unmodifiableList(entries);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the size of the sample when written without compression.
+     *
+     * @return  the number of bytes
+     */
+    public long getUncompressed() {
+        return uncompressed;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void print(PrintStream out) {
+        out.format("Sample of %,d records, %,d bytes uncompressed.%n", count, uncompressed);
+        out.format("%-12s %15s %8s %12s%n", "codec", "bytes", "ratio", "MB/s");
+        for (final Entry entry : entries) {
+            out.format("%-12s %,15d %8.2f %12.1f%n", entry.getCodec(), entry.getBytes(),
+                (double) uncompressed / entry.getBytes(), uncompressed / entry.getSeconds() / 1_000_000);
+        }
+    }
+
+    /**
+     * The size of the sample when written with one codec.
+     */
+    public static final class Entry {
+
+        private final String codec;
+        private final long bytes;
+        private final double seconds;
+
+        private Entry(String codec, long bytes, double seconds) {
+            this.codec   = codec;
+            this.bytes   = bytes;
+            this.seconds = seconds;
+        }
+
+        public String getCodec() {
+            return codec;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Returns the time it took to write the sample with the codec.
+         *
+         * @return  the time in seconds
+         */
+        public double getSeconds() {
+            return seconds;
+        }
+    }
+
+    private static long write(Schema schema, List<GenericRecord> records, CodecFactory codec,
+                              int blockSize) throws IOException {
+        final CountingOutputStream out = new CountingOutputStream();
+        try (final DataFileWriter<GenericRecord> writer =
+                 new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema))) {
+            writer.setCodec(codec);
+            writer.setSyncInterval(blockSize);
+            writer.create(schema, out);
+            for (final GenericRecord record : records) {
+                writer.append(record);
+            }
+        }
+        return out.count;
+    }
+
+    private final static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.speedment.avromocker.profile;
+
+import com.speedment.avromocker.util.HashUtil;
+import com.speedment.avromocker.util.StringUtil;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Statistics collected for a single field of an Avro record. All statistics
+ * use a bounded amount of memory so that arbitrarily large files can be
+ * profiled.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class FieldProfile {
+
+    private final static int HLL_PRECISION  = 14;
+    private final static int TOP_CAPACITY   = 64;
+    private final static int MAX_SYMBOLS    = 16;
+    private final static int SYMBOL_WEIGHTS = 100;
+    private final static int HISTOGRAM_BINS = 24;
+    private final static double WEIGHT_TOLERANCE = 0.01;
+
+    private final String name;
+    private final Schema schema;
+    private final long[] branches;
+    private final int onlyBranch;
+    private final FieldProfile[] branchProfiles;
+    private final HyperLogLog distinct;
+    private final SpaceSaving top;
+    private final StreamingHistogram histogram;
+
+    private long count, nulls;
+    private long minLong = Long.MAX_VALUE, maxLong = Long.MIN_VALUE;
+    private double minDouble = Double.POSITIVE_INFINITY, maxDouble = Double.NEGATIVE_INFINITY;
+    private int minLength = Integer.MAX_VALUE, maxLength = -1;
+
+    FieldProfile(String name, Schema schema) {
+        this.name       = name;
+        this.schema     = schema;
+        this.branches   = schema.getType() == Schema.Type.UNION
+            ? new long[schema.getTypes().size()] : null;
+        this.onlyBranch = onlyNonNullBranch(schema);
+        this.branchProfiles = branches != null && onlyBranch < 0
+            ? new FieldProfile[branches.length] : null;
+        if (branchProfiles != null) {
+            final List<Schema> types = schema.getTypes();
+            for (int i = 0; i < branchProfiles.length; i++) {
+                if (types.get(i).getType() != Schema.Type.NULL) {
+                    branchProfiles[i] = new FieldProfile(name, types.get(i));
+                }
+            }
+        }
+        this.distinct   = new HyperLogLog(HLL_PRECISION);
+        this.top        = new SpaceSaving(TOP_CAPACITY);
+        this.histogram  = new StreamingHistogram(HISTOGRAM_BINS);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getNulls() {
+        return nulls;
+    }
+
+    public double getNullRate() {
+        return count + nulls == 0 ? 0 : (double) nulls / (count + nulls);
+    }
+
+    public long getCardinality() {
+        return distinct.estimate();
+    }
+
+    void add(Object value) {
+        if (value == null) {
+            nulls++;
+            return;
+        }
+
+        count++;
+        if (branchProfiles != null) {
+            final int branch = GenericData.get().resolveUnion(schema, value);
+            branches[branch]++;
+            branchProfiles[branch].add(value);
+        } else if (branches != null) {
+            branches[onlyBranch]++;
+        }
+
+        distinct.add(HashUtil.hash(value));
+        top.add(value);
+
+        if (value instanceof Long || value instanceof Integer) {
+            final long l = ((Number) value).longValue();
+            if (l < minLong) minLong = l;
+            if (l > maxLong) maxLong = l;
+            histogram.add(l);
+        } else if (value instanceof Number) {
+            final double d = ((Number) value).doubleValue();
+            if (d < minDouble) minDouble = d;
+            if (d > maxDouble) maxDouble = d;
+            histogram.add(d);
+        } else if (value instanceof CharSequence) {
+            final int length = StringUtil.length((CharSequence) value);
+            if (length < minLength) minLength = length;
+            if (length > maxLength) maxLength = length;
+            histogram.add(length);
+        }
+    }
+
+    void merge(FieldProfile other) {
+        count += other.count;
+        nulls += other.nulls;
+        if (branches != null) {
+            for (int i = 0; i < branches.length; i++) {
+                branches[i] += other.branches[i];
+            }
+        }
+        if (branchProfiles != null) {
+            for (int i = 0; i < branchProfiles.length; i++) {
+                if (branchProfiles[i] != null) {
+                    branchProfiles[i].merge(other.branchProfiles[i]);
+                }
+            }
+        }
+
+        distinct.merge(other.distinct);
+        top.merge(other.top);
+        histogram.merge(other.histogram);
+
+        minLong   = Math.min(minLong, other.minLong);
+        maxLong   = Math.max(maxLong, other.maxLong);
+        minDouble = Math.min(minDouble, other.minDouble);
+        maxDouble = Math.max(maxDouble, other.maxDouble);
+        minLength = Math.min(minLength, other.minLength);
+        maxLength = Math.max(maxLength, other.maxLength);
+    }
+
+    /**
+     * Appends the answers that the prompts in {@code MockerBuilderUtil} would
+     * ask for this field, in the order they are asked.
+     *
+     * @param lines  the list to append answers to
+     */
+    void appendSettings(List<String> lines) {
+        if (branches != null) {
+            final List<Schema> types = schema.getTypes();
+            if (types.stream().anyMatch(s -> s.getType() == Schema.Type.NULL)) {
+                lines.add(Double.toString(getNullRate()));
+            }
+
+            // Every type that occurred is generated with its observed share,
+            // or the first non-null type if none did
+            final List<Integer> selected = new ArrayList<>();
+            for (int i = 0; i < types.size(); i++) {
+                if (types.get(i).getType() != Schema.Type.NULL && branches[i] > 0) {
+                    selected.add(i);
+                }
+            }
+            if (selected.isEmpty()) {
+                for (int i = 0; i < types.size(); i++) {
+                    if (types.get(i).getType() != Schema.Type.NULL) {
+                        selected.add(i);
+                        break;
+                    }
+                }
+            }
+
+            if (types.stream().filter(s -> s.getType() != Schema.Type.NULL).count() > 1) {
+                lines.add(selected.size() == 1
+                    ? typeName(types.get(selected.get(0)))
+                    : selected.stream()
+                        .map(i -> typeName(types.get(i)) + " " + (double) branches[i] / count)
+                        .collect(joining(", ")));
+            }
+
+            // Each type is generated like the values of that type alone
+            for (final int i : selected) {
+                final FieldProfile profile = branchProfiles == null ? this : branchProfiles[i];
+                lines.add(profile.strategyFor(types.get(i)).orElse(""));
+            }
+        } else {
+            lines.add(strategyFor(schema).orElse(""));
+        }
+    }
+
+    void print(PrintStream out) {
+        out.format("%s (%s)%n", name, schema.getType().getName());
+        out.format("    values      : %,d%n", count);
+        out.format("    null rate   : %.4f%n", getNullRate());
+        out.format("    cardinality : ~%,d%n", getCardinality());
+        if (maxLong >= minLong) {
+            out.format("    range       : %d .. %d%n", minLong, maxLong);
+        }
+        if (maxDouble >= minDouble) {
+            out.format("    range       : %s .. %s%n", minDouble, maxDouble);
+        }
+        if (maxLength >= minLength) {
+            out.format("    length      : %d .. %d%n", minLength, maxLength);
+        }
+        out.format("    top values  : %s%s%n",
+            top.top().stream().limit(10)
+                .map(e -> format("%s (%,d)", e.getKey(), e.getValue()))
+                .collect(joining(", ")),
+            top.isExact() ? "" : " (approximate)");
+        if (histogram.size() > 1) {
+            out.println("    histogram   :");
+            histogram.print(out, "      ");
+        }
+    }
+
+    private Optional<String> strategyFor(Schema type) {
+        if (count == 0) return Optional.empty();
+
+        if (type.getLogicalType() != null) {
+            switch (type.getLogicalType().getName()) {
+                case "decimal" : case "uuid" : return Optional.of("rand");
+                case "time-millis" : case "time-micros" :
+                case "timestamp-millis" : case "timestamp-micros" : {
+                    return maxLong >= minLong
+                        ? Optional.of(format("rand from %d to %d", minLong, maxLong + 1))
+                        : Optional.empty();
+                }
+                default : // Profiled like the underlying type
+            }
+        }
+
+        switch (type.getType()) {
+            case INT : case LONG : {
+                if (isSmallSet()) {
+                    return Optional.of("rand in " + weightedSymbols());
+                } else if (maxLong >= minLong) {
+                    return Optional.of(format("rand from %d to %d", minLong,
+                        maxLong == Long.MAX_VALUE ? maxLong : maxLong + 1));
+                } else return Optional.empty();
+            }
+            case FLOAT : case DOUBLE : {
+                if (maxDouble >= minDouble
+                &&  !Double.isInfinite(minDouble) && !Double.isInfinite(maxDouble)) {
+                    final double upper = maxDouble > minDouble ? maxDouble : Math.nextUp(maxDouble);
+                    final int precision = Math.max(2,
+                        (int) Math.ceil(-Math.log10(upper - minDouble)) + 3);
+                    return Optional.of(format("rand from %s to %s prec %d",
+                        BigDecimal.valueOf(minDouble).toPlainString(),
+                        BigDecimal.valueOf(upper).toPlainString(),
+                        precision));
+                } else return Optional.empty();
+            }
+            case STRING : {
+                if (isSmallSet() && top.top().stream()
+                        .map(e -> e.getKey().toString())
+                        .allMatch(s -> !s.isEmpty() && !s.contains(",") && s.trim().equals(s))) {
+                    return Optional.of("rand in " + weightedSymbols());
+                } else if (maxLength >= minLength) {
+                    return Optional.of(format("rand from %d to %d", minLength, maxLength + 1));
+                } else return Optional.empty();
+            }
+            case ENUM : {
+                return top.isExact()
+                    ? Optional.of("rand in " + weightedSymbols())
+                    : Optional.empty();
+            }
+            default : {
+                System.err.format("The avro type '%s' of field '%s' is currently not supported.%n",
+                    type.getType().getName(), name);
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Returns the name that identifies a type of a union in the settings. The
+     * full name is used for named types since several of them may have the
+     * same Avro type.
+     */
+    private static String typeName(Schema type) {
+        switch (type.getType()) {
+            case RECORD : case ENUM : case FIXED : return type.getFullName();
+            default : return type.getType().getName();
+        }
+    }
+
+    /**
+     * Returns the index of the only non-null type of a union, or {@code -1}
+     * if there is more than one, so that non-null values don't have to be
+     * resolved against the union.
+     */
+    private static int onlyNonNullBranch(Schema schema) {
+        if (schema.getType() != Schema.Type.UNION) return -1;
+        int result = -1;
+        final List<Schema> types = schema.getTypes();
+        for (int i = 0; i < types.size(); i++) {
+            if (types.get(i).getType() != Schema.Type.NULL) {
+                if (result >= 0) return -1;
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    private boolean isSmallSet() {
+        return top.isExact() && top.top().size() <= MAX_SYMBOLS;
+    }
+
+    /**
+     * Lists the observed values, repeating each one in proportion to how
+     * often it was observed so that a uniform selection from the list has
+     * roughly the same distribution as the profiled data.
+     *
+     * @return  comma-separated list of values
+     */
+    private String weightedSymbols() {
+        final List<Map.Entry<Object, Long>> entries = top.top();
+        final long total = entries.stream().mapToLong(Map.Entry::getValue).sum();
+
+        // Find the shortest list that approximates the distribution well
+        long[] weights = null;
+        for (int slots = entries.size(); slots <= SYMBOL_WEIGHTS; slots++) {
+            final long[] candidate = new long[entries.size()];
+            long sum = 0;
+            for (int i = 0; i < candidate.length; i++) {
+                candidate[i] = Math.max(1, Math.round(
+                    (double) entries.get(i).getValue() * slots / total));
+                sum += candidate[i];
+            }
+
+            double error = 0;
+            for (int i = 0; i < candidate.length; i++) {
+                error = Math.max(error, Math.abs((double) candidate[i] / sum
+                    - (double) entries.get(i).getValue() / total));
+            }
+
+            weights = candidate;
+            if (error < WEIGHT_TOLERANCE) break;
+        }
+
+        final StringBuilder str = new StringBuilder();
+        for (int i = 0; i < weights.length; i++) {
+            for (long j = 0; j < weights[i]; j++) {
+                if (str.length() > 0) str.append(", ");
+                str.append(entries.get(i).getKey());
+            }
+        }
+        return str.toString();
+    }
+}
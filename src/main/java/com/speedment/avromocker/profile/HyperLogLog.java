@@ -0,0 +1,77 @@
+package com.speedment.avromocker.profile;
+
+/**
+ * Cardinality estimator using the HyperLogLog algorithm. Uses a fixed amount
+ * of memory ({@code 2^precision} bytes) regardless of how many values are
+ * added, and two estimators can be merged losslessly.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException(
+                "HyperLogLog precision must be between 4 and 18.");
+        }
+
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Adds a value to the estimator, represented by its 64-bit hash.
+     *
+     * @param hash  well-distributed hash of the value
+     */
+    public void add(long hash) {
+        final int index = (int) (hash >>> (64 - precision));
+        final long rest = (hash << precision) | (1L << (precision - 1));
+        final byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (registers[index] < rank) {
+            registers[index] = rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(
+                "Can't merge HyperLogLogs of different precision.");
+        }
+
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated number of distinct values added.
+     *
+     * @return  the estimated cardinality
+     */
+    public long estimate() {
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (final byte register : registers) {
+            sum += 1d / (1L << register);
+            if (register == 0) zeros++;
+        }
+
+        final double alpha = 0.7213 / (1 + 1.079 / m);
+        final double estimate = alpha * m * m / sum;
+
+        // Use linear counting for small cardinalities
+        if (estimate <= 2.5 * m && zeros > 0) {
+            return Math.round(m * Math.log((double) m / zeros));
+        } else {
+            return Math.round(estimate);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.speedment.avromocker.profile;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Statistics collected for every field of a stream of Avro records. A
+ * profile can be turned into a settings file that the mocker can use to
+ * generate data with similar characteristics.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Profile {
+
+    private final Schema schema;
+    private final List<FieldProfile> fields;
+    private long count;
+
+    Profile(Schema schema) {
+        this.schema = requireNonNull(schema);
+        this.fields = new ArrayList<>(schema.getFields().size());
+        for (final Schema.Field field : schema.getFields()) {
+            fields.add(new FieldProfile(field.name(), field.schema()));
+        }
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public List<FieldProfile> getFields() {
+        return unmodifiableList(fields);
+    }
+
+    void add(GenericRecord record) {
+        count++;
+        for (int i = 0; i < fields.size(); i++) {
+            fields.get(i).add(record.get(i));
+        }
+    }
+
+    void merge(Profile other) {
+        count += other.count;
+        for (int i = 0; i < fields.size(); i++) {
+            fields.get(i).merge(other.fields.get(i));
+        }
+    }
+
+    /**
+     * Returns the lines of a settings file that, when passed to the mocker
+     * using the {@code -settings} argument, generates the specified number
+     * of records with the same characteristics as the profiled data.
+     *
+     * @param total  number of records to generate
+     * @return       lines of the settings file
+     */
+    public List<String> toSettings(long total) {
+        final List<String> lines = new ArrayList<>();
+        lines.add(Long.toString(total));
+        for (final FieldProfile field : fields) {
+            field.appendSettings(lines);
+        }
+        return lines;
+    }
+
+    public void print(PrintStream out) {
+        out.format("Profiled %,d records of '%s'.%n", count, schema.getFullName());
+        for (final FieldProfile field : fields) {
+            field.print(out);
+        }
+    }
+}
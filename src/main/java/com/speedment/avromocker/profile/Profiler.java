@@ -0,0 +1,127 @@
+package com.speedment.avromocker.profile;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.SeekableFileInput;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * Streams an existing Avro data file and collects a {@link Profile} of its
+ * contents, or a {@link Verification} against the settings it was generated
+ * with. The file is divided into byte ranges that are processed in
+ * parallel, each range starting at the first sync marker following it. Only
+ * one record per thread is held in memory at any time.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Profiler {
+
+    private final static long MIN_SPLIT_SIZE = 1 << 20;
+
+    public static Profile profile(File file, int threads) throws IOException {
+        return process(file, threads, Profile::new, Profile::add, Profile::merge);
+    }
+
+    /**
+     * Checks every record of an Avro data file against a spec, using the
+     * same parallel streaming as {@link #profile(File, int)}.
+     *
+     * @param file     the file to verify
+     * @param spec     the spec the file was generated with
+     * @param threads  the number of threads to use
+     * @return         the result
+     */
+    public static Verification verify(File file, Spec spec, int threads) throws IOException {
+        return process(file, threads, schema -> new Verification(spec),
+            Verification::add, Verification::merge);
+    }
+
+    private static <T> T process(File file, int threads,
+                                 Function<Schema, T> constructor,
+                                 BiConsumer<T, GenericRecord> add,
+                                 BiConsumer<T, T> merge) throws IOException {
+        final Schema schema;
+        try (final DataFileReader<GenericRecord> reader =
+                 new DataFileReader<>(file, new GenericDatumReader<>())) {
+            schema = reader.getSchema();
+        }
+
+        final long length = file.length();
+        final int splits = (int) Math.max(1, Math.min(threads, length / MIN_SPLIT_SIZE));
+        final ExecutorService executor = Executors.newFixedThreadPool(splits);
+
+        try {
+            final List<Future<T>> futures = new ArrayList<>(splits);
+            for (int i = 0; i < splits; i++) {
+                final long start = length * i / splits;
+                final long end   = length * (i + 1) / splits;
+                futures.add(executor.submit(() -> {
+                    final T result = constructor.apply(schema);
+                    processSplit(file, schema, start, end, record -> add.accept(result, record));
+                    return result;
+                }));
+            }
+
+            final T result = constructor.apply(schema);
+            for (final Future<T> future : futures) {
+                merge.accept(result, future.get());
+            }
+            return result;
+
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Reading was interrupted.", ex);
+        } catch (final ExecutionException ex) {
+            throw new IOException(format(
+                "Error reading avro-file '%s'.", file), ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void processSplit(File file, Schema schema, long start, long end,
+                                     Consumer<GenericRecord> action) throws IOException {
+        try (final DataFileReader<GenericRecord> reader = new DataFileReader<>(
+                new SeekableFileInput(file), new GenericDatumReader<>(schema))) {
+
+            if (start > reader.previousSync()) {
+                reader.sync(start);
+            }
+
+            // Only check the end of the split when a new block is started,
+            // since it requires the length of the file to be queried
+            GenericRecord record = null;
+            long block = -1;
+            while (reader.hasNext()) {
+                if (reader.previousSync() != block) {
+                    block = reader.previousSync();
+                    if (reader.pastSync(end)) break;
+                }
+
+                record = reader.next(record);
+                action.accept(record);
+            }
+        }
+    }
+
+    /**
+     * Should not be instantiated.
+     */
+    private Profiler() {}
+}
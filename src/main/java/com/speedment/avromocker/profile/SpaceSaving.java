@@ -0,0 +1,156 @@
+package com.speedment.avromocker.profile;
+
+import com.speedment.avromocker.util.HashUtil;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.util.Utf8;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Comparator.comparingLong;
+
+/**
+ * Tracks the most frequent values of a stream using the Unbiased Space-Saving
+ * algorithm. At most {@code capacity} counters are held in memory. As long as
+ * the number of distinct values never exceeds the capacity, the counts are
+ * exact (see {@link #isExact()}).
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Object, Integer> slots;
+
+    // Counters are kept in a min-heap so the least frequent can be replaced
+    private final Object[] values;
+    private final long[] counts;
+    private final int[] heap, positions;
+    private int size;
+    private long random;
+    private boolean exact;
+
+    public SpaceSaving(int capacity) {
+        this.capacity  = capacity;
+        this.slots     = new HashMap<>();
+        this.values    = new Object[capacity];
+        this.counts    = new long[capacity];
+        this.heap      = new int[capacity];
+        this.positions = new int[capacity];
+        this.exact     = true;
+    }
+
+    public void add(Object value) {
+        add(value, 1);
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Returns the tracked values sorted by descending count.
+     *
+     * @return  the top values
+     */
+    public List<Map.Entry<Object, Long>> top() {
+        final List<Map.Entry<Object, Long>> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new HashMap.SimpleImmutableEntry<>(values[i], counts[i]));
+        }
+        result.sort(comparingLong(Map.Entry<Object, Long>::getValue).reversed());
+        return result;
+    }
+
+    public void merge(SpaceSaving other) {
+        exact &= other.exact;
+        for (int i = 0; i < other.size; i++) {
+            add(other.values[i], other.counts[i]);
+        }
+    }
+
+    private void add(Object value, long count) {
+        final Integer slot = slots.get(value);
+        if (slot != null) {
+            counts[slot] += count;
+            siftDown(positions[slot]);
+        } else if (size < capacity) {
+            final int added = size++;
+            values[added]    = immutable(value);
+            counts[added]    = count;
+            heap[added]      = added;
+            positions[added] = added;
+            slots.put(values[added], added);
+            siftUp(added);
+        } else {
+            // Add to the least frequent counter, and let the value take it
+            // over with a probability proportional to its share of the new
+            // count (Unbiased Space-Saving). Replacing less often than the
+            // original algorithm saves a lot of work on distinct values.
+            final int min = heap[0];
+            counts[min] += count;
+            if (nextDouble() * counts[min] < count) {
+                slots.remove(values[min]);
+                values[min] = immutable(value);
+                slots.put(values[min], min);
+            }
+            siftDown(0);
+            exact = false;
+        }
+    }
+
+    private double nextDouble() {
+        return (HashUtil.mix64(random += 0x9e3779b97f4a7c15L) >>> 11) * 0x1.0p-53;
+    }
+
+    private void siftUp(int pos) {
+        while (pos > 0) {
+            final int parent = (pos - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[heap[pos]]) break;
+            swap(pos, parent);
+            pos = parent;
+        }
+    }
+
+    private void siftDown(int pos) {
+        while (true) {
+            final int left = 2 * pos + 1;
+            if (left >= size) break;
+            final int right = left + 1;
+            final int child = right < size && counts[heap[right]] < counts[heap[left]] ? right : left;
+            if (counts[heap[pos]] <= counts[heap[child]]) break;
+            swap(pos, child);
+            pos = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        final int slot = heap[a];
+        heap[a] = heap[b];
+        heap[b] = slot;
+        positions[heap[a]] = a;
+        positions[heap[b]] = b;
+    }
+
+    private static Object immutable(Object value) {
+        // Avro reuses Utf8, bytes and fixed instances between records, so
+        // they must be copied
+        if (value instanceof Utf8) {
+            return new Utf8((Utf8) value);
+        } else if (value instanceof ByteBuffer) {
+            final ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            final ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+            copy.put(buffer).flip();
+            return copy;
+        } else if (value instanceof GenericData.Fixed) {
+            final GenericData.Fixed fixed = (GenericData.Fixed) value;
+            return new GenericData.Fixed(fixed.getSchema(), fixed.bytes().clone());
+        } else {
+            return value;
+        }
+    }
+}
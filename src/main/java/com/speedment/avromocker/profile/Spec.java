@@ -0,0 +1,192 @@
+package com.speedment.avromocker.profile;
+
+import com.speedment.avromocker.mocker.Constraint;
+import org.apache.avro.Schema;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.speedment.avromocker.mocker.MockerBuilderUtil.parseBranches;
+import static com.speedment.avromocker.mocker.MockerBuilderUtil.parseConstraint;
+import static java.lang.String.format;
+import static java.util.Collections.singletonMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * What a settings file says about the data generated with it: the number of
+ * records and, for every field, the values its strategy can produce and the
+ * probability of it being null.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Spec {
+
+    private final Schema schema;
+    private final long total;
+    private final List<FieldSpec> fields;
+
+    private Spec(Schema schema, long total, List<FieldSpec> fields) {
+        this.schema = requireNonNull(schema);
+        this.total  = total;
+        this.fields = unmodifiableList(fields);
+    }
+
+    /**
+     * Parses the answers of a settings file in the order the generator asks
+     * for them.
+     *
+     * @param schema  the schema the settings are for
+     * @param lines   the lines of the settings file
+     * @return        the parsed spec
+     * @throws IllegalArgumentException  if the settings could not be parsed
+     */
+    public static Spec parse(Schema schema, List<String> lines) {
+        final Iterator<String> it = lines.stream().map(String::trim).iterator();
+        String line = next(it);
+
+        // The settings may start with the answer to 'Clear existing data?'
+        if (line.equalsIgnoreCase("Y") || line.equalsIgnoreCase("N")) {
+            line = next(it);
+        }
+
+        final long total = Long.parseLong(line);
+        final List<FieldSpec> fields = new ArrayList<>(schema.getFields().size());
+        for (final Schema.Field field : schema.getFields()) {
+            double nullProbability = 0;
+            final Map<Schema, Double> selected;
+            final int[] branches;
+
+            if (field.schema().getType() == Schema.Type.UNION) {
+                final List<Schema> types = field.schema().getTypes();
+                if (types.stream().anyMatch(s -> s.getType() == Schema.Type.NULL)) {
+                    nullProbability = Double.parseDouble(next(it));
+                }
+
+                final List<Schema> nonNull = new ArrayList<>();
+                for (final Schema s : types) {
+                    if (s.getType() != Schema.Type.NULL) nonNull.add(s);
+                }
+
+                if (nonNull.size() == 1) {
+                    selected = singletonMap(nonNull.get(0), 1d);
+                } else {
+                    try {
+                        selected = parseBranches(next(it), nonNull);
+                    } catch (final IllegalArgumentException ex) {
+                        throw new IllegalArgumentException(format(
+                            "Invalid type selected for field '%s'. %s", field.name(), ex.getMessage()), ex);
+                    }
+                }
+
+                branches = selected.keySet().stream().mapToInt(types::indexOf).toArray();
+            } else {
+                selected = singletonMap(field.schema(), 1d);
+                branches = new int[0];
+            }
+
+            final double sum = selected.values().stream().mapToDouble(Double::doubleValue).sum();
+            final double[] weights = selected.values().stream().mapToDouble(w -> w / sum).toArray();
+
+            final List<Constraint> constraints = new ArrayList<>(selected.size());
+            for (final Schema type : selected.keySet()) {
+                try {
+                    constraints.add(parseConstraint(next(it), type));
+                } catch (final IllegalArgumentException ex) {
+                    throw new IllegalArgumentException(format(
+                        "Invalid strategy for field '%s'. %s", field.name(), ex.getMessage()), ex);
+                }
+            }
+
+            fields.add(new FieldSpec(field.name(), field.pos(), nullProbability,
+                branches, weights, constraints));
+        }
+
+        return new Spec(schema, total, fields);
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<FieldSpec> getFields() {
+        return fields;
+    }
+
+    private static String next(Iterator<String> it) {
+        if (!it.hasNext()) {
+            throw new IllegalArgumentException("The settings ended unexpectedly.");
+        }
+        return it.next();
+    }
+
+    public final static class FieldSpec {
+
+        private final String name;
+        private final int pos;
+        private final double nullProbability;
+        private final int[] branches;
+        private final double[] weights;
+        private final List<Constraint> constraints;
+
+        FieldSpec(String name, int pos, double nullProbability,
+                  int[] branches, double[] weights, List<Constraint> constraints) {
+            this.name            = requireNonNull(name);
+            this.pos             = pos;
+            this.nullProbability = nullProbability;
+            this.branches        = requireNonNull(branches);
+            this.weights         = requireNonNull(weights);
+            this.constraints     = unmodifiableList(constraints);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPos() {
+            return pos;
+        }
+
+        public double getNullProbability() {
+            return nullProbability;
+        }
+
+        /**
+         * Returns the indexes of the union types that values may have, or an
+         * empty array if the field is not a union.
+         *
+         * @return  the expected union branches
+         */
+        public int[] getBranches() {
+            return branches.clone();
+        }
+
+        /**
+         * Returns the expected share of the non-null values generated by
+         * each strategy, summing to 1.
+         *
+         * @return  the normalized weights
+         */
+        public double[] getWeights() {
+            return weights.clone();
+        }
+
+        /**
+         * Returns the constraint of each strategy of the field. There is one
+         * per expected union branch, or a single one if the field is not a
+         * union.
+         *
+         * @return  the constraints
+         */
+        public List<Constraint> getConstraints() {
+            return constraints;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.speedment.avromocker.profile;
+
+import java.io.PrintStream;
+
+/**
+ * Approximate histogram with a bounded number of bins that can be built in a
+ * single pass without knowing the value range in advance (Ben-Haim &amp;
+ * Tom-Tov). When the number of bins exceeds the limit, the two closest bins
+ * are merged into one.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class StreamingHistogram {
+
+    private final int maxBins;
+    private final double[] centroids;
+    private final long[] counts;
+    private int size;
+    private int minGapBin = -1;
+
+    public StreamingHistogram(int maxBins) {
+        this.maxBins   = maxBins;
+        this.centroids = new double[maxBins + 1];
+        this.counts    = new long[maxBins + 1];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void merge(StreamingHistogram other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.centroids[i], other.counts[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double centroid(int bin) {
+        return centroids[bin];
+    }
+
+    public long count(int bin) {
+        return counts[bin];
+    }
+
+    public void print(PrintStream out, String indent) {
+        long max = 1;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, counts[i]);
+        }
+
+        for (int i = 0; i < size; i++) {
+            final int width = (int) (40 * counts[i] / max);
+            final StringBuilder bar = new StringBuilder(width);
+            for (int j = 0; j < width; j++) bar.append('#');
+            out.format("%s%14.4g %12d %s%n", indent, centroids[i], counts[i], bar);
+        }
+    }
+
+    private void add(double value, long count) {
+        if (Double.isNaN(value)) return;
+
+        int index = binarySearch(value);
+        if (index >= 0) {
+            counts[index] += count;
+            return;
+        }
+
+        index = -index - 1;
+
+        // If the value is closer to its nearest bin than any two bins are to
+        // each other, inserting it would only merge it into that bin again.
+        if (size == maxBins) {
+            final double left  = index > 0    ? value - centroids[index - 1] : Double.POSITIVE_INFINITY;
+            final double right = index < size ? centroids[index] - value     : Double.POSITIVE_INFINITY;
+            if (Math.min(left, right) < minGap()) {
+                final int bin = left <= right ? index - 1 : index;
+                final long total = counts[bin] + count;
+                centroids[bin] = (centroids[bin] * counts[bin] + value * count) / total;
+                counts[bin] = total;
+                updateGaps(bin);
+                return;
+            }
+        }
+
+        System.arraycopy(centroids, index, centroids, index + 1, size - index);
+        System.arraycopy(counts, index, counts, index + 1, size - index);
+        centroids[index] = value;
+        counts[index]    = count;
+        minGapBin = -1;
+
+        if (++size > maxBins) {
+            final int closest = minGapBin();
+            final long total = counts[closest] + counts[closest + 1];
+            centroids[closest] = (centroids[closest] * counts[closest]
+                + centroids[closest + 1] * counts[closest + 1]) / total;
+            counts[closest] = total;
+
+            System.arraycopy(centroids, closest + 2, centroids, closest + 1, size - closest - 2);
+            System.arraycopy(counts, closest + 2, counts, closest + 1, size - closest - 2);
+            size--;
+            minGapBin = -1;
+        }
+    }
+
+    /**
+     * Returns the smallest distance between two adjacent bins.
+     */
+    private double minGap() {
+        final int bin = minGapBin();
+        return bin < 0 ? Double.POSITIVE_INFINITY : centroids[bin + 1] - centroids[bin];
+    }
+
+    /**
+     * Returns the index of the first of the two closest bins, or {@code -1}
+     * if there are less than two bins. The result is cached until the bins
+     * change.
+     */
+    private int minGapBin() {
+        if (minGapBin < 0) {
+            double minGap = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < size - 1; i++) {
+                final double gap = centroids[i + 1] - centroids[i];
+                if (gap < minGap) {
+                    minGap    = gap;
+                    minGapBin = i;
+                }
+            }
+        }
+        return minGapBin;
+    }
+
+    /**
+     * Updates the cached smallest gap after the centroid of a bin has moved.
+     */
+    private void updateGaps(int bin) {
+        if (minGapBin < 0 || minGapBin == bin || minGapBin == bin - 1) {
+            minGapBin = -1;
+            return;
+        }
+
+        double minGap = centroids[minGapBin + 1] - centroids[minGapBin];
+        if (bin > 0 && centroids[bin] - centroids[bin - 1] < minGap) {
+            minGap    = centroids[bin] - centroids[bin - 1];
+            minGapBin = bin - 1;
+        }
+        if (bin < size - 1 && centroids[bin + 1] - centroids[bin] < minGap) {
+            minGapBin = bin;
+        }
+    }
+
+    private int binarySearch(double value) {
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (centroids[mid] < value) low = mid + 1;
+            else if (centroids[mid] > value) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,196 @@
+package com.speedment.avromocker.profile;
+
+import com.speedment.avromocker.mocker.Constraint;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * The result of checking records against a {@link Spec}. Every field is
+ * checked for values that its strategy could not have produced and for a
+ * null rate that differs too much from the requested probability. A
+ * {@link Profile} of the checked records is collected at the same time to
+ * describe the distributions.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Verification {
+
+    private final static int MAX_EXAMPLES = 5;
+
+    /**
+     * Number of standard deviations that the observed null rate may differ
+     * from the expected one without the check failing.
+     */
+    private final static double NULL_RATE_SIGMAS = 5;
+
+    private final Spec spec;
+    private final Profile profile;
+    private final long[] nulls, violations;
+    private final List<List<String>> examples;
+    private final Schema[] unions;
+    private final int[][] branches;
+    private final long[][] branchCounts;
+    private final Constraint[][] constraints;
+
+    public Verification(Spec spec) {
+        this.spec       = requireNonNull(spec);
+        this.profile    = new Profile(spec.getSchema());
+        this.nulls      = new long[spec.getFields().size()];
+        this.violations = new long[spec.getFields().size()];
+        this.examples   = new ArrayList<>(spec.getFields().size());
+        this.unions       = new Schema[spec.getFields().size()];
+        this.branches     = new int[spec.getFields().size()][];
+        this.branchCounts = new long[spec.getFields().size()][];
+        this.constraints  = new Constraint[spec.getFields().size()][];
+        for (int i = 0; i < spec.getFields().size(); i++) {
+            final Spec.FieldSpec field = spec.getFields().get(i);
+            examples.add(new ArrayList<>());
+            branches[i]     = field.getBranches();
+            constraints[i]  = field.getConstraints().toArray(new Constraint[0]);
+            branchCounts[i] = new long[constraints[i].length];
+            if (branches[i].length > 0) {
+                unions[i] = spec.getSchema().getFields().get(field.getPos()).schema();
+            }
+        }
+    }
+
+    public long getCount() {
+        return profile.getCount();
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    public void add(GenericRecord record) {
+        profile.add(record);
+
+        final List<Spec.FieldSpec> fields = spec.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            final Spec.FieldSpec field = fields.get(i);
+            final Object value = record.get(field.getPos());
+            if (value == null) {
+                nulls[i]++;
+                continue;
+            }
+
+            final int k = unions[i] == null ? 0
+                : indexOf(branches[i], GenericData.get().resolveUnion(unions[i], value));
+            if (k >= 0 && constraints[i][k].test(value)) {
+                branchCounts[i][k]++;
+            } else {
+                violations[i]++;
+                if (examples.get(i).size() < MAX_EXAMPLES) {
+                    examples.get(i).add(value.toString());
+                }
+            }
+        }
+    }
+
+    void merge(Verification other) {
+        profile.merge(other.profile);
+        for (int i = 0; i < nulls.length; i++) {
+            nulls[i] += other.nulls[i];
+            violations[i] += other.violations[i];
+            for (int k = 0; k < branchCounts[i].length; k++) {
+                branchCounts[i][k] += other.branchCounts[i][k];
+            }
+            final List<String> ex = examples.get(i);
+            for (final String value : other.examples.get(i)) {
+                if (ex.size() < MAX_EXAMPLES) ex.add(value);
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if no field had any values outside its constraint
+     * or a null rate outside the expected range.
+     *
+     * @return  if the verification passed
+     */
+    public boolean passed() {
+        for (int i = 0; i < nulls.length; i++) {
+            if (!passed(i)) return false;
+        }
+        return true;
+    }
+
+    public void print(PrintStream out) {
+        final long count = getCount();
+        out.format("Verified %,d records.%n", count);
+
+        final List<Spec.FieldSpec> fields = spec.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            final Spec.FieldSpec field = fields.get(i);
+            out.format("%s : %s%n", field.getName(), passed(i) ? "OK" : "FAILED");
+            if (constraints[i].length == 1) {
+                out.format("    values      : %s%n", constraints[i][0]);
+            } else {
+                final double[] weights = field.getWeights();
+                final long total = LongStream.of(branchCounts[i]).sum();
+                for (int k = 0; k < constraints[i].length; k++) {
+                    out.format("    %-12s: %s, share %.4f (expected %.4f)%n",
+                        unions[i].getTypes().get(branches[i][k]).getType().getName(),
+                        constraints[i][k],
+                        total == 0 ? 0d : (double) branchCounts[i][k] / total,
+                        weights[k]);
+                }
+            }
+            if (violations[i] > 0) {
+                out.format("    violations  : %,d (%s)%n", violations[i],
+                    examples.get(i).stream().collect(joining(", ")));
+            }
+            out.format("    null rate   : %.4f (expected %.4f)%n",
+                count == 0 ? 0d : (double) nulls[i] / count, field.getNullProbability());
+        }
+    }
+
+    private boolean passed(int field) {
+        return violations[field] == 0
+            && nullRateWithinTolerance(field)
+            && branchSharesWithinTolerance(field);
+    }
+
+    private boolean branchSharesWithinTolerance(int field) {
+        final long[] counts = branchCounts[field];
+        if (counts.length == 1) return true;
+
+        final long total = LongStream.of(counts).sum();
+        final double[] weights = spec.getFields().get(field).getWeights();
+        for (int k = 0; k < counts.length; k++) {
+            if (!withinTolerance(counts[k], total, weights[k])) return false;
+        }
+        return true;
+    }
+
+    private boolean nullRateWithinTolerance(int field) {
+        return withinTolerance(nulls[field], getCount(), spec.getFields().get(field).getNullProbability());
+    }
+
+    private static boolean withinTolerance(long hits, long count, double p) {
+        if (count == 0) return true;
+        if (p == 0) return hits == 0;
+        if (p == 1) return hits == count;
+
+        final double observed  = (double) hits / count;
+        final double tolerance = NULL_RATE_SIGMAS * Math.sqrt(p * (1 - p) / count) + 1d / count;
+        return Math.abs(observed - p) <= tolerance;
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) return i;
+        }
+        return -1;
+    }
+}
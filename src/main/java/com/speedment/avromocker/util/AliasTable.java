@@ -0,0 +1,101 @@
+package com.speedment.avromocker.util;
+
+import java.util.Random;
+
+/**
+ * Samples indexes {@code 0..n-1} with arbitrary weights in constant time
+ * using Vose's alias method. Each sample uses a single random word: the high
+ * half selects a column and the low half is compared with the fixed-point
+ * cutoff of that column, so no floating point or search is involved.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class AliasTable {
+
+    private final long[] cutoffs;
+    private final int[] aliases;
+
+    public AliasTable(double... weights) {
+        final int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("At least one weight is required.");
+        }
+
+        double sum = 0;
+        for (final double weight : weights) {
+            if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Weights must be finite and non-negative.");
+            }
+            sum += weight;
+        }
+
+        if (sum == 0) {
+            throw new IllegalArgumentException("At least one weight must be positive.");
+        }
+
+        this.cutoffs = new long[n];
+        this.aliases = new int[n];
+
+        final double[] scaled = new double[n];
+        final int[] small = new int[n], large = new int[n];
+        int smalls = 0, larges = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1) small[smalls++] = i;
+            else large[larges++] = i;
+        }
+
+        while (smalls > 0 && larges > 0) {
+            final int s = small[--smalls], l = large[--larges];
+            cutoffs[s] = toFixed(scaled[s]);
+            aliases[s] = l;
+            scaled[l] -= 1 - scaled[s];
+            if (scaled[l] < 1) small[smalls++] = l;
+            else large[larges++] = l;
+        }
+
+        // Whatever remains is 1 apart from rounding errors
+        while (larges > 0) {
+            final int l = large[--larges];
+            cutoffs[l] = 1L << 32;
+            aliases[l] = l;
+        }
+        while (smalls > 0) {
+            final int s = small[--smalls];
+            cutoffs[s] = 1L << 32;
+            aliases[s] = s;
+        }
+    }
+
+    public int size() {
+        return cutoffs.length;
+    }
+
+    /**
+     * Returns the next index.
+     *
+     * @param random  the random generator to use
+     * @return        index between 0 (inclusive) and {@link #size()}
+     *                (exclusive)
+     */
+    public int next(Random random) {
+        return next(random.nextLong());
+    }
+
+    /**
+     * Returns the index selected by the specified random word.
+     *
+     * @param word  uniformly distributed random bits
+     * @return      index between 0 (inclusive) and {@link #size()}
+     *              (exclusive)
+     */
+    public int next(long word) {
+        final int column = (int) (((word >>> 32) * cutoffs.length) >>> 32);
+        return (word & 0xffffffffL) < cutoffs[column] ? column : aliases[column];
+    }
+
+    private static long toFixed(double probability) {
+        return Math.min(1L << 32, Math.round(probability * (1L << 32)));
+    }
+}
@@ -0,0 +1,86 @@
+package com.speedment.avromocker.util;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericDatumReader;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static java.lang.String.format;
+
+/**
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class AvroFileUtil {
+
+    /**
+     * Returns the schema stored in the header of an avro-file.
+     *
+     * @param file  the avro-file
+     * @return      the schema of the file
+     */
+    public static Schema schemaOf(File file) throws IOException {
+        try (final DataFileReader<Object> reader =
+                 new DataFileReader<>(file, new GenericDatumReader<>())) {
+            return reader.getSchema();
+        }
+    }
+
+    /**
+     * Counts the records in an avro-file. Only the header of every block is
+     * read, so no records are decoded or decompressed.
+     *
+     * @param file  the avro-file
+     * @return      the number of records in the file
+     */
+    public static long count(File file) throws IOException {
+        final long headerEnd;
+        try (final DataFileReader<Object> reader =
+                 new DataFileReader<>(file, new GenericDatumReader<>())) {
+            headerEnd = reader.previousSync();
+        }
+
+        final byte[] sync   = new byte[DataFileConstants.SYNC_SIZE];
+        final byte[] marker = new byte[DataFileConstants.SYNC_SIZE];
+
+        try (final RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(headerEnd - sync.length);
+            in.readFully(sync);
+
+            final long length = in.length();
+            long count = 0;
+            while (in.getFilePointer() < length) {
+                count += readLong(in);
+                final long size = readLong(in);
+                in.seek(in.getFilePointer() + size);
+                in.readFully(marker);
+                if (!Arrays.equals(sync, marker)) {
+                    throw new IOException(format(
+                        "Invalid sync marker before position %,d in '%s'.",
+                        in.getFilePointer(), file));
+                }
+            }
+
+            return count;
+        }
+    }
+
+    private static long readLong(RandomAccessFile in) throws IOException {
+        long n = 0;
+        int shift = 0, b;
+        do {
+            if ((b = in.read()) < 0) throw new EOFException();
+            n |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    private AvroFileUtil() {}
+}
@@ -0,0 +1,67 @@
+package com.speedment.avromocker.util;
+
+import org.apache.avro.util.Utf8;
+
+/**
+ * Utility methods for computing well-distributed 64-bit hashes of the values
+ * found in Avro records.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class HashUtil {
+
+    private final static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Scrambles the bits of the specified value using the SplitMix64
+     * finalizer. Consecutive inputs produce statistically independent
+     * outputs.
+     *
+     * @param value  the value to scramble
+     * @return       the scrambled value
+     */
+    public static long mix64(long value) {
+        long z = value + GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns a 64-bit hash of the specified value. Avro strings are hashed
+     * directly from their encoded bytes so that no intermediate
+     * {@code String} has to be allocated.
+     *
+     * @param value  the value to hash (may be {@code null})
+     * @return       the hash
+     */
+    public static long hash(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Long || value instanceof Integer) {
+            return mix64(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            return mix64(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Utf8) {
+            final Utf8 utf8 = (Utf8) value;
+            final byte[] bytes = utf8.getBytes();
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < utf8.getByteLength(); i++) {
+                h = (h ^ (bytes[i] & 0xff)) * 0x100000001b3L;
+            }
+            return mix64(h);
+        } else if (value instanceof CharSequence) {
+            final CharSequence str = (CharSequence) value;
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < str.length(); i++) {
+                h = (h ^ str.charAt(i)) * 0x100000001b3L;
+            }
+            return mix64(h);
+        } else {
+            return mix64(value.hashCode());
+        }
+    }
+
+    private HashUtil() {}
+}
@@ -0,0 +1,56 @@
+package com.speedment.avromocker.util;
+
+/**
+ * A pseudo-random bijection of the range {@code [0, size)} onto itself. Uses
+ * a balanced Feistel network over the smallest power of two covering the
+ * range, cycle-walking until the result falls inside the range. No memory
+ * proportional to the size is required.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class Permutation {
+
+    private final static int ROUNDS = 4;
+
+    private final long size;
+    private final long seed;
+    private final int halfBits;
+    private final long halfMask;
+
+    public Permutation(long size, long seed) {
+        if (size <= 0) {
+            throw new IllegalArgumentException(
+                "Size of permutation must be positive.");
+        }
+
+        final int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(size - 1));
+        this.size     = size;
+        this.seed     = seed;
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long apply(long index) {
+        long value = index;
+        do {
+            value = encrypt(value);
+        } while (Long.compareUnsigned(value, size) >= 0);
+        return value;
+    }
+
+    private long encrypt(long value) {
+        long left  = (value >>> halfBits) & halfMask;
+        long right = value & halfMask;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long next = left ^ (HashUtil.mix64(seed + round * 0x632be59bd9b4e019L + right) & halfMask);
+            left  = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+}
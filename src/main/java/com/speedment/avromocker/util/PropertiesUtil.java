@@ -0,0 +1,55 @@
+package com.speedment.avromocker.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class PropertiesUtil {
+
+    /**
+     * Reads a UTF-8 encoded properties file.
+     *
+     * @param file  the file to read
+     * @return      the properties in the file
+     */
+    public static Properties load(File file) throws IOException {
+        final Properties props = new Properties();
+        try (final Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        return props;
+    }
+
+    /**
+     * Writes properties to a UTF-8 encoded file. The properties are written
+     * to a temporary file next to it that then replaces the file atomically,
+     * so that a crash never leaves a partial file behind.
+     *
+     * @param props  the properties to write
+     * @param file   the file to write to
+     */
+    public static void store(Properties props, File file) throws IOException {
+        final Path target = file.toPath();
+        final Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (final Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            props.store(writer, null);
+        }
+
+        Files.move(temp, target, ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    private PropertiesUtil() {}
+
+}
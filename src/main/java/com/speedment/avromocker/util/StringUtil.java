@@ -0,0 +1,39 @@
+package com.speedment.avromocker.util;
+
+import org.apache.avro.util.Utf8;
+
+/**
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class StringUtil {
+
+    /**
+     * Returns the length of the specified string in UTF-16 code units, like
+     * {@link String#length()}. For {@link Utf8} strings, the length is
+     * computed from the encoded bytes without decoding them into a new
+     * {@code String} like {@link Utf8#length()} would.
+     *
+     * @param str  the string
+     * @return     the length
+     */
+    public static int length(CharSequence str) {
+        if (str instanceof Utf8) {
+            final Utf8 utf8 = (Utf8) str;
+            final byte[] bytes = utf8.getBytes();
+            int length = 0;
+            for (int i = 0; i < utf8.getByteLength(); i++) {
+                final int b = bytes[i] & 0xff;
+                if ((b & 0xc0) != 0x80) {
+                    // Four byte sequences are represented by surrogate pairs
+                    length += b >= 0xf0 ? 2 : 1;
+                }
+            }
+            return length;
+        } else {
+            return str.length();
+        }
+    }
+
+    private StringUtil() {}
+}
@@ -0,0 +1,84 @@
+package com.speedment.avromocker.util;
+
+import java.util.Random;
+
+/**
+ * Samples ranks {@code 1..n} from a Zipf distribution in constant time and
+ * memory using rejection-inversion (Hörmann &amp; Derflinger, 1996). Suitable
+ * for very large {@code n} since no table of probabilities is built.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class ZipfSampler {
+
+    private final long size;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralSize;
+    private final double s;
+
+    public ZipfSampler(long size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive.");
+        }
+
+        if (exponent <= 0) {
+            throw new IllegalArgumentException("Exponent must be positive.");
+        }
+
+        this.size          = size;
+        this.exponent      = exponent;
+        this.hIntegralX1   = hIntegral(1.5) - 1;
+        this.hIntegralSize = hIntegral(size + 0.5);
+        this.s             = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Returns the next rank, where rank 1 is the most frequent.
+     *
+     * @param random  the random generator to use
+     * @return        rank between 1 and {@code size} (inclusive)
+     */
+    public long next(Random random) {
+        while (true) {
+            final double u = hIntegralSize + random.nextDouble() * (hIntegralX1 - hIntegralSize);
+            final double x = hIntegralInverse(u);
+
+            long k = (long) (x + 0.5);
+            if (k < 1) k = 1;
+            else if (k > size) k = size;
+
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double hIntegral(double x) {
+        final double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) t = -1;
+        return Math.exp(helper1(t) * x);
+    }
+
+    private static double helper1(double x) {
+        return Math.abs(x) > 1e-8
+            ? Math.log1p(x) / x
+            : 1 - x * (0.5 - x * (1 / 3d - x * 0.25));
+    }
+
+    private static double helper2(double x) {
+        return Math.abs(x) > 1e-8
+            ? Math.expm1(x) / x
+            : 1 + x * 0.5 * (1 + x * (1 / 3d) * (1 + x * 0.25));
+    }
+}
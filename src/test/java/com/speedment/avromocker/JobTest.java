@@ -0,0 +1,110 @@
+package com.speedment.avromocker;
+
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.speedment.avromocker.commandline.CommandLineUtil.parseArgs;
+import static java.util.Collections.singletonList;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("Job")
+class JobTest {
+
+    private final static int PARENTS  = 1_000;
+    private final static int CHILDREN = 20_000;
+
+    @Test
+    @DisplayName("References to incremented keys")
+    void increment() throws IOException {
+        references("incr from 1");
+    }
+
+    @Test
+    @DisplayName("References to permuted keys")
+    void permutation() throws IOException {
+        references("perm from 1000 to 100000");
+    }
+
+    /**
+     * Runs a job where the child references the parent key generated with
+     * the specified strategy, and a random parent field that is recorded in
+     * an index while the parent is generated.
+     */
+    private static void references(String keyStrategy) throws IOException {
+        final File dir = Files.createTempDirectory("job").toFile();
+        dir.deleteOnExit();
+
+        write(dir, "parent.avsc", "{\"type\":\"record\",\"name\":\"Parent\",\"fields\":["
+            + "{\"name\":\"id\",\"type\":\"long\"},{\"name\":\"code\",\"type\":\"long\"}]}");
+        write(dir, "parent.settings", PARENTS + "\n" + keyStrategy + "\nrand from 0 to 1000000\n");
+        write(dir, "child.avsc", "{\"type\":\"record\",\"name\":\"Child\",\"fields\":["
+            + "{\"name\":\"id\",\"type\":\"long\"},{\"name\":\"parent\",\"type\":\"long\"},"
+            + "{\"name\":\"code\",\"type\":\"long\"}]}");
+        write(dir, "child.settings", CHILDREN + "\nincr\nref Parent.id skew 1.2\nref Parent.code\n");
+        final File job = write(dir, "test.job",
+            "# parent before child\nparent.avsc parent.settings parent.avro\n"
+                + "child.avsc child.settings child.avro\n");
+
+        Job.run(job, parseArgs("-seed", "42"));
+
+        final List<GenericRecord> parents = read(dir, "parent.avro");
+        final List<GenericRecord> children = read(dir, "child.avro");
+        Assertions.assertEquals(PARENTS, parents.size());
+        Assertions.assertEquals(CHILDREN, children.size());
+
+        final Set<Object> ids = new HashSet<>(), codes = new HashSet<>();
+        for (final GenericRecord parent : parents) {
+            Assertions.assertTrue(ids.add(parent.get("id")), "Duplicate parent key " + parent.get("id"));
+            codes.add(parent.get("code"));
+        }
+
+        final Set<Object> referencedIds = new HashSet<>(), referencedCodes = new HashSet<>();
+        for (final GenericRecord child : children) {
+            Assertions.assertTrue(ids.contains(child.get("parent")),
+                "Child #" + child.get("id") + " references missing key " + child.get("parent"));
+            Assertions.assertTrue(codes.contains(child.get("code")),
+                "Child #" + child.get("id") + " references missing code " + child.get("code"));
+            referencedIds.add(child.get("parent"));
+            referencedCodes.add(child.get("code"));
+        }
+
+        // Every reference must not just pick the same few keys
+        Assertions.assertTrue(referencedIds.size() > PARENTS / 4, "Only " + referencedIds.size() + " keys referenced");
+        Assertions.assertTrue(referencedCodes.size() > PARENTS / 2, "Only " + referencedCodes.size() + " codes referenced");
+    }
+
+    private static File write(File dir, String name, String content) throws IOException {
+        final File file = new File(dir, name);
+        file.deleteOnExit();
+        Files.write(file.toPath(), singletonList(content), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<GenericRecord> read(File dir, String name) throws IOException {
+        final File file = new File(dir, name);
+        file.deleteOnExit();
+
+        final List<GenericRecord> records = new ArrayList<>();
+        try (final DataFileReader<GenericRecord> reader =
+                 new DataFileReader<>(file, new GenericDatumReader<>())) {
+            for (final GenericRecord record : reader) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,91 @@
+package com.speedment.avromocker;
+
+import com.speedment.avromocker.output.Manifest;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("Shard")
+class ShardTest {
+
+    @Test
+    @DisplayName("Shards cover every record once")
+    void ranges() {
+        for (final long total : new long[] {0, 1, 7, 1_000, 1_000_003, Long.MAX_VALUE}) {
+            for (final int shards : new int[] {1, 3, 16, 1_000}) {
+                for (final long unit : new long[] {1, 1_000}) {
+                    long expected = 0;
+                    for (int k = 0; k < shards; k++) {
+                        final Shard shard = new Shard(k, shards);
+                        final long first = shard.first(total, unit);
+                        final long end = shard.end(total, unit);
+                        Assertions.assertEquals(expected, first, "Gap before shard " + k + " of " + total);
+                        Assertions.assertTrue(end >= first, "Negative shard " + k + " of " + total);
+                        Assertions.assertTrue(first % unit == 0, "Shard " + k + " splits a unit");
+                        Assertions.assertTrue((end - first) / unit - total / unit / shards <= 2,
+                            "Uneven shard " + k + " of " + total);
+                        expected = end;
+                    }
+                    Assertions.assertEquals(total, expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parse shards")
+    void parse() {
+        final Shard shard = Shard.parse("3/16");
+        Assertions.assertEquals(3, shard.getShard());
+        Assertions.assertEquals(16, shard.getShards());
+        Assertions.assertEquals(new File("out", "events-00003-of-00016.avro"),
+            shard.fileFor(new File("out", "events.avro")));
+        Assertions.assertEquals(new File("events-00003-of-00016"), shard.fileFor(new File("events")));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Shard.parse("4/4"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Shard.parse("0/0"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Shard.parse("-1/4"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Shard.parse("1"));
+    }
+
+    @Test
+    @DisplayName("Merge the manifests of shards")
+    void merge() throws IOException {
+        final File directory = Files.createTempDirectory("shards").toFile();
+        final File output = new File(directory, "data.avro");
+        final long total = 10;
+
+        for (int k = 0; k < 3; k++) {
+            final Shard shard = new Shard(k, 3);
+            final File file = shard.fileFor(output);
+            Files.write(file.toPath(), new byte[] {(byte) k, 1, 2, 3});
+            Manifest.of(file, 42, 7, k, 3, shard.first(total, 1), shard.end(total, 1))
+                .write(Manifest.fileFor(file));
+        }
+
+        final List<Manifest> shards = Shard.merge(output);
+        Assertions.assertEquals(3, shards.size());
+        Assertions.assertEquals(total, shards.stream().mapToLong(Manifest::getCount).sum());
+        Assertions.assertTrue(Manifest.fileFor(output).isFile());
+
+        // A changed file is detected even if the size is the same
+        final File second = new Shard(1, 3).fileFor(output);
+        Files.write(second.toPath(), new byte[] {9, 1, 2, 3});
+        final IllegalStateException changed = Assertions.assertThrows(
+            IllegalStateException.class, () -> Shard.merge(output));
+        Assertions.assertTrue(changed.getMessage().contains("checksum"), changed.getMessage());
+
+        // So is a missing shard
+        Files.delete(Manifest.fileFor(second).toPath());
+        final IllegalStateException missing = Assertions.assertThrows(
+            IllegalStateException.class, () -> Shard.merge(output));
+        Assertions.assertTrue(missing.getMessage().contains("Shard 1 is missing"), missing.getMessage());
+    }
+}
@@ -0,0 +1,45 @@
+package com.speedment.avromocker.benchmark;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Minimal timing harness for the throughput benchmarks in this package. The
+ * benchmarks are not part of the test suite and are run manually from their
+ * {@code main}-methods.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+final class BenchmarkUtil {
+
+    private final static int WARMUP_ROUNDS = 3;
+    private final static int ROUNDS = 5;
+
+    /**
+     * Invokes the specified operation {@code iterations} times per round and
+     * prints the best throughput observed after warming up.
+     *
+     * @param name        name of the benchmark
+     * @param iterations  number of iterations per round
+     * @param operation   operation to invoke, given the iteration index
+     * @return            the best throughput in operations per second
+     */
+    static double run(String name, long iterations, LongConsumer operation) {
+        double best = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            final long start = System.nanoTime();
+            for (long i = 0; i < iterations; i++) {
+                operation.accept(i);
+            }
+            final double seconds = (System.nanoTime() - start) / 1e9;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.max(best, iterations / seconds);
+            }
+        }
+
+        System.out.format("%-40s %,16.0f ops/s%n", name, best);
+        return best;
+    }
+
+    private BenchmarkUtil() {}
+}
@@ -0,0 +1,103 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.output.AvroFileSink;
+import com.speedment.avromocker.output.ParallelAvroSink;
+import com.speedment.avromocker.output.Sink;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares writing a compressed Avro file on the generating thread with
+ * compressing the blocks on 1, 2, 4, 8 and 16 threads. Each operation writes
+ * a complete file, and the throughput is reported in records per second of
+ * the final file. Pass a directory as the first argument to benchmark a
+ * specific disk.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class CompressionBenchmark {
+
+    private final static int RECORDS = 250_000;
+    private final static int DISTINCT = 10_000;
+    private final static int BLOCK = DataFileConstants.DEFAULT_SYNC_INTERVAL;
+    private final static int[] THREADS = {1, 2, 4, 8, 16};
+
+    @FunctionalInterface
+    private interface SinkFactory {
+        Sink create(File file) throws IOException;
+    }
+
+    public static void main(String... args) throws IOException {
+        final Schema schema = SchemaBuilder.record("Event").fields()
+            .requiredLong("id")
+            .requiredInt("user")
+            .requiredDouble("amount")
+            .requiredString("name")
+            .requiredString("comment")
+            .endRecord();
+
+        final Random random = new Random(42);
+        final List<GenericRecord> records = new ArrayList<>(DISTINCT);
+        for (int i = 0; i < DISTINCT; i++) {
+            final GenericRecord record = new GenericData.Record(schema);
+            record.put("id", random.nextLong());
+            record.put("user", random.nextInt(100_000));
+            record.put("amount", random.nextDouble() * 1000);
+            record.put("name", "user-" + random.nextInt(100_000));
+            record.put("comment", Long.toString(random.nextLong(), 36) + Long.toString(random.nextLong(), 36));
+            records.add(record);
+        }
+
+        final File directory = args.length > 0 ? new File(args[0]) : null;
+        final File file = File.createTempFile("compression-benchmark", ".avro", directory);
+        file.deleteOnExit();
+
+        System.out.format("Writing %,d records per operation on %d processors.%n",
+            RECORDS, Runtime.getRuntime().availableProcessors());
+
+        for (final String name : new String[] {"deflate", "snappy"}) {
+            final CodecFactory codec = CodecFactory.fromString(name);
+            final double serial = run(name + ", serial", records, file,
+                f -> AvroFileSink.create(schema, f, 0, 0, codec, BLOCK));
+
+            for (final int threads : THREADS) {
+                final double parallel = run(format(name, threads), records, file,
+                    f -> ParallelAvroSink.create(schema, f, codec, threads, BLOCK, 0, 0));
+                System.out.format("%-40s %,16.0f records/s %6.2fx serial%n",
+                    format(name, threads), parallel, parallel / serial);
+            }
+        }
+    }
+
+    private static String format(String codec, int threads) {
+        return String.format("%s, %d thread%s", codec, threads, threads == 1 ? "" : "s");
+    }
+
+    private static double run(String name, List<GenericRecord> records, File file, SinkFactory factory) {
+        return RECORDS * BenchmarkUtil.run(name, 1, i -> write(records, file, factory));
+    }
+
+    private static void write(List<GenericRecord> records, File file, SinkFactory factory) {
+        try (final Sink sink = factory.create(file)) {
+            for (int i = 0; i < RECORDS; i++) {
+                sink.append(records.get(i % DISTINCT));
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private CompressionBenchmark() {}
+}
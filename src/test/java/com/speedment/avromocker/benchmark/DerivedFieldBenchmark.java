@@ -0,0 +1,62 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.mocker.Expression;
+import com.speedment.avromocker.mocker.Mocker;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.Random;
+
+/**
+ * Compares generating a record where {@code total} and {@code ship_date} are
+ * derived from other fields with generating the same record where every field
+ * is independent.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class DerivedFieldBenchmark {
+
+    private final static long RECORDS = 5_000_000;
+
+    public static void main(String... args) {
+        final Schema schema = SchemaBuilder.record("Order").fields()
+            .requiredLong("id")
+            .requiredInt("qty")
+            .requiredDouble("price")
+            .requiredDouble("total")
+            .requiredInt("order_date")
+            .requiredInt("ship_date")
+            .endRecord();
+
+        final Mocker independent = base()
+            .withAction("total", r -> r.nextDouble() * 1000)
+            .withAction("ship_date", r -> 20170101 + r.nextInt(28))
+            .build();
+
+        final Mocker derived = base()
+            .withAction("total", Expression.compile("qty * price", Schema.Type.DOUBLE))
+            .withAction("ship_date", Expression.compile("plusDays(order_date, rand(0, 11))", Schema.Type.INT))
+            .build();
+
+        final GenericRecord record = new GenericData.Record(schema);
+        final double a = BenchmarkUtil.run("Independent fields", RECORDS, i -> independent.mock(record));
+        final double b = BenchmarkUtil.run("Derived fields", RECORDS, i -> derived.mock(record));
+        System.out.format("Derived fields run at %.1f%% of independent throughput.%n", 100 * b / a);
+    }
+
+    private static MockerBuilder base() {
+        final MockerBuilder builder = new MockerBuilder().withRandom(new Random(42));
+        final long[] id = {0};
+        return builder
+            .withAction("id", r -> id[0]++)
+            .withAction("qty", r -> r.nextInt(10) + 1)
+            .withAction("price", r -> r.nextDouble() * 100)
+            .withAction("order_date", r -> 20170101 + r.nextInt(28));
+    }
+
+    private DerivedFieldBenchmark() {}
+}
@@ -0,0 +1,69 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.mocker.Entities;
+import com.speedment.avromocker.mocker.Mocker;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import com.speedment.avromocker.mocker.MockerBuilderUtil;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * Measures how many events per second are scheduled for populations of
+ * increasing size, and how many records per second are generated when the
+ * fields of a clickstream record read the state of the entity. The memory
+ * used per entity is fixed at {@link Entities#BYTES_PER_ENTITY} bytes, so
+ * 100 million entities need about 4.4 GB of direct memory, which may have
+ * to be allowed with {@code -XX:MaxDirectMemorySize}. Run with the number of
+ * entities as arguments to try other sizes.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class EntityBenchmark {
+
+    private final static long EVENTS = 10_000_000;
+
+    public static void main(String... args) {
+        final int[] sizes = args.length > 0
+            ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+            : new int[] {1_000, 1_000_000, 10_000_000};
+
+        for (final int size : sizes) {
+            final long started = System.nanoTime();
+            final Entities entities = new Entities(42, size, 0, 10, 30_000, 86_400_000);
+            final double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.format("%,d entities use %,d MB off-heap and were created in %.2f s.%n",
+                size, (long) size * Entities.BYTES_PER_ENTITY >> 20, seconds);
+
+            BenchmarkUtil.run(String.format("events of %,d entities", size), EVENTS, i -> entities.next());
+        }
+
+        final Schema schema = SchemaBuilder.record("Click").fields()
+            .requiredInt("user")
+            .name("time").type(LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG))).noDefault()
+            .requiredInt("session")
+            .requiredInt("seq")
+            .requiredString("page")
+            .endRecord();
+
+        final Scanner scn = new Scanner(
+            "entity id\nentity time\nentity session\nentity seq\npattern /(home|search|item|cart)<6,3,8,1>\n");
+        final MockerBuilder builder = new MockerBuilder().withSeed(42);
+        for (final Schema.Field field : schema.getFields()) {
+            builder.withAction(field.name(), MockerBuilderUtil.parseField(scn, field.name(), field.schema()));
+        }
+        System.out.println();
+
+        final Mocker mocker = builder.withEntities(new Entities(42, 1_000_000, 0, 10, 30_000, 86_400_000)).build();
+        final GenericRecord record = new GenericData.Record(schema);
+        BenchmarkUtil.run("clicks of 1,000,000 entities", EVENTS, i -> mocker.mock(record));
+    }
+
+    private EntityBenchmark() {}
+}
@@ -0,0 +1,100 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.mocker.Mocker;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import com.speedment.avromocker.mocker.MockerBuilderUtil;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.UUID;
+
+/**
+ * Compares generating and encoding a record with {@code decimal},
+ * {@code uuid} and {@code timestamp-micros} fields with a record of plain
+ * longs, and with producing the same logical values through
+ * {@code BigDecimal} and {@code java.util.UUID}.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class LogicalTypeBenchmark {
+
+    private final static long RECORDS = 5_000_000;
+
+    public static void main(String... args) {
+        final Schema longs = SchemaBuilder.record("Plain").fields()
+            .requiredLong("id")
+            .requiredLong("amount")
+            .requiredLong("reference")
+            .requiredLong("created")
+            .endRecord();
+
+        final Schema logical = SchemaBuilder.record("Payment").fields()
+            .requiredLong("id")
+            .name("amount").type(LogicalTypes.decimal(18, 2).addToSchema(Schema.create(Schema.Type.BYTES))).noDefault()
+            .name("reference").type(LogicalTypes.uuid().addToSchema(Schema.create(Schema.Type.STRING))).noDefault()
+            .name("created").type(LogicalTypes.timestampMicros().addToSchema(Schema.create(Schema.Type.LONG))).noDefault()
+            .endRecord();
+
+        final Mocker plain = fromSettings(longs);
+        final Mocker fast = fromSettings(logical);
+        final Mocker naive = new MockerBuilder()
+            .withSeed(42)
+            .withAction("id", Random::nextLong)
+            .withAction("amount", r -> ByteBuffer.wrap(BigDecimal.valueOf(r.nextLong() % 1_000_000_000_000_000_000L, 2)
+                .unscaledValue().toByteArray()))
+            .withAction("reference", r -> new UUID(r.nextLong(), r.nextLong()).toString())
+            .withAction("created", Random::nextLong)
+            .build();
+
+        final double a = run("Plain longs", longs, plain);
+        final double b = run("Logical types", logical, fast);
+        final double c = run("BigDecimal and UUID", logical, naive);
+        System.out.format("Logical types run at %.1f%% of plain long throughput (%.1f%% through BigDecimal and UUID).%n",
+            100 * b / a, 100 * c / a);
+    }
+
+    private static Mocker fromSettings(Schema schema) {
+        final MockerBuilder builder = new MockerBuilder().withSeed(42);
+        final Scanner scn = new Scanner("rand\nrand\nrand\nrand\n");
+        for (final Schema.Field field : schema.getFields()) {
+            builder.withAction(field.name(), MockerBuilderUtil.parseField(scn, field.name(), field.schema()));
+        }
+        System.out.println();
+        return builder.build();
+    }
+
+    private static double run(String name, Schema schema, Mocker mocker) {
+        final GenericRecord record = new GenericData.Record(schema);
+        final GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(schema);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+        final BinaryEncoder[] encoder = {EncoderFactory.get().binaryEncoder(out, null)};
+
+        return BenchmarkUtil.run(name, RECORDS, i -> {
+            try {
+                writer.write(mocker.mock(record), encoder[0]);
+                if (out.size() > 1 << 15) {
+                    encoder[0].flush();
+                    out.reset();
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    private LogicalTypeBenchmark() {}
+}
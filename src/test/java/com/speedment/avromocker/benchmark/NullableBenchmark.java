@@ -0,0 +1,86 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.mocker.Mocker;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import com.speedment.avromocker.mocker.MockerBuilderUtil;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.function.Function;
+
+/**
+ * Compares deciding the nulls of a record with 300 nullable columns using one
+ * {@code nextDouble()} per column with deciding them all at once using a
+ * null mask, for a dense and a sparse schema.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class NullableBenchmark {
+
+    private final static int COLUMNS = 300;
+    private final static long RECORDS = 200_000;
+
+    public static void main(String... args) {
+        SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("Wide").fields();
+        for (int i = 0; i < COLUMNS; i++) {
+            fields = fields.optionalLong("c" + i);
+        }
+        final Schema schema = fields.endRecord();
+
+        for (final double nullProb : new double[] {0.3, 0.95}) {
+            final double a = run(format("Per column, %.0f%% null", nullProb * 100), schema, perColumn(schema, nullProb));
+            final double b = run(format("Null mask, %.0f%% null", nullProb * 100), schema, nullMask(schema, nullProb));
+            System.out.format("The null mask runs at %.1f%% of the per column throughput.%n", 100 * b / a);
+        }
+    }
+
+    private static Mocker perColumn(Schema schema, double nullProb) {
+        final MockerBuilder builder = new MockerBuilder().withSeed(42);
+        final Schema type = Schema.create(Schema.Type.LONG);
+        for (final Schema.Field field : schema.getFields()) {
+            final Function<Random, Object> inner = parse("in 42\n", field.name(), type);
+            builder.withAction(field.name(), r -> r.nextDouble() < nullProb ? null : inner.apply(r));
+        }
+        return builder.build();
+    }
+
+    private static Mocker nullMask(Schema schema, double nullProb) {
+        final MockerBuilder builder = new MockerBuilder().withSeed(42);
+        for (final Schema.Field field : schema.getFields()) {
+            builder.withAction(field.name(), parse(nullProb + "\nin 42\n", field.name(), field.schema()));
+        }
+        return builder.build();
+    }
+
+    private static Function<Random, Object> parse(String settings, String name, Schema schema) {
+        final PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {} // Hide the prompts
+        }));
+
+        try {
+            return MockerBuilderUtil.parseField(new Scanner(settings), name, schema);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    private static double run(String name, Schema schema, Mocker mocker) {
+        final GenericRecord record = new GenericData.Record(schema);
+        return BenchmarkUtil.run(name, RECORDS, i -> mocker.mock(record));
+    }
+
+    private static String format(String format, Object... args) {
+        return String.format(format, args);
+    }
+
+    private NullableBenchmark() {}
+}
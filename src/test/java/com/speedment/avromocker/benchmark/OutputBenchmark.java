@@ -0,0 +1,86 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.output.AvroFileSink;
+import com.speedment.avromocker.output.Sink;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares writing an Avro file through a regular output stream with writing
+ * it through a direct buffer and a file channel, with and without
+ * preallocating the file. Each operation writes a complete file, and the
+ * throughput is reported in MB/s. Pass a directory as the first argument to
+ * benchmark a specific disk.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class OutputBenchmark {
+
+    private final static int RECORDS = 1_000_000;
+    private final static int DISTINCT = 10_000;
+    private final static int BUFFER = 4 << 20;
+
+    public static void main(String... args) throws IOException {
+        final Schema schema = SchemaBuilder.record("Event").fields()
+            .requiredLong("id")
+            .requiredInt("user")
+            .requiredDouble("amount")
+            .requiredString("name")
+            .requiredString("comment")
+            .endRecord();
+
+        final Random random = new Random(42);
+        final List<GenericRecord> records = new ArrayList<>(DISTINCT);
+        for (int i = 0; i < DISTINCT; i++) {
+            final GenericRecord record = new GenericData.Record(schema);
+            record.put("id", random.nextLong());
+            record.put("user", random.nextInt(100_000));
+            record.put("amount", random.nextDouble() * 1000);
+            record.put("name", "user-" + random.nextInt(100_000));
+            record.put("comment", Long.toString(random.nextLong(), 36) + Long.toString(random.nextLong(), 36));
+            records.add(record);
+        }
+
+        final File directory = args.length > 0 ? new File(args[0]) : null;
+        final File file = File.createTempFile("output-benchmark", ".avro", directory);
+        file.deleteOnExit();
+
+        write(schema, records, file, 0, 0);
+        final double megabytes = file.length() / 1e6;
+        System.out.format("Writing %,d records (%.1f MB) per operation.%n", RECORDS, megabytes);
+
+        final double a = megabytes * BenchmarkUtil.run("Output stream", 1,
+            i -> write(schema, records, file, 0, 0));
+        final double b = megabytes * BenchmarkUtil.run("Direct buffer and channel", 1,
+            i -> write(schema, records, file, BUFFER, 0));
+        final double c = megabytes * BenchmarkUtil.run("Direct buffer, preallocated", 1,
+            i -> write(schema, records, file, BUFFER, file.length()));
+
+        System.out.format("Output stream:               %,8.1f MB/s%n", a);
+        System.out.format("Direct buffer and channel:   %,8.1f MB/s%n", b);
+        System.out.format("Direct buffer, preallocated: %,8.1f MB/s%n", c);
+    }
+
+    private static void write(Schema schema, List<GenericRecord> records, File file,
+                              int bufferSize, long preallocate) {
+        try (final Sink sink = AvroFileSink.create(schema, file, bufferSize, preallocate)) {
+            for (int i = 0; i < RECORDS; i++) {
+                sink.append(records.get(i % DISTINCT));
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private OutputBenchmark() {}
+}
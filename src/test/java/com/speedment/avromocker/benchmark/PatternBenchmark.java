@@ -0,0 +1,65 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.mocker.MockerBuilderUtil;
+import com.speedment.avromocker.mocker.RecordRandom;
+import org.apache.avro.Schema;
+
+import java.util.Random;
+import java.util.Scanner;
+import java.util.function.Function;
+
+/**
+ * Measures how many strings per second the {@code pattern} strategy
+ * generates for a few formatted identifiers, compared with the {@code rand}
+ * strategy producing random strings of a similar length and with building
+ * the same identifiers by hand with a {@code StringBuilder}.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class PatternBenchmark {
+
+    private final static long STRINGS = 20_000_000;
+
+    public static void main(String... args) {
+        final RecordRandom random = new RecordRandom(42);
+        final Function<Random, Object> handwritten = r -> {
+            final StringBuilder str = new StringBuilder(10);
+            for (int i = 0; i < 3; i++) str.append((char) ('A' + r.nextInt(26)));
+            str.append('-');
+            for (int i = 0; i < 6; i++) str.append((char) ('0' + r.nextInt(10)));
+            return str.toString();
+        };
+
+        final double a = run("rand from 10 to 11", random, parse("rand from 10 to 11"));
+        final double b = run("StringBuilder [A-Z]{3}-\\d{6}", random, handwritten);
+        final double c = run("pattern [A-Z]{3}-\\d{6}", random, parse("pattern [A-Z]{3}-\\d{6}"));
+        run("pattern \\d{3}-\\d{3}-\\d{4}", random, parse("pattern \\d{3}-\\d{3}-\\d{4}"));
+        run("pattern [a-z]{3,10}\\.[a-z]{2,8}@(gmail|yahoo|outlook)<5,3,2>\\.com", random,
+            parse("pattern [a-z]{3,10}\\.[a-z]{2,8}@(gmail|yahoo|outlook)<5,3,2>\\.com"));
+
+        System.out.format("The pattern strategy runs at %.1f%% of rand and %.1f%% of the StringBuilder.%n",
+            100 * c / a, 100 * c / b);
+    }
+
+    private static Function<Random, Object> parse(String strategy) {
+        final Scanner scn = new Scanner(strategy + "\n");
+        final Function<Random, Object> generator =
+            MockerBuilderUtil.parseField(scn, "id", Schema.create(Schema.Type.STRING));
+        System.out.println();
+        return generator;
+    }
+
+    private static double run(String name, RecordRandom random, Function<Random, Object> generator) {
+        final long[] length = new long[1];
+        final double result = BenchmarkUtil.run(name, STRINGS, i -> {
+            random.seek(i);
+            length[0] += ((String) generator.apply(random)).length();
+        });
+
+        if (length[0] == 0) throw new AssertionError();
+        return result;
+    }
+
+    private PatternBenchmark() {}
+}
@@ -0,0 +1,53 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.mocker.MockerBuilderUtil;
+import com.speedment.avromocker.mocker.RecordRandom;
+import org.apache.avro.Schema;
+
+import java.util.Random;
+import java.util.Scanner;
+import java.util.function.Function;
+
+/**
+ * Measures how many values per second strategies generate with and without
+ * {@code repeat}, when records are generated in order and when every record
+ * starts at a random position, which is the worst case where the start of
+ * the run has to be searched for.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class RepeatBenchmark {
+
+    private final static long VALUES = 20_000_000;
+
+    public static void main(String... args) {
+        final Schema integer = Schema.create(Schema.Type.LONG);
+        final Schema string = Schema.create(Schema.Type.STRING);
+        final RecordRandom random = new RecordRandom(42);
+
+        run("rand from 0 to 1000000", random, integer, false);
+        run("rand from 0 to 1000000 repeat 0.5", random, integer, false);
+        run("rand from 0 to 1000000 repeat 0.99", random, integer, false);
+        run("rand from 0 to 1000000 repeat 0.99", random, integer, true);
+        run("rand from 8 to 32", random, string, false);
+        run("rand from 8 to 32 repeat 0.9", random, string, false);
+        run("rand from 8 to 32 repeat 0.9 prefix 6", random, string, false);
+    }
+
+    private static void run(String strategy, RecordRandom random, Schema schema, boolean shuffled) {
+        final Function<Random, Object> generator = MockerBuilderUtil.parseField(
+            new Scanner(strategy + "\n"), "repeat", schema);
+        System.out.println();
+
+        final long[] sum = new long[1];
+        BenchmarkUtil.run(shuffled ? strategy + " (shuffled)" : strategy, VALUES, i -> {
+            random.seek(shuffled ? Long.remainderUnsigned(i * 0x9e3779b97f4a7c15L, VALUES) : i);
+            sum[0] += generator.apply(random).hashCode();
+        });
+
+        if (sum[0] == 0) throw new AssertionError();
+    }
+
+    private RepeatBenchmark() {}
+}
@@ -0,0 +1,55 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.mocker.MockerBuilderUtil;
+import com.speedment.avromocker.mocker.RecordRandom;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+
+import java.util.Random;
+import java.util.Scanner;
+import java.util.function.Function;
+
+/**
+ * Measures how many values per second the {@code walk}, {@code seasonal}
+ * and {@code events} strategies generate when records are generated in
+ * order, compared with the stateless {@code rand} strategy. The walk is also
+ * measured when every record starts at a random position, which is the
+ * worst case where every value is stepped to from the start of its segment.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class SeriesBenchmark {
+
+    private final static long VALUES = 20_000_000;
+
+    public static void main(String... args) {
+        final Schema decimal = Schema.create(Schema.Type.DOUBLE);
+        final Schema timestamp = LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG));
+        final RecordRandom random = new RecordRandom(42);
+
+        run("rand from 0 to 100", random, decimal, false);
+        run("walk from 0 to 100 step 0.5", random, decimal, false);
+        run("seasonal from 0 to 100 period 1000 noise 2", random, decimal, false);
+        run("events gap 1000 fixed", random, timestamp, false);
+        run("events gap 1000 exp", random, timestamp, false);
+        run("events gap 1000 exp late 0.05", random, timestamp, false);
+        run("walk from 0 to 100 step 0.5 segment 64", random, decimal, true);
+    }
+
+    private static void run(String strategy, RecordRandom random, Schema schema, boolean shuffled) {
+        final Function<Random, Object> generator = MockerBuilderUtil.parseField(
+            new Scanner(strategy + "\n"), "series", schema);
+        System.out.println();
+
+        final double[] sum = new double[1];
+        BenchmarkUtil.run(shuffled ? strategy + " (shuffled)" : strategy, VALUES, i -> {
+            random.seek(shuffled ? Long.remainderUnsigned(i * 0x9e3779b97f4a7c15L, VALUES) : i);
+            sum[0] += ((Number) generator.apply(random)).doubleValue();
+        });
+
+        if (sum[0] == 0) throw new AssertionError();
+    }
+
+    private SeriesBenchmark() {}
+}
@@ -0,0 +1,119 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.output.AvroFileSink;
+import com.speedment.avromocker.output.ColumnarSink;
+import com.speedment.avromocker.output.EncoderSink;
+import com.speedment.avromocker.output.FramedSink;
+import com.speedment.avromocker.output.Sink;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the throughput of the output formats: the Avro container format,
+ * newline-delimited Avro JSON, raw binary datums, length-prefixed schema
+ * registry messages and one container file per field. Each operation writes
+ * the same records, and the throughput is reported in records per second and
+ * in MB/s of output. Pass a directory as the first argument to benchmark a
+ * specific disk.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class SinkBenchmark {
+
+    private final static int RECORDS = 500_000;
+    private final static int DISTINCT = 10_000;
+
+    @FunctionalInterface
+    private interface SinkFactory {
+        Sink create(Schema schema, File file) throws IOException;
+    }
+
+    public static void main(String... args) throws IOException {
+        final Schema schema = SchemaBuilder.record("Event").fields()
+            .requiredLong("id")
+            .requiredInt("user")
+            .requiredDouble("amount")
+            .requiredString("name")
+            .optionalString("comment")
+            .endRecord();
+
+        final Random random = new Random(42);
+        final List<GenericRecord> records = new ArrayList<>(DISTINCT);
+        for (int i = 0; i < DISTINCT; i++) {
+            final GenericRecord record = new GenericData.Record(schema);
+            record.put("id", random.nextLong());
+            record.put("user", random.nextInt(100_000));
+            record.put("amount", random.nextDouble() * 1000);
+            record.put("name", "user-" + random.nextInt(100_000));
+            record.put("comment", random.nextBoolean() ? null
+                : Long.toString(random.nextLong(), 36) + Long.toString(random.nextLong(), 36));
+            records.add(record);
+        }
+
+        final File directory = Files.createTempDirectory(
+            args.length > 0 ? new File(args[0]).toPath() : null, "sink-benchmark").toFile();
+        directory.deleteOnExit();
+
+        run("Avro container", schema, records, new File(directory, "out.avro"), AvroFileSink::new);
+        run("Avro JSON", schema, records, new File(directory, "out.json"), (s, f) -> EncoderSink.json(s, f, 0));
+        run("Binary datums", schema, records, new File(directory, "out.bin"), (s, f) -> EncoderSink.binary(s, f, 0));
+        run("Framed messages", schema, records, new File(directory, "out.framed"), (s, f) -> FramedSink.file(s, 1, f, 0));
+        run("Columnar", schema, records, new File(directory, "columns"), ColumnarSink::new);
+    }
+
+    private static void run(String name, Schema schema, List<GenericRecord> records,
+                            File file, SinkFactory factory) {
+        write(schema, records, file, factory);
+        final double megabytes = size(file) / 1e6;
+        final double throughput = RECORDS * BenchmarkUtil.run(name, 1,
+            i -> write(schema, records, file, factory));
+
+        System.out.format("%-20s %,12.0f records/s %,8.1f MB/s (%.1f MB)%n",
+            name, throughput, throughput / RECORDS * megabytes, megabytes);
+        delete(file);
+    }
+
+    private static void write(Schema schema, List<GenericRecord> records, File file, SinkFactory factory) {
+        try (final Sink sink = factory.create(schema, file)) {
+            for (int i = 0; i < RECORDS; i++) {
+                sink.append(records.get(i % DISTINCT));
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static long size(File file) {
+        final File[] children = file.listFiles();
+        if (children == null) return file.length();
+
+        long size = 0;
+        for (final File child : children) {
+            size += size(child);
+        }
+        return size;
+    }
+
+    private static void delete(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private SinkBenchmark() {}
+}
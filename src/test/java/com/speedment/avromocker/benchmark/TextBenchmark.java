@@ -0,0 +1,70 @@
+package com.speedment.avromocker.benchmark;
+
+import com.speedment.avromocker.mocker.MockerBuilderUtil;
+import com.speedment.avromocker.mocker.RecordRandom;
+import org.apache.avro.Schema;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.function.Function;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Measures how many strings per second the {@code text} strategy generates
+ * with the built-in models, compared with random strings from the
+ * {@code rand} strategy. Since the point of the models is to produce text
+ * that compresses like real text, the ratio of a deflated sample of the
+ * output is printed as well.
+ *
+ * @author Emil Forslund
+ * @since  1.0.0
+ */
+public final class TextBenchmark {
+
+    private final static long STRINGS = 10_000_000;
+    private final static int SAMPLE = 100_000;
+
+    public static void main(String... args) {
+        final RecordRandom random = new RecordRandom(42);
+        run("rand from 4 to 12", random);
+        run("text names", random);
+        run("text cities", random);
+        run("rand from 40 to 200", random);
+        run("text lorem", random);
+    }
+
+    private static void run(String strategy, RecordRandom random) {
+        final Function<Random, Object> generator = MockerBuilderUtil.parseField(
+            new Scanner(strategy + "\n"), "text", Schema.create(Schema.Type.STRING));
+        System.out.println();
+
+        final long[] length = new long[1];
+        final double throughput = BenchmarkUtil.run(strategy, STRINGS, i -> {
+            random.seek(i);
+            length[0] += ((String) generator.apply(random)).length();
+        });
+        if (length[0] == 0) throw new AssertionError();
+
+        final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        final ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        try (final DeflaterOutputStream out = new DeflaterOutputStream(deflated)) {
+            for (int i = 0; i < SAMPLE; i++) {
+                random.seek(i);
+                final byte[] bytes = generator.apply(random).toString().getBytes(StandardCharsets.UTF_8);
+                raw.write(bytes);
+                out.write(bytes);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        System.out.format("%-40s %,16.0f strings/s, deflated to %.1f%%%n",
+            strategy, throughput, 100d * deflated.size() / raw.size());
+    }
+
+    private TextBenchmark() {}
+}
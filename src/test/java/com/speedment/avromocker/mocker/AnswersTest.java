@@ -0,0 +1,48 @@
+package com.speedment.avromocker.mocker;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+import static java.util.Arrays.asList;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("Answers")
+class AnswersTest {
+
+    @Test
+    @DisplayName("next")
+    void next() {
+        final PrintStream out = System.out;
+        final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+
+        try {
+            final Answers answers = new Answers(asList(" 100 ", "incr"),
+                new Scanner("rand\n"));
+
+            Assertions.assertEquals("100", answers.next("Count: "));
+            Assertions.assertEquals("incr", answers.next("Strategy for %s:", "id"));
+            Assertions.assertEquals("", printed.toString(), "No prompt for lines");
+
+            Assertions.assertEquals("rand", answers.next("Strategy for %s:", "name"));
+            Assertions.assertEquals("Strategy for name:", printed.toString());
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    @Test
+    @DisplayName("next without more lines")
+    void nextWithoutMoreLines() {
+        final Answers answers = new Answers(asList("1"));
+        answers.next("Count: ");
+        Assertions.assertThrows(NoSuchElementException.class, () -> answers.next("Count: "));
+    }
+}
@@ -0,0 +1,120 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("Changes")
+class ChangesTest {
+
+    private final static Schema SCHEMA = SchemaBuilder.record("Customer").fields()
+        .requiredLong("id")
+        .requiredDouble("balance")
+        .endRecord();
+
+    private final static int TOTAL = 1_000;
+
+    @Test
+    @DisplayName("Changes with computed keys")
+    void computedKeys() {
+        final KeySequence id = KeySequence.ascending(Schema.Type.LONG, 100, 10, 3);
+        final Mocker base = new MockerBuilder()
+            .withSeed(42)
+            .withAction("id", id)
+            .withAction("balance", Random::nextDouble)
+            .build();
+
+        final Set<Object> baseKeys = new HashSet<>();
+        for (int i = 0; i < TOTAL; i++) {
+            baseKeys.add(base.mock(new GenericData.Record(SCHEMA), i).get("id"));
+        }
+
+        final Set<Object> inserted = new HashSet<>();
+        final int size = 10_000;
+        for (int batch = 1; batch <= 2; batch++) {
+            final Changes changes = new Changes(base, TOTAL, "id", id.keys(TOTAL), 42,
+                batch, size, new double[] {1, 8, 1}, 0);
+            final Changes again = new Changes(base, TOTAL, "id", null, 42,
+                batch, size, new double[] {1, 8, 1}, 0);
+
+            final long[] counts = new long[3];
+            for (int i = 0; i < size; i++) {
+                final GenericRecord record = new GenericData.Record(SCHEMA);
+                final int op = changes.next(record, i);
+                counts[op]++;
+
+                // Reproducing the keys by generating the base records gives the same changes
+                final GenericRecord other = new GenericData.Record(SCHEMA);
+                Assertions.assertEquals(op, again.next(other, i));
+                Assertions.assertEquals(record, other);
+
+                final Object key = record.get("id");
+                switch (op) {
+                    case Changes.INSERT :
+                        Assertions.assertFalse(baseKeys.contains(key), "Inserted an existing key " + key);
+                        Assertions.assertTrue(inserted.add(key), "Inserted a key twice " + key);
+                        break;
+                    case Changes.UPDATE :
+                        Assertions.assertTrue(baseKeys.contains(key), "Updated a missing key " + key);
+                        break;
+                    case Changes.DELETE : {
+                        Assertions.assertTrue(baseKeys.contains(key), "Deleted a missing key " + key);
+                        final long index = ((Long) key - 100) / 10;
+                        Assertions.assertEquals(base.mock(new GenericData.Record(SCHEMA), index), record);
+                        break;
+                    }
+                    default : Assertions.fail("Unknown operation " + op);
+                }
+            }
+
+            Assertions.assertEquals(0.1, counts[Changes.INSERT] / (double) size, 0.02);
+            Assertions.assertEquals(0.8, counts[Changes.UPDATE] / (double) size, 0.02);
+            Assertions.assertEquals(0.1, counts[Changes.DELETE] / (double) size, 0.02);
+        }
+    }
+
+    @Test
+    @DisplayName("Changes with generated keys and skew")
+    void generatedKeys() {
+        final Mocker base = new MockerBuilder()
+            .withSeed(7)
+            .withAction("id", Random::nextLong)
+            .withAction("balance", Random::nextDouble)
+            .build();
+
+        final Object hottest = base.mock(new GenericData.Record(SCHEMA), 0).get("id");
+        final Set<Object> baseKeys = new HashSet<>();
+        for (int i = 0; i < TOTAL; i++) {
+            baseKeys.add(base.mock(new GenericData.Record(SCHEMA), i).get("id"));
+        }
+
+        final Changes changes = new Changes(base, TOTAL, "id", null, 7,
+            1, 10_000, new double[] {0, 1, 0}, 1.2);
+
+        int hits = 0;
+        final GenericRecord record = new GenericData.Record(SCHEMA);
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertEquals(Changes.UPDATE, changes.next(record, i));
+            Assertions.assertTrue(baseKeys.contains(record.get("id")));
+            if (hottest.equals(record.get("id"))) hits++;
+        }
+
+        // The first record has a probability of about 20% with this skew
+        Assertions.assertTrue(hits > 1_000, "The first record was only updated " + hits + " times");
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Changes(base, TOTAL, "id", null, 7,
+            1, 10_000, new double[] {0, 0, 0}, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Changes(base, TOTAL, "id", null, 7,
+            0, 10_000, new double[] {1, 1, 1}, 0));
+    }
+}
@@ -0,0 +1,108 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("Entities")
+class EntitiesTest {
+
+    @Test
+    @DisplayName("next")
+    void next() {
+        final int size = 100, events = 200_000;
+        final Entities entities = new Entities(42, size, 1_000_000, 5, 100, 10_000);
+        final Entities again = new Entities(42, size, 1_000_000, 5, 100, 10_000);
+
+        final long[] counts = new long[size];
+        final long[] lasts = new long[size];
+        final int[] sessions = new int[size];
+        Arrays.fill(sessions, -1);
+
+        long time = Long.MIN_VALUE, sessionCount = 0;
+        for (int i = 0; i < events; i++) {
+            entities.next();
+            again.next();
+
+            final int e = entities.entity();
+            Assertions.assertEquals(e, again.entity());
+            Assertions.assertEquals(entities.time(), again.time());
+
+            // Events are in global time order
+            Assertions.assertTrue(entities.time() >= time, "Event before the previous at " + i);
+            Assertions.assertTrue(entities.time() >= 1_000_000, "Event before start at " + i);
+            time = entities.time();
+
+            // The state of the entity follows its own events
+            Assertions.assertEquals(counts[e]++, entities.count());
+            Assertions.assertEquals(counts[e] == 1 ? time : lasts[e], entities.last());
+            lasts[e] = time;
+
+            if (entities.sequence() == 0) {
+                Assertions.assertEquals(++sessions[e], entities.session());
+                Assertions.assertEquals(time, entities.sessionStart());
+                sessionCount++;
+            } else {
+                Assertions.assertEquals(sessions[e], entities.session());
+                Assertions.assertTrue(entities.sessionStart() <= time);
+            }
+        }
+
+        Assertions.assertTrue(Arrays.stream(counts).allMatch(c -> c > 0), "Entity without events");
+        Assertions.assertEquals(5, (double) events / sessionCount, 0.25);
+    }
+
+    @Test
+    @DisplayName("fields read the state of the entity")
+    void fields() {
+        final Schema timestamp = LogicalTypes.timestampMicros().addToSchema(Schema.create(Schema.Type.LONG));
+        final Schema schema = SchemaBuilder.record("Click").fields()
+            .requiredInt("user")
+            .name("time").type(timestamp).noDefault()
+            .requiredInt("session")
+            .requiredInt("seq")
+            .endRecord();
+
+        final Scanner scn = new Scanner("entity id\nentity time\nentity session\nentity seq\n");
+        final MockerBuilder builder = new MockerBuilder().withSeed(7);
+        for (final Schema.Field field : schema.getFields()) {
+            builder.withAction(field.name(), MockerBuilderUtil.parseField(scn, field.name(), field.schema()));
+        }
+
+        Assertions.assertThrows(IllegalStateException.class, builder::build);
+
+        final Entities entities = new Entities(7, 1_000, 0, 10, 1_000, 60_000);
+        final Entities expected = new Entities(7, 1_000, 0, 10, 1_000, 60_000);
+        final Mocker mocker = builder.withEntities(entities).build();
+        final GenericRecord record = new GenericData.Record(schema);
+
+        for (int i = 0; i < 10_000; i++) {
+            mocker.mock(record);
+            expected.next();
+            Assertions.assertEquals(expected.entity(), record.get("user"));
+            Assertions.assertEquals(expected.time() * 1_000, record.get("time"));
+            Assertions.assertEquals(expected.session(), record.get("session"));
+            Assertions.assertEquals(expected.sequence(), record.get("seq"));
+        }
+
+        Assertions.assertThrows(IllegalStateException.class, () -> mocker.mock(record, 0));
+        Assertions.assertThrows(UnsupportedOperationException.class, mocker::copy);
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> MockerBuilderUtil.parseConstraint("entity seq", timestamp));
+        Assertions.assertEquals("count", ((EntityField) MockerBuilderUtil.parseField(
+            new Scanner("entity time\nentity count\n"), "count", Schema.create(Schema.Type.INT))).getAttribute(),
+            "Times are not accepted for int fields");
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Entities(7, 0, 0, 10, 1_000, 60_000));
+    }
+}
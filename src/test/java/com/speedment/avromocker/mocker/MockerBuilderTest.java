@@ -0,0 +1,248 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.*;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("MockerBuilder")
+class MockerBuilderTest {
+
+    private final static Schema SCHEMA = SchemaBuilder.record("Order").fields()
+        .requiredInt("ship_date")
+        .requiredDouble("total")
+        .requiredInt("qty")
+        .requiredDouble("price")
+        .requiredInt("order_date")
+        .optionalLong("discount")
+        .optionalLong("net")
+        .endRecord();
+
+    @Test
+    @DisplayName("Derived fields")
+    void derivedFields() {
+        final Mocker mocker = new MockerBuilder()
+            .withRandom(new Random(1))
+            // Declared before the fields they depend on
+            .withAction("ship_date", Expression.compile("plusDays(order_date, rand(0, 11))", Schema.Type.INT))
+            .withAction("total", Expression.compile("qty * price", Schema.Type.DOUBLE))
+            .withAction("qty", r -> r.nextInt(10) + 1)
+            .withAction("price", r -> r.nextDouble() * 100)
+            .withAction("order_date", r -> 20171225 + r.nextInt(7))
+            .withAction("discount", r -> r.nextBoolean() ? null : 5L)
+            .withAction("net", Expression.compile("qty * 10 - discount", Schema.Type.LONG))
+            .build();
+
+        final GenericRecord record = new GenericData.Record(SCHEMA);
+        for (int i = 0; i < 1000; i++) {
+            mocker.mock(record);
+
+            final int qty = (Integer) record.get("qty");
+            final double price = (Double) record.get("price");
+            Assertions.assertEquals(qty * price, (Double) record.get("total"), 1e-9);
+
+            final LocalDate ordered = parse((Integer) record.get("order_date"));
+            final LocalDate shipped = parse((Integer) record.get("ship_date"));
+            final long days = shipped.toEpochDay() - ordered.toEpochDay();
+            Assertions.assertTrue(days >= 0 && days <= 10, "Shipped " + days + " days after order.");
+
+            if (record.get("discount") == null) {
+                Assertions.assertNull(record.get("net"));
+            } else {
+                Assertions.assertEquals(qty * 10L - 5L, record.get("net"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Nullable derived fields")
+    void nullableDerivedFields() {
+        final Schema schema = SchemaBuilder.record("Order").fields()
+            .optionalLong("total")
+            .requiredLong("a")
+            .endRecord();
+
+        // The derived field comes before the field it depends on
+        final Scanner scn = new Scanner("0.2\n=a * 2\nrand from 0 to 100\n");
+        final MockerBuilder builder = new MockerBuilder().withSeed(3);
+        for (final Schema.Field field : schema.getFields()) {
+            builder.withAction(field.name(), MockerBuilderUtil.parseField(scn, field.name(), field.schema()));
+        }
+
+        final Mocker mocker = builder.build();
+        int nulls = 0;
+        for (int i = 0; i < 1000; i++) {
+            final GenericRecord record = mocker.mock(new GenericData.Record(schema), i);
+            if (record.get("total") == null) {
+                nulls++;
+            } else {
+                Assertions.assertEquals((Long) record.get("a") * 2, record.get("total"));
+            }
+        }
+        Assertions.assertTrue(nulls > 100 && nulls < 300, "Expected about 200 nulls, got " + nulls);
+    }
+
+    @Test
+    @DisplayName("Derived fields depend on numbers")
+    void nonNumericDependencies() {
+        final Schema decimal = LogicalTypes.decimal(9, 2).addToSchema(Schema.create(Schema.Type.BYTES));
+        final Schema schema = SchemaBuilder.record("Order").fields()
+            .requiredLong("total")
+            .optionalLong("qty")
+            .requiredString("name")
+            .name("price").type(decimal).noDefault()
+            .endRecord();
+
+        final Mocker mocker = new MockerBuilder().withSchema(schema)
+            .withAction("total", Expression.compile("qty * 2", Schema.Type.LONG))
+            .withAction("qty", r -> 3L)
+            .withAction("name", r -> "a")
+            .withAction("price", r -> ByteBuffer.wrap(new byte[] {1}))
+            .build();
+        Assertions.assertEquals(6L, mocker.mock(new GenericData.Record(schema)).get("total"));
+
+        for (final String expression : new String[] {"name * 2", "price * 2"}) {
+            final MockerBuilder builder = new MockerBuilder().withSchema(schema)
+                .withAction("total", Expression.compile(expression, Schema.Type.LONG))
+                .withAction("qty", r -> 3L)
+                .withAction("name", r -> "a")
+                .withAction("price", r -> ByteBuffer.wrap(new byte[] {1}));
+
+            Assertions.assertThrows(IllegalArgumentException.class, builder::build, expression);
+        }
+    }
+
+    @Test
+    @DisplayName("Cyclic dependencies")
+    void cyclicDependencies() {
+        final MockerBuilder builder = new MockerBuilder()
+            .withAction("qty", Expression.compile("total / price", Schema.Type.INT))
+            .withAction("total", Expression.compile("qty * price", Schema.Type.DOUBLE))
+            .withAction("price", r -> 1.0);
+
+        Assertions.assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    @Test
+    @DisplayName("Seeded records only depend on their index")
+    void seededRecords() {
+        final Schema schema = SchemaBuilder.record("Event").fields()
+            .requiredLong("ts")
+            .requiredDouble("value")
+            .endRecord();
+
+        final Mocker mocker = new MockerBuilder()
+            .withSeed(42)
+            .withAction("ts", KeySequence.ascending(Schema.Type.LONG, 1000, 10, 7))
+            .withAction("value", Random::nextGaussian)
+            .build();
+
+        final int total = 10_000;
+        final GenericRecord[] sequential = new GenericRecord[total];
+        for (int i = 0; i < total; i++) {
+            sequential[i] = mocker.mock(new GenericData.Record(schema));
+        }
+
+        // Generate the same range as two shards in reverse order
+        final Mocker shard = mocker.copy();
+        for (int i = total / 2; i < total; i++) {
+            Assertions.assertEquals(sequential[i], shard.mock(new GenericData.Record(schema), i));
+        }
+        for (int i = 0; i < total / 2; i++) {
+            Assertions.assertEquals(sequential[i], shard.mock(new GenericData.Record(schema), i));
+        }
+
+        for (int i = 1; i < total; i++) {
+            final long ts = (Long) sequential[i].get("ts");
+            Assertions.assertTrue(ts > (Long) sequential[i - 1].get("ts"), "Keys must be increasing.");
+            Assertions.assertTrue(ts >= 1000 + i * 10L && ts < 1000 + (i + 1) * 10L);
+        }
+    }
+
+    @Test
+    @DisplayName("Parallel streams")
+    void parallelStreams() {
+        final Schema schema = SchemaBuilder.record("Event").fields()
+            .requiredLong("ts")
+            .requiredDouble("value")
+            .optionalLong("code")
+            .endRecord();
+
+        final Mocker mocker = new MockerBuilder()
+            .withSeed(42)
+            .withAction("ts", KeySequence.ascending(Schema.Type.LONG, 1000, 10, 7))
+            .withAction("value", Random::nextGaussian)
+            .withAction("code", new Nullable(r -> r.nextInt(100) + 0L, 0.3))
+            .build();
+
+        final int total = 100_000;
+        final List<GenericRecord> sequential = mocker.stream(schema, 0, total).collect(toList());
+        final List<GenericRecord> parallel = mocker.stream(schema, 0, total).parallel().collect(toList());
+        Assertions.assertEquals(sequential, parallel);
+
+        for (int i = 0; i < total; i += 997) {
+            Assertions.assertEquals(mocker.mock(new GenericData.Record(schema), i), sequential.get(i));
+        }
+
+        final List<GenericRecord> tail = mocker.stream(schema, total - 10, total).parallel().collect(toList());
+        Assertions.assertEquals(sequential.subList(total - 10, total), tail);
+    }
+
+    @Test
+    @DisplayName("Reusing streams")
+    void reusingStreams() {
+        final Schema schema = SchemaBuilder.record("Event").fields()
+            .requiredLong("ts")
+            .requiredDouble("value")
+            .endRecord();
+
+        final Mocker mocker = new MockerBuilder()
+            .withSeed(7)
+            .withAction("ts", KeySequence.ascending(Schema.Type.LONG, 0, 5, 3))
+            .withAction("value", Random::nextDouble)
+            .build();
+
+        final Set<GenericRecord> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<GenericRecord> copies = mocker.reusingStream(schema, 0, 1000)
+            .peek(instances::add)
+            .map(record -> GenericData.get().deepCopy(schema, record))
+            .collect(toList());
+
+        Assertions.assertEquals(1, instances.size(), "Every record should be the same instance.");
+        Assertions.assertEquals(mocker.stream(schema, 0, 1000).collect(toList()), copies);
+    }
+
+    @Test
+    @DisplayName("Epoch day conversion")
+    void epochDays() {
+        for (LocalDate date = LocalDate.of(1899, 12, 1);
+             date.isBefore(LocalDate.of(2101, 3, 1));
+             date = date.plusDays(1)) {
+
+            final long yyyyMMdd = date.getYear() * 10_000L + date.getMonthValue() * 100 + date.getDayOfMonth();
+            Assertions.assertEquals(date.toEpochDay(), ExpressionParser.toEpochDay(yyyyMMdd));
+            Assertions.assertEquals(yyyyMMdd, ExpressionParser.fromEpochDay(date.toEpochDay()));
+        }
+    }
+
+    private static LocalDate parse(int yyyyMMdd) {
+        return LocalDate.of(yyyyMMdd / 10_000, yyyyMMdd / 100 % 100, yyyyMMdd % 100);
+    }
+}
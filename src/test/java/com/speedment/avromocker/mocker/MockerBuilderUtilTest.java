@@ -1,14 +1,24 @@
 package com.speedment.avromocker.mocker;
 
+import org.apache.avro.LogicalTypes;
 import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
 import org.junit.jupiter.api.*;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -58,7 +68,7 @@ class MockerBuilderUtilTest {
             new TestCase("in one,two,five,three", asList("one", "five", "two", "one", "three", "five"))
         ).map(test -> dynamicTest(test.command, () -> {
             final Scanner scn = new Scanner(new MockInputStream(singletonList(test.command)));
-            final Function<Random, Object> actualFunc = MockerBuilderUtil.parseEnumField(scn, "testEnum", fieldSchema);
+            final Function<Random, Object> actualFunc = MockerBuilderUtil.parseEnumField(new Answers(scn), "testEnum", fieldSchema);
             final MockRandom actualRandom = new MockRandom();
 
             final List<String> actual = Stream.generate(() -> actualFunc.apply(actualRandom).toString())
@@ -106,7 +116,7 @@ class MockerBuilderUtilTest {
             new TestCase("date from 20160101 to 20170101", asList(20160101, 20160103, 20160102, 20160105, 20160104, 20160107))
         ).map(test -> dynamicTest(test.command, () -> {
             final Scanner scn = new Scanner(new MockInputStream(singletonList(test.command)));
-            final Function<Random, Object> actualFunc = MockerBuilderUtil.parseIntegerField(scn, "testInt", fieldSchema);
+            final Function<Random, Object> actualFunc = MockerBuilderUtil.parseIntegerField(new Answers(scn), "testInt", fieldSchema);
             final MockRandom actualRandom = new MockRandom();
 
             final List<Integer> actual = Stream.generate(() -> (Integer) actualFunc.apply(actualRandom))
@@ -122,14 +132,396 @@ class MockerBuilderUtilTest {
         }));
     }
 
+    @Test
+    @DisplayName("parseIntegerField with too wide a range")
+    void parseWideIntegerField() {
+        final Scanner scn = new Scanner("perm from -1\nrand from -1\nincr from -1\n");
+        final Function<Random, Object> generator = MockerBuilderUtil.parseIntegerField(
+            new Answers(scn), "testLong", Schema.create(Schema.Type.LONG));
+
+        // Ranges wider than a long are asked for again, unless only the start is used
+        Assertions.assertTrue(generator instanceof KeySequence);
+        Assertions.assertEquals(-1L, generator.apply(new RecordRandom(42)));
+    }
+
     @Test @Disabled
     void parseDecimalField() {
     }
 
+    @TestFactory
+    @DisplayName("parseTemporalField")
+    Stream<DynamicTest> parseTemporalField() {
+        final Schema timeMillis = LogicalTypes.timeMillis().addToSchema(Schema.create(Schema.Type.INT));
+        final Schema timestampMicros = LogicalTypes.timestampMicros().addToSchema(Schema.create(Schema.Type.LONG));
+
+        class TestCase {
+            private final Schema schema;
+            private final String command;
+            private final List<Long> expected;
+
+            public TestCase(Schema schema, String command, List<Long> expected) {
+                this.schema   = schema;
+                this.command  = command;
+                this.expected = expected;
+            }
+        }
+
+        return Stream.of(
+            new TestCase(timeMillis, "rand", asList(0L, 2L, 1L, 4L, 3L, 6L)),
+            new TestCase(timeMillis, "rand from 08:00 to 08:00:01", asList(28_800_000L, 28_800_002L, 28_800_001L, 28_800_004L, 28_800_003L, 28_800_006L)),
+            new TestCase(timeMillis, "incr from 100 to 1100 step 400", asList(100L, 500L, 900L, 300L, 700L, 100L)),
+            new TestCase(timestampMicros, "rand from 2017-01-01 to 2017-01-02", asList(1_483_228_800_000_000L, 1_483_228_800_000_002L, 1_483_228_800_000_001L, 1_483_228_800_000_004L, 1_483_228_800_000_003L, 1_483_228_800_000_006L)),
+            new TestCase(timestampMicros, "incr from 2017-01-01T00:00:00.5Z step 1000000", asList(1_483_228_800_500_000L, 1_483_228_801_500_000L, 1_483_228_802_500_000L, 1_483_228_803_500_000L, 1_483_228_804_500_000L, 1_483_228_805_500_000L))
+        ).map(test -> dynamicTest(test.command, () -> {
+            final Scanner scn = new Scanner(new MockInputStream(singletonList(test.command)));
+            final Function<Random, Object> actualFunc = MockerBuilderUtil.parseField(scn, "testTime", test.schema);
+            final MockRandom actualRandom = new MockRandom();
+
+            final List<Long> actual = Stream.generate(() -> ((Number) actualFunc.apply(actualRandom)).longValue())
+                .limit(6).collect(toList());
+
+            Assertions.assertEquals(test.expected, actual);
+        }));
+    }
+
+    @TestFactory
+    @DisplayName("parseBigDecimalField")
+    Stream<DynamicTest> parseBigDecimalField() {
+        final Schema bytes = LogicalTypes.decimal(4, 2).addToSchema(Schema.create(Schema.Type.BYTES));
+        final Schema fixed = LogicalTypes.decimal(9, 3).addToSchema(Schema.createFixed("Amount", null, null, 5));
+
+        class TestCase {
+            private final Schema schema;
+            private final String command;
+            private final List<String> expected;
+
+            public TestCase(Schema schema, String command, List<String> expected) {
+                this.schema   = schema;
+                this.command  = command;
+                this.expected = expected;
+            }
+        }
+
+        return Stream.of(
+            new TestCase(bytes, "rand", asList("-99.99", "-99.97", "-99.98", "-99.95", "-99.96", "-99.93")),
+            new TestCase(bytes, "rand from -1 to 2", asList("-1.00", "-0.98", "-0.99", "-0.96", "-0.97", "-0.94")),
+            new TestCase(bytes, "from 1.27 to 1.30", asList("1.27", "1.29", "1.28", "1.28", "1.27", "1.27")),
+            new TestCase(fixed, "rand from -0.001 to 1", asList("-0.001", "0.001", "0.000", "0.003", "0.002", "0.005"))
+        ).map(test -> dynamicTest(test.command, () -> {
+            final Scanner scn = new Scanner(new MockInputStream(singletonList(test.command)));
+            final LogicalGenerator generator = (LogicalGenerator) MockerBuilderUtil.parseField(scn, "testDecimal", test.schema);
+            final int scale = ((LogicalTypes.Decimal) test.schema.getLogicalType()).getScale();
+            final MockRandom actualRandom = new MockRandom();
+
+            // Every value reuses the buffer of the previous one
+            final Object[] previous = {null};
+            final List<String> actual = Stream.generate(() -> {
+                previous[0] = generator.apply(actualRandom, previous[0]);
+                final byte[] encoded;
+                if (previous[0] instanceof ByteBuffer) {
+                    final ByteBuffer buffer = ((ByteBuffer) previous[0]).duplicate();
+                    encoded = new byte[buffer.remaining()];
+                    buffer.get(encoded);
+                    // The shortest two's-complement representation is expected
+                    Assertions.assertArrayEquals(new BigInteger(encoded).toByteArray(), encoded);
+                } else {
+                    encoded = ((GenericFixed) previous[0]).bytes();
+                    Assertions.assertEquals(5, encoded.length);
+                }
+                return new BigDecimal(new BigInteger(encoded), scale).toPlainString();
+            }).limit(6).collect(toList());
+
+            Assertions.assertEquals(test.expected, actual);
+        }));
+    }
+
+    @Test
+    @DisplayName("parseUnionField")
+    void parseUnionField() {
+        final Schema schema = Schema.createUnion(asList(
+            Schema.create(Schema.Type.NULL),
+            Schema.create(Schema.Type.INT),
+            Schema.create(Schema.Type.STRING)));
+
+        final Scanner scn = new Scanner(new MockInputStream(asList(
+            "0.2\n", "int 3, string 1\n", "rand from 0 to 10\n", "in a, b\n")));
+        final Function<Random, Object> generator = MockerBuilderUtil.parseUnionField(new Answers(scn), "testUnion", schema);
+        Assertions.assertTrue(generator instanceof Nullable);
+
+        // Nulls are decided by the mocker rather than the generator
+        final Mocker mocker = new MockerBuilder().withSeed(42).withAction("value", generator).build();
+        final GenericRecord record = new GenericData.Record(SchemaBuilder.record("Test").fields()
+            .name("value").type(schema).noDefault().endRecord());
+
+        final int samples = 100_000;
+        int nulls = 0, ints = 0, strings = 0;
+        for (int i = 0; i < samples; i++) {
+            final Object value = mocker.mock(record).get("value");
+            if (value == null) {
+                nulls++;
+            } else if (value instanceof Integer) {
+                Assertions.assertTrue((Integer) value >= 0 && (Integer) value < 10);
+                ints++;
+            } else {
+                Assertions.assertTrue(value.equals("a") || value.equals("b"));
+                strings++;
+            }
+        }
+
+        Assertions.assertEquals(0.2, (double) nulls / samples, 0.01);
+        Assertions.assertEquals(0.75, (double) ints / (ints + strings), 0.01);
+    }
+
+    @Test
+    @DisplayName("parseUuidField")
+    void parseUuidField() {
+        final Schema schema = LogicalTypes.uuid().addToSchema(Schema.create(Schema.Type.STRING));
+        final Scanner scn = new Scanner(new MockInputStream(singletonList("rand")));
+        final LogicalGenerator generator = (LogicalGenerator) MockerBuilderUtil.parseField(scn, "testUuid", schema);
+        final Random random = new RecordRandom(42);
+
+        Object previous = null;
+        for (int i = 0; i < 1000; i++) {
+            previous = generator.apply(random, previous);
+            final String str = previous.toString();
+            final UUID uuid = UUID.fromString(str);
+            Assertions.assertEquals(uuid.toString(), str);
+            Assertions.assertEquals(4, uuid.version());
+            Assertions.assertEquals(2, uuid.variant());
+        }
+    }
+
     @Test @Disabled
     void parseStringField() {
     }
 
+    @TestFactory
+    @DisplayName("parseStringField with pattern")
+    Stream<DynamicTest> parsePatternField() {
+        final Schema schema = Schema.create(Schema.Type.STRING);
+        return Stream.of(
+            "[A-Z]{3}-\\d{6}",
+            "^\\w+(?:\\.\\w+)?@(gmail|example)\\.(com|org)$",
+            "[^,]{2,4},x?y*z+",
+            "(ab|c(d|e)){1,3}\\.\\[\\]",
+            "[-a-c\\d]+ .{0,3}",
+            "[a-z]{0,3000}(x{300}|y)"
+        ).map(pattern -> dynamicTest(pattern, () -> {
+            final Scanner scn = new Scanner(new MockInputStream(singletonList("pattern " + pattern)));
+            final Function<Random, Object> generator = MockerBuilderUtil.parseField(scn, "testPattern", schema);
+            final java.util.regex.Pattern expected = java.util.regex.Pattern.compile(pattern);
+            final Constraint constraint = MockerBuilderUtil.parseConstraint("pattern " + pattern, schema);
+            final Random random = new RecordRandom(42);
+
+            for (int i = 0; i < 10_000; i++) {
+                final String str = (String) generator.apply(random);
+                Assertions.assertTrue(expected.matcher(str).matches(), format(
+                    "Expected '%s' to match '%s'.", str, pattern));
+                Assertions.assertTrue(constraint.test(str));
+            }
+        }));
+    }
+
+    @Test
+    @DisplayName("parseStringField with weighted pattern")
+    void parseWeightedPatternField() {
+        final Schema schema = Schema.create(Schema.Type.STRING);
+        final Scanner scn = new Scanner(new MockInputStream(singletonList("pattern (a|b|c)<6,3,1>")));
+        final Function<Random, Object> generator = MockerBuilderUtil.parseField(scn, "testPattern", schema);
+        final Random random = new RecordRandom(42);
+
+        final int[] counts = new int[3];
+        final int samples = 100_000;
+        for (int i = 0; i < samples; i++) {
+            counts[((String) generator.apply(random)).charAt(0) - 'a']++;
+        }
+
+        Assertions.assertEquals(0.6, (double) counts[0] / samples, 0.01);
+        Assertions.assertEquals(0.3, (double) counts[1] / samples, 0.01);
+        Assertions.assertEquals(0.1, (double) counts[2] / samples, 0.01);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> PatternGenerator.compile("(a|b)<1,2,3>"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> PatternGenerator.compile("[a-"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> PatternGenerator.compile("a**"));
+    }
+
+    @Test
+    @DisplayName("parseStringField with text")
+    void parseTextField() {
+        final Schema schema = Schema.create(Schema.Type.STRING);
+        final Scanner scn = new Scanner(new MockInputStream(asList("text cities\n", "text lorem from 2 to 4\n")));
+        final Function<Random, Object> cities = MockerBuilderUtil.parseField(scn, "testCity", schema);
+        final Function<Random, Object> lorem = MockerBuilderUtil.parseField(scn, "testLorem", schema);
+        final RecordRandom random = new RecordRandom(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            random.seek(i);
+            final String city = (String) cities.apply(random);
+            Assertions.assertFalse(city.isEmpty());
+            Assertions.assertTrue(Character.isUpperCase(city.charAt(0)), city);
+
+            final String text = (String) lorem.apply(random);
+            Assertions.assertTrue(Character.isUpperCase(text.charAt(0)), text);
+            Assertions.assertTrue(text.indexOf(' ') > 0, text);
+
+            random.seek(i);
+            Assertions.assertEquals(city, cities.apply(random));
+        }
+
+        // Order 1 on a single sample can only reproduce the sample
+        final TextModel model = TextModel.compile(asList("# Test", "#!words 1", "a b c d"));
+        final byte[] buffer = new byte[model.maxLength()];
+        final int length = model.generate(random, buffer, 0);
+        Assertions.assertEquals("a b c d", new String(buffer, 0, length, StandardCharsets.ISO_8859_1));
+
+        // Too many samples for a string are asked for again
+        final Function<Random, Object> paragraph = MockerBuilderUtil.parseField(new Scanner(
+            "text lorem from 1 to 2000000000\ntext lorem from 500 to 501\n"), "testParagraph", schema);
+        for (int i = 0; i < 100; i++) {
+            random.seek(i);
+            final String text = (String) paragraph.apply(random);
+            Assertions.assertTrue(text.length() > 1000, "Expected 500 samples, got " + text.length() + " characters.");
+            random.seek(i);
+            Assertions.assertEquals(text, paragraph.apply(random));
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> TextModel.compile(asList("#!bytes 2", "abc")));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> TextModel.load("no-such-model"));
+    }
+
+    @Test
+    @DisplayName("parseField with series")
+    void parseSeriesField() {
+        final Schema timestamp = LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG));
+        final Scanner scn = new Scanner(new MockInputStream(asList(
+            "walk from 0 to 100 step 1.5 segment 1000\n",
+            "seasonal from 0 to 100 period 10\n",
+            "events from 2020-01-01 gap 1000 segment 1000\n",
+            "events from 2020-01-01 gap 1000 fixed late 0.1 lag 5000\n"
+        )));
+
+        final Function<Random, Object> walk = MockerBuilderUtil.parseField(scn, "testWalk", Schema.create(Schema.Type.DOUBLE));
+        final Function<Random, Object> seasonal = MockerBuilderUtil.parseField(scn, "testSeasonal", Schema.create(Schema.Type.INT));
+        final Function<Random, Object> events = MockerBuilderUtil.parseField(scn, "testEvents", timestamp);
+        final Function<Random, Object> late = MockerBuilderUtil.parseField(scn, "testLate", timestamp);
+        final RecordRandom random = new RecordRandom(42);
+        final long start = 1_577_836_800_000L;
+        final int count = 10_000;
+
+        final double[] walks = new double[count];
+        final long[] times = new long[count];
+        int lateCount = 0;
+        for (int i = 0; i < count; i++) {
+            random.seek(i);
+            walks[i] = (Double) walk.apply(random);
+            Assertions.assertTrue(walks[i] >= 0 && walks[i] <= 100, "Walk out of bounds: " + walks[i]);
+            if (i % 1000 != 0) {
+                Assertions.assertTrue(Math.abs(walks[i] - walks[i - 1]) <= 1.5, "Walk stepped too far at " + i);
+            }
+
+            final int season = (Integer) seasonal.apply(random);
+            Assertions.assertEquals((int) Math.round(50 + 50 * Math.sin(2 * Math.PI * (i % 10) / 10)), season);
+
+            times[i] = (Long) events.apply(random);
+            Assertions.assertTrue(times[i] >= start, "Event before start: " + times[i]);
+            if (i > 0) {
+                Assertions.assertTrue(times[i] >= times[i - 1], "Events not increasing at " + i);
+            }
+
+            final long time = (Long) late.apply(random);
+            Assertions.assertTrue(time <= start + i * 1000L && time >= start + i * 1000L - 5000,
+                "Unexpected time " + time + " at " + i);
+            if (time < start + i * 1000L) lateCount++;
+        }
+
+        Assertions.assertEquals(1000, (times[count - 1] - start) / count, 10);
+        Assertions.assertTrue(lateCount > 800 && lateCount < 1200, "Late events: " + lateCount);
+
+        // Any record can be generated again on its own, in any order
+        for (final int i : new int[] {7_777, 123, 5_000, 5_001, 999, 1000, 9_999}) {
+            random.seek(i);
+            Assertions.assertEquals(walks[i], walk.apply(random));
+            seasonal.apply(random);
+            Assertions.assertEquals(times[i], events.apply(random));
+        }
+
+        Assertions.assertTrue(MockerBuilderUtil.parseConstraint("walk from 0 to 100 step 1.5",
+            Schema.create(Schema.Type.DOUBLE)).test(100d));
+        Assertions.assertFalse(MockerBuilderUtil.parseConstraint("walk from 0 to 100 step 1.5",
+            Schema.create(Schema.Type.DOUBLE)).test(100.5));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> MockerBuilderUtil.parseConstraint("walk from 0 to 100", Schema.create(Schema.Type.DOUBLE)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> MockerBuilderUtil.parseConstraint("walk from 0 to 100 step 1", timestamp));
+    }
+
+    @Test
+    @DisplayName("parseField with repeat")
+    void parseRepeatField() {
+        final Schema nullable = SchemaBuilder.unionOf().nullType().and().longType().endUnion();
+        final Scanner scn = new Scanner(new MockInputStream(asList(
+            "rand from 0 to 1000000 repeat 0.9\n",
+            "rand from 10 to 11 repeat 0.75 prefix 4\n",
+            "0.5\n",
+            "repeat 0.5\n",
+            "incr\n"
+        )));
+
+        final Function<Random, Object> number = MockerBuilderUtil.parseField(scn, "testNumber", Schema.create(Schema.Type.INT));
+        final Function<Random, Object> text = MockerBuilderUtil.parseField(scn, "testText", Schema.create(Schema.Type.STRING));
+        final Function<Random, Object> optional = MockerBuilderUtil.parseField(scn, "testOptional", nullable);
+        final Function<Random, Object> key = MockerBuilderUtil.parseField(scn, "testKey", Schema.create(Schema.Type.LONG));
+        final RecordRandom random = new RecordRandom(42);
+        final int count = 100_000;
+
+        final int[] numbers = new int[count];
+        final String[] texts = new String[count];
+        int runs = 0, prefixes = 0;
+        for (int i = 0; i < count; i++) {
+            random.seek(i);
+            numbers[i] = (Integer) number.apply(random);
+            texts[i] = (String) text.apply(random);
+            optional.apply(random);
+            Assertions.assertEquals((long) i, key.apply(random), "The strategy after a repeated union is unaffected");
+
+            Assertions.assertEquals(10, texts[i].length());
+            if (i == 0 || numbers[i] != numbers[i - 1]) runs++;
+            if (i > 0 && texts[i].startsWith(texts[i - 1].substring(0, 4))) prefixes++;
+        }
+
+        // Runs are on average 1 / (1 - 0.9) records long
+        Assertions.assertEquals(10d, count / (double) runs, 0.5);
+        Assertions.assertEquals(0.75, prefixes / (double) count, 0.01);
+
+        // Any record can be generated again on its own, in any order
+        for (final int i : new int[] {77_777, 123, 50_000, 50_001, 4_096, 4_095, 99_999}) {
+            random.seek(i);
+            Assertions.assertEquals(numbers[i], number.apply(random));
+            Assertions.assertEquals(texts[i], text.apply(random));
+        }
+
+        Assertions.assertTrue(MockerBuilderUtil.parseConstraint("rand from 0 to 10 repeat 0.5",
+            Schema.create(Schema.Type.INT)).test(9));
+        Assertions.assertFalse(MockerBuilderUtil.parseConstraint("rand from 0 to 10 repeat 0.5",
+            Schema.create(Schema.Type.INT)).test(10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MockerBuilderUtil.parseField(
+            new Scanner("rand repeat 0.5 prefix 2\n"), "testNumber", Schema.create(Schema.Type.INT)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MockerBuilderUtil.parseField(
+            new Scanner("rand repeat 1.0\n"), "testNumber", Schema.create(Schema.Type.INT)));
+
+        // References are still found when their values are repeated
+        final Function<Random, Object> ref = MockerBuilderUtil.parseField(
+            new Scanner("ref Customer.id repeat 0.5\n"), "testRef", Schema.create(Schema.Type.LONG));
+        Assertions.assertTrue(Repeat.unwrap(ref) instanceof Reference);
+        Assertions.assertThrows(IllegalStateException.class,
+            () -> new MockerBuilder().withAction("testRef", ref).build());
+    }
+
     private final static class MockInputStream implements Readable {
 
         private final Iterator<String> it;
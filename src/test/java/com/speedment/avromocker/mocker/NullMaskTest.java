@@ -0,0 +1,65 @@
+package com.speedment.avromocker.mocker;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("NullMask")
+class NullMaskTest {
+
+    @Test
+    @DisplayName("next")
+    void next() {
+        // More than 64 lanes so that several words are used
+        final double[] probabilities = new double[150];
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] = (i % 11) / 10d; // 0.0, 0.1, ..., 1.0
+        }
+
+        final NullMask nulls = new NullMask(probabilities);
+        final long[] mask = new long[nulls.words()];
+        final Random random = new RecordRandom(7);
+
+        final int samples = 200_000;
+        final long[] counts = new long[probabilities.length];
+        for (int n = 0; n < samples; n++) {
+            nulls.next(random, mask);
+            for (int i = 0; i < probabilities.length; i++) {
+                if (NullMask.isNull(mask, i)) counts[i]++;
+            }
+        }
+
+        for (int i = 0; i < probabilities.length; i++) {
+            final double p = probabilities[i];
+            if (p == 0) {
+                Assertions.assertEquals(0, counts[i], "Lane " + i);
+            } else if (p == 1) {
+                Assertions.assertEquals(samples, counts[i], "Lane " + i);
+            } else {
+                final double tolerance = 5 * Math.sqrt(p * (1 - p) / samples);
+                Assertions.assertEquals(p, (double) counts[i] / samples, tolerance, "Lane " + i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("lanes are independent")
+    void independent() {
+        final NullMask nulls = new NullMask(new double[] {0.5, 0.5});
+        final long[] mask = new long[nulls.words()];
+        final Random random = new RecordRandom(7);
+
+        final int samples = 200_000;
+        long both = 0;
+        for (int n = 0; n < samples; n++) {
+            nulls.next(random, mask);
+            if (NullMask.isNull(mask, 0) && NullMask.isNull(mask, 1)) both++;
+        }
+
+        Assertions.assertEquals(0.25, (double) both / samples, 5 * Math.sqrt(0.25 * 0.75 / samples));
+    }
+}
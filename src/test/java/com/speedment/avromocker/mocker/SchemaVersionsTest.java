@@ -0,0 +1,124 @@
+package com.speedment.avromocker.mocker;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.SchemaCompatibility.SchemaCompatibilityType;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("SchemaVersions")
+class SchemaVersionsTest {
+
+    private final static Schema V1 = SchemaBuilder.record("Customer").fields()
+        .requiredInt("id")
+        .requiredString("name")
+        .requiredFloat("score")
+        .endRecord();
+
+    // Widens id and score and adds email
+    private final static Schema V2 = SchemaBuilder.record("Customer").fields()
+        .requiredLong("id")
+        .requiredString("name")
+        .requiredDouble("score")
+        .optionalString("email")
+        .endRecord();
+
+    // Removes score and adds visits
+    private final static Schema V3 = SchemaBuilder.record("Customer").fields()
+        .requiredLong("id")
+        .requiredString("name")
+        .optionalString("email")
+        .name("visits").type().longType().longDefault(0)
+        .endRecord();
+
+    @Test
+    @DisplayName("Plan over the union of fields")
+    void plan() {
+        final SchemaVersions versions = new SchemaVersions(Arrays.asList(V1, V2, V3));
+        final Schema plan = versions.getPlan();
+        Assertions.assertEquals(Arrays.asList("id", "name", "score", "email", "visits"),
+            Arrays.asList(plan.getFields().stream().map(Schema.Field::name).toArray()));
+        Assertions.assertEquals(Schema.Type.INT, plan.getField("id").schema().getType());
+        Assertions.assertEquals(Schema.Type.FLOAT, plan.getField("score").schema().getType());
+
+        Assertions.assertEquals(SchemaCompatibilityType.COMPATIBLE, versions.compatibility(1, 0));
+        Assertions.assertEquals(SchemaCompatibilityType.COMPATIBLE, versions.compatibility(2, 0));
+        Assertions.assertEquals(SchemaCompatibilityType.INCOMPATIBLE, versions.compatibility(0, 1));
+
+        final Schema incompatible = SchemaBuilder.record("Customer").fields()
+            .requiredInt("name")
+            .endRecord();
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new SchemaVersions(Arrays.asList(V1, incompatible)));
+    }
+
+    @Test
+    @DisplayName("Versions contain the same logical rows")
+    void project() throws IOException {
+        final List<Schema> schemas = Arrays.asList(V1, V2, V3);
+        final SchemaVersions versions = new SchemaVersions(schemas);
+        final Mocker mocker = new MockerBuilder()
+            .withSeed(42)
+            .withAction("id", Random::nextInt)
+            .withAction("name", r -> "name" + r.nextInt(100))
+            .withAction("score", Random::nextFloat)
+            .withAction("email", r -> r.nextBoolean() ? null : "user" + r.nextInt(100) + "@example.com")
+            .withAction("visits", r -> (long) r.nextInt(1000))
+            .build();
+
+        final GenericRecord record = new GenericData.Record(versions.getPlan());
+        for (int i = 0; i < 1_000; i++) {
+            mocker.mock(record, i);
+            final GenericRecord[] written = new GenericRecord[schemas.size()];
+            for (int v = 0; v < schemas.size(); v++) {
+                written[v] = versions.project(record, v, new GenericData.Record(schemas.get(v)));
+            }
+
+            Assertions.assertEquals(((Integer) record.get("id")).longValue(), written[2].get("id"));
+            Assertions.assertEquals(((Float) record.get("score")).doubleValue(), written[1].get("score"));
+
+            // Reading a version with any later version gives the later record,
+            // except for the fields that are not in the earlier version
+            for (int writer = 0; writer < schemas.size(); writer++) {
+                for (int reader = writer; reader < schemas.size(); reader++) {
+                    final GenericRecord read = resolve(written[writer], schemas.get(writer), schemas.get(reader));
+                    for (final Schema.Field field : schemas.get(reader).getFields()) {
+                        if (schemas.get(writer).getField(field.name()) != null) {
+                            Assertions.assertEquals(text(written[reader].get(field.name())), text(read.get(field.name())),
+                                "Field " + field.name() + " of v" + (writer + 1) + " read as v" + (reader + 1));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Object text(Object value) {
+        return value instanceof CharSequence ? value.toString() : value;
+    }
+
+    private static GenericRecord resolve(GenericRecord record, Schema writer, Schema reader) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(writer).write(record, encoder);
+        encoder.flush();
+        return new GenericDatumReader<GenericRecord>(writer, reader).read(null,
+            DecoderFactory.get().binaryDecoder(out.toByteArray(), null));
+    }
+}
@@ -0,0 +1,126 @@
+package com.speedment.avromocker.output;
+
+import com.speedment.avromocker.mocker.Mocker;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import com.speedment.avromocker.mocker.MockerBuilderUtil;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("Checkpoint")
+class CheckpointTest {
+
+    private final static Schema SCHEMA = SchemaBuilder.record("Test").fields()
+        .requiredLong("id")
+        .requiredString("name")
+        .optionalLong("amount")
+        .endRecord();
+
+    private final static long SEED  = 42;
+    private final static int  TOTAL = 30_000;
+
+    @Test
+    @DisplayName("Resumed after garbage past the checkpoint")
+    void resumed() throws IOException {
+        final long fingerprint = SchemaNormalization.parsingFingerprint64(SCHEMA);
+
+        final File uninterrupted = File.createTempFile("uninterrupted", ".avro");
+        uninterrupted.deleteOnExit();
+        try (final Sink sink = new AvroFileSink(SCHEMA, uninterrupted)) {
+            generate(sink, 0, TOTAL);
+        }
+
+        // Interrupted after a checkpoint, leaving a partial block behind
+        final File file = File.createTempFile("interrupted", ".avro");
+        final File checkpointFile = Checkpoint.fileFor(file);
+        file.deleteOnExit();
+        checkpointFile.deleteOnExit();
+        try (final Sink sink = new AvroFileSink(SCHEMA, file)) {
+            generate(sink, 0, 12_345);
+            new Checkpoint(SEED, fingerprint, 0, TOTAL, 12_345, sink.sync()).write(checkpointFile);
+        }
+
+        appendGarbage(file);
+
+        final Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+        checkpoint.validate(SEED, fingerprint, TOTAL);
+        Assertions.assertEquals(12_345L, checkpoint.getIndex());
+        Assertions.assertTrue(checkpoint.getPosition() < file.length());
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> checkpoint.validate(SEED + 1, fingerprint, TOTAL));
+
+        // Interrupted again after a checkpoint of the resumed run
+        try (final Sink sink = AvroFileSink.resume(SCHEMA, file, checkpoint.getPosition())) {
+            generate(sink, checkpoint.getIndex(), 20_000);
+            final long position = sink.sync();
+            Assertions.assertEquals(file.length(), position, "Positions are counted from the start of the file");
+            new Checkpoint(SEED, fingerprint, 0, TOTAL, 20_000, position).write(checkpointFile);
+        }
+
+        appendGarbage(file);
+
+        final Checkpoint second = Checkpoint.read(checkpointFile);
+        try (final Sink sink = AvroFileSink.resume(SCHEMA, file, second.getPosition(), 1 << 12)) {
+            generate(sink, second.getIndex(), second.getTotal());
+        }
+
+        final List<GenericRecord> expected = read(uninterrupted);
+        final List<GenericRecord> actual = read(file);
+        Assertions.assertEquals(TOTAL, actual.size());
+        for (int i = 0; i < TOTAL; i++) {
+            Assertions.assertEquals(0, GenericData.get().compare(expected.get(i), actual.get(i), SCHEMA),
+                "Record #" + i + " differs: " + expected.get(i) + " != " + actual.get(i));
+        }
+    }
+
+    private static void appendGarbage(File file) throws IOException {
+        final byte[] garbage = new byte[10_000];
+        new Random(file.length()).nextBytes(garbage);
+        try (final OutputStream out = new FileOutputStream(file, true)) {
+            out.write(garbage);
+        }
+    }
+
+    private static void generate(Sink sink, long from, long to) throws IOException {
+        final Scanner scn = new Scanner("incr\npattern [a-z]{4,16}\n0.2\nrand from 0 to 1000000\n");
+        final MockerBuilder builder = new MockerBuilder().withSeed(SEED);
+        for (final Schema.Field field : SCHEMA.getFields()) {
+            builder.withAction(field.name(), MockerBuilderUtil.parseField(scn, field.name(), field.schema()));
+        }
+
+        final Mocker mocker = builder.build();
+        final GenericRecord record = new GenericData.Record(SCHEMA);
+        for (long i = from; i < to; i++) {
+            sink.append(mocker.mock(record, i));
+        }
+    }
+
+    private static List<GenericRecord> read(File file) throws IOException {
+        final List<GenericRecord> records = new ArrayList<>(TOTAL);
+        try (final DataFileReader<GenericRecord> reader =
+                 new DataFileReader<>(file, new GenericDatumReader<>(SCHEMA))) {
+            for (final GenericRecord record : reader) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,123 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.*;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("FramedSink")
+class FramedSinkTest {
+
+    private final static Schema SCHEMA = SchemaBuilder.record("Test").fields()
+        .requiredLong("id")
+        .optionalString("comment")
+        .endRecord();
+
+    private final static int SCHEMA_ID = 0x01020304;
+
+    @Test
+    @DisplayName("Length-prefixed messages in a file")
+    void file() throws IOException {
+        final File file = File.createTempFile("framed", ".bin");
+        file.deleteOnExit();
+
+        try (final Sink sink = FramedSink.file(SCHEMA, SCHEMA_ID, file, 0)) {
+            append(sink, 20_000);
+        }
+
+        try (final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            Assertions.assertEquals(20_000L, consume(in));
+        }
+    }
+
+    @Test
+    @DisplayName("Length-prefixed messages over a socket")
+    void socket() throws Exception {
+        final int messages = 200_000;
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (final ServerSocket server = new ServerSocket(0)) {
+            final Future<Long> consumer = executor.submit(() -> {
+                try (final Socket socket = server.accept();
+                     final DataInputStream in = new DataInputStream(
+                         new BufferedInputStream(socket.getInputStream(), 1 << 16))) {
+                    return consume(in);
+                }
+            });
+
+            final long started = System.nanoTime();
+            try (final FramedSink sink = FramedSink.socket(
+                    SCHEMA, SCHEMA_ID, "localhost", server.getLocalPort())) {
+                append(sink, messages);
+                Assertions.assertEquals(messages, sink.getMessages());
+            }
+
+            Assertions.assertEquals(messages, (long) consumer.get(1, TimeUnit.MINUTES));
+            System.out.format("Consumed %,d messages at %,.0f messages/s%n", messages,
+                messages * 1e9 / (System.nanoTime() - started));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void append(Sink sink, int count) throws IOException {
+        final GenericRecord record = new GenericData.Record(SCHEMA);
+        for (int i = 0; i < count; i++) {
+            record.put("id", (long) i);
+            record.put("comment", i % 3 == 0 ? null : "comment #" + i);
+            sink.append(record);
+        }
+    }
+
+    /**
+     * Reads messages like a consumer would until the end of the stream,
+     * checking the framing and the content of every message.
+     */
+    private static long consume(DataInputStream in) throws IOException {
+        final GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA);
+        byte[] buffer = new byte[0];
+        BinaryDecoder decoder = null;
+        GenericRecord record = null;
+        long i = 0;
+
+        while (true) {
+            final int length;
+            try {
+                length = in.readInt();
+            } catch (final EOFException ex) {
+                return i;
+            }
+
+            Assertions.assertTrue(length >= FramedSink.HEADER_SIZE, "Message is shorter than the header.");
+            if (buffer.length < length) buffer = new byte[length];
+            in.readFully(buffer, 0, length);
+
+            Assertions.assertEquals(FramedSink.MAGIC_BYTE, buffer[0]);
+            Assertions.assertEquals(SCHEMA_ID, (buffer[1] & 0xff) << 24 | (buffer[2] & 0xff) << 16
+                | (buffer[3] & 0xff) << 8 | buffer[4] & 0xff);
+
+            decoder = DecoderFactory.get().binaryDecoder(
+                buffer, FramedSink.HEADER_SIZE, length - FramedSink.HEADER_SIZE, decoder);
+            record = reader.read(record, decoder);
+            Assertions.assertTrue(decoder.isEnd(), "Message has trailing bytes.");
+
+            Assertions.assertEquals(i, record.get("id"));
+            Assertions.assertEquals(i % 3 == 0 ? null : "comment #" + i,
+                record.get("comment") == null ? null : record.get("comment").toString());
+            i++;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("ParallelAvroSink")
+class ParallelAvroSinkTest {
+
+    private final static Schema SCHEMA = SchemaBuilder.record("Test").fields()
+        .requiredLong("id")
+        .optionalString("comment")
+        .endRecord();
+
+    @Test
+    @DisplayName("Readable by DataFileReader")
+    void readable() throws IOException {
+        for (final CodecFactory codec : new CodecFactory[] {
+                CodecFactory.nullCodec(),
+                CodecFactory.deflateCodec(1),
+                CodecFactory.snappyCodec()}) {
+
+            final File file = File.createTempFile("parallel", ".avro");
+            file.deleteOnExit();
+
+            try (final Sink sink = ParallelAvroSink.create(SCHEMA, file, codec, 4, 1024, 0, 0)) {
+                append(sink, 0, 50_000);
+            }
+
+            assertRecords(file, 50_000);
+        }
+    }
+
+    @Test
+    @DisplayName("Resumed after sync")
+    void resumed() throws IOException {
+        final File file = File.createTempFile("parallel", ".avro");
+        file.deleteOnExit();
+
+        final long position;
+        try (final Sink sink = ParallelAvroSink.create(
+                SCHEMA, file, CodecFactory.deflateCodec(1), 3, 4096, 1 << 16, 0)) {
+            append(sink, 0, 12_345);
+            position = sink.sync();
+            Assertions.assertEquals(position, file.length());
+            append(sink, 12_345, 20_000);
+        }
+
+        try (final Sink sink = AvroFileSink.resume(SCHEMA, file, position)) {
+            append(sink, 12_345, 30_000);
+        }
+
+        assertRecords(file, 30_000);
+    }
+
+    private static void append(Sink sink, int from, int to) throws IOException {
+        final GenericRecord record = new GenericData.Record(SCHEMA);
+        for (int i = from; i < to; i++) {
+            record.put("id", (long) i);
+            record.put("comment", i % 3 == 0 ? null : "comment #" + i);
+            sink.append(record);
+        }
+    }
+
+    private static void assertRecords(File file, int count) throws IOException {
+        try (final DataFileReader<GenericRecord> reader =
+                 new DataFileReader<>(file, new GenericDatumReader<>(SCHEMA))) {
+            int i = 0;
+            for (final GenericRecord record : reader) {
+                Assertions.assertEquals((long) i, record.get("id"));
+                Assertions.assertEquals(i % 3 == 0 ? null : "comment #" + i,
+                    record.get("comment") == null ? null : record.get("comment").toString());
+                i++;
+            }
+            Assertions.assertEquals(count, i);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.speedment.avromocker.output;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("PartitionedSink")
+class PartitionedSinkTest {
+
+    private final static Schema SCHEMA = SchemaBuilder.record("Test").fields()
+        .requiredLong("id")
+        .requiredString("dt")
+        .optionalString("region")
+        .requiredString("name")
+        .endRecord();
+
+    private final static String[] DATES   = {"2017-01-01", "2017-01-02", "2017-01-03", "2017-01-04"};
+    private final static String[] REGIONS = {"EU", "a/b", "x=y", "50%", null};
+
+    private final static int COUNT = 20_000;
+
+    @Test
+    @DisplayName("Partitions read back")
+    void partitions() throws IOException {
+        final File directory = Files.createTempDirectory("partitioned").toFile();
+        directory.deleteOnExit();
+
+        // More partitions than open writers and small buffers, so that files
+        // are closed and reopened for appending many times
+        try (final Sink sink = new PartitionedSink(SCHEMA, directory,
+                asList("dt", "region"), 3, 1 << 9, 1 << 13)) {
+            final GenericRecord record = new GenericData.Record(SCHEMA);
+            for (int i = 0; i < COUNT; i++) {
+                record.put("id", (long) i);
+                record.put("dt", DATES[i % DATES.length]);
+                record.put("region", REGIONS[i / DATES.length % REGIONS.length]);
+                record.put("name", "name #" + i);
+                sink.append(record);
+            }
+        }
+
+        final Set<String> dates = new TreeSet<>();
+        for (final File dt : listFiles(directory)) {
+            dates.add(dt.getName());
+
+            final Set<String> regions = new TreeSet<>();
+            for (final File region : listFiles(dt)) {
+                regions.add(region.getName());
+            }
+
+            Assertions.assertEquals(new TreeSet<>(asList(
+                "region=EU", "region=a%2Fb", "region=x%3Dy", "region=50%25",
+                "region=__HIVE_DEFAULT_PARTITION__")), regions, dt.getName());
+        }
+
+        Assertions.assertEquals(new TreeSet<>(asList(
+            "dt=2017-01-01", "dt=2017-01-02", "dt=2017-01-03", "dt=2017-01-04")), dates);
+
+        final BitSet seen = new BitSet(COUNT);
+        for (int d = 0; d < DATES.length; d++) {
+            for (int r = 0; r < REGIONS.length; r++) {
+                final File file = new File(directory, "dt=" + DATES[d] + File.separator
+                    + "region=" + escaped(REGIONS[r]) + File.separator + "part-00000.avro");
+
+                final Set<Long> blocks = new HashSet<>();
+                try (final DataFileReader<GenericRecord> reader =
+                         new DataFileReader<>(file, new GenericDatumReader<>())) {
+                    Assertions.assertEquals(asList("id", "name"), fieldNames(reader.getSchema()),
+                        "Partition fields are given by the path");
+
+                    for (final GenericRecord record : reader) {
+                        final int id = (int) (long) (Long) record.get("id");
+                        Assertions.assertFalse(seen.get(id), "Record #" + id + " is written twice.");
+                        seen.set(id);
+
+                        Assertions.assertEquals(d, id % DATES.length, "Record #" + id + " has the wrong dt.");
+                        Assertions.assertEquals(r, id / DATES.length % REGIONS.length,
+                            "Record #" + id + " has the wrong region.");
+                        Assertions.assertEquals("name #" + id, record.get("name").toString());
+                        blocks.add(reader.previousSync());
+                    }
+                }
+
+                Assertions.assertTrue(blocks.size() > 1, file + " was only written once.");
+            }
+        }
+
+        Assertions.assertEquals(COUNT, seen.cardinality());
+    }
+
+    private static String escaped(String region) {
+        if (region == null) return "__HIVE_DEFAULT_PARTITION__";
+        switch (region) {
+            case "a/b" : return "a%2Fb";
+            case "x=y" : return "x%3Dy";
+            case "50%" : return "50%25";
+            default    : return region;
+        }
+    }
+
+    private static List<File> listFiles(File directory) {
+        final File[] files = directory.listFiles();
+        Assertions.assertNotNull(files, directory + " is not a directory.");
+        for (final File file : files) {
+            file.deleteOnExit();
+            if (file.isDirectory()) {
+                final File[] children = file.listFiles();
+                if (children != null) {
+                    for (final File child : children) child.deleteOnExit();
+                }
+            }
+        }
+        return asList(files);
+    }
+
+    private static List<String> fieldNames(Schema schema) {
+        final List<String> names = new ArrayList<>();
+        for (final Schema.Field field : schema.getFields()) {
+            names.add(field.name());
+        }
+        return names;
+    }
+}
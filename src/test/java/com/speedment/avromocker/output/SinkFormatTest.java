@@ -0,0 +1,131 @@
+package com.speedment.avromocker.output;
+
+import com.speedment.avromocker.mocker.Mocker;
+import com.speedment.avromocker.mocker.MockerBuilder;
+import com.speedment.avromocker.mocker.MockerBuilderUtil;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("Output formats")
+class SinkFormatTest {
+
+    private final static Schema SCHEMA = SchemaBuilder.record("Test").fields()
+        .requiredLong("id")
+        .requiredString("name")
+        .requiredDouble("amount")
+        .optionalString("comment")
+        .endRecord();
+
+    private final static int COUNT = 10_000;
+
+    @Test
+    @DisplayName("JSON read back")
+    void json() throws IOException {
+        final List<GenericRecord> expected = generate();
+        final File file = File.createTempFile("sink", ".json");
+        file.deleteOnExit();
+
+        write(EncoderSink.json(SCHEMA, file, 0), expected);
+
+        final GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA);
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        Assertions.assertEquals(COUNT, lines.size());
+        for (int i = 0; i < COUNT; i++) {
+            assertRecord(expected.get(i), reader.read(null,
+                DecoderFactory.get().jsonDecoder(SCHEMA, lines.get(i))), i);
+        }
+    }
+
+    @Test
+    @DisplayName("Binary read back")
+    void binary() throws IOException {
+        final List<GenericRecord> expected = generate();
+        final File file = File.createTempFile("sink", ".bin");
+        file.deleteOnExit();
+
+        write(EncoderSink.binary(SCHEMA, file, 1 << 12), expected);
+
+        final GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA);
+        try (final InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            final BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(in, null);
+            for (int i = 0; i < COUNT; i++) {
+                assertRecord(expected.get(i), reader.read(null, decoder), i);
+            }
+            Assertions.assertTrue(decoder.isEnd(), "Expected no more records.");
+        }
+    }
+
+    @Test
+    @DisplayName("Columnar read back")
+    void columnar() throws IOException {
+        final List<GenericRecord> expected = generate();
+        final File directory = Files.createTempDirectory("columnar").toFile();
+        directory.deleteOnExit();
+
+        write(new ColumnarSink(SCHEMA, directory), expected);
+
+        for (final Schema.Field field : SCHEMA.getFields()) {
+            final File file = new File(directory, field.name() + ".avro");
+            file.deleteOnExit();
+
+            try (final DataFileReader<Object> reader =
+                     new DataFileReader<>(file, new GenericDatumReader<>(field.schema()))) {
+                Assertions.assertEquals(field.schema(), reader.getSchema());
+                int i = 0;
+                for (final Object value : reader) {
+                    Assertions.assertEquals(0, GenericData.get().compare(
+                        expected.get(i).get(field.pos()), value, field.schema()), field.name() + " #" + i);
+                    i++;
+                }
+                Assertions.assertEquals(COUNT, i);
+            }
+        }
+    }
+
+    private static List<GenericRecord> generate() {
+        final Scanner scn = new Scanner(
+            "incr\npattern [a-z]{3,12}\nrand from 0 to 1000\n0.3\npattern [A-Z ]{0,40}\n");
+        final MockerBuilder builder = new MockerBuilder().withSeed(42);
+        for (final Schema.Field field : SCHEMA.getFields()) {
+            builder.withAction(field.name(), MockerBuilderUtil.parseField(scn, field.name(), field.schema()));
+        }
+
+        final Mocker mocker = builder.build();
+        final List<GenericRecord> records = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            records.add(mocker.mock(new GenericData.Record(SCHEMA), i));
+        }
+        return records;
+    }
+
+    private static void write(Sink sink, List<GenericRecord> records) throws IOException {
+        try (final Sink closing = sink) {
+            for (final GenericRecord record : records) {
+                closing.append(record);
+            }
+        }
+    }
+
+    private static void assertRecord(GenericRecord expected, GenericRecord actual, int index) {
+        Assertions.assertEquals(0, GenericData.get().compare(expected, actual, SCHEMA),
+            "Record #" + index + " differs: " + expected + " != " + actual);
+    }
+}
@@ -0,0 +1,94 @@
+package com.speedment.avromocker.profile;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("Profiler")
+class ProfilerTest {
+
+    private final static int TOTAL = 200_000;
+
+    private final static Schema SCHEMA = SchemaBuilder.record("Test").fields()
+        .requiredLong("id")
+        .requiredInt("category")
+        .optionalString("comment")
+        .endRecord();
+
+    @Test
+    @DisplayName("profile")
+    void profile() throws IOException {
+        final File file = createFile();
+
+        // Use several threads to make sure every block is visited exactly once
+        final Profile profile = Profiler.profile(file, 4);
+        Assertions.assertEquals(TOTAL, profile.getCount());
+
+        final FieldProfile id = profile.getFields().get(0);
+        Assertions.assertEquals(TOTAL, id.getCount());
+        Assertions.assertEquals(TOTAL, id.getCardinality(), TOTAL * 0.03);
+
+        final FieldProfile comment = profile.getFields().get(2);
+        Assertions.assertEquals(0.1, comment.getNullRate(), 0.0001);
+        Assertions.assertEquals(900, comment.getCardinality(), 900 * 0.03);
+
+        final List<String> settings = profile.toSettings(100);
+        Assertions.assertEquals("100", settings.get(0));
+        Assertions.assertEquals("rand from 0 to " + TOTAL, settings.get(1));
+        Assertions.assertEquals("rand in 3, 3, 3, 7", settings.get(2));
+        Assertions.assertEquals("0.1", settings.get(3));
+        Assertions.assertEquals("rand from 10 to 13", settings.get(4));
+    }
+
+    @Test
+    @DisplayName("verify")
+    void verify() throws IOException {
+        final File file = createFile();
+
+        final Verification passing = Profiler.verify(file, Spec.parse(SCHEMA, asList(
+            "N", Integer.toString(TOTAL), "rand to 200000", "in 3, 7", "0.1", "rand from 9 to 14")), 4);
+        Assertions.assertEquals(TOTAL, passing.getCount());
+        Assertions.assertTrue(passing.passed());
+
+        final Verification outOfRange = Profiler.verify(file, Spec.parse(SCHEMA, asList(
+            Integer.toString(TOTAL), "rand to 100000", "in 3, 7", "0.1", "rand from 9 to 14")), 4);
+        Assertions.assertFalse(outOfRange.passed());
+
+        final Verification wrongNullRate = Profiler.verify(file, Spec.parse(SCHEMA, asList(
+            Integer.toString(TOTAL), "rand to 200000", "in 3, 7", "0.12", "rand from 9 to 14")), 4);
+        Assertions.assertFalse(wrongNullRate.passed());
+    }
+
+    private static File createFile() throws IOException {
+        final File file = File.createTempFile("profiler", ".avro");
+        file.deleteOnExit();
+
+        try (final DataFileWriter<GenericRecord> writer =
+                 new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA))) {
+            writer.create(SCHEMA, file);
+            final GenericRecord record = new GenericData.Record(SCHEMA);
+            for (int i = 0; i < TOTAL; i++) {
+                record.put("id", (long) i);
+                record.put("category", i % 4 == 0 ? 7 : 3);
+                record.put("comment", i % 10 == 0 ? null : "comment #" + (i % 1000));
+                writer.append(record);
+            }
+        }
+
+        return file;
+    }
+}
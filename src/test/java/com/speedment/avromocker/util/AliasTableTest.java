@@ -0,0 +1,55 @@
+package com.speedment.avromocker.util;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("AliasTable")
+class AliasTableTest {
+
+    @Test
+    @DisplayName("next")
+    void next() {
+        final double[] weights = {5, 0, 1, 2, 0.5, 1.5};
+        final AliasTable table = new AliasTable(weights);
+        final Random random = new Random(1);
+
+        final int samples = 1_000_000;
+        final long[] counts = new long[weights.length];
+        for (int i = 0; i < samples; i++) {
+            counts[table.next(random)]++;
+        }
+
+        for (int i = 0; i < weights.length; i++) {
+            final double p = weights[i] / 10;
+            if (p == 0) {
+                Assertions.assertEquals(0, counts[i], "Weight " + i);
+            } else {
+                final double tolerance = 5 * Math.sqrt(p * (1 - p) / samples);
+                Assertions.assertEquals(p, (double) counts[i] / samples, tolerance, "Weight " + i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("next with a single weight")
+    void single() {
+        final AliasTable table = new AliasTable(3);
+        final Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(0, table.next(random));
+        }
+    }
+
+    @Test
+    @DisplayName("invalid weights")
+    void invalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AliasTable());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AliasTable(0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AliasTable(1, -1));
+    }
+}
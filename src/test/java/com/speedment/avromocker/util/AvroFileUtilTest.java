@@ -0,0 +1,62 @@
+package com.speedment.avromocker.util;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("AvroFileUtil")
+class AvroFileUtilTest {
+
+    private final static Schema SCHEMA = SchemaBuilder.record("Test").fields()
+        .requiredLong("id")
+        .optionalString("comment")
+        .endRecord();
+
+    @Test
+    @DisplayName("count")
+    void count() throws IOException {
+        final File file = File.createTempFile("count", ".avro");
+        file.deleteOnExit();
+
+        write(file, 0, false);
+        Assertions.assertEquals(0, AvroFileUtil.count(file));
+
+        write(file, 12_345, true);
+        Assertions.assertEquals(12_345, AvroFileUtil.count(file));
+
+        write(file, 100_000, true);
+        Assertions.assertEquals(112_345, AvroFileUtil.count(file));
+    }
+
+    private static void write(File file, int count, boolean append) throws IOException {
+        try (final DataFileWriter<GenericRecord> writer =
+                 new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA))) {
+            if (append) {
+                writer.appendTo(file);
+            } else {
+                writer.setCodec(CodecFactory.deflateCodec(1));
+                writer.setSyncInterval(1024);
+                writer.create(SCHEMA, file);
+            }
+
+            final GenericRecord record = new GenericData.Record(SCHEMA);
+            for (int i = 0; i < count; i++) {
+                record.put("id", (long) i);
+                record.put("comment", i % 3 == 0 ? null : "comment #" + i);
+                writer.append(record);
+            }
+        }
+    }
+}
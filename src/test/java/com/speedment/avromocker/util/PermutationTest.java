@@ -0,0 +1,35 @@
+package com.speedment.avromocker.util;
+
+import org.junit.jupiter.api.*;
+
+import java.util.BitSet;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * @author Emil Forslund
+ * @since 1.0.0
+ */
+@DisplayName("Permutation")
+class PermutationTest {
+
+    @TestFactory
+    @DisplayName("apply")
+    Stream<DynamicTest> apply() {
+        return LongStream.of(1, 2, 3, 10, 1000, 65_536, 100_003)
+            .mapToObj(size -> dynamicTest("size " + size, () -> {
+                final Permutation permutation = new Permutation(size, 42);
+                final BitSet seen = new BitSet((int) size);
+                for (long i = 0; i < size; i++) {
+                    final long value = permutation.apply(i);
+                    Assertions.assertTrue(value >= 0 && value < size,
+                        "Value " + value + " is outside range.");
+                    Assertions.assertFalse(seen.get((int) value),
+                        "Value " + value + " was produced twice.");
+                    seen.set((int) value);
+                }
+            }));
+    }
+}